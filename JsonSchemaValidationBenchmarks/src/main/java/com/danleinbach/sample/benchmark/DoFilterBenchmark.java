@@ -0,0 +1,70 @@
+package com.danleinbach.sample.benchmark;
+
+import com.danleinbach.sample.filter.JsonSchemaValidationFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end cost of {@link JsonSchemaValidationFilter#doFilter} for bodies from 1 KB to 10 MB, valid
+ * and invalid, with tree and streaming body validation.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DoFilterBenchmark {
+
+	@Param({"1024", "102400", "1048576", "10485760"})
+	private int bodySize;
+
+	@Param({"true", "false"})
+	private boolean valid;
+
+	@Param({"tree", "streaming"})
+	private String bodyValidation;
+
+	private JsonSchemaValidationFilter filter;
+	private byte[] body;
+
+	private final FilterChain filterChain = new FilterChain() {
+		@Override
+		public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setUp() throws ServletException {
+		MockFilterConfig filterConfig = new MockFilterConfig();
+		filterConfig.addInitParameter("body-validation", bodyValidation);
+		filterConfig.addInitParameter("preload-schemas", "true");
+		filter = new JsonSchemaValidationFilter();
+		filter.init(filterConfig);
+		body = Payloads.items(bodySize, valid);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		filter.destroy();
+	}
+
+	@Benchmark
+	public MockHttpServletResponse doFilter() throws IOException, ServletException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(Payloads.request(Payloads.ITEMS_URI, body), response, filterChain);
+		return response;
+	}
+}
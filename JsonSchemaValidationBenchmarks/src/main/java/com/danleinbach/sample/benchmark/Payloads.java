@@ -0,0 +1,101 @@
+package com.danleinbach.sample.benchmark;
+
+import com.danleinbach.sample.wrapper.ServletInputStreamImpl;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Request bodies and requests shared by the benchmarks. Bodies match the schema under
+ * <code>bench/items/POST/body.json</code>.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+final class Payloads {
+
+	static final String ITEMS_URI = "/app/bench/items";
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private Payloads() {
+	}
+
+	/**
+	 * Build an items document of roughly the given size.
+	 *
+	 * @param bytes Approximate size of the document
+	 * @param valid Whether the document should pass validation, an invalid document has a bad last item
+	 * @return Document bytes
+	 */
+	static byte[] items(int bytes, boolean valid) {
+		StringBuilder body = new StringBuilder(bytes + 128).append("{\"items\":[");
+		int id = 0;
+		do {
+			if(id > 0) {
+				body.append(',');
+			}
+			body.append("{\"id\":").append(id).append(",\"name\":\"item-").append(id)
+					.append("\",\"tags\":[\"alpha\",\"beta\",\"gamma\"]}");
+			id++;
+		} while(body.length() < bytes);
+
+		if(! valid) {
+			body.append(",{\"id\":-1,\"name\":42,\"extra\":true}");
+		}
+		return body.append("]}").toString().getBytes(UTF_8);
+	}
+
+	/**
+	 * Create a POST request for a body. The body is replayed through a bulk reading stream, so the
+	 * benchmarks measure the filter rather than the mock request, which also predates the servlet 3
+	 * methods the filter calls.
+	 *
+	 * @param uri  Request uri
+	 * @param body Request body
+	 * @return New request that has not been read yet
+	 */
+	static HttpServletRequest request(String uri, final byte[] body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+		request.setContentType("application/json");
+		return new HttpServletRequestWrapper(request) {
+			private final ServletInputStream inputStream = new ServletInputStreamImpl(new ByteArrayInputStream(body));
+
+			@Override
+			public ServletInputStream getInputStream() {
+				return inputStream;
+			}
+
+			@Override
+			public int getContentLength() {
+				return body.length;
+			}
+
+			@Override
+			public long getContentLengthLong() {
+				return body.length;
+			}
+
+			@Override
+			public DispatcherType getDispatcherType() {
+				return DispatcherType.REQUEST;
+			}
+
+			@Override
+			public boolean isAsyncSupported() {
+				return false;
+			}
+
+			@Override
+			public boolean isAsyncStarted() {
+				return false;
+			}
+		};
+	}
+}
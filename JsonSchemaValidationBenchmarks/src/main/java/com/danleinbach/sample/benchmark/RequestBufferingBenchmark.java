@@ -0,0 +1,61 @@
+package com.danleinbach.sample.benchmark;
+
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import com.danleinbach.sample.wrapper.BufferPool;
+import com.danleinbach.sample.wrapper.ReloadableHttpServletRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of buffering a request body in a {@link ReloadableHttpServletRequest} and replaying it once,
+ * with heap, direct and unpooled chunks.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestBufferingBenchmark {
+
+	@Param({"1024", "102400", "1048576", "10485760"})
+	private int bodySize;
+
+	@Param({"unpooled", "heap", "direct"})
+	private String pool;
+
+	private BufferPool bufferPool;
+	private byte[] body;
+	private final byte[] readBuffer = new byte[8192];
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if("unpooled".equals(pool)) {
+			bufferPool = BufferPool.UNPOOLED;
+		}
+		else {
+			bufferPool = new BufferPool(bodySize / BufferPool.CHUNK_SIZE + 1, "direct".equals(pool));
+		}
+		body = Payloads.items(bodySize, true);
+	}
+
+	@Benchmark
+	public void bufferAndReplay(Blackhole blackhole) throws IOException, RequestBodyTooLarge {
+		ReloadableHttpServletRequest request = new ReloadableHttpServletRequest(
+				Payloads.request(Payloads.ITEMS_URI, body), - 1, bufferPool);
+		InputStream inputStream = request.getInputStream();
+		int read;
+		while((read = inputStream.read(readBuffer, 0, readBuffer.length)) >= 0) {
+			blackhole.consume(read);
+		}
+		request.release();
+	}
+}
@@ -0,0 +1,52 @@
+package com.danleinbach.sample.benchmark;
+
+import com.danleinbach.sample.validation.impl.DefaultJsonSchemaValidationProcessor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the schema for a request as the request path gets deeper than the folder holding
+ * the schema, which makes the lookup fall back through more ancestors.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchemaResolutionBenchmark {
+
+	@Param({"0", "2", "8", "32"})
+	private int extraDepth;
+
+	private DefaultJsonSchemaValidationProcessor processor;
+	private MockHttpServletRequest request;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		processor = new DefaultJsonSchemaValidationProcessor();
+		processor.setSchemaRoot("/");
+
+		StringBuilder uri = new StringBuilder(Payloads.ITEMS_URI);
+		for(int x = 0; x < extraDepth; x++) {
+			uri.append("/segment").append(x);
+		}
+		request = new MockHttpServletRequest("POST", uri.toString());
+	}
+
+	@Benchmark
+	public boolean requiresRequestBody() {
+		return processor.requiresRequestBody(request);
+	}
+
+	@Benchmark
+	public long lookupMaxBodyBytes() {
+		return processor.getSchemaIndex().lookupMaxBodyBytes(request.getMethod(), request.getRequestURI());
+	}
+}
@@ -0,0 +1,55 @@
+package com.danleinbach.sample.benchmark;
+
+import com.danleinbach.sample.domain.ValidationResponse;
+import com.danleinbach.sample.json.JsonMappers;
+import com.danleinbach.sample.validation.impl.DefaultJsonSchemaValidationProcessor;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing a failed {@link ValidationResponse} as the number of errors in it grows, using an
+ * object mapper configured the same way as the filter's.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidationResponseSerializationBenchmark {
+
+	@Param({"1", "10", "100"})
+	private int invalidItems;
+
+	private ObjectWriter writer;
+	private ValidationResponse validationResponse;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		writer = JsonMappers.getDefault().getValidationResponseWriter();
+
+		StringBuilder body = new StringBuilder("{\"items\":[");
+		for(int x = 0; x < invalidItems; x++) {
+			body.append(x == 0 ? "" : ",").append("{\"id\":-1,\"name\":").append(x).append('}');
+		}
+		body.append("]}");
+
+		DefaultJsonSchemaValidationProcessor processor = new DefaultJsonSchemaValidationProcessor();
+		processor.setSchemaRoot("/");
+		validationResponse = processor.validateRequest(
+				Payloads.request(Payloads.ITEMS_URI, body.toString().getBytes("UTF-8")));
+	}
+
+	@Benchmark
+	public void writeValidationResponse() throws IOException {
+		writer.writeValue(new NullOutputStream(), validationResponse);
+	}
+}
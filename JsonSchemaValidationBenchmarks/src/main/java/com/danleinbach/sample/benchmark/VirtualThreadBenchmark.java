@@ -0,0 +1,117 @@
+package com.danleinbach.sample.benchmark;
+
+import com.danleinbach.sample.filter.JsonSchemaValidationFilter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link JsonSchemaValidationFilter#doFilter} under concurrent load, served by a pool of
+ * platform threads the way a classic container does, or by one virtual thread per request. Each request is
+ * validated on its own thread, <code>never</code>, or on the bounded platform pool once its body has been
+ * read, <code>virtual-threads</code>. The filter chain may block for a while to stand in for the handler's
+ * own I/O.
+ * <p/>
+ * Virtual threads are created reflectively, so the benchmarks build on older versions, but the
+ * <code>virtual</code> callers need a Java version that has them.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+	private static final int REQUESTS = 512;
+	private static final int PLATFORM_THREADS = 200;
+
+	@Param({"platform", "virtual"})
+	private String callers;
+
+	@Param({"never", "virtual-threads"})
+	private String validationOffload;
+
+	@Param({"0", "2"})
+	private int chainMillis;
+
+	@Param({"10240"})
+	private int bodySize;
+
+	private JsonSchemaValidationFilter filter;
+	private ExecutorService callerExecutor;
+	private byte[] body;
+	private FilterChain filterChain;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ServletException, ReflectiveOperationException {
+		MockFilterConfig filterConfig = new MockFilterConfig();
+		filterConfig.addInitParameter("preload-schemas", "true");
+		filterConfig.addInitParameter("validation-offload", validationOffload);
+		filter = new JsonSchemaValidationFilter();
+		filter.init(filterConfig);
+		body = Payloads.items(bodySize, true);
+		callerExecutor = "virtual".equals(callers)
+				? (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null)
+				: Executors.newFixedThreadPool(PLATFORM_THREADS);
+		filterChain = new FilterChain() {
+			@Override
+			public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+				if(chainMillis > 0) {
+					try {
+						Thread.sleep(chainMillis);
+					} catch(InterruptedException e) {
+						throw new InterruptedIOException();
+					}
+				}
+			}
+		};
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		callerExecutor.shutdownNow();
+		filter.destroy();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(REQUESTS)
+	public int doFilterConcurrently() throws Exception {
+		List<Future<Integer>> responses = new ArrayList<Future<Integer>>(REQUESTS);
+		for(int x = 0; x < REQUESTS; x++) {
+			responses.add(callerExecutor.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws IOException, ServletException {
+					MockHttpServletResponse response = new MockHttpServletResponse();
+					filter.doFilter(Payloads.request(Payloads.ITEMS_URI, body), response, filterChain);
+					return response.getStatus();
+				}
+			}));
+		}
+		int failures = 0;
+		for(Future<Integer> response : responses) {
+			if(response.get() != 200) {
+				failures++;
+			}
+		}
+		return failures;
+	}
+}
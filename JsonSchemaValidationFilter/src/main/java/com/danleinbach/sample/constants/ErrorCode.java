@@ -10,8 +10,12 @@ package com.danleinbach.sample.constants;
 public enum ErrorCode {
 
 	UNREADABLE_REQUEST_BODY(400, "400_1", "Unreadable Request Body"),
+	REQUEST_BODY_TOO_LARGE(413, "413_1", "Request Body Too Large"),
+	REQUEST_BODY_COMPRESSION_TOO_HIGH(413, "413_2", "Request Body Compression Ratio Too High"),
+	UNSUPPORTED_CONTENT_ENCODING(415, "415_1", "Unsupported Content Encoding"),
 	MALFORMED_JSON_SCHEMA(500, "500_1", "Schema For Request Has An Error"),
-	ERROR_VALIDATING_JSON(500, "500_2", "Could Not Validation Json Request");
+	ERROR_VALIDATING_JSON(500, "500_2", "Could Not Validation Json Request"),
+	VALIDATION_UNAVAILABLE(503, "503_1", "Request Could Not Be Validated Right Now");
 
 	private final int httpStatus;
 	private final String errorCode;
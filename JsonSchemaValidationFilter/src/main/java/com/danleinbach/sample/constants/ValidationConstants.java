@@ -12,7 +12,58 @@ public enum ValidationConstants {
 	SKIP("skip"),
 	RESOURCE("resource:"),
 	SCHEMA_ROOT("schema-root"),
+	SCHEMA_DIRECTORY("schema-directory"),
+	INCLUDE_PATHS("include-paths"),
+	EXCLUDE_PATHS("exclude-paths"),
+	INCLUDE_METHODS("include-methods"),
+	EXCLUDE_METHODS("exclude-methods"),
+	INCLUDE_CONTENT_TYPES("include-content-types"),
+	EXCLUDE_CONTENT_TYPES("exclude-content-types"),
+	WATCH_SCHEMA_DIRECTORY("watch-schema-directory"),
 	VALIDATION_CLASS("validation-class"),
+	VALIDATION_ENGINE("validation-engine"),
+	VALIDATION_ENGINE_FGE("fge"),
+	VALIDATION_ENGINE_COMPILED("compiled"),
+	SCHEMA_CACHE_SIZE("schema-cache-size"),
+	PRELOAD_SCHEMAS("preload-schemas"),
+	PRELOAD_FAIL_FAST("fail-fast"),
+	VALIDATION_MODE("validation-mode"),
+	VALIDATION_MODE_EXHAUSTIVE("exhaustive"),
+	VALIDATION_MODE_FAIL_FAST("fail-fast"),
+	BODY_VALIDATION("body-validation"),
+	BODY_VALIDATION_STREAMING("streaming"),
+	BODY_VALIDATION_COMPILED("compiled"),
+	RESULT_CACHE_SIZE("result-cache-size"),
+	RESULT_CACHE_TTL("result-cache-ttl"),
+	RESULT_CACHE_MAX_BODY_BYTES("result-cache-max-body-bytes"),
+	MAX_BODY_BYTES("max-body-bytes"),
+	MAX_DECODED_BODY_BYTES("max-decoded-body-bytes"),
+	MAX_COMPRESSION_RATIO("max-compression-ratio"),
+	FORWARD_BODY("forward-body"),
+	FORWARD_BODY_DECODED("decoded"),
+	FORWARD_BODY_ENCODED("encoded"),
+	BODY_BUFFER_POOL_SIZE("body-buffer-pool-size"),
+	BODY_BUFFER_DIRECT("body-buffer-direct"),
+	ASYNC_VALIDATION("async-validation"),
+	ASYNC_VALIDATION_THREADS("async-validation-threads"),
+	ASYNC_VALIDATION_QUEUE_SIZE("async-validation-queue-size"),
+	VALIDATION_OFFLOAD("validation-offload"),
+	VALIDATION_OFFLOAD_VIRTUAL_THREADS("virtual-threads"),
+	VALIDATION_OFFLOAD_ALWAYS("always"),
+	VALIDATION_OFFLOAD_NEVER("never"),
+	VALIDATION_OFFLOAD_THREADS("validation-offload-threads"),
+	VALIDATION_OFFLOAD_QUEUE_SIZE("validation-offload-queue-size"),
+	PARALLEL_VALIDATION("parallel-validation"),
+	PARALLEL_VALIDATION_THREADS("parallel-validation-threads"),
+	PARALLEL_VALIDATION_CANCEL_ON_FAILURE("parallel-validation-cancel-on-failure"),
+	METRICS("metrics"),
+	METRICS_REPORTER("metrics-reporter"),
+	METRICS_REPORT_INTERVAL("metrics-report-interval"),
+	ERROR_RESPONSE_CACHE_SIZE("error-response-cache-size"),
+	ERROR_RESPONSE_CACHE_MAX_BYTES("error-response-cache-max-bytes"),
+	VALIDATED_BODY_ATTRIBUTE("com.danleinbach.sample.validatedBody"),
+	ASYNC_BODY_ATTRIBUTE("com.danleinbach.sample.asyncBody"),
+	ROUTE_METRICS_ATTRIBUTE("com.danleinbach.sample.routeMetrics"),
 	SCHEMA_ROOT_DEFAULT("/");
 
 	private final String value;
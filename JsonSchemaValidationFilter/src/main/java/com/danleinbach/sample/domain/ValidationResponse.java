@@ -1,23 +1,19 @@
 package com.danleinbach.sample.domain;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.github.fge.jsonschema.report.ProcessingMessage;
-import com.github.fge.jsonschema.report.ProcessingReport;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.danleinbach.sample.validation.engine.ValidationResult;
 
 /**
  * Created: 12/18/13
  *
  * @author Daniel
  */
+@JsonSerialize(using = ValidationResponseSerializer.class)
 public class ValidationResponse {
 
-	private ProcessingReport headerReport;
-	private ProcessingReport bodyReport;
-	private ProcessingReport paramReport;
+	private ValidationResult headerReport;
+	private ValidationResult bodyReport;
+	private ValidationResult paramReport;
 
 	public boolean isSuccess() {
 		boolean headerSuccess = checkSuccess(headerReport);
@@ -27,56 +23,31 @@ public class ValidationResponse {
 		return headerSuccess && bodySuccess && paramSuccess;
 	}
 
-	private boolean checkSuccess(ProcessingReport report) {
+	private boolean checkSuccess(ValidationResult report) {
 		return (report == null) || report.isSuccess();
 	}
 
-	public ProcessingReport getHeaderReport() {
+	public ValidationResult getHeaderReport() {
 		return headerReport;
 	}
 
-	public void setHeaderReport(ProcessingReport headerReport) {
+	public void setHeaderReport(ValidationResult headerReport) {
 		this.headerReport = headerReport;
 	}
 
-	public ProcessingReport getBodyReport() {
+	public ValidationResult getBodyReport() {
 		return bodyReport;
 	}
 
-	public void setBodyReport(ProcessingReport bodyReport) {
+	public void setBodyReport(ValidationResult bodyReport) {
 		this.bodyReport = bodyReport;
 	}
 
-	public ProcessingReport getParamReport() {
+	public ValidationResult getParamReport() {
 		return paramReport;
 	}
 
-	public void setParamReport(ProcessingReport paramReport) {
+	public void setParamReport(ValidationResult paramReport) {
 		this.paramReport = paramReport;
 	}
-
-	@JsonProperty("headerReport")
-	public List<JsonNode> getSerializeHeaderReport() {
-		return getJsonNodeList(headerReport);
-	}
-
-	@JsonProperty("bodyReport")
-	public List<JsonNode> getSerializeBodyReport() {
-		return getJsonNodeList(bodyReport);
-	}
-
-	@JsonProperty("paramReport")
-	public List<JsonNode> getSerializeParamReport() {
-		return getJsonNodeList(paramReport);
-	}
-
-	private List<JsonNode> getJsonNodeList(ProcessingReport report) {
-		List<JsonNode> list = new ArrayList<JsonNode>();
-		if(report != null) {
-			for(ProcessingMessage message : report) {
-				list.add(message.asJson());
-			}
-		}
-		return list;
-	}
 }
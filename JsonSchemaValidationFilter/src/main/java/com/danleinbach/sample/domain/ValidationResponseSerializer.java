@@ -0,0 +1,42 @@
+package com.danleinbach.sample.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.danleinbach.sample.validation.engine.ValidationError;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ValidationResponse} straight to a {@link JsonGenerator}, one error at a time, instead
+ * of collecting the errors of each report into a list first. The output is the same as serializing the
+ * <code>headerReport</code>, <code>bodyReport</code> and <code>paramReport</code> properties, a report that
+ * is missing is written as an empty array.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidationResponseSerializer extends JsonSerializer<ValidationResponse> {
+
+	@Override
+	public void serialize(ValidationResponse response, JsonGenerator generator, SerializerProvider provider)
+			throws IOException {
+		generator.writeStartObject();
+		writeReport(generator, "headerReport", response.getHeaderReport());
+		writeReport(generator, "bodyReport", response.getBodyReport());
+		writeReport(generator, "paramReport", response.getParamReport());
+		generator.writeEndObject();
+	}
+
+	private void writeReport(JsonGenerator generator, String name, ValidationResult report) throws IOException {
+		generator.writeArrayFieldStart(name);
+		if(report != null) {
+			for(ValidationError error : report) {
+				generator.writeTree(error.asJson());
+			}
+		}
+		generator.writeEndArray();
+	}
+}
@@ -0,0 +1,28 @@
+package com.danleinbach.sample.exception;
+
+import com.danleinbach.sample.constants.ErrorCode;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a compressed request body decompresses to more times its compressed size than allowed,
+ * as a zip bomb would.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class RequestBodyTooCompressed extends JsonSchemaValidationException {
+
+	private final int maxRatio;
+
+	public RequestBodyTooCompressed(int maxRatio) {
+		super(ErrorCode.REQUEST_BODY_COMPRESSION_TOO_HIGH,
+				new IOException("Request body decompresses to more than " + maxRatio + " times its size"));
+		this.maxRatio = maxRatio;
+	}
+
+	public int getMaxRatio() {
+		return maxRatio;
+	}
+}
@@ -0,0 +1,27 @@
+package com.danleinbach.sample.exception;
+
+import com.danleinbach.sample.constants.ErrorCode;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request body is larger than the maximum allowed for its route.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class RequestBodyTooLarge extends JsonSchemaValidationException {
+
+	private final long maxBodyBytes;
+
+	public RequestBodyTooLarge(long maxBodyBytes) {
+		super(ErrorCode.REQUEST_BODY_TOO_LARGE,
+				new IOException("Request body is larger than the maximum of " + maxBodyBytes + " bytes"));
+		this.maxBodyBytes = maxBodyBytes;
+	}
+
+	public long getMaxBodyBytes() {
+		return maxBodyBytes;
+	}
+}
@@ -0,0 +1,19 @@
+package com.danleinbach.sample.exception;
+
+import com.danleinbach.sample.constants.ErrorCode;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request body that has to be validated is encoded in a way the filter cannot decode.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class UnsupportedContentEncoding extends JsonSchemaValidationException {
+
+	public UnsupportedContentEncoding(String contentEncoding) {
+		super(ErrorCode.UNSUPPORTED_CONTENT_ENCODING, new IOException("Unsupported content encoding: " + contentEncoding));
+	}
+}
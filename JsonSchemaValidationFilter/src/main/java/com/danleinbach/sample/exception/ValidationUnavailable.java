@@ -0,0 +1,18 @@
+package com.danleinbach.sample.exception;
+
+import com.danleinbach.sample.constants.ErrorCode;
+
+/**
+ * Thrown when a request cannot be validated right now, e.g. because every validation thread is busy
+ * and the queue of waiting requests is full.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidationUnavailable extends JsonSchemaValidationException {
+
+	public ValidationUnavailable(Throwable cause) {
+		super(ErrorCode.VALIDATION_UNAVAILABLE, cause);
+	}
+}
@@ -0,0 +1,79 @@
+package com.danleinbach.sample.filter;
+
+import com.danleinbach.sample.constants.ErrorCode;
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import com.danleinbach.sample.exception.UnReadableEntity;
+import com.danleinbach.sample.wrapper.BodyBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the body of an asynchronous request with non-blocking reads as the container reports data
+ * available, then hands it to the filter to be validated.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+class AsyncBodyReader implements ReadListener {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AsyncBodyReader.class);
+  private final JsonSchemaValidationFilter filter;
+  private final AsyncContext asyncContext;
+  private final AtomicBoolean finished;
+  private final AtomicInteger holds;
+  private final ServletInputStream inputStream;
+  private final BodyBuffer body;
+  private final long maxBodyBytes;
+  private boolean done;
+
+  AsyncBodyReader(JsonSchemaValidationFilter filter, AsyncContext asyncContext, AtomicBoolean finished,
+      AtomicInteger holds, ServletInputStream inputStream, BodyBuffer body, long maxBodyBytes) {
+    this.filter = filter;
+    this.asyncContext = asyncContext;
+    this.finished = finished;
+    this.holds = holds;
+    this.inputStream = inputStream;
+    this.body = body;
+    this.maxBodyBytes = maxBodyBytes;
+  }
+
+  @Override
+  public void onDataAvailable() throws IOException {
+    try {
+      while(! done && inputStream.isReady()) {
+        if(body.readFrom(inputStream, maxBodyBytes) < 0) {
+          return;
+        }
+      }
+    } catch(RequestBodyTooLarge requestBodyTooLarge) {
+      done = true;
+      filter.completeWithError(asyncContext, finished, requestBodyTooLarge);
+    }
+  }
+
+  @Override
+  public void onAllDataRead() {
+    if(! done) {
+      done = true;
+      filter.validateAsync(asyncContext, finished, holds, body);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    LOGGER.error("Exception reading request body", throwable);
+    if(! done) {
+      done = true;
+      filter.completeWithError(asyncContext, finished,
+          new UnReadableEntity(ErrorCode.UNREADABLE_REQUEST_BODY, throwable));
+    }
+  }
+}
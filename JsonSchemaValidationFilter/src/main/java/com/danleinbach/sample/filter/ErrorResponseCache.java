@@ -0,0 +1,153 @@
+package com.danleinbach.sample.filter;
+
+import com.danleinbach.sample.domain.ValidationResponse;
+import com.danleinbach.sample.validation.engine.ValidationError;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded cache of serialized validation error responses. Clients that keep sending the same invalid
+ * request get the same failures back, so the response body is written once and the bytes are reused.
+ * <p/>
+ * Responses are keyed by their failure set, the messages of each report. Every message names the schema
+ * that produced it, so the same failures against different schemas never share an entry, and a changed
+ * schema that reports different failures simply gets a new entry.
+ * <p/>
+ * Failure messages may echo the offending values, so only small responses are cached: the failures and
+ * the bytes of an entry are both kept, and each is at most the maximum response size. Failures whose
+ * messages alone are larger are written without looking at the cache at all.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+class ErrorResponseCache {
+
+  /**
+   * Maximum number of error responses kept when no size is configured.
+   */
+  static final long DEFAULT_MAXIMUM_SIZE = 256;
+
+  /**
+   * Largest serialized error response cached when no maximum is configured.
+   */
+  static final int DEFAULT_MAX_RESPONSE_BYTES = 4096;
+
+  private final Cache<FailureSet, byte[]> responses;
+  private final int maxResponseBytes;
+
+  /**
+   * @param maximumSize      Maximum number of error responses to keep
+   * @param maxResponseBytes Largest serialized response to keep
+   */
+  ErrorResponseCache(long maximumSize, int maxResponseBytes) {
+    this.responses = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    this.maxResponseBytes = maxResponseBytes;
+  }
+
+  /**
+   * Get the serialized body of an error response, writing it with the writer if the same failures
+   * have not been seen before.
+   *
+   * @param response Failed validation response
+   * @param writer   Writer of validation responses used to write a response that is not cached
+   * @return Serialized response, which must not be modified
+   * @throws IOException Thrown when the response cannot be serialized
+   */
+  byte[] getResponse(ValidationResponse response, ObjectWriter writer) throws IOException {
+    if(textLength(response.getHeaderReport()) + textLength(response.getBodyReport())
+        + textLength(response.getParamReport()) > maxResponseBytes) {
+      return writer.writeValueAsBytes(response);
+    }
+    FailureSet failureSet = new FailureSet(response);
+    byte[] body = responses.getIfPresent(failureSet);
+    if(body == null) {
+      body = writer.writeValueAsBytes(response);
+      if(body.length <= maxResponseBytes) {
+        responses.put(failureSet, body);
+      }
+    }
+    return body;
+  }
+
+  /**
+   * @return Number of characters in the messages and instance pointers of a report, which is less than
+   * the size of the report once it is serialized
+   */
+  private static long textLength(ValidationResult result) {
+    long length = 0;
+    if(result != null) {
+      for(ValidationError error : result) {
+        length += error.getMessage().length() + error.getInstancePointer().length();
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Forget every cached response, for when the way responses are written changes.
+   */
+  void invalidateAll() {
+    responses.invalidateAll();
+  }
+
+  CacheStats getStats() {
+    return responses.stats();
+  }
+
+  /**
+   * The messages of each report of a response, compared by value.
+   */
+  private static final class FailureSet {
+
+    private final List<JsonNode> headerMessages;
+    private final List<JsonNode> bodyMessages;
+    private final List<JsonNode> paramMessages;
+    private final int hashCode;
+
+    private FailureSet(ValidationResponse response) {
+      headerMessages = messages(response.getHeaderReport());
+      bodyMessages = messages(response.getBodyReport());
+      paramMessages = messages(response.getParamReport());
+      hashCode = 31 * (31 * headerMessages.hashCode() + bodyMessages.hashCode()) + paramMessages.hashCode();
+    }
+
+    private static List<JsonNode> messages(ValidationResult result) {
+      if(result == null) {
+        return Collections.emptyList();
+      }
+      List<JsonNode> messages = new ArrayList<JsonNode>(4);
+      for(ValidationError error : result) {
+        messages.add(error.asJson());
+      }
+      return messages;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(this == o) {
+        return true;
+      }
+      if(! (o instanceof FailureSet)) {
+        return false;
+      }
+      FailureSet that = (FailureSet) o;
+      return hashCode == that.hashCode && bodyMessages.equals(that.bodyMessages)
+          && headerMessages.equals(that.headerMessages) && paramMessages.equals(that.paramMessages);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
@@ -1,21 +1,54 @@
 package com.danleinbach.sample.filter;
 
+import com.danleinbach.sample.constants.ErrorCode;
 import com.danleinbach.sample.constants.ValidationConstants;
 import com.danleinbach.sample.domain.ExceptionResponse;
 import com.danleinbach.sample.domain.ValidationResponse;
 import com.danleinbach.sample.exception.JsonSchemaValidationException;
+import com.danleinbach.sample.exception.RequestBodyTooCompressed;
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import com.danleinbach.sample.exception.UnReadableEntity;
+import com.danleinbach.sample.exception.UnsupportedContentEncoding;
+import com.danleinbach.sample.exception.ValidationUnavailable;
+import com.danleinbach.sample.json.JsonMappers;
+import com.danleinbach.sample.metrics.LoggingMetricsReporter;
+import com.danleinbach.sample.metrics.MetricsReporter;
+import com.danleinbach.sample.metrics.RouteMetrics;
+import com.danleinbach.sample.metrics.ValidationMetrics;
+import com.danleinbach.sample.schema.SchemaPreloader;
+import com.danleinbach.sample.validation.AbstractJsonSchemaValidationProcessor;
+import com.danleinbach.sample.validation.IBodyAwareValidationProcessor;
 import com.danleinbach.sample.validation.IJsonSchemaValidationProcessor;
+import com.danleinbach.sample.validation.ValidationResultCache;
+import com.danleinbach.sample.validation.compiled.CompiledValidationEngine;
+import com.danleinbach.sample.validation.engine.FgeValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngine;
 import com.danleinbach.sample.validation.impl.DefaultJsonSchemaValidationProcessor;
+import com.danleinbach.sample.wrapper.BodyBuffer;
+import com.danleinbach.sample.wrapper.BufferPool;
+import com.danleinbach.sample.wrapper.ContentDecoder;
 import com.danleinbach.sample.wrapper.ReloadableHttpServletRequest;
-import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * JsonSchema Validation Filter. This filter will read the request body an
@@ -29,27 +62,245 @@ import java.io.IOException;
 public class JsonSchemaValidationFilter implements Filter {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JsonSchemaValidationFilter.class);
+  public static final int DEFAULT_ASYNC_VALIDATION_QUEUE_SIZE = 1000;
+  public static final int DEFAULT_VALIDATION_OFFLOAD_QUEUE_SIZE = 1000;
+  public static final int DEFAULT_METRICS_REPORT_INTERVAL = 60;
+  public static final int DEFAULT_RESULT_CACHE_TTL = 60;
+  public static final int DEFAULT_RESULT_CACHE_MAX_BODY_BYTES = 4096;
   private String schemaRoot = ValidationConstants.SCHEMA_ROOT_DEFAULT.getValue();
   private IJsonSchemaValidationProcessor validationProcessor;
-  private ObjectMapper objectMapper;
+  private JsonMappers jsonMappers;
+  private RequestMatcher requestMatcher;
+  private long maxBodyBytes = - 1;
+  private ContentDecoder contentDecoder = new ContentDecoder(- 1, ContentDecoder.DEFAULT_MAX_RATIO, true);
+  private BufferPool bufferPool = new BufferPool(BufferPool.DEFAULT_MAX_POOLED_CHUNKS);
+  private ThreadPoolExecutor asyncValidationExecutor;
+  private ThreadPoolExecutor validationOffloadExecutor;
+  private boolean offloadVirtualThreadsOnly;
+  private ForkJoinPool sectionValidationPool;
+  private ValidationMetrics metrics;
+  private ErrorResponseCache errorResponseCache;
 
   /**
-   * Initializes the filter and sets up the object mapper.
+   * Initializes the filter and sets up the object mapper, {@link JsonMappers#getDefault()} unless
+   * one was set, which is shared with the validation processor.
    * <p/>
    * Also sets up optional configuration:
    * <ul>
    * <li>schema-root</li>
+   * <li>schema-directory</li>
+   * <li>watch-schema-directory</li>
+   * <li>include-paths, exclude-paths</li>
+   * <li>include-methods, exclude-methods</li>
+   * <li>include-content-types, exclude-content-types</li>
    * <li>validation-class</li>
+   * <li>validation-engine</li>
+   * <li>schema-cache-size</li>
+   * <li>preload-schemas</li>
+   * <li>validation-mode</li>
+   * <li>body-validation</li>
+   * <li>result-cache-size</li>
+   * <li>result-cache-ttl</li>
+   * <li>result-cache-max-body-bytes</li>
+   * <li>max-body-bytes</li>
+   * <li>max-decoded-body-bytes</li>
+   * <li>max-compression-ratio</li>
+   * <li>forward-body</li>
+   * <li>body-buffer-pool-size</li>
+   * <li>body-buffer-direct</li>
+   * <li>async-validation</li>
+   * <li>async-validation-threads</li>
+   * <li>async-validation-queue-size</li>
+   * <li>validation-offload</li>
+   * <li>validation-offload-threads</li>
+   * <li>validation-offload-queue-size</li>
+   * <li>parallel-validation</li>
+   * <li>parallel-validation-threads</li>
+   * <li>parallel-validation-cancel-on-failure</li>
+   * <li>metrics</li>
+   * <li>metrics-reporter</li>
+   * <li>metrics-report-interval</li>
+   * <li>error-response-cache-size</li>
+   * <li>error-response-cache-max-bytes</li>
    * </ul>
    * <p>
    * <b>schema-root</b>: The initial value is <code>'/'</code>, and any value
-   * set to this parameter will be used instead.
+   * set to this parameter will be used instead. The schemas below the root are indexed at init by
+   * listing every entry of the classpath below it, and with the root of the classpath that includes the
+   * entries of every jar, so a root holding only the schemas keeps init short.
+   * </p>
+   * <p>
+   * <b>schema-directory</b>: Directory on the file system to load schemas from instead of the classpath,
+   * laid out the same way as the schema root. Only applies to processors extending
+   * {@link AbstractJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>watch-schema-directory</b>: When <code>true</code>, the default, the schema directory is watched and
+   * a schema that changes is compiled again in the background and swapped in without a redeploy.
+   * </p>
+   * <p>
+   * <b>include-paths</b>, <b>exclude-paths</b>: Comma separated path prefixes to validate, or to pass
+   * straight through without reading the body or resolving a schema. Prefixes are matched against the path
+   * within the application, the request uri without the context path, e.g. <code>/static</code> rather than
+   * <code>/app/static</code>. The longest prefix a path starts with decides, a path matching none is
+   * validated only when no paths are included.
+   * </p>
+   * <p>
+   * <b>include-methods</b>, <b>exclude-methods</b>: Comma separated http methods to validate, or to pass
+   * through, e.g. <code>OPTIONS,HEAD</code>.
+   * </p>
+   * <p>
+   * <b>include-content-types</b>, <b>exclude-content-types</b>: Comma separated media types to validate, or to
+   * pass through, <code>type/*</code> matches every subtype. A request without a content type is always
+   * validated. Every request is validated by default.
    * </p>
    * <p>
    * <b>validation-class</b>: If a class is provided then it will attempt to be loaded
    * as the validation processor. The class should extend {@link IJsonSchemaValidationProcessor}.
    * The default class is {@link DefaultJsonSchemaValidationProcessor}.
    * </p>
+   * <p>
+   * <b>validation-engine</b>: Engine that compiles schemas and validates json against them. <code>fge</code>,
+   * the default, uses the json schema validator library. <code>compiled</code> compiles each schema into a java
+   * class when it is loaded, which needs a jvm with a java compiler, and falls back to <code>fge</code> for
+   * schemas it cannot compile. Any other value is loaded as a class implementing {@link ValidationEngine}.
+   * Only applies to processors extending {@link AbstractJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>schema-cache-size</b>: Maximum number of compiled schemas kept in memory, least recently
+   * used schemas are evicted first. Only applies to processors extending
+   * {@link AbstractJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>preload-schemas</b>: When <code>true</code> every schema under the schema root is compiled
+   * while the filter starts and a summary is logged. When <code>fail-fast</code> the filter fails to
+   * start on the first schema that cannot be compiled. Schemas are compiled on first use by default.
+   * </p>
+   * <p>
+   * <b>validation-mode</b>: When <code>fail-fast</code> a request stops being validated at the first error
+   * in its body, headers or parameters, and the error response holds only that error. The default,
+   * <code>exhaustive</code>, reports every error. Only applies to processors extending
+   * {@link AbstractJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>body-validation</b>: When <code>streaming</code> the request body is validated while it is
+   * parsed instead of being parsed into a json tree first. When <code>compiled</code> each body schema is
+   * compiled into a java class when it is loaded, which needs a jvm with a java compiler. With the
+   * <code>compiled</code> validation-engine every schema is compiled already and <code>compiled</code> adds
+   * nothing, the body is validated with the schema the engine compiled. Only applies to
+   * {@link DefaultJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>result-cache-size</b>: Number of request body validation results kept, so a body identical to one
+   * validated recently against the same schema is neither parsed nor validated again. Disabled by default.
+   * Only applies to {@link DefaultJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>result-cache-ttl</b>: Seconds a validation result is kept, the default is
+   * {@value #DEFAULT_RESULT_CACHE_TTL}.
+   * </p>
+   * <p>
+   * <b>result-cache-max-body-bytes</b>: Largest body whose validation result is kept, the default is
+   * {@value #DEFAULT_RESULT_CACHE_MAX_BODY_BYTES}.
+   * </p>
+   * <p>
+   * <b>max-body-bytes</b>: Largest request body that will be buffered for validation, larger bodies
+   * are rejected with a 413. A <code>limits.json</code> next to a route's schemas overrides this for
+   * the route. There is no limit by default.
+   * </p>
+   * <p>
+   * <b>max-decoded-body-bytes</b>: Largest size a <code>gzip</code> or <code>deflate</code> encoded body may
+   * decompress to, larger bodies are rejected with a 413 as soon as decompression goes over it. The default is
+   * the route's max-body-bytes. Other content encodings are rejected with a 415.
+   * </p>
+   * <p>
+   * <b>max-compression-ratio</b>: Largest ratio of decompressed to compressed bytes, checked once a body has
+   * decompressed to more than 64 KiB, bodies that decompress further are rejected with a 413. <code>0</code>
+   * disables the check, the default is {@value ContentDecoder#DEFAULT_MAX_RATIO}.
+   * </p>
+   * <p>
+   * <b>forward-body</b>: When <code>decoded</code>, the default, a compressed body is decompressed while it is
+   * read and handed on decompressed, without its <code>Content-Encoding</code> header. When <code>encoded</code>
+   * the body is handed on as it was sent and only decompressed, as it streams, to be validated.
+   * </p>
+   * <p>
+   * <b>body-buffer-pool-size</b>: Number of idle body buffer chunks of {@link BufferPool#CHUNK_SIZE} bytes
+   * kept for reuse by later requests. <code>0</code> disables pooling, the default is
+   * {@link BufferPool#DEFAULT_MAX_POOLED_CHUNKS}.
+   * </p>
+   * <p>
+   * <b>body-buffer-direct</b>: When <code>true</code> the body buffer chunks are allocated outside of
+   * the heap.
+   * </p>
+   * <p>
+   * <b>async-validation</b>: When <code>true</code> requests with a body to validate are put into
+   * asynchronous mode, the body is gathered with non-blocking reads and validated on a dedicated
+   * thread pool, and valid requests are dispatched back through the filter chain. The filter must be
+   * mapped with the <code>ASYNC</code> dispatcher and, like the target servlet, be async supported.
+   * Requests that are not async supported are validated synchronously.
+   * </p>
+   * <p>
+   * <b>async-validation-threads</b>: Number of threads validating asynchronous requests, the default is
+   * the number of available processors.
+   * </p>
+   * <p>
+   * <b>async-validation-queue-size</b>: Number of asynchronous requests that may wait for a validation
+   * thread, further requests are rejected with a 503. The default is
+   * {@value #DEFAULT_ASYNC_VALIDATION_QUEUE_SIZE}.
+   * </p>
+   * <p>
+   * <b>validation-offload</b>: Where requests that are validated synchronously are validated. With
+   * <code>virtual-threads</code>, the default, a request running on a virtual thread reads its body on that
+   * thread and is then validated on a bounded pool of platform threads, so validation does not hold on to a
+   * carrier thread, and other requests are validated on their own thread. <code>always</code> hands every
+   * request to the pool and <code>never</code> validates every request on its own thread. The pool is only
+   * started on Java versions with virtual threads, unless <code>always</code> is set.
+   * </p>
+   * <p>
+   * <b>validation-offload-threads</b>: Number of platform threads validating offloaded requests, the default
+   * is the number of available processors.
+   * </p>
+   * <p>
+   * <b>validation-offload-queue-size</b>: Number of offloaded requests that may wait for a validation thread,
+   * further requests are rejected with a 503. The default is {@value #DEFAULT_VALIDATION_OFFLOAD_QUEUE_SIZE}.
+   * </p>
+   * <p>
+   * <b>parallel-validation</b>: When <code>true</code> the body, headers and parameters of a request are
+   * validated concurrently on a fork join pool. Only applies to processors extending
+   * {@link AbstractJsonSchemaValidationProcessor}.
+   * </p>
+   * <p>
+   * <b>parallel-validation-threads</b>: Parallelism of the pool validating sections concurrently, the
+   * default is the number of available processors.
+   * </p>
+   * <p>
+   * <b>parallel-validation-cancel-on-failure</b>: When <code>true</code> the sections still being
+   * validated are cancelled as soon as one section fails, and only the failed section is reported.
+   * </p>
+   * <p>
+   * <b>metrics</b>: When <code>true</code> the time spent validating, the body size, and the time each
+   * section spends resolving, compiling, parsing and validating are recorded per route, the http method
+   * plus the folder of the route's schemas. Every route is exposed as an MBean. Only applies to processors
+   * extending {@link AbstractJsonSchemaValidationProcessor}, and nothing is recorded by default.
+   * </p>
+   * <p>
+   * <b>metrics-reporter</b>: Class implementing {@link MetricsReporter} that is handed the metrics on a
+   * schedule, e.g. {@link LoggingMetricsReporter}.
+   * </p>
+   * <p>
+   * <b>metrics-report-interval</b>: Seconds between reports, the default is
+   * {@value #DEFAULT_METRICS_REPORT_INTERVAL}.
+   * </p>
+   * <p>
+   * <b>error-response-cache-size</b>: Number of serialized 400 responses kept, keyed by their validation
+   * failures, so a client repeating the same invalid request gets the bytes written for an earlier one.
+   * <code>0</code> disables the cache, the default is {@link ErrorResponseCache#DEFAULT_MAXIMUM_SIZE}.
+   * </p>
+   * <p>
+   * <b>error-response-cache-max-bytes</b>: Largest serialized 400 response that is cached, larger ones are
+   * written every time. Bounds the memory of the cache, as failure messages may echo the request's values.
+   * The default is {@value ErrorResponseCache#DEFAULT_MAX_RESPONSE_BYTES}.
+   * </p>
    *
    * @param filterConfig Filter configuration
    * @throws ServletException
@@ -62,9 +313,25 @@ public class JsonSchemaValidationFilter implements Filter {
         filterConfig.getInitParameter(ValidationConstants.VALIDATION_CLASS.getValue()));
 
     validationProcessor.setSchemaRoot(this.schemaRoot);
-    objectMapper = new ObjectMapper().configure(MapperFeature.USE_ANNOTATIONS, true)
-        .configure(MapperFeature.AUTO_DETECT_FIELDS, false).configure(MapperFeature.AUTO_DETECT_GETTERS, false)
-        .configure(MapperFeature.AUTO_DETECT_SETTERS, false);
+    configureRequestMatcher(filterConfig);
+    if(jsonMappers == null) {
+      jsonMappers = JsonMappers.getDefault();
+    }
+    if(validationProcessor instanceof DefaultJsonSchemaValidationProcessor) {
+      ((DefaultJsonSchemaValidationProcessor) validationProcessor).setJsonMappers(jsonMappers);
+    }
+    configureValidationProcessor(filterConfig);
+
+    String maxBodyBytes = filterConfig.getInitParameter(ValidationConstants.MAX_BODY_BYTES.getValue());
+    if(maxBodyBytes != null) {
+      this.maxBodyBytes = parseLong(ValidationConstants.MAX_BODY_BYTES, maxBodyBytes);
+    }
+    configureContentDecoder(filterConfig);
+    configureBufferPool(filterConfig);
+    configureAsyncValidation(filterConfig);
+    configureValidationOffload(filterConfig);
+    configureMetrics(filterConfig);
+    configureErrorResponseCache(filterConfig);
   }
 
   /**
@@ -78,6 +345,278 @@ public class JsonSchemaValidationFilter implements Filter {
     }
   }
 
+  /**
+   * Compile the include and exclude parameters into the matcher deciding which requests are validated.
+   *
+   * @param filterConfig Filter configuration
+   */
+  private void configureRequestMatcher(FilterConfig filterConfig) {
+    RequestMatcher matcher = new RequestMatcher(
+        RequestMatcher.parseList(filterConfig.getInitParameter(ValidationConstants.INCLUDE_PATHS.getValue())),
+        RequestMatcher.parseList(filterConfig.getInitParameter(ValidationConstants.EXCLUDE_PATHS.getValue())),
+        RequestMatcher.parseList(filterConfig.getInitParameter(ValidationConstants.INCLUDE_METHODS.getValue())),
+        RequestMatcher.parseList(filterConfig.getInitParameter(ValidationConstants.EXCLUDE_METHODS.getValue())),
+        RequestMatcher.parseList(filterConfig.getInitParameter(ValidationConstants.INCLUDE_CONTENT_TYPES.getValue())),
+        RequestMatcher.parseList(filterConfig.getInitParameter(ValidationConstants.EXCLUDE_CONTENT_TYPES.getValue())));
+    requestMatcher = matcher.matchesAll() ? null : matcher;
+    if(requestMatcher != null) {
+      LOGGER.info("Validating requests matching {}", requestMatcher);
+    }
+  }
+
+  /**
+   * Apply the optional configuration that is specific to processors extending
+   * {@link AbstractJsonSchemaValidationProcessor}.
+   *
+   * @param filterConfig Filter configuration
+   * @throws ServletException Thrown when a configuration value is invalid
+   */
+  private void configureValidationProcessor(FilterConfig filterConfig) throws ServletException {
+    if(! (validationProcessor instanceof AbstractJsonSchemaValidationProcessor)) {
+      return;
+    }
+    AbstractJsonSchemaValidationProcessor processor = (AbstractJsonSchemaValidationProcessor) validationProcessor;
+
+    String validationEngine = filterConfig.getInitParameter(ValidationConstants.VALIDATION_ENGINE.getValue());
+    if(validationEngine != null) {
+      processor.setValidationEngine(instantiateValidationEngine(validationEngine));
+    }
+
+    String schemaDirectory = filterConfig.getInitParameter(ValidationConstants.SCHEMA_DIRECTORY.getValue());
+    if(schemaDirectory != null) {
+      File directory = new File(schemaDirectory);
+      if(! directory.isDirectory()) {
+        throw new ServletException("Invalid value for " + ValidationConstants.SCHEMA_DIRECTORY.getValue()
+            + ", not a directory: " + schemaDirectory);
+      }
+      processor.setSchemaDirectory(directory);
+      String watch = filterConfig.getInitParameter(ValidationConstants.WATCH_SCHEMA_DIRECTORY.getValue());
+      if(watch == null || Boolean.parseBoolean(watch)) {
+        try {
+          processor.watchSchemaDirectory();
+        } catch(IOException e) {
+          throw new ServletException("Could not watch schema directory " + schemaDirectory, e);
+        }
+      }
+    }
+
+    String schemaCacheSize = filterConfig.getInitParameter(ValidationConstants.SCHEMA_CACHE_SIZE.getValue());
+    if(schemaCacheSize != null) {
+      long maximumSize = parseLong(ValidationConstants.SCHEMA_CACHE_SIZE, schemaCacheSize);
+      if(maximumSize < 0) {
+        throw new ServletException("Invalid value for " + ValidationConstants.SCHEMA_CACHE_SIZE.getValue() + ": "
+            + schemaCacheSize);
+      }
+      processor.setSchemaCacheSize(maximumSize);
+    }
+
+    String validationMode = filterConfig.getInitParameter(ValidationConstants.VALIDATION_MODE.getValue());
+    if(ValidationConstants.VALIDATION_MODE_FAIL_FAST.getValue().equalsIgnoreCase(validationMode)) {
+      processor.setFailFast(true);
+    }
+    else if(validationMode != null
+        && ! ValidationConstants.VALIDATION_MODE_EXHAUSTIVE.getValue().equalsIgnoreCase(validationMode)) {
+      throw new ServletException("Invalid value for " + ValidationConstants.VALIDATION_MODE.getValue() + ": "
+          + validationMode);
+    }
+
+    if(processor instanceof DefaultJsonSchemaValidationProcessor) {
+      String bodyValidation = filterConfig.getInitParameter(ValidationConstants.BODY_VALIDATION.getValue());
+      ((DefaultJsonSchemaValidationProcessor) processor).setStreamingBodyValidation(
+          ValidationConstants.BODY_VALIDATION_STREAMING.getValue().equalsIgnoreCase(bodyValidation));
+      ((DefaultJsonSchemaValidationProcessor) processor).setCompiledBodyValidation(
+          ValidationConstants.BODY_VALIDATION_COMPILED.getValue().equalsIgnoreCase(bodyValidation));
+      configureResultCache(filterConfig, (DefaultJsonSchemaValidationProcessor) processor);
+    }
+
+    if(Boolean.parseBoolean(filterConfig.getInitParameter(ValidationConstants.PARALLEL_VALIDATION.getValue()))) {
+      sectionValidationPool = new ForkJoinPool(parseInt(ValidationConstants.PARALLEL_VALIDATION_THREADS,
+          filterConfig.getInitParameter(ValidationConstants.PARALLEL_VALIDATION_THREADS.getValue()),
+          Runtime.getRuntime().availableProcessors()));
+      processor.setSectionExecutor(sectionValidationPool);
+      processor.setCancelOnFailure(Boolean.parseBoolean(
+          filterConfig.getInitParameter(ValidationConstants.PARALLEL_VALIDATION_CANCEL_ON_FAILURE.getValue())));
+    }
+
+    String preloadSchemas = filterConfig.getInitParameter(ValidationConstants.PRELOAD_SCHEMAS.getValue());
+    boolean failFast = ValidationConstants.PRELOAD_FAIL_FAST.getValue().equalsIgnoreCase(preloadSchemas);
+    if(failFast || Boolean.parseBoolean(preloadSchemas)) {
+      SchemaPreloader.Result result = processor.preloadSchemas(failFast);
+      if(failFast && ! result.isSuccess()) {
+        throw new ServletException("Could not preload json schemas: " + result.getFailures());
+      }
+    }
+  }
+
+  private void configureResultCache(FilterConfig filterConfig, DefaultJsonSchemaValidationProcessor processor)
+      throws ServletException {
+    String cacheSize = filterConfig.getInitParameter(ValidationConstants.RESULT_CACHE_SIZE.getValue());
+    if(cacheSize == null) {
+      return;
+    }
+    long maximumSize = parseLong(ValidationConstants.RESULT_CACHE_SIZE, cacheSize);
+    if(maximumSize < 0) {
+      throw new ServletException("Invalid value for " + ValidationConstants.RESULT_CACHE_SIZE.getValue() + ": "
+          + cacheSize);
+    }
+    if(maximumSize == 0) {
+      return;
+    }
+    int ttl = parseInt(ValidationConstants.RESULT_CACHE_TTL,
+        filterConfig.getInitParameter(ValidationConstants.RESULT_CACHE_TTL.getValue()), DEFAULT_RESULT_CACHE_TTL);
+    int maxBodyBytes = parseInt(ValidationConstants.RESULT_CACHE_MAX_BODY_BYTES,
+        filterConfig.getInitParameter(ValidationConstants.RESULT_CACHE_MAX_BODY_BYTES.getValue()),
+        DEFAULT_RESULT_CACHE_MAX_BODY_BYTES);
+    processor.setResultCache(new ValidationResultCache(maximumSize, ttl, TimeUnit.SECONDS, maxBodyBytes));
+  }
+
+  private void configureContentDecoder(FilterConfig filterConfig) throws ServletException {
+    String maxDecodedBodyBytes = filterConfig.getInitParameter(
+        ValidationConstants.MAX_DECODED_BODY_BYTES.getValue());
+    String maxRatio = filterConfig.getInitParameter(ValidationConstants.MAX_COMPRESSION_RATIO.getValue());
+    String forwardBody = filterConfig.getInitParameter(ValidationConstants.FORWARD_BODY.getValue());
+    if(forwardBody != null && ! ValidationConstants.FORWARD_BODY_DECODED.getValue().equalsIgnoreCase(forwardBody)
+        && ! ValidationConstants.FORWARD_BODY_ENCODED.getValue().equalsIgnoreCase(forwardBody)) {
+      throw new ServletException("Invalid value for " + ValidationConstants.FORWARD_BODY.getValue() + ": "
+          + forwardBody);
+    }
+    long ratio = maxRatio == null ? ContentDecoder.DEFAULT_MAX_RATIO
+        : parseLong(ValidationConstants.MAX_COMPRESSION_RATIO, maxRatio);
+    if(ratio < 0 || ratio > Integer.MAX_VALUE) {
+      throw new ServletException("Invalid value for " + ValidationConstants.MAX_COMPRESSION_RATIO.getValue() + ": "
+          + maxRatio);
+    }
+    contentDecoder = new ContentDecoder(
+        maxDecodedBodyBytes == null ? - 1 : parseLong(ValidationConstants.MAX_DECODED_BODY_BYTES, maxDecodedBodyBytes),
+        (int) ratio, ! ValidationConstants.FORWARD_BODY_ENCODED.getValue().equalsIgnoreCase(forwardBody));
+  }
+
+  private void configureBufferPool(FilterConfig filterConfig) throws ServletException {
+    String poolSize = filterConfig.getInitParameter(ValidationConstants.BODY_BUFFER_POOL_SIZE.getValue());
+    boolean direct = Boolean.parseBoolean(
+        filterConfig.getInitParameter(ValidationConstants.BODY_BUFFER_DIRECT.getValue()));
+    if(poolSize != null || direct) {
+      long maxPooledChunks = poolSize == null ? BufferPool.DEFAULT_MAX_POOLED_CHUNKS
+          : parseLong(ValidationConstants.BODY_BUFFER_POOL_SIZE, poolSize);
+      if(maxPooledChunks < 0 || maxPooledChunks > Integer.MAX_VALUE) {
+        throw new ServletException("Invalid value for " + ValidationConstants.BODY_BUFFER_POOL_SIZE.getValue()
+            + ": " + poolSize);
+      }
+      bufferPool = new BufferPool((int) maxPooledChunks, direct);
+    }
+  }
+
+  private void configureAsyncValidation(FilterConfig filterConfig) throws ServletException {
+    if(! Boolean.parseBoolean(filterConfig.getInitParameter(ValidationConstants.ASYNC_VALIDATION.getValue()))) {
+      return;
+    }
+    int threads = parseInt(ValidationConstants.ASYNC_VALIDATION_THREADS,
+        filterConfig.getInitParameter(ValidationConstants.ASYNC_VALIDATION_THREADS.getValue()),
+        Runtime.getRuntime().availableProcessors());
+    int queueSize = parseInt(ValidationConstants.ASYNC_VALIDATION_QUEUE_SIZE,
+        filterConfig.getInitParameter(ValidationConstants.ASYNC_VALIDATION_QUEUE_SIZE.getValue()),
+        DEFAULT_ASYNC_VALIDATION_QUEUE_SIZE);
+
+    asyncValidationExecutor = newValidationExecutor("async-validation-", threads, queueSize);
+  }
+
+  private void configureValidationOffload(FilterConfig filterConfig) throws ServletException {
+    String offload = filterConfig.getInitParameter(ValidationConstants.VALIDATION_OFFLOAD.getValue());
+    boolean always = ValidationConstants.VALIDATION_OFFLOAD_ALWAYS.getValue().equalsIgnoreCase(offload);
+    if(ValidationConstants.VALIDATION_OFFLOAD_NEVER.getValue().equalsIgnoreCase(offload)) {
+      return;
+    }
+    if(! always && offload != null
+        && ! ValidationConstants.VALIDATION_OFFLOAD_VIRTUAL_THREADS.getValue().equalsIgnoreCase(offload)) {
+      throw new ServletException("Invalid value for " + ValidationConstants.VALIDATION_OFFLOAD.getValue() + ": "
+          + offload);
+    }
+    if(! always && ! VirtualThreads.isSupported()) {
+      return;
+    }
+    int threads = parseInt(ValidationConstants.VALIDATION_OFFLOAD_THREADS,
+        filterConfig.getInitParameter(ValidationConstants.VALIDATION_OFFLOAD_THREADS.getValue()),
+        Runtime.getRuntime().availableProcessors());
+    int queueSize = parseInt(ValidationConstants.VALIDATION_OFFLOAD_QUEUE_SIZE,
+        filterConfig.getInitParameter(ValidationConstants.VALIDATION_OFFLOAD_QUEUE_SIZE.getValue()),
+        DEFAULT_VALIDATION_OFFLOAD_QUEUE_SIZE);
+    validationOffloadExecutor = newValidationExecutor("validation-offload-", threads, queueSize);
+    offloadVirtualThreadsOnly = ! always;
+  }
+
+  /**
+   * Create a bounded pool of daemon platform threads that rejects work once its queue is full.
+   */
+  private ThreadPoolExecutor newValidationExecutor(final String namePrefix, int threads, int queueSize) {
+    final AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  private void configureErrorResponseCache(FilterConfig filterConfig) throws ServletException {
+    String cacheSize = filterConfig.getInitParameter(ValidationConstants.ERROR_RESPONSE_CACHE_SIZE.getValue());
+    long maximumSize = cacheSize == null ? ErrorResponseCache.DEFAULT_MAXIMUM_SIZE
+        : parseLong(ValidationConstants.ERROR_RESPONSE_CACHE_SIZE, cacheSize);
+    if(maximumSize < 0) {
+      throw new ServletException("Invalid value for " + ValidationConstants.ERROR_RESPONSE_CACHE_SIZE.getValue()
+          + ": " + cacheSize);
+    }
+    int maxResponseBytes = parseInt(ValidationConstants.ERROR_RESPONSE_CACHE_MAX_BYTES,
+        filterConfig.getInitParameter(ValidationConstants.ERROR_RESPONSE_CACHE_MAX_BYTES.getValue()),
+        ErrorResponseCache.DEFAULT_MAX_RESPONSE_BYTES);
+    errorResponseCache = maximumSize == 0 ? null : new ErrorResponseCache(maximumSize, maxResponseBytes);
+  }
+
+  private void configureMetrics(FilterConfig filterConfig) throws ServletException {
+    if(! Boolean.parseBoolean(filterConfig.getInitParameter(ValidationConstants.METRICS.getValue()))
+        || ! (validationProcessor instanceof AbstractJsonSchemaValidationProcessor)) {
+      return;
+    }
+    metrics = new ValidationMetrics(true);
+    ((AbstractJsonSchemaValidationProcessor) validationProcessor).setRecordMetrics(true);
+
+    String reporterClass = filterConfig.getInitParameter(ValidationConstants.METRICS_REPORTER.getValue());
+    if(reporterClass != null) {
+      int interval = parseInt(ValidationConstants.METRICS_REPORT_INTERVAL,
+          filterConfig.getInitParameter(ValidationConstants.METRICS_REPORT_INTERVAL.getValue()),
+          DEFAULT_METRICS_REPORT_INTERVAL);
+      try {
+        MetricsReporter reporter = (MetricsReporter) Class.forName(reporterClass).newInstance();
+        metrics.startReporting(reporter, interval, TimeUnit.SECONDS);
+      } catch(ReflectiveOperationException e) {
+        LOGGER.warn("Error instantiating metrics reporter, metrics will not be reported", e);
+      } catch(ClassCastException e) {
+        LOGGER.warn("Metrics reporter does not implement MetricsReporter, metrics will not be reported", e);
+      }
+    }
+  }
+
+  private int parseInt(ValidationConstants parameter, String value, int defaultValue) throws ServletException {
+    if(value == null) {
+      return defaultValue;
+    }
+    long parsed = parseLong(parameter, value);
+    if(parsed < 1 || parsed > Integer.MAX_VALUE) {
+      throw new ServletException("Invalid value for " + parameter.getValue() + ": " + value);
+    }
+    return (int) parsed;
+  }
+
+  private long parseLong(ValidationConstants parameter, String value) throws ServletException {
+    try {
+      return Long.parseLong(value.trim());
+    } catch(NumberFormatException e) {
+      throw new ServletException("Invalid value for " + parameter.getValue() + ": " + value, e);
+    }
+  }
+
   private IJsonSchemaValidationProcessor instantiateValidationProcessor(String className) {
     if(className != null) {
       try {
@@ -97,6 +636,32 @@ public class JsonSchemaValidationFilter implements Filter {
 
   }
 
+  /**
+   * Create the validation engine named by the validation-engine parameter.
+   *
+   * @param validationEngine <code>fge</code>, <code>compiled</code> or the name of a class implementing
+   *                         {@link ValidationEngine}
+   * @return Validation engine
+   * @throws ServletException Thrown when the engine cannot be created
+   */
+  private ValidationEngine instantiateValidationEngine(String validationEngine) throws ServletException {
+    if(ValidationConstants.VALIDATION_ENGINE_FGE.getValue().equalsIgnoreCase(validationEngine)) {
+      return new FgeValidationEngine();
+    }
+    if(ValidationConstants.VALIDATION_ENGINE_COMPILED.getValue().equalsIgnoreCase(validationEngine)) {
+      return new CompiledValidationEngine();
+    }
+    try {
+      return Class.forName(validationEngine).asSubclass(ValidationEngine.class).newInstance();
+    } catch(ClassCastException e) {
+      throw new ServletException("Invalid value for " + ValidationConstants.VALIDATION_ENGINE.getValue() + ": "
+          + validationEngine, e);
+    } catch(ReflectiveOperationException e) {
+      throw new ServletException("Invalid value for " + ValidationConstants.VALIDATION_ENGINE.getValue() + ": "
+          + validationEngine, e);
+    }
+  }
+
   private void handleValidationProcessorInstantiationExceptions(Exception e) {
     LOGGER.warn("Error instantiating custom validationProcessor, using default", e);
   }
@@ -105,38 +670,421 @@ public class JsonSchemaValidationFilter implements Filter {
   public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
       throws IOException, ServletException {
 
-    ReloadableHttpServletRequest httpServletRequest = new ReloadableHttpServletRequest(
-        (HttpServletRequest) servletRequest);
+    HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
+
+    if(requestMatcher != null && ! requestMatcher.matches(httpServletRequest)) {
+      filterChain.doFilter(servletRequest, servletResponse);
+      return;
+    }
+
+    // Dispatched back after asynchronous validation, the body has already been read and validated. The
+    // attribute is kept for the rest of the request, so the ASYNC dispatches of an application that goes
+    // asynchronous itself are passed through with the buffered body instead of being validated again
+    Object asyncBody = httpServletRequest.getAttribute(ValidationConstants.ASYNC_BODY_ATTRIBUTE.getValue());
+    if(asyncBody instanceof BodyBuffer && httpServletRequest.getDispatcherType() == DispatcherType.ASYNC) {
+      filterChain.doFilter(new ReloadableHttpServletRequest(httpServletRequest, (BodyBuffer) asyncBody,
+          contentDecoder, contentDecoder.getMaxDecodedBytes(getMaxBodyBytes(httpServletRequest))), servletResponse);
+      return;
+    }
+
+    if(asyncValidationExecutor != null && httpServletRequest.isAsyncSupported()
+        && requiresRequestBody(httpServletRequest)) {
+      try {
+        startAsyncValidation(httpServletRequest, servletResponse);
+      } catch(JsonSchemaValidationException jsonSchemaValidationException) {
+        writeExceptionResponse(jsonSchemaValidationException, (HttpServletResponse) servletResponse);
+      }
+      return;
+    }
 
+    RouteMetrics routeMetrics = startRouteMetrics(httpServletRequest);
+    long start = routeMetrics == null ? 0 : System.nanoTime();
+    ReloadableHttpServletRequest reloadableRequest = null;
     try {
-      ValidationResponse report = validationProcessor.validateRequest(httpServletRequest);
+      // Only buffer the body when it is going to be validated, otherwise pass the request through untouched
+      if(requiresRequestBody(httpServletRequest)) {
+        reloadableRequest = new ReloadableHttpServletRequest(httpServletRequest,
+            getMaxBodyBytes(httpServletRequest), bufferPool, contentDecoder);
+        httpServletRequest = reloadableRequest;
+      }
+
+      ValidationResponse report = validateRequest(httpServletRequest);
+      recordValidation(routeMetrics, start, reloadableRequest == null ? null : reloadableRequest.getBody(),
+          report.isSuccess());
 
       if(report.isSuccess()) {
         filterChain.doFilter(httpServletRequest, servletResponse);
       }
       else {
 
-        writeErrorResponse(400, report, (HttpServletResponse) servletResponse);
+        writeValidationResponse(report, (HttpServletResponse) servletResponse);
       }
 
     } catch(JsonSchemaValidationException jsonSchemaValidationException) {
-      ExceptionResponse response = new ExceptionResponse();
-      response.setSubCode(jsonSchemaValidationException.getErrorCode().getErrorCode());
-      response.setErrorMessage(jsonSchemaValidationException.getErrorCode().getErrorMessage());
-      response.setErrorCausedBy(jsonSchemaValidationException.getCause().getMessage());
+      recordError(routeMetrics, start);
+      writeExceptionResponse(jsonSchemaValidationException, (HttpServletResponse) servletResponse);
+
+    } finally {
+      if(reloadableRequest != null) {
+        releaseWhenComplete(reloadableRequest);
+      }
+    }
+  }
+
+  /**
+   * Validate a request whose body, if any, has already been read. When validation is offloaded the request is
+   * validated on the offload pool while the calling thread waits, a virtual thread waiting gives up its
+   * carrier thread.
+   *
+   * @param request Request to validate
+   * @return Validation response
+   * @throws JsonSchemaValidationException Thrown when the request cannot be validated, or the offload pool is
+   *                                       full
+   */
+  private ValidationResponse validateRequest(final HttpServletRequest request) throws JsonSchemaValidationException {
+    if(validationOffloadExecutor == null || (offloadVirtualThreadsOnly && ! VirtualThreads.isCurrentThreadVirtual())) {
+      return validationProcessor.validateRequest(request);
+    }
+
+    Future<ValidationResponse> future;
+    try {
+      future = validationOffloadExecutor.submit(new Callable<ValidationResponse>() {
+        @Override
+        public ValidationResponse call() throws JsonSchemaValidationException {
+          return validationProcessor.validateRequest(request);
+        }
+      });
+    } catch(RejectedExecutionException e) {
+      throw new ValidationUnavailable(e);
+    }
+
+    try {
+      return future.get();
+    } catch(InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ValidationUnavailable(e);
+    } catch(ExecutionException e) {
+      Throwable cause = e.getCause();
+      if(cause instanceof JsonSchemaValidationException) {
+        throw (JsonSchemaValidationException) cause;
+      }
+      if(cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if(cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ValidationUnavailable(cause);
+    }
+  }
+
+  /**
+   * Put the request into asynchronous mode and start reading its body without blocking. The body is
+   * validated by {@link #validateAsync} once it has been read.
+   *
+   * @param request  Incoming request
+   * @param response Outgoing response
+   * @throws IOException                   Thrown when the body cannot be read
+   * @throws JsonSchemaValidationException Thrown when the declared content length is over the maximum, or the
+   *                                       body is encoded in a way that cannot be decoded
+   */
+  private void startAsyncValidation(HttpServletRequest request, ServletResponse response)
+      throws IOException, JsonSchemaValidationException {
+    long maxBodyBytes = getMaxBodyBytes(request);
+    if(maxBodyBytes >= 0 && request.getContentLengthLong() > maxBodyBytes) {
+      throw new RequestBodyTooLarge(maxBodyBytes);
+    }
+    String contentEncoding = ContentDecoder.getContentEncoding(request);
+
+    final BodyBuffer body = BodyBuffer.allocate(bufferPool);
+    body.setContentEncoding(contentEncoding);
+    final AtomicBoolean finished = new AtomicBoolean();
+    // The async cycle holds the body until it completes, and a running validation until it returns
+    final AtomicInteger holds = new AtomicInteger(1);
+    AsyncContext asyncContext = request.startAsync(request, response);
+    asyncContext.addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        finished.set(true);
+        releaseHold(holds, body);
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+        // The container ends the request, the validation must not dispatch or complete it any more
+        finished.set(true);
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+        finished.set(true);
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+        event.getAsyncContext().addListener(this);
+      }
+    });
+
+    ServletInputStream inputStream = request.getInputStream();
+    inputStream.setReadListener(new AsyncBodyReader(this, asyncContext, finished, holds, inputStream,
+        body, maxBodyBytes));
+  }
+
+  /**
+   * Validate an asynchronous request on the validation thread pool, then dispatch it back through the
+   * filter chain or complete it with the validation errors. A compressed body that is forwarded decoded
+   * is decompressed first, in place of the compressed bytes. Nothing is done once the request has timed out
+   * or failed. The validation holds the body while it runs, so a request that completes meanwhile leaves the
+   * body to be released when the validation returns.
+   *
+   * @param asyncContext Context of the asynchronous request
+   * @param finished     Set once the request must not be dispatched or completed any more
+   * @param holds        Number of holders of the body, which is released when the last one lets go
+   * @param body         Request body that has been read
+   */
+  void validateAsync(final AsyncContext asyncContext, final AtomicBoolean finished, final AtomicInteger holds,
+      final BodyBuffer body) {
+    holds.incrementAndGet();
+    try {
+      asyncValidationExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            validateBody(asyncContext, finished, body);
+          } finally {
+            releaseHold(holds, body);
+          }
+        }
+      });
 
-      writeErrorResponse(500, response, (HttpServletResponse) servletResponse);
+    } catch(RejectedExecutionException e) {
+      releaseHold(holds, body);
+      completeWithError(asyncContext, finished, new ValidationUnavailable(e));
     }
+  }
 
+  private void validateBody(AsyncContext asyncContext, AtomicBoolean finished, BodyBuffer body) {
+    if(finished.get()) {
+      return;
+    }
+    HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+    RouteMetrics routeMetrics = startRouteMetrics(request);
+    long start = routeMetrics == null ? 0 : System.nanoTime();
+    long maxDecodedBytes = contentDecoder.getMaxDecodedBytes(getMaxBodyBytes(request));
+    try {
+      if(contentDecoder.isForwardDecoded()) {
+        body.decode(contentDecoder, maxDecodedBytes);
+      }
+      ValidationResponse report = validationProcessor.validateRequest(
+          new ReloadableHttpServletRequest(request, body, contentDecoder, maxDecodedBytes));
+      recordValidation(routeMetrics, start, body, report.isSuccess());
 
+      if(! finished.compareAndSet(false, true)) {
+        return;
+      }
+      if(report.isSuccess()) {
+        request.setAttribute(ValidationConstants.ASYNC_BODY_ATTRIBUTE.getValue(), body);
+        asyncContext.dispatch();
+      }
+      else {
+        writeValidationResponse(report, (HttpServletResponse) asyncContext.getResponse());
+        asyncContext.complete();
+      }
+
+    } catch(JsonSchemaValidationException jsonSchemaValidationException) {
+      recordError(routeMetrics, start);
+      completeWithError(asyncContext, finished, jsonSchemaValidationException);
+    } catch(IOException e) {
+      recordError(routeMetrics, start);
+      completeWithError(asyncContext, finished, new UnReadableEntity(ErrorCode.UNREADABLE_REQUEST_BODY, e));
+    }
   }
 
-  private void writeErrorResponse(int status, Object error, HttpServletResponse servletResponse) {
+  /**
+   * Let go of one hold on the body of an asynchronous request, releasing the body if it was the last.
+   *
+   * @param holds Number of holders of the body
+   * @param body  Request body
+   */
+  private void releaseHold(AtomicInteger holds, BodyBuffer body) {
+    if(holds.decrementAndGet() == 0) {
+      body.release();
+    }
+  }
+
+  /**
+   * Find the metrics of the request's route and make them available to the validation processor.
+   *
+   * @param request Incoming request
+   * @return Metrics of the route, or null when metrics are disabled or no schema applies to the request
+   */
+  private RouteMetrics startRouteMetrics(HttpServletRequest request) {
+    if(metrics == null) {
+      return null;
+    }
+    String route = ((AbstractJsonSchemaValidationProcessor) validationProcessor).getSchemaIndex()
+        .lookupRoute(request.getMethod(), request.getRequestURI());
+    if(route == null) {
+      return null;
+    }
+    RouteMetrics routeMetrics = metrics.getRouteMetrics(route);
+    request.setAttribute(ValidationConstants.ROUTE_METRICS_ATTRIBUTE.getValue(), routeMetrics);
+    return routeMetrics;
+  }
+
+  private void recordValidation(RouteMetrics routeMetrics, long start, BodyBuffer body, boolean success) {
+    if(routeMetrics != null) {
+      routeMetrics.recordFilter(System.nanoTime() - start);
+      if(body != null) {
+        routeMetrics.recordBodyBytes(body.size());
+      }
+      if(! success) {
+        routeMetrics.recordInvalid();
+      }
+    }
+  }
+
+  private void recordError(RouteMetrics routeMetrics, long start) {
+    if(routeMetrics != null) {
+      routeMetrics.recordFilter(System.nanoTime() - start);
+      routeMetrics.recordError();
+    }
+  }
+
+  /**
+   * Write the error response for an asynchronous request and complete it, unless the request has already
+   * been dispatched, completed or timed out.
+   *
+   * @param asyncContext                  Context of the asynchronous request
+   * @param finished                      Set once the request must not be dispatched or completed any more
+   * @param jsonSchemaValidationException Reason the request failed
+   */
+  void completeWithError(AsyncContext asyncContext, AtomicBoolean finished,
+      JsonSchemaValidationException jsonSchemaValidationException) {
+    if(! finished.compareAndSet(false, true)) {
+      return;
+    }
+    writeExceptionResponse(jsonSchemaValidationException, (HttpServletResponse) asyncContext.getResponse());
+    asyncContext.complete();
+  }
+
+  /**
+   * Give the buffered body back to the pool once the request has completed. Requests put into
+   * asynchronous mode further down the chain are released when the async cycle ends instead.
+   *
+   * @param request Request holding the buffered body
+   */
+  private void releaseWhenComplete(final ReloadableHttpServletRequest request) {
+    if(! request.isAsyncStarted()) {
+      request.release();
+      return;
+    }
+    request.getAsyncContext().addListener(new AsyncListener() {
+      @Override
+      public void onComplete(AsyncEvent event) {
+        request.release();
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event) {
+      }
+
+      @Override
+      public void onError(AsyncEvent event) {
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) {
+        event.getAsyncContext().addListener(this);
+      }
+    });
+  }
+
+  /**
+   * Check if the validation processor reads the request body. Processors that cannot tell always get a
+   * buffered body.
+   *
+   * @param request Incoming request
+   * @return <code>true</code> if the body has to be buffered before the request is validated
+   */
+  private boolean requiresRequestBody(HttpServletRequest request) {
+    return ! (validationProcessor instanceof IBodyAwareValidationProcessor)
+        || ((IBodyAwareValidationProcessor) validationProcessor).requiresRequestBody(request);
+  }
+
+  /**
+   * Get the largest request body allowed for the request, from the route's <code>limits.json</code>
+   * if it has one, otherwise from the <code>max-body-bytes</code> init parameter.
+   *
+   * @param request Incoming request
+   * @return Maximum number of bytes allowed in the body, or a negative number for no limit
+   */
+  private long getMaxBodyBytes(HttpServletRequest request) {
+    if(validationProcessor instanceof AbstractJsonSchemaValidationProcessor) {
+      long routeMaxBodyBytes = ((AbstractJsonSchemaValidationProcessor) validationProcessor).getSchemaIndex()
+          .lookupMaxBodyBytes(request.getMethod(), request.getRequestURI());
+      if(routeMaxBodyBytes >= 0) {
+        return routeMaxBodyBytes;
+      }
+    }
+    return maxBodyBytes;
+  }
+
+  /**
+   * Write the error response for an exception. Rejections made by the filter itself use the status of
+   * their error code, failures of the validation processor are reported as a 500.
+   *
+   * @param jsonSchemaValidationException Reason the request failed
+   * @param servletResponse               Outgoing response
+   */
+  private void writeExceptionResponse(JsonSchemaValidationException jsonSchemaValidationException,
+      HttpServletResponse servletResponse) {
+    int status = jsonSchemaValidationException instanceof RequestBodyTooLarge
+        || jsonSchemaValidationException instanceof RequestBodyTooCompressed
+        || jsonSchemaValidationException instanceof UnsupportedContentEncoding
+        || jsonSchemaValidationException instanceof ValidationUnavailable
+        ? jsonSchemaValidationException.getErrorCode().getHttpStatus() : 500;
+    writeErrorResponse(status, toExceptionResponse(jsonSchemaValidationException),
+        jsonMappers.getExceptionResponseWriter(), servletResponse);
+  }
+
+  private ExceptionResponse toExceptionResponse(JsonSchemaValidationException jsonSchemaValidationException) {
+    ExceptionResponse response = new ExceptionResponse();
+    response.setSubCode(jsonSchemaValidationException.getErrorCode().getErrorCode());
+    response.setErrorMessage(jsonSchemaValidationException.getErrorCode().getErrorMessage());
+    response.setErrorCausedBy(jsonSchemaValidationException.getCause().getMessage());
+    return response;
+  }
+
+  /**
+   * Write the 400 response of a failed validation, reusing the bytes written for the same failures when
+   * the error response cache is enabled.
+   */
+  private void writeValidationResponse(ValidationResponse report, HttpServletResponse servletResponse) {
+    if(errorResponseCache == null) {
+      writeErrorResponse(400, report, jsonMappers.getValidationResponseWriter(), servletResponse);
+      return;
+    }
+    servletResponse.setContentType("application/json");
+    servletResponse.setStatus(400);
+
+    try {
+      byte[] body = errorResponseCache.getResponse(report, jsonMappers.getValidationResponseWriter());
+      servletResponse.setContentLength(body.length);
+      servletResponse.getOutputStream().write(body);
+    } catch(IOException e) {
+      LOGGER.error("Could not write to servlet response", e);
+    }
+  }
+
+  private void writeErrorResponse(int status, Object error, ObjectWriter writer, HttpServletResponse servletResponse) {
     servletResponse.setContentType("application/json");
     servletResponse.setStatus(status);
 
     try {
-      objectMapper.writeValue(servletResponse.getOutputStream(), error);
+      writer.writeValue(servletResponse.getOutputStream(), error);
     } catch(IOException e) {
       LOGGER.error("Could not write to servlet response", e);
     }
@@ -145,7 +1093,26 @@ public class JsonSchemaValidationFilter implements Filter {
 
   @Override
   public void destroy() {
-
+    if(asyncValidationExecutor != null) {
+      asyncValidationExecutor.shutdown();
+    }
+    if(validationOffloadExecutor != null) {
+      validationOffloadExecutor.shutdown();
+    }
+    if(sectionValidationPool != null) {
+      sectionValidationPool.shutdown();
+    }
+    if(metrics != null) {
+      metrics.close();
+    }
+    if(validationProcessor instanceof AbstractJsonSchemaValidationProcessor) {
+      AbstractJsonSchemaValidationProcessor processor = (AbstractJsonSchemaValidationProcessor) validationProcessor;
+      processor.stopWatchingSchemaDirectory();
+      LOGGER.info("Schema cache statistics: {}", processor.getSchemaCache().getStats());
+    }
+    if(errorResponseCache != null) {
+      LOGGER.info("Error response cache statistics: {}", errorResponseCache.getStats());
+    }
   }
 
   protected String getSchemaRoot() {
@@ -160,11 +1127,39 @@ public class JsonSchemaValidationFilter implements Filter {
     this.validationProcessor = validationProcessor;
   }
 
+  /**
+   * @return Validation metrics of every route, or null when metrics are disabled
+   */
+  public ValidationMetrics getMetrics() {
+    return metrics;
+  }
+
   protected ObjectMapper getObjectMapper() {
-    return objectMapper;
+    return jsonMappers == null ? null : jsonMappers.getObjectMapper();
   }
 
+  /**
+   * Use a mapper of its own instead of the shared one, must be set before the filter is initialized for
+   * the validation processor to use it too.
+   *
+   * @param objectMapper Configured object mapper, or null to use the shared one
+   */
   public void setObjectMapper(ObjectMapper objectMapper) {
-    this.objectMapper = objectMapper;
+    setJsonMappers(objectMapper == null ? null : new JsonMappers(objectMapper));
+  }
+
+  protected JsonMappers getJsonMappers() {
+    return jsonMappers;
+  }
+
+  /**
+   * @param jsonMappers Mappers to share with the validation processor, or null to use
+   *                    {@link JsonMappers#getDefault()}
+   */
+  public void setJsonMappers(JsonMappers jsonMappers) {
+    this.jsonMappers = jsonMappers;
+    if(errorResponseCache != null) {
+      errorResponseCache.invalidateAll();
+    }
   }
 }
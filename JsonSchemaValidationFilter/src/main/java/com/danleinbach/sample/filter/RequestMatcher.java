@@ -0,0 +1,180 @@
+package com.danleinbach.sample.filter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Decides, before a request is buffered or any schema is resolved, whether the filter validates it at all.
+ * Static assets, preflight requests and bodies that are not json can then pass straight through.
+ * <p/>
+ * A request is validated when:
+ * <ul>
+ * <li>the longest configured path prefix its path within the application starts with is an included one, or
+ * it starts with none and no included prefixes are configured,</li>
+ * <li>its method is included, or no methods are included, and is not excluded,</li>
+ * <li>it has no content type, or its content type is included, or no content types are included, and is not
+ * excluded.</li>
+ * </ul>
+ * Everything is compiled into arrays once, matching a request neither allocates nor locks.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+final class RequestMatcher {
+
+  private static final Comparator<String> LONGEST_FIRST = new Comparator<String>() {
+    @Override
+    public int compare(String first, String second) {
+      return second.length() - first.length();
+    }
+  };
+
+  private final String[] prefixes;
+  private final boolean[] includedPrefixes;
+  private final boolean defaultIncluded;
+  private final String[] includedMethods;
+  private final String[] excludedMethods;
+  private final String[] includedContentTypes;
+  private final String[] excludedContentTypes;
+
+  /**
+   * @param includePaths        Path prefixes of the requests to validate, without the context path
+   * @param excludePaths        Path prefixes of the requests not to validate, without the context path
+   * @param includeMethods      Methods of the requests to validate
+   * @param excludeMethods      Methods of the requests not to validate
+   * @param includeContentTypes Content types of the requests to validate, <code>type/*</code> matches every
+   *                            subtype
+   * @param excludeContentTypes Content types of the requests not to validate
+   */
+  RequestMatcher(List<String> includePaths, List<String> excludePaths, List<String> includeMethods,
+                 List<String> excludeMethods, List<String> includeContentTypes, List<String> excludeContentTypes) {
+    List<String> prefixList = new ArrayList<String>(includePaths);
+    prefixList.addAll(excludePaths);
+    Collections.sort(prefixList, LONGEST_FIRST);
+    this.prefixes = prefixList.toArray(new String[prefixList.size()]);
+    this.includedPrefixes = new boolean[prefixes.length];
+    for(int x = 0; x < prefixes.length; x++) {
+      // A prefix both included and excluded is excluded
+      includedPrefixes[x] = ! excludePaths.contains(prefixes[x]);
+    }
+    this.defaultIncluded = includePaths.isEmpty();
+    this.includedMethods = includeMethods.toArray(new String[includeMethods.size()]);
+    this.excludedMethods = excludeMethods.toArray(new String[excludeMethods.size()]);
+    this.includedContentTypes = toLowerCase(includeContentTypes);
+    this.excludedContentTypes = toLowerCase(excludeContentTypes);
+  }
+
+  /**
+   * Parse a comma separated init parameter.
+   *
+   * @param value Parameter value, may be null
+   * @return The trimmed, non empty values
+   */
+  static List<String> parseList(String value) {
+    List<String> values = new ArrayList<String>();
+    if(value != null) {
+      for(String part : value.split(",")) {
+        if(! part.trim().isEmpty()) {
+          values.add(part.trim());
+        }
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return <code>true</code> when every request is validated, so the filter need not consult the matcher
+   */
+  boolean matchesAll() {
+    return prefixes.length == 0 && includedMethods.length == 0 && excludedMethods.length == 0
+        && includedContentTypes.length == 0 && excludedContentTypes.length == 0;
+  }
+
+  /**
+   * @param request Incoming request
+   * @return <code>true</code> if the request is to be validated
+   */
+  boolean matches(HttpServletRequest request) {
+    return matchesPath(request.getRequestURI(), request.getContextPath()) && matchesMethod(request.getMethod())
+        && matchesContentType(request.getContentType());
+  }
+
+  private boolean matchesPath(String uri, String contextPath) {
+    if(uri != null) {
+      // Match from the end of the context path rather than copying the path within the application
+      int start = contextPath != null && uri.startsWith(contextPath) ? contextPath.length() : 0;
+      for(int x = 0; x < prefixes.length; x++) {
+        if(uri.startsWith(prefixes[x], start)) {
+          return includedPrefixes[x];
+        }
+      }
+    }
+    return defaultIncluded;
+  }
+
+  private boolean matchesMethod(String method) {
+    return (includedMethods.length == 0 || contains(includedMethods, method)) && ! contains(excludedMethods, method);
+  }
+
+  private boolean matchesContentType(String contentType) {
+    if(contentType == null || (includedContentTypes.length == 0 && excludedContentTypes.length == 0)) {
+      return true;
+    }
+    return (includedContentTypes.length == 0 || matchesAny(includedContentTypes, contentType))
+        && ! matchesAny(excludedContentTypes, contentType);
+  }
+
+  private static boolean contains(String[] values, String value) {
+    for(String candidate : values) {
+      if(candidate.equals(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Match a content type header, ignoring case and any parameters such as the charset, against media types
+   * that are lower case.
+   */
+  private static boolean matchesAny(String[] mediaTypes, String contentType) {
+    int end = contentType.indexOf(';');
+    if(end < 0) {
+      end = contentType.length();
+    }
+    while(end > 0 && contentType.charAt(end - 1) == ' ') {
+      end--;
+    }
+    for(String mediaType : mediaTypes) {
+      if(mediaType.endsWith("/*")
+          ? contentType.regionMatches(true, 0, mediaType, 0, mediaType.length() - 1)
+          : end == mediaType.length() && contentType.regionMatches(true, 0, mediaType, 0, end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String[] toLowerCase(List<String> values) {
+    String[] lowerCase = new String[values.size()];
+    for(int x = 0; x < lowerCase.length; x++) {
+      lowerCase[x] = values.get(x).toLowerCase(Locale.ENGLISH);
+    }
+    return lowerCase;
+  }
+
+  @Override
+  public String toString() {
+    return "RequestMatcher{prefixes=" + Arrays.toString(prefixes) + ", includedPrefixes="
+        + Arrays.toString(includedPrefixes) + ", includedMethods=" + Arrays.toString(includedMethods)
+        + ", excludedMethods=" + Arrays.toString(excludedMethods) + ", includedContentTypes="
+        + Arrays.toString(includedContentTypes) + ", excludedContentTypes="
+        + Arrays.toString(excludedContentTypes) + '}';
+  }
+}
@@ -0,0 +1,52 @@
+package com.danleinbach.sample.filter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Detects virtual threads on the Java versions that have them, without requiring such a version to build
+ * or run the filter. <code>Thread.isVirtual()</code> is looked up once, on older versions no thread is
+ * virtual.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+final class VirtualThreads {
+
+  private static final Method IS_VIRTUAL = findIsVirtual();
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * @return <code>true</code> if the running Java version has virtual threads
+   */
+  static boolean isSupported() {
+    return IS_VIRTUAL != null;
+  }
+
+  /**
+   * @return <code>true</code> if the current thread is a virtual thread
+   */
+  static boolean isCurrentThreadVirtual() {
+    if(IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return (Boolean) IS_VIRTUAL.invoke(Thread.currentThread());
+    } catch(IllegalAccessException e) {
+      return false;
+    } catch(InvocationTargetException e) {
+      return false;
+    }
+  }
+
+  private static Method findIsVirtual() {
+    try {
+      return Thread.class.getMethod("isVirtual");
+    } catch(NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.danleinbach.sample.json;
+
+import com.danleinbach.sample.domain.ExceptionResponse;
+import com.danleinbach.sample.domain.ValidationResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The object mapper, json factory and prebuilt readers and writers shared by the filter, the validation
+ * processor, the error responses and the spring message converter. Sharing one mapper means serializers
+ * are looked up and buffers are recycled once for the whole application instead of once per component.
+ * <p/>
+ * All of them are thread safe once built. Configure the mapper before it is handed over: changing it
+ * afterwards is not seen by the readers and writers already built from it.
+ * <p/>
+ * To share the registry with spring, declare it as a bean and pass it to the message converter:
+ * <pre>
+ * &lt;bean id="jsonMappers" class="com.danleinbach.sample.json.JsonMappers" factory-method="getDefault"/&gt;
+ * &lt;bean class="com.danleinbach.sample.spring.ValidatedJsonHttpMessageConverter"&gt;
+ *     &lt;constructor-arg ref="jsonMappers"/&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public final class JsonMappers {
+
+	private static final AtomicReference<JsonMappers> DEFAULT_MAPPERS = new AtomicReference<JsonMappers>();
+
+	private final ObjectMapper objectMapper;
+	private final ObjectReader jsonNodeReader;
+	private final ObjectWriter validationResponseWriter;
+	private final ObjectWriter exceptionResponseWriter;
+
+	/**
+	 * Create a registry around a mapper with the default configuration, except that the field names of parsed
+	 * documents are not interned. Request bodies carry whatever field names the client sends, and interning each
+	 * one is a lookup in the jvm wide string table. The names are still canonicalized by the factory, so a
+	 * repeated name is the same string, and nothing written by the mapper changes.
+	 */
+	public JsonMappers() {
+		this(createObjectMapper());
+	}
+
+	/**
+	 * @param objectMapper Configured object mapper to share. When it is shared with the spring message
+	 *                     converter it must keep {@link SerializationFeature#FLUSH_AFTER_WRITE_VALUE} enabled,
+	 *                     the converter writes through a generator it never flushes or closes.
+	 */
+	public JsonMappers(ObjectMapper objectMapper) {
+		if(objectMapper == null) {
+			throw new IllegalArgumentException("objectMapper must not be null");
+		}
+		this.objectMapper = objectMapper;
+		this.jsonNodeReader = objectMapper.reader(JsonNode.class);
+		this.validationResponseWriter = objectMapper.writerWithType(ValidationResponse.class);
+		this.exceptionResponseWriter = objectMapper.writerWithType(ExceptionResponse.class);
+	}
+
+	private static ObjectMapper createObjectMapper() {
+		JsonFactory jsonFactory = new JsonFactory();
+		jsonFactory.disable(JsonFactory.Feature.INTERN_FIELD_NAMES);
+		return new ObjectMapper(jsonFactory);
+	}
+
+	/**
+	 * @return The registry used by every component that is not given one, created on first use
+	 */
+	public static JsonMappers getDefault() {
+		JsonMappers mappers = DEFAULT_MAPPERS.get();
+		while(mappers == null) {
+			DEFAULT_MAPPERS.compareAndSet(null, new JsonMappers());
+			mappers = DEFAULT_MAPPERS.get();
+		}
+		return mappers;
+	}
+
+	/**
+	 * Replace the default registry. Only components created afterwards use it.
+	 *
+	 * @param mappers New default registry, or null to go back to a registry with the default mapper
+	 */
+	public static void setDefault(JsonMappers mappers) {
+		DEFAULT_MAPPERS.set(mappers);
+	}
+
+	public ObjectMapper getObjectMapper() {
+		return objectMapper;
+	}
+
+	/**
+	 * @return Factory of the shared mapper, for streaming parsers and generators
+	 */
+	public JsonFactory getJsonFactory() {
+		return objectMapper.getFactory();
+	}
+
+	/**
+	 * @return Reader of json trees
+	 */
+	public ObjectReader getJsonNodeReader() {
+		return jsonNodeReader;
+	}
+
+	public ObjectWriter getValidationResponseWriter() {
+		return validationResponseWriter;
+	}
+
+	public ObjectWriter getExceptionResponseWriter() {
+		return exceptionResponseWriter;
+	}
+}
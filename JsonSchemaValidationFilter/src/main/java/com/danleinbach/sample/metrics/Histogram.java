@@ -0,0 +1,106 @@
+package com.danleinbach.sample.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of non-negative values. Values are counted in log-linear buckets, every power of
+ * two is split into 16 buckets, so recorded values are kept to within about 6% of their real value while
+ * the whole range of a long fits in under a thousand counters. Recording is a few atomic increments and
+ * never allocates.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value, negative values are recorded as <code>0</code>.
+	 *
+	 * @param value Value to record
+	 */
+	public void record(long value) {
+		if(value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(index(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long currentMax = max.get();
+		while(value > currentMax && ! max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * @return Number of values recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Take a snapshot of the histogram. Values recorded while the snapshot is taken may or may not be
+	 * included in it.
+	 *
+	 * @return Summary of the values recorded so far
+	 */
+	public HistogramSnapshot snapshot() {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for(int x = 0; x < BUCKETS; x++) {
+			snapshot[x] = counts.get(x);
+			total += snapshot[x];
+		}
+		return new HistogramSnapshot(total, total == 0 ? 0 : (double) sum.get() / count.get(),
+				percentile(snapshot, total, 0.5), percentile(snapshot, total, 0.9), percentile(snapshot, total, 0.99),
+				percentile(snapshot, total, 0.999), max.get());
+	}
+
+	/**
+	 * @return Upper bound of the bucket holding the given percentile of the values
+	 */
+	private static long percentile(long[] snapshot, long total, double percentile) {
+		if(total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * percentile);
+		long seen = 0;
+		for(int x = 0; x < snapshot.length; x++) {
+			seen += snapshot[x];
+			if(seen >= rank) {
+				return upperBound(x);
+			}
+		}
+		return upperBound(snapshot.length - 1);
+	}
+
+	static int index(long value) {
+		if(value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long upperBound(int index) {
+		if(index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS;
+		long bound = ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+		return bound < 0 ? Long.MAX_VALUE : bound;
+	}
+}
@@ -0,0 +1,67 @@
+package com.danleinbach.sample.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Summary of the values in a {@link Histogram} at one point in time. Percentiles are the upper bound of
+ * the bucket holding them.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class HistogramSnapshot {
+
+	private final long count;
+	private final double mean;
+	private final long p50;
+	private final long p90;
+	private final long p99;
+	private final long p999;
+	private final long max;
+
+	@ConstructorProperties({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+	public HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public long getP50() {
+		return p50;
+	}
+
+	public long getP90() {
+		return p90;
+	}
+
+	public long getP99() {
+		return p99;
+	}
+
+	public long getP999() {
+		return p999;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + ", mean=" + Math.round(mean) + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99
+				+ ", p999=" + p999 + ", max=" + max;
+	}
+}
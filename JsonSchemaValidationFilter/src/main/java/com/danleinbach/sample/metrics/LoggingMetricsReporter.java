@@ -0,0 +1,30 @@
+package com.danleinbach.sample.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes the validation metrics of every route to the log.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class LoggingMetricsReporter implements MetricsReporter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoggingMetricsReporter.class);
+
+	@Override
+	public void report(Collection<RouteMetrics> routes) {
+		for(RouteMetrics route : routes) {
+			LOGGER.info("{}: requests={}, invalid={}, errors={}", route.getRoute(), route.getRequestCount(),
+					route.getInvalidCount(), route.getErrorCount());
+			for(Map.Entry<String, HistogramSnapshot> histogram : route.getHistograms().entrySet()) {
+				LOGGER.info("{} {}: {}", route.getRoute(), histogram.getKey(), histogram.getValue());
+			}
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.danleinbach.sample.metrics;
+
+import java.util.Collection;
+
+/**
+ * Receives the validation metrics of every route on a schedule, e.g. to push them to a monitoring
+ * system. Implementations need a public no argument constructor to be configured on the filter.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public interface MetricsReporter {
+
+	/**
+	 * Report the current metrics. Histograms are cumulative since the filter started.
+	 *
+	 * @param routes Metrics of every route seen so far
+	 */
+	void report(Collection<RouteMetrics> routes);
+}
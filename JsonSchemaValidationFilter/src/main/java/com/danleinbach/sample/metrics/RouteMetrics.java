@@ -0,0 +1,126 @@
+package com.danleinbach.sample.metrics;
+
+import com.danleinbach.sample.constants.SchemaLocationConstants;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Validation metrics of one route: the time the filter spends on each request, the size of the
+ * buffered bodies, and the time each section of the request spends in every phase of validation.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class RouteMetrics implements RouteMetricsMXBean {
+
+	/**
+	 * Phases of validating one section of a request.
+	 */
+	public enum Phase {
+		/**
+		 * Finding the schema for the section.
+		 */
+		RESOLVE,
+		/**
+		 * Getting the compiled schema, including compiling it when it is not cached.
+		 */
+		SCHEMA,
+		/**
+		 * Turning the section into json.
+		 */
+		PARSE,
+		/**
+		 * Validating the json against the schema.
+		 */
+		VALIDATE
+	}
+
+	private final String route;
+	private final Histogram filterNanos = new Histogram();
+	private final Histogram bodyBytes = new Histogram();
+	private final Histogram[][] sectionNanos;
+	private final AtomicLong invalidCount = new AtomicLong();
+	private final AtomicLong errorCount = new AtomicLong();
+
+	public RouteMetrics(String route) {
+		this.route = route;
+		this.sectionNanos = new Histogram[SchemaLocationConstants.values().length][Phase.values().length];
+		for(Histogram[] phases : sectionNanos) {
+			for(int x = 0; x < phases.length; x++) {
+				phases[x] = new Histogram();
+			}
+		}
+	}
+
+	/**
+	 * @param nanos Time the filter spent on a request, before handing it down the chain
+	 */
+	public void recordFilter(long nanos) {
+		filterNanos.record(nanos);
+	}
+
+	/**
+	 * @param bytes Size of a buffered request body
+	 */
+	public void recordBodyBytes(long bytes) {
+		bodyBytes.record(bytes);
+	}
+
+	/**
+	 * @param location Section of the request
+	 * @param phase    Phase of validating the section
+	 * @param nanos    Time spent in the phase
+	 */
+	public void recordSection(SchemaLocationConstants location, Phase phase, long nanos) {
+		sectionNanos[location.ordinal()][phase.ordinal()].record(nanos);
+	}
+
+	public void recordInvalid() {
+		invalidCount.incrementAndGet();
+	}
+
+	public void recordError() {
+		errorCount.incrementAndGet();
+	}
+
+	@Override
+	public String getRoute() {
+		return route;
+	}
+
+	@Override
+	public long getRequestCount() {
+		return filterNanos.getCount();
+	}
+
+	@Override
+	public long getInvalidCount() {
+		return invalidCount.get();
+	}
+
+	@Override
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	@Override
+	public Map<String, HistogramSnapshot> getHistograms() {
+		Map<String, HistogramSnapshot> histograms = new LinkedHashMap<String, HistogramSnapshot>();
+		histograms.put("filter.nanos", filterNanos.snapshot());
+		histograms.put("body.bytes", bodyBytes.snapshot());
+		for(SchemaLocationConstants location : SchemaLocationConstants.values()) {
+			for(Phase phase : Phase.values()) {
+				Histogram histogram = sectionNanos[location.ordinal()][phase.ordinal()];
+				if(histogram.getCount() > 0) {
+					histograms.put(location.getValue() + "." + phase.name().toLowerCase(Locale.ENGLISH) + ".nanos",
+							histogram.snapshot());
+				}
+			}
+		}
+		return histograms;
+	}
+}
@@ -0,0 +1,38 @@
+package com.danleinbach.sample.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the validation metrics of one route.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public interface RouteMetricsMXBean {
+
+	/**
+	 * @return Http method and schema folder of the route, e.g. <code>POST /users</code>
+	 */
+	String getRoute();
+
+	/**
+	 * @return Number of requests validated
+	 */
+	long getRequestCount();
+
+	/**
+	 * @return Number of requests that failed validation
+	 */
+	long getInvalidCount();
+
+	/**
+	 * @return Number of requests that could not be validated
+	 */
+	long getErrorCount();
+
+	/**
+	 * @return Snapshot of every histogram of the route, keyed by name, times are in nanoseconds
+	 */
+	Map<String, HistogramSnapshot> getHistograms();
+}
@@ -0,0 +1,57 @@
+package com.danleinbach.sample.metrics;
+
+import com.danleinbach.sample.constants.SchemaLocationConstants;
+
+/**
+ * Times the phases of validating one section of a request, one after another. {@link #NONE} records
+ * nothing and is used when metrics are disabled, so timing costs nothing then.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SectionTimer {
+
+	/**
+	 * Timer that records nothing.
+	 */
+	public static final SectionTimer NONE = new SectionTimer(null, null);
+
+	private final RouteMetrics routeMetrics;
+	private final SchemaLocationConstants location;
+	private long lapStart;
+
+	private SectionTimer(RouteMetrics routeMetrics, SchemaLocationConstants location) {
+		this.routeMetrics = routeMetrics;
+		this.location = location;
+	}
+
+	/**
+	 * Start timing a section.
+	 *
+	 * @param routeMetrics Metrics of the request's route, or null to record nothing
+	 * @param location     Section of the request
+	 * @return Started timer
+	 */
+	public static SectionTimer start(RouteMetrics routeMetrics, SchemaLocationConstants location) {
+		if(routeMetrics == null) {
+			return NONE;
+		}
+		SectionTimer timer = new SectionTimer(routeMetrics, location);
+		timer.lapStart = System.nanoTime();
+		return timer;
+	}
+
+	/**
+	 * Record the time since the timer started or the previous lap as the given phase.
+	 *
+	 * @param phase Phase that just finished
+	 */
+	public void lap(RouteMetrics.Phase phase) {
+		if(routeMetrics != null) {
+			long now = System.nanoTime();
+			routeMetrics.recordSection(location, phase, now - lapStart);
+			lapStart = now;
+		}
+	}
+}
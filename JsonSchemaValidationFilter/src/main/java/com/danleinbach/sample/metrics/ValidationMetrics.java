@@ -0,0 +1,150 @@
+package com.danleinbach.sample.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Validation metrics of every route, keyed by http method and the folder of the route's schemas. Each
+ * route is registered as an MBean under <code>com.danleinbach.sample:type=ValidationMetrics</code> the
+ * first time it is seen, and the metrics can be handed to a {@link MetricsReporter} on a schedule.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidationMetrics {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ValidationMetrics.class);
+	private static final String OBJECT_NAME_PREFIX = "com.danleinbach.sample:type=ValidationMetrics,route=";
+
+	private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<String, RouteMetrics>();
+	private final MBeanServer mBeanServer;
+	private final ReentrantLock reporterLock = new ReentrantLock();
+	private ScheduledExecutorService reporterExecutor;
+
+	/**
+	 * @param registerMBeans Whether each route is registered with the platform MBean server
+	 */
+	public ValidationMetrics(boolean registerMBeans) {
+		this.mBeanServer = registerMBeans ? ManagementFactory.getPlatformMBeanServer() : null;
+	}
+
+	/**
+	 * Get the metrics of a route, creating and registering them the first time the route is seen.
+	 *
+	 * @param route Http method and schema folder of the route
+	 * @return Metrics of the route
+	 */
+	public RouteMetrics getRouteMetrics(String route) {
+		RouteMetrics routeMetrics = routes.get(route);
+		if(routeMetrics != null) {
+			return routeMetrics;
+		}
+		RouteMetrics created = new RouteMetrics(route);
+		routeMetrics = routes.putIfAbsent(route, created);
+		if(routeMetrics != null) {
+			return routeMetrics;
+		}
+		register(created);
+		return created;
+	}
+
+	/**
+	 * @return Metrics of every route seen so far
+	 */
+	public Collection<RouteMetrics> getRoutes() {
+		return Collections.unmodifiableCollection(routes.values());
+	}
+
+	/**
+	 * Hand the metrics to a reporter at a fixed rate on a background thread, until {@link #close()}.
+	 *
+	 * @param reporter Reporter receiving the metrics
+	 * @param period   Time between reports
+	 * @param unit     Unit of the period
+	 */
+	public void startReporting(final MetricsReporter reporter, long period, TimeUnit unit) {
+		reporterLock.lock();
+		try {
+			scheduleReporting(reporter, period, unit);
+		} finally {
+			reporterLock.unlock();
+		}
+	}
+
+	private void scheduleReporting(final MetricsReporter reporter, long period, TimeUnit unit) {
+		if(reporterExecutor == null) {
+			reporterExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "validation-metrics-reporter");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		reporterExecutor.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					reporter.report(getRoutes());
+				} catch(RuntimeException e) {
+					LOGGER.warn("Validation metrics reporter failed", e);
+				}
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Stop reporting and unregister the MBeans of every route.
+	 */
+	public void close() {
+		reporterLock.lock();
+		try {
+			if(reporterExecutor != null) {
+				reporterExecutor.shutdown();
+				reporterExecutor = null;
+			}
+		} finally {
+			reporterLock.unlock();
+		}
+		if(mBeanServer != null) {
+			for(RouteMetrics routeMetrics : routes.values()) {
+				try {
+					mBeanServer.unregisterMBean(objectName(routeMetrics));
+				} catch(JMException e) {
+					LOGGER.debug("Could not unregister validation metrics of {}", routeMetrics.getRoute(), e);
+				}
+			}
+		}
+	}
+
+	private void register(RouteMetrics routeMetrics) {
+		if(mBeanServer == null) {
+			return;
+		}
+		try {
+			mBeanServer.registerMBean(routeMetrics, objectName(routeMetrics));
+		} catch(JMException e) {
+			LOGGER.warn("Could not register validation metrics of {}", routeMetrics.getRoute(), e);
+		}
+	}
+
+	private static ObjectName objectName(RouteMetrics routeMetrics) throws JMException {
+		return new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(routeMetrics.getRoute()));
+	}
+}
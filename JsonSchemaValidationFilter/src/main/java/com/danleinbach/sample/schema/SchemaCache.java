@@ -0,0 +1,145 @@
+package com.danleinbach.sample.schema;
+
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded cache of compiled json schemas, keyed by schema location. Once the maximum number of
+ * schemas is reached the least recently used schema is evicted. Hits, misses, evictions and the
+ * time spent compiling schemas are recorded and available through {@link #getStats()}.
+ * <p/>
+ * The compiled form of a schema is up to the {@link Loader}.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SchemaCache<T> {
+
+	/**
+	 * Maximum number of compiled schemas kept when no size is configured.
+	 */
+	public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaCache.class);
+
+	private final long maximumSize;
+	private final LoadingCache<String, T> schemas;
+
+	/**
+	 * Create a schema cache that compiles schemas with the given loader.
+	 *
+	 * @param loader      Loader used to compile schemas that are not in the cache
+	 * @param maximumSize Maximum number of compiled schemas to keep, <code>0</code> disables caching
+	 */
+	public SchemaCache(final Loader<T> loader, long maximumSize) {
+		this.maximumSize = maximumSize;
+		this.schemas = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats()
+				.build(new CacheLoader<String, T>() {
+					@Override
+					public T load(String schemaLocation) throws ValidationEngineException {
+						LOGGER.debug("Compiling schema:{}", schemaLocation);
+						return loader.load(schemaLocation);
+					}
+				});
+	}
+
+	/**
+	 * Get the compiled schema for a location, compiling it if it is not cached.
+	 *
+	 * @param schemaLocation Location of the schema
+	 * @return Compiled json schema
+	 * @throws ValidationEngineException Thrown when the schema cannot be loaded or compiled
+	 */
+	public T get(String schemaLocation) throws ValidationEngineException {
+		try {
+			return schemas.get(schemaLocation);
+		} catch(ExecutionException e) {
+			throw unwrap(e.getCause());
+		} catch(UncheckedExecutionException e) {
+			throw unwrap(e.getCause());
+		}
+	}
+
+	/**
+	 * Compile a schema again and swap it in once it is compiled. Until then, and if compiling it fails,
+	 * the schema already in the cache keeps being used. A schema that is not cached is compiled and added.
+	 *
+	 * @param schemaLocation Location of the schema
+	 */
+	public void refresh(String schemaLocation) {
+		schemas.refresh(schemaLocation);
+	}
+
+	/**
+	 * Drop a compiled schema from the cache.
+	 *
+	 * @param schemaLocation Location of the schema
+	 */
+	public void invalidate(String schemaLocation) {
+		schemas.invalidate(schemaLocation);
+	}
+
+	/**
+	 * Drop every compiled schema from the cache.
+	 */
+	public void invalidateAll() {
+		schemas.invalidateAll();
+	}
+
+	/**
+	 * @return Number of compiled schemas currently in the cache
+	 */
+	public long size() {
+		return schemas.size();
+	}
+
+	/**
+	 * @return Maximum number of compiled schemas kept by the cache
+	 */
+	public long getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Hit, miss, eviction and load time counters since the cache was created. Load times are in nanoseconds.
+	 *
+	 * @return Snapshot of the cache statistics
+	 */
+	public CacheStats getStats() {
+		return schemas.stats();
+	}
+
+	/**
+	 * Compiles the schema at a location when it is not in the cache.
+	 *
+	 * @param <T> Compiled form of the schema
+	 */
+	public interface Loader<T> {
+
+		/**
+		 * @param schemaLocation Location of the schema
+		 * @return Compiled schema
+		 * @throws ValidationEngineException Thrown when the schema cannot be loaded or compiled
+		 */
+		T load(String schemaLocation) throws ValidationEngineException;
+	}
+
+	private static ValidationEngineException unwrap(Throwable cause) {
+		if(cause instanceof ValidationEngineException) {
+			return (ValidationEngineException) cause;
+		}
+		if(cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		}
+		throw new IllegalStateException(cause);
+	}
+}
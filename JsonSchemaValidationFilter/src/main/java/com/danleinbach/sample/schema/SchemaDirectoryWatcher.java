@@ -0,0 +1,231 @@
+package com.danleinbach.sample.schema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches a schema root directory, and every folder below it, for json files being created, changed
+ * or deleted, and reports each change to a {@link Listener} on a background thread. Changes reported
+ * together by the file system are merged, so a file that is created and then written is reported once.
+ * <p/>
+ * When the file system drops events, or a whole folder is deleted, the listener is asked to rescan the
+ * directory instead.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SchemaDirectoryWatcher implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaDirectoryWatcher.class);
+	private static final String JSON_EXTENSION = ".json";
+
+	private final Path directory;
+	private final Listener listener;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> watchKeys = new HashMap<WatchKey, Path>();
+	private final Set<Path> folders = new HashSet<Path>();
+	private final Thread thread;
+	private volatile boolean closed;
+
+	/**
+	 * Register the directory and every folder below it. Nothing is reported until {@link #start()} is called.
+	 *
+	 * @param directory Schema root directory
+	 * @param listener  Listener the changes are reported to
+	 * @throws IOException Thrown when the directory cannot be watched
+	 */
+	public SchemaDirectoryWatcher(File directory, Listener listener) throws IOException {
+		this.directory = directory.getAbsoluteFile().toPath();
+		this.listener = listener;
+		this.watchService = this.directory.getFileSystem().newWatchService();
+		register(this.directory, false);
+		this.thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, "schema-directory-watcher");
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Start reporting changes on the background thread.
+	 */
+	public void start() {
+		thread.start();
+		LOGGER.info("Watching {} for schema changes", directory);
+	}
+
+	/**
+	 * Stop watching the directory. A change being reported when this is called is allowed to finish.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		watchService.close();
+	}
+
+	private void watch() {
+		while(! closed) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			} catch(InterruptedException e) {
+				return;
+			} catch(ClosedWatchServiceException e) {
+				return;
+			}
+
+			Path folder = watchKeys.get(key);
+			Map<Path, WatchEvent.Kind<?>> changes = new LinkedHashMap<Path, WatchEvent.Kind<?>>();
+			boolean rescan = folder == null;
+			for(WatchEvent<?> event : key.pollEvents()) {
+				if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+					rescan = true;
+				}
+				else if(folder != null) {
+					Path path = folder.resolve((Path) event.context());
+					// The last event for a path wins, except that a deleted file stays deleted until it is created again
+					if(changes.get(path) != StandardWatchEventKinds.ENTRY_DELETE
+							|| event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+						changes.put(path, event.kind());
+					}
+				}
+			}
+			if(! key.reset()) {
+				watchKeys.remove(key);
+			}
+
+			try {
+				for(Map.Entry<Path, WatchEvent.Kind<?>> change : changes.entrySet()) {
+					rescan |= handle(change.getKey(), change.getValue());
+				}
+				if(rescan && ! closed) {
+					LOGGER.info("Rescanning {} for schema changes", directory);
+					listener.rescan();
+				}
+			} catch(IOException e) {
+				LOGGER.error("Exception watching schema directory {}", directory, e);
+			} catch(RuntimeException e) {
+				LOGGER.error("Exception handling a change to schema directory {}", directory, e);
+			}
+		}
+	}
+
+	/**
+	 * Report a single change to the listener.
+	 *
+	 * @return <code>true</code> if the directory has to be rescanned
+	 */
+	private boolean handle(Path path, WatchEvent.Kind<?> kind) throws IOException {
+		if(kind == StandardWatchEventKinds.ENTRY_DELETE) {
+			if(removeFolder(path)) {
+				return true;
+			}
+			if(isJson(path)) {
+				listener.fileDeleted(path.toFile());
+			}
+			return false;
+		}
+		if(Files.isDirectory(path)) {
+			if(kind == StandardWatchEventKinds.ENTRY_CREATE) {
+				// Files may have been written to the folder before it was registered
+				register(path, true);
+			}
+			return false;
+		}
+		if(isJson(path) && Files.exists(path)) {
+			listener.fileChanged(path.toFile());
+		}
+		return false;
+	}
+
+	/**
+	 * Register a folder and every folder below it.
+	 *
+	 * @param folder      Folder to register
+	 * @param reportFiles Report every json file found in the folders as changed
+	 */
+	private void register(Path folder, final boolean reportFiles) throws IOException {
+		Files.walkFileTree(folder, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+				watchKeys.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+				folders.add(dir);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if(reportFiles && isJson(file)) {
+					listener.fileChanged(file.toFile());
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	/**
+	 * Forget a deleted folder and every folder below it.
+	 *
+	 * @return <code>true</code> if the path was a watched folder
+	 */
+	private boolean removeFolder(Path path) {
+		if(! folders.contains(path)) {
+			return false;
+		}
+		for(Iterator<Path> iterator = folders.iterator(); iterator.hasNext(); ) {
+			if(iterator.next().startsWith(path)) {
+				iterator.remove();
+			}
+		}
+		return true;
+	}
+
+	private static boolean isJson(Path path) {
+		return path.getFileName().toString().endsWith(JSON_EXTENSION);
+	}
+
+	/**
+	 * Receives the changes to a schema directory, always on the watcher's thread.
+	 */
+	public interface Listener {
+
+		/**
+		 * @param file Json file that was created or changed
+		 */
+		void fileChanged(File file);
+
+		/**
+		 * @param file Json file that was deleted
+		 */
+		void fileDeleted(File file);
+
+		/**
+		 * Changes may have been missed, and the whole directory should be scanned again.
+		 */
+		void rescan();
+	}
+}
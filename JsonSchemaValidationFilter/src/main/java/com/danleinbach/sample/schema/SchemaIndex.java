@@ -0,0 +1,672 @@
+package com.danleinbach.sample.schema;
+
+import com.danleinbach.sample.constants.SchemaLocationConstants;
+import com.danleinbach.sample.constants.ValidationConstants;
+import com.danleinbach.sample.json.JsonMappers;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * In-memory index of every json schema found under a schema root. The classpath is scanned once
+ * when the index is built, and the result is kept as a trie keyed by path segment, with the
+ * schemas for each request method stored on the node of the folder they were found in.
+ * <p/>
+ * Lookups walk the trie along the request uri and return the schema of the deepest folder that
+ * has one, which is the same answer the classpath probing in
+ * {@link com.danleinbach.sample.validation.AbstractJsonSchemaValidationProcessor} gives, without
+ * allocating or touching the class loader.
+ * <p/>
+ * A method folder can also hold a <code>limits.json</code> file, e.g.
+ * <code>{"maxBodyBytes": 1048576}</code>, which applies to the same requests its schemas would.
+ * <p/>
+ * An index built from a directory on the file system can be updated one file at a time with
+ * {@link #update(File)} and {@link #remove(File)}. Updates copy the nodes along the path of the
+ * file and then swap in the new trie, so lookups never take a lock and always see either the old
+ * or the new trie, never a mix of the two.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SchemaIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaIndex.class);
+	private static final String JSON_EXTENSION = ".json";
+	private static final String LIMITS_FILE = "limits.json";
+	private static final String MAX_BODY_BYTES = "maxBodyBytes";
+	private static final int LOCATION_COUNT = SchemaLocationConstants.values().length;
+	private static final int MAX_BODY_BYTES_SLOT = LOCATION_COUNT;
+	private static final int ROUTE_SLOT = LOCATION_COUNT + 1;
+
+	private final String schemaRoot;
+	private final File directory;
+	private volatile Node root = new Node("");
+	private volatile List<String> schemaLocations = new ArrayList<String>();
+	// Serializes updates, a lock rather than a monitor so a virtual thread updating the index is not pinned
+	private final ReentrantLock updateLock = new ReentrantLock();
+	private boolean complete = true;
+
+	private SchemaIndex(String schemaRoot, File directory) {
+		this.schemaRoot = schemaRoot;
+		this.directory = directory;
+	}
+
+	/**
+	 * Scan the class loader for every schema below the schema root and build an index out of them.
+	 * If part of the classpath cannot be scanned the returned index is marked as incomplete, and the
+	 * caller should fall back to looking schemas up one at a time.
+	 *
+	 * @param schemaRoot  Root folder location in the classpath
+	 * @param classLoader Class loader the schemas are loaded from
+	 * @return Index of all schemas found under the schema root
+	 */
+	public static SchemaIndex build(String schemaRoot, ClassLoader classLoader) {
+		SchemaIndex index = new SchemaIndex(schemaRoot, null);
+		// Same prefix the probing lookup puts in front of every path it tries
+		String prefix = schemaRoot.replaceFirst("/", "");
+		String directory = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+		String namePrefix = prefix.substring(directory.length());
+
+		try {
+			Set<String> resources = new TreeSet<String>();
+			scanClassLoader(classLoader, directory, resources);
+			for(String resource : resources) {
+				if(resource.startsWith(namePrefix)) {
+					String relativePath = resource.substring(namePrefix.length());
+					index.add(classLoader, relativePath,
+							ValidationConstants.RESOURCE.getValue() + schemaRoot + prefix + relativePath, directory + resource);
+				}
+			}
+		} catch(IOException e) {
+			LOGGER.warn("Could not scan schema root {}, schemas will be looked up per request", schemaRoot, e);
+			index.complete = false;
+		}
+
+		LOGGER.info("Indexed {} json schemas under {}", index.schemaLocations.size(), schemaRoot);
+		return index;
+	}
+
+	/**
+	 * Scan a directory on the file system for every schema below it and build an index out of them.
+	 * The schema locations in the index are <code>file:</code> urls.
+	 *
+	 * @param directory Schema root directory
+	 * @return Index of all schemas found under the directory
+	 */
+	public static SchemaIndex build(File directory) {
+		File root = directory.getAbsoluteFile();
+		SchemaIndex index = new SchemaIndex(root.getPath(), root);
+		Set<String> files = new TreeSet<String>();
+		scanDirectory(root, "", files);
+		for(String file : files) {
+			index.add(index.root, file, new File(root, file));
+		}
+
+		LOGGER.info("Indexed {} json schemas under {}", index.schemaLocations.size(), root);
+		return index;
+	}
+
+	/**
+	 * Add or replace a schema or limits file in an index built from a directory. Only the nodes along
+	 * the path of the file are copied, and lookups running at the same time see either the old or the
+	 * new index.
+	 *
+	 * @param file Schema or limits file that was created or changed
+	 * @return The schema location of the file, or <code>null</code> if the file is not a schema
+	 * @throws IllegalStateException Thrown when the index was not built from a directory
+	 */
+	public String update(File file) {
+		String relativePath = relativize(file);
+		if(relativePath == null) {
+			return null;
+		}
+		updateLock.lock();
+		try {
+			Node copy = copyPath(relativePath);
+			String schemaLocation = add(copy, relativePath, file);
+			root = copy;
+			return schemaLocation;
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove a schema or limits file from an index built from a directory.
+	 *
+	 * @param file Schema or limits file that was deleted
+	 * @return The schema location of the file, or <code>null</code> if the file is not a schema
+	 * @throws IllegalStateException Thrown when the index was not built from a directory
+	 */
+	public String remove(File file) {
+		String relativePath = relativize(file);
+		String[] parts = relativePath == null ? null : split(relativePath);
+		if(parts == null) {
+			return null;
+		}
+		updateLock.lock();
+		try {
+			return remove(file, relativePath, parts);
+		} finally {
+			updateLock.unlock();
+		}
+	}
+
+	private String remove(File file, String relativePath, String[] parts) {
+		Node copy = copyPath(relativePath);
+		Node node = copy;
+		for(int x = 0; x < parts.length - 2 && node != null; x++) {
+			node = node.childNamed(parts[x]);
+		}
+		String schemaLocation = null;
+		if(node != null) {
+			int slot = toSlot(parts[parts.length - 1]);
+			node.remove(parts[parts.length - 2], slot);
+			if(slot != MAX_BODY_BYTES_SLOT) {
+				schemaLocation = toSchemaLocation(file);
+				List<String> locations = new ArrayList<String>(schemaLocations);
+				locations.remove(schemaLocation);
+				schemaLocations = locations;
+			}
+		}
+		root = copy;
+		return schemaLocation;
+	}
+
+	/**
+	 * Find the schema for a request, starting at the folder matching the full request uri and moving
+	 * one folder back at a time until a schema for the method and location is found.
+	 *
+	 * @param method   Http method of the request
+	 * @param uri      Request uri
+	 * @param location Location in the request the schema is for
+	 * @return The schema location, or <code>null</code> if no schema applies to the request
+	 */
+	public String lookup(String method, String uri, SchemaLocationConstants location) {
+		return (String) find(method, uri, location.ordinal());
+	}
+
+	/**
+	 * Find the maximum body size for a request from the <code>limits.json</code> nearest to the request uri.
+	 *
+	 * @param method Http method of the request
+	 * @param uri    Request uri
+	 * @return The maximum number of bytes allowed in the request body, or <code>-1</code> if no limit is set
+	 */
+	public long lookupMaxBodyBytes(String method, String uri) {
+		Long maxBodyBytes = (Long) find(method, uri, MAX_BODY_BYTES_SLOT);
+		return maxBodyBytes == null ? - 1 : maxBodyBytes;
+	}
+
+	/**
+	 * Find the route of a request, the http method and the deepest folder along the request uri that
+	 * holds a schema for the method, e.g. <code>POST /users</code>.
+	 *
+	 * @param method Http method of the request
+	 * @param uri    Request uri
+	 * @return The route, or <code>null</code> if no schema applies to the request
+	 */
+	public String lookupRoute(String method, String uri) {
+		return (String) find(method, uri, ROUTE_SLOT);
+	}
+
+	/**
+	 * Walk the trie along the request uri and return the deepest value in the given slot for the method.
+	 */
+	private Object find(String method, String uri, int slot) {
+		int length = uri.length();
+		int start = (length > 0 && uri.charAt(0) == '/') ? 1 : 0;
+		// Everything from the first '.' onward is treated as an extension and ignored
+		int dot = uri.indexOf('.', start);
+		int end = (dot >= 0 && dot < length - 1) ? dot : length;
+
+		Node node = root;
+		Object found = node.get(method, slot);
+
+		// The first segment of the uri is never part of the schema path
+		int segmentStart = uri.indexOf('/', start);
+		if(segmentStart < 0 || segmentStart >= end) {
+			return found;
+		}
+		segmentStart++;
+
+		while(segmentStart <= end) {
+			int segmentEnd = uri.indexOf('/', segmentStart);
+			if(segmentEnd < 0 || segmentEnd > end) {
+				segmentEnd = end;
+			}
+			node = node.child(uri, segmentStart, segmentEnd);
+			if(node == null) {
+				break;
+			}
+			Object value = node.get(method, slot);
+			if(value != null) {
+				found = value;
+			}
+			segmentStart = segmentEnd + 1;
+		}
+
+		return found;
+	}
+
+	/**
+	 * @return <code>false</code> if part of the classpath could not be scanned when the index was built
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * @return Directory this index was built from, or <code>null</code> if it was built from the classpath
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return Schema root this index was built for
+	 */
+	public String getSchemaRoot() {
+		return schemaRoot;
+	}
+
+	/**
+	 * @return Every schema location in the index
+	 */
+	public List<String> getSchemaLocations() {
+		return Collections.unmodifiableList(schemaLocations);
+	}
+
+	/**
+	 * Add a schema or limits file found on the classpath to the index while it is built.
+	 *
+	 * @param classLoader    Class loader the resource is loaded from
+	 * @param relativePath   Path of the resource, relative to the schema root
+	 * @param schemaLocation Location of the resource if it is a schema
+	 * @param resource       Path of the resource in the class loader
+	 */
+	private void add(ClassLoader classLoader, String relativePath, String schemaLocation, String resource) {
+		String[] parts = split(relativePath);
+		if(parts == null) {
+			return;
+		}
+		int slot = toSlot(parts[parts.length - 1]);
+		put(root, parts, slot, slot == MAX_BODY_BYTES_SLOT
+				? readMaxBodyBytes(classLoader.getResourceAsStream(resource), resource) : schemaLocation);
+	}
+
+	/**
+	 * Add a schema or limits file found on the file system to a trie.
+	 *
+	 * @param root         Root of the trie, which must not be published yet
+	 * @param relativePath Path of the file, relative to the schema root directory
+	 * @param file         Schema or limits file
+	 * @return The schema location of the file, or <code>null</code> if the file is not a schema
+	 */
+	private String add(Node root, String relativePath, File file) {
+		String[] parts = split(relativePath);
+		if(parts == null) {
+			return null;
+		}
+		int slot = toSlot(parts[parts.length - 1]);
+		if(slot == MAX_BODY_BYTES_SLOT) {
+			try {
+				put(root, parts, slot, readMaxBodyBytes(new FileInputStream(file), relativePath));
+			} catch(FileNotFoundException e) {
+				LOGGER.warn("Ignoring unreadable limits file {}", file, e);
+			}
+			return null;
+		}
+		String schemaLocation = toSchemaLocation(file);
+		put(root, parts, slot, schemaLocation);
+		return schemaLocation;
+	}
+
+	/**
+	 * Put a value into the slot for the method, on the folder of the path, creating folders as needed.
+	 * Schema slots also set the route of the method and are added to the schema locations.
+	 */
+	private void put(Node root, String[] parts, int slot, Object value) {
+		if(value == null) {
+			return;
+		}
+		Node node = root;
+		StringBuilder folder = new StringBuilder();
+		for(int x = 0; x < parts.length - 2; x++) {
+			node = node.getOrCreateChild(parts[x]);
+			folder.append('/').append(parts[x]);
+		}
+
+		String method = parts[parts.length - 2];
+		node.put(method, slot, value);
+		if(slot == MAX_BODY_BYTES_SLOT) {
+			return;
+		}
+		node.put(method, ROUTE_SLOT, method + " " + (folder.length() == 0 ? "/" : folder.toString()));
+		if(! schemaLocations.contains(value)) {
+			// Copy on write, so a list handed out before an update never changes
+			List<String> locations = new ArrayList<String>(schemaLocations);
+			locations.add((String) value);
+			schemaLocations = locations;
+		}
+		LOGGER.debug("Indexed schema:{}", value);
+	}
+
+	/**
+	 * Copy the root and every existing folder along a path, so the folder of the path can be changed
+	 * without touching the published trie.
+	 *
+	 * @return Copy of the root
+	 */
+	private Node copyPath(String relativePath) {
+		String[] parts = relativePath.split("/");
+		Node copy = root.copy();
+		Node node = copy;
+		for(int x = 0; x < parts.length - 2; x++) {
+			Node child = node.childNamed(parts[x]);
+			if(child == null) {
+				break;
+			}
+			child = child.copy();
+			node.replaceChild(child);
+			node = child;
+		}
+		return copy;
+	}
+
+	/**
+	 * Split a path into its parts if it matches <code>[folder/...]METHOD/file.json</code> and the file
+	 * is a schema or limits file.
+	 *
+	 * @return The parts of the path, or <code>null</code> if the path is not for a schema or limits file
+	 */
+	private static String[] split(String relativePath) {
+		String[] parts = relativePath.split("/");
+		if(parts.length < 2 || toSlot(parts[parts.length - 1]) < 0) {
+			return null;
+		}
+		for(int x = 0; x < parts.length - 1; x++) {
+			if(parts[x].isEmpty()) {
+				return null;
+			}
+		}
+		return parts;
+	}
+
+	private static int toSlot(String fileName) {
+		if(LIMITS_FILE.equals(fileName)) {
+			return MAX_BODY_BYTES_SLOT;
+		}
+		SchemaLocationConstants location = toLocation(fileName);
+		return location == null ? - 1 : location.ordinal();
+	}
+
+	private String relativize(File file) {
+		if(directory == null) {
+			throw new IllegalStateException("Schema index was not built from a directory: " + schemaRoot);
+		}
+		String relativePath = directory.toURI().relativize(file.getAbsoluteFile().toURI()).getPath();
+		return relativePath.startsWith("/") ? null : relativePath;
+	}
+
+	private static String toSchemaLocation(File file) {
+		return file.getAbsoluteFile().toURI().toString();
+	}
+
+	private static Long readMaxBodyBytes(InputStream inputStream, String resource) {
+		if(inputStream == null) {
+			return null;
+		}
+		try {
+			JsonNode maxBodyBytes = JsonMappers.getDefault().getJsonNodeReader().readTree(inputStream).path(MAX_BODY_BYTES);
+			if(maxBodyBytes.isIntegralNumber()) {
+				return maxBodyBytes.longValue();
+			}
+			LOGGER.warn("Ignoring {}, {} is not a number", resource, MAX_BODY_BYTES);
+		} catch(IOException e) {
+			LOGGER.warn("Ignoring unreadable limits file {}", resource, e);
+		} finally {
+			try {
+				inputStream.close();
+			} catch(IOException e) {
+				LOGGER.debug("Exception closing limits file {}", resource, e);
+			}
+		}
+		return null;
+	}
+
+	private static SchemaLocationConstants toLocation(String fileName) {
+		for(SchemaLocationConstants location : SchemaLocationConstants.values()) {
+			if(fileName.equals(location.getValue() + JSON_EXTENSION)) {
+				return location;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param path Path of a resource or file
+	 * @return <code>true</code> if the file name is one the index holds, a schema or limits file
+	 */
+	private static boolean isIndexed(String path) {
+		return toSlot(path.substring(path.lastIndexOf('/') + 1)) >= 0;
+	}
+
+	/**
+	 * Collect the path of every schema and limits file below a directory in the class loader, relative to that
+	 * directory. Every entry below the directory is listed, but only those files are kept.
+	 */
+	private static void scanClassLoader(ClassLoader classLoader, String directory, Set<String> resources)
+			throws IOException {
+		Enumeration<URL> urls = classLoader.getResources(directory);
+		while(urls.hasMoreElements()) {
+			scanUrl(urls.nextElement(), directory, resources);
+		}
+
+		// Jars without directory entries are not returned for the classpath root, so look at them directly
+		if(directory.isEmpty()) {
+			ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+			for(ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+				if(loader instanceof URLClassLoader) {
+					for(URL url : ((URLClassLoader) loader).getURLs()) {
+						if("file".equals(url.getProtocol()) && url.getPath().endsWith(".jar")) {
+							scanJar(new JarFile(toFile(url)), directory, resources);
+						}
+					}
+				}
+				else if(loader == systemClassLoader) {
+					// Since java 9 the application class loader does not list its jars, they are on the class path
+					scanClassPath(directory, resources);
+				}
+				else if(loader != systemClassLoader.getParent()) {
+					// The platform class loader only holds the jdk, any other loader may hold jars that cannot be listed
+					throw new IOException("Could not list the jars of class loader " + loader);
+				}
+			}
+		}
+	}
+
+	private static void scanClassPath(String directory, Set<String> resources) throws IOException {
+		for(String path : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+			File file = new File(path);
+			if(path.endsWith(".jar") && file.isFile()) {
+				scanJar(new JarFile(file), directory, resources);
+			}
+		}
+	}
+
+	private static void scanUrl(URL url, String directory, Set<String> resources) throws IOException {
+		if("file".equals(url.getProtocol())) {
+			scanDirectory(toFile(url), "", resources);
+		}
+		else if("jar".equals(url.getProtocol())) {
+			URLConnection connection = url.openConnection();
+			connection.setUseCaches(false);
+			scanJar(((JarURLConnection) connection).getJarFile(), directory, resources);
+		}
+		else {
+			throw new IOException("Unsupported classpath protocol: " + url);
+		}
+	}
+
+	private static void scanDirectory(File directory, String relativePath, Set<String> resources) {
+		File[] files = directory.listFiles();
+		if(files == null) {
+			return;
+		}
+		for(File file : files) {
+			if(file.isDirectory()) {
+				scanDirectory(file, relativePath + file.getName() + "/", resources);
+			}
+			else if(isIndexed(file.getName())) {
+				resources.add(relativePath + file.getName());
+			}
+		}
+	}
+
+	private static void scanJar(JarFile jarFile, String directory, Set<String> resources) throws IOException {
+		try {
+			Enumeration<JarEntry> entries = jarFile.entries();
+			while(entries.hasMoreElements()) {
+				JarEntry entry = entries.nextElement();
+				if(! entry.isDirectory() && entry.getName().startsWith(directory) && isIndexed(entry.getName())) {
+					resources.add(entry.getName().substring(directory.length()));
+				}
+			}
+		} finally {
+			jarFile.close();
+		}
+	}
+
+	private static File toFile(URL url) throws IOException {
+		try {
+			return new File(url.toURI());
+		} catch(URISyntaxException e) {
+			throw new IOException("Could not convert classpath url to a file: " + url, e);
+		}
+	}
+
+	/**
+	 * Folder in the schema trie. Children are matched against a region of the request uri, so
+	 * no substrings need to be created while walking the trie.
+	 */
+	private static final class Node {
+
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		private final String name;
+		private final int hash;
+		private Node[] children = NO_CHILDREN;
+		private final Map<String, Object[]> entries = new HashMap<String, Object[]>();
+
+		private Node(String name) {
+			this.name = name;
+			this.hash = name.hashCode();
+		}
+
+		private Node child(String uri, int start, int end) {
+			int length = end - start;
+			int regionHash = 0;
+			for(int x = start; x < end; x++) {
+				regionHash = 31 * regionHash + uri.charAt(x);
+			}
+			for(Node child : children) {
+				if(child.hash == regionHash && child.name.length() == length
+						&& uri.regionMatches(start, child.name, 0, length)) {
+					return child;
+				}
+			}
+			return null;
+		}
+
+		private Node childNamed(String name) {
+			for(Node child : children) {
+				if(child.name.equals(name)) {
+					return child;
+				}
+			}
+			return null;
+		}
+
+		private Node getOrCreateChild(String name) {
+			Node child = childNamed(name);
+			if(child != null) {
+				return child;
+			}
+			child = new Node(name);
+			children = Arrays.copyOf(children, children.length + 1);
+			children[children.length - 1] = child;
+			return child;
+		}
+
+		private Object get(String method, int slot) {
+			Object[] values = entries.get(method);
+			return values == null ? null : values[slot];
+		}
+
+		private void put(String method, int slot, Object value) {
+			Object[] values = entries.get(method);
+			if(values == null) {
+				// One slot per schema location, then the maximum body size and the route
+				values = new Object[LOCATION_COUNT + 2];
+				entries.put(method, values);
+			}
+			values[slot] = value;
+		}
+
+		private void remove(String method, int slot) {
+			Object[] values = entries.get(method);
+			if(values == null) {
+				return;
+			}
+			values[slot] = null;
+			for(int x = 0; x < LOCATION_COUNT; x++) {
+				if(values[x] != null) {
+					return;
+				}
+			}
+			// The route only applies while the method has a schema
+			values[ROUTE_SLOT] = null;
+			if(values[MAX_BODY_BYTES_SLOT] == null) {
+				entries.remove(method);
+			}
+		}
+
+		/**
+		 * @return Copy of this folder that can be changed without changing this one, sharing the children
+		 */
+		private Node copy() {
+			Node copy = new Node(name);
+			copy.children = children.clone();
+			for(Map.Entry<String, Object[]> entry : entries.entrySet()) {
+				copy.entries.put(entry.getKey(), entry.getValue().clone());
+			}
+			return copy;
+		}
+
+		private void replaceChild(Node child) {
+			for(int x = 0; x < children.length; x++) {
+				if(children[x].name.equals(child.name)) {
+					children[x] = child;
+					return;
+				}
+			}
+		}
+	}
+}
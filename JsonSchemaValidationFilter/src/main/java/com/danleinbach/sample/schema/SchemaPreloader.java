@@ -0,0 +1,194 @@
+package com.danleinbach.sample.schema;
+
+import com.danleinbach.sample.validation.engine.ValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles a set of json schemas into a {@link SchemaCache} ahead of the first request, so
+ * schemas are not compiled on the request path and malformed schemas are found at startup
+ * instead of surfacing as errors at runtime. Schemas are compiled in parallel, one thread
+ * per available processor.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SchemaPreloader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaPreloader.class);
+
+	private final SchemaCache<?> schemaCache;
+	private final ValidationEngine validationEngine;
+	private final int threads;
+
+	/**
+	 * Create a preloader that compiles schemas into the given cache.
+	 *
+	 * @param schemaCache      Cache the compiled schemas are stored in
+	 * @param validationEngine Engine used to check each schema is a valid json schema
+	 */
+	public SchemaPreloader(SchemaCache<?> schemaCache, ValidationEngine validationEngine) {
+		this(schemaCache, validationEngine, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a preloader that compiles schemas into the given cache.
+	 *
+	 * @param schemaCache      Cache the compiled schemas are stored in
+	 * @param validationEngine Engine used to check each schema is a valid json schema
+	 * @param threads          Number of schemas compiled at the same time
+	 */
+	public SchemaPreloader(SchemaCache<?> schemaCache, ValidationEngine validationEngine, int threads) {
+		this.schemaCache = schemaCache;
+		this.validationEngine = validationEngine;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Compile every schema location into the schema cache.
+	 *
+	 * @param schemaLocations Locations of the schemas to compile
+	 * @param failFast        Stop compiling schemas as soon as one fails
+	 * @return Summary of the schemas compiled and any that failed
+	 */
+	public Result preload(Collection<String> schemaLocations, boolean failFast) {
+		long start = System.nanoTime();
+		if(schemaLocations.size() > schemaCache.getMaximumSize()) {
+			LOGGER.warn("Preloading {} schemas into a schema cache that holds {}, some will be evicted",
+					schemaLocations.size(), schemaCache.getMaximumSize());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new PreloadThreadFactory());
+		CompletionService<String> completionService = new ExecutorCompletionService<String>(executor);
+		Map<Future<String>, String> pending = new HashMap<Future<String>, String>();
+		Map<String, String> failures = new TreeMap<String, String>();
+		int loaded = 0;
+
+		try {
+			for(final String schemaLocation : schemaLocations) {
+				pending.put(completionService.submit(new Callable<String>() {
+					@Override
+					public String call() {
+						return compile(schemaLocation);
+					}
+				}), schemaLocation);
+			}
+
+			while(! pending.isEmpty()) {
+				Future<String> future = completionService.take();
+				String schemaLocation = pending.remove(future);
+				String failure = getFailure(future);
+				if(failure == null) {
+					loaded++;
+				}
+				else {
+					LOGGER.error("Could not preload schema {}: {}", schemaLocation, failure);
+					failures.put(schemaLocation, failure);
+					if(failFast) {
+						break;
+					}
+				}
+			}
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		Result result = new Result(schemaLocations.size(), loaded, failures,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		LOGGER.info("Preloaded {} of {} schemas in {}ms with {} failures", result.getLoadedCount(),
+				result.getSchemaCount(), result.getElapsedMillis(), failures.size());
+		return result;
+	}
+
+	/**
+	 * Compile a single schema into the cache and check its syntax.
+	 *
+	 * @param schemaLocation Location of the schema to compile
+	 * @return <code>null</code> if the schema compiled, otherwise a description of the problem
+	 */
+	private String compile(String schemaLocation) {
+		try {
+			schemaCache.get(schemaLocation);
+			ValidationResult result = validationEngine.checkSchema(SchemaSource.load(schemaLocation));
+			return result.isSuccess() ? null : result.getErrors().toString();
+		} catch(ValidationEngineException e) {
+			return e.getMessage();
+		} catch(IOException e) {
+			return e.getMessage();
+		}
+	}
+
+	private static String getFailure(Future<String> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch(ExecutionException e) {
+			return String.valueOf(e.getCause());
+		}
+	}
+
+	/**
+	 * Summary of a preload run.
+	 */
+	public static class Result {
+
+		private final int schemaCount;
+		private final int loadedCount;
+		private final Map<String, String> failures;
+		private final long elapsedMillis;
+
+		private Result(int schemaCount, int loadedCount, Map<String, String> failures, long elapsedMillis) {
+			this.schemaCount = schemaCount;
+			this.loadedCount = loadedCount;
+			this.failures = Collections.unmodifiableMap(failures);
+			this.elapsedMillis = elapsedMillis;
+		}
+
+		/**
+		 * @return <code>true</code> if every schema was compiled
+		 */
+		public boolean isSuccess() {
+			return loadedCount == schemaCount;
+		}
+
+		public int getSchemaCount() {
+			return schemaCount;
+		}
+
+		public int getLoadedCount() {
+			return loadedCount;
+		}
+
+		/**
+		 * @return Description of the problem with each schema that failed, keyed by schema location
+		 */
+		public Map<String, String> getFailures() {
+			return failures;
+		}
+
+		public long getElapsedMillis() {
+			return elapsedMillis;
+		}
+	}
+
+	private static class PreloadThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "schema-preload-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.danleinbach.sample.schema;
+
+import com.danleinbach.sample.constants.ValidationConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.util.JsonLoader;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Reads the raw json of a schema from its schema location.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public final class SchemaSource {
+
+	private SchemaSource() {
+	}
+
+	/**
+	 * Load the json of a schema. Locations starting with <code>resource:</code> are read from the
+	 * classpath, anything else is treated as a url.
+	 *
+	 * @param schemaLocation Location of the schema
+	 * @return Schema as a json tree
+	 * @throws IOException Thrown when the schema cannot be read or is not valid json
+	 */
+	public static JsonNode load(String schemaLocation) throws IOException {
+		String resource = ValidationConstants.RESOURCE.getValue();
+		if(schemaLocation.startsWith(resource)) {
+			return JsonLoader.fromResource(schemaLocation.substring(resource.length()));
+		}
+		return JsonLoader.fromURL(new URL(schemaLocation));
+	}
+}
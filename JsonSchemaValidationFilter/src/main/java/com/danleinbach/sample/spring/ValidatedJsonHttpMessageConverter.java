@@ -0,0 +1,91 @@
+package com.danleinbach.sample.spring;
+
+import com.danleinbach.sample.constants.ValidationConstants;
+import com.danleinbach.sample.json.JsonMappers;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Jackson message converter that binds <code>@RequestBody</code> arguments from the json tree the
+ * {@link com.danleinbach.sample.filter.JsonSchemaValidationFilter} already parsed while validating the
+ * request, instead of parsing the body a second time. When the request has no validated tree, e.g. no
+ * body schema applied or streaming validation is used, the body is read as usual.
+ * <p/>
+ * Register it ahead of the default converters:
+ * <pre>
+ * &lt;mvc:annotation-driven&gt;
+ *     &lt;mvc:message-converters&gt;
+ *         &lt;bean class="com.danleinbach.sample.spring.ValidatedJsonHttpMessageConverter"/&gt;
+ *     &lt;/mvc:message-converters&gt;
+ * &lt;/mvc:annotation-driven&gt;
+ * </pre>
+ * The converter binds with the mapper shared with the filter, {@link JsonMappers#getDefault()} unless
+ * other mappers are passed in.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidatedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+	public ValidatedJsonHttpMessageConverter() {
+		this(JsonMappers.getDefault());
+	}
+
+	/**
+	 * @param jsonMappers Mappers to read and write json with
+	 */
+	public ValidatedJsonHttpMessageConverter(JsonMappers jsonMappers) {
+		setObjectMapper(jsonMappers.getObjectMapper());
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		JsonNode validatedBody = getValidatedBody(inputMessage);
+		if(validatedBody == null) {
+			return super.readInternal(clazz, inputMessage);
+		}
+		return readTree(getJavaType(clazz, null), validatedBody);
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		JsonNode validatedBody = getValidatedBody(inputMessage);
+		if(validatedBody == null) {
+			return super.read(type, contextClass, inputMessage);
+		}
+		return readTree(getJavaType(type, contextClass), validatedBody);
+	}
+
+	/**
+	 * Get the json tree stored by the validation filter for the request.
+	 *
+	 * @param inputMessage Incoming message
+	 * @return Validated request body, or null when there is none
+	 */
+	private JsonNode getValidatedBody(HttpInputMessage inputMessage) {
+		if(! (inputMessage instanceof ServletServerHttpRequest)) {
+			return null;
+		}
+		Object validatedBody = ((ServletServerHttpRequest) inputMessage).getServletRequest()
+				.getAttribute(ValidationConstants.VALIDATED_BODY_ATTRIBUTE.getValue());
+		return validatedBody instanceof JsonNode ? (JsonNode) validatedBody : null;
+	}
+
+	private Object readTree(JavaType javaType, JsonNode validatedBody) {
+		try {
+			return getObjectMapper().readValue(getObjectMapper().treeAsTokens(validatedBody), javaType);
+		} catch(IOException e) {
+			throw new HttpMessageNotReadableException("Could not read JSON: " + e.getMessage(), e);
+		}
+	}
+}
@@ -6,29 +6,65 @@ import com.danleinbach.sample.constants.ValidationConstants;
 import com.danleinbach.sample.domain.ValidationResponse;
 import com.danleinbach.sample.exception.JsonSchemaValidationException;
 import com.danleinbach.sample.exception.UnReadableEntity;
-import com.github.fge.jsonschema.exceptions.ProcessingException;
-import com.github.fge.jsonschema.main.JsonSchema;
-import com.github.fge.jsonschema.main.JsonSchemaFactory;
-import com.github.fge.jsonschema.report.ProcessingReport;
+import com.danleinbach.sample.metrics.RouteMetrics;
+import com.danleinbach.sample.metrics.SectionTimer;
+import com.danleinbach.sample.schema.SchemaCache;
+import com.danleinbach.sample.schema.SchemaDirectoryWatcher;
+import com.danleinbach.sample.schema.SchemaIndex;
+import com.danleinbach.sample.schema.SchemaPreloader;
+import com.danleinbach.sample.schema.SchemaSource;
+import com.danleinbach.sample.validation.engine.EngineSchema;
+import com.danleinbach.sample.validation.engine.FgeValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.danleinbach.sample.validation.engine.ValidationResult;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * Base of the validation processors that validate requests against json schemas. Schemas are compiled and
+ * applied by a {@link ValidationEngine}, the {@link FgeValidationEngine} unless another one is set.
+ * <p/>
  * Created: 12/18/13
  *
  * @author Daniel
  */
-public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSchemaValidationProcessor {
+public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSchemaValidationProcessor,
+        IBodyAwareValidationProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractJsonSchemaValidationProcessor.class);
+    private static final SchemaLocationConstants[] SECTION_ORDER = {SchemaLocationConstants.BODY,
+            SchemaLocationConstants.HEADER, SchemaLocationConstants.PARAM};
+    // Section being validated on the current thread, whose schema location has already been resolved
+    private static final ThreadLocal<Section> CURRENT_SECTION = new ThreadLocal<Section>();
     private String schemaRoot;
-    private JsonSchemaFactory jsonSchemaFactory;
+    private volatile ValidationEngine validationEngine;
+    private volatile SchemaIndex schemaIndex;
+    private volatile SchemaCache<EngineSchema> schemaCache;
+    private Executor sectionExecutor;
+    private boolean cancelOnFailure;
+    private boolean recordMetrics;
+    private boolean failFast;
+    private SchemaDirectoryWatcher schemaDirectoryWatcher;
+    private final ReentrantLock watcherLock = new ReentrantLock();
 
     /**
      * Create a default validation processor
@@ -46,7 +82,8 @@ public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSche
      */
     public AbstractJsonSchemaValidationProcessor(String schemaRoot) {
         this.schemaRoot = schemaRoot;
-        this.jsonSchemaFactory = JsonSchemaFactory.byDefault();
+        this.validationEngine = new FgeValidationEngine();
+        this.schemaCache = createSchemaCache(SchemaCache.DEFAULT_MAXIMUM_SIZE);
 
     }
 
@@ -56,6 +93,298 @@ public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSche
     @Override
     public void setSchemaRoot(String schemaRoot) {
         this.schemaRoot = schemaRoot;
+        this.schemaIndex = SchemaIndex.build(schemaRoot, this.getClass().getClassLoader());
+        this.schemaCache.invalidateAll();
+    }
+
+    /**
+     * Set the maximum number of compiled schemas to keep in memory. Any schemas already compiled are dropped.
+     *
+     * @param schemaCacheSize Maximum number of compiled schemas, <code>0</code> disables caching
+     */
+    public void setSchemaCacheSize(long schemaCacheSize) {
+        this.schemaCache = createSchemaCache(schemaCacheSize);
+    }
+
+    private SchemaCache<EngineSchema> createSchemaCache(long maximumSize) {
+        return new SchemaCache<EngineSchema>(new SchemaCache.Loader<EngineSchema>() {
+            @Override
+            public EngineSchema load(String schemaLocation) throws ValidationEngineException {
+                return compileSchema(schemaLocation, failFast);
+            }
+        }, maximumSize);
+    }
+
+    /**
+     * Compile the schema at a location for the schema cache. A subclass that validates with other compiled
+     * forms of a schema can keep them in the schema it returns, so every form of a schema is held by a single
+     * entry of the cache.
+     *
+     * @param schemaLocation Location of the schema
+     * @param failFast       Stop validating a document at its first error
+     * @return Compiled schema
+     * @throws ValidationEngineException Thrown when the schema cannot be loaded or compiled
+     */
+    protected EngineSchema compileSchema(String schemaLocation, boolean failFast) throws ValidationEngineException {
+        // Read the engine on every load, it can be replaced while requests are validated
+        return getValidationEngine().compile(schemaLocation, failFast);
+    }
+
+    /**
+     * Set the engine schemas are compiled and applied with. Any schemas already compiled are dropped.
+     *
+     * @param validationEngine Validation engine
+     */
+    public void setValidationEngine(ValidationEngine validationEngine) {
+        this.validationEngine = validationEngine;
+        schemasReloaded();
+    }
+
+    public ValidationEngine getValidationEngine() {
+        return validationEngine;
+    }
+
+    /**
+     * Look schemas up in a directory on the file system instead of the classpath. The schema locations are
+     * then <code>file:</code> urls, and the directory is laid out the same way as the classpath schema root.
+     * Any schemas already compiled are dropped.
+     *
+     * @param schemaDirectory Schema root directory
+     */
+    public void setSchemaDirectory(File schemaDirectory) {
+        this.schemaIndex = SchemaIndex.build(schemaDirectory);
+        schemasReloaded();
+    }
+
+    /**
+     * Watch the schema directory and apply changes to it while requests are being validated. A changed schema
+     * is compiled on the watcher thread and then swapped in, so requests keep using the previous version until
+     * the new one is ready, and keep using it if the new version is not a valid schema. Only the changed schema
+     * is compiled again, and only the folders along its path in the {@link SchemaIndex} are replaced.
+     *
+     * @throws IOException           Thrown when the directory cannot be watched
+     * @throws IllegalStateException Thrown when no schema directory is set
+     */
+    public void watchSchemaDirectory() throws IOException {
+        File directory = getSchemaIndex().getDirectory();
+        if (directory == null) {
+            throw new IllegalStateException("No schema directory to watch, schemas are loaded from the classpath");
+        }
+        watcherLock.lock();
+        try {
+            if (schemaDirectoryWatcher == null) {
+                schemaDirectoryWatcher = newSchemaDirectoryWatcher(directory);
+                schemaDirectoryWatcher.start();
+            }
+        } finally {
+            watcherLock.unlock();
+        }
+    }
+
+    private SchemaDirectoryWatcher newSchemaDirectoryWatcher(File directory) throws IOException {
+        return new SchemaDirectoryWatcher(directory, new SchemaDirectoryWatcher.Listener() {
+            @Override
+            public void fileChanged(File file) {
+                String schemaLocation = getSchemaIndex().update(file);
+                if (schemaLocation == null) {
+                    return;
+                }
+                if (isValidSchema(schemaLocation)) {
+                    schemaChanged(schemaLocation);
+                }
+                else {
+                    schemaRejected(schemaLocation);
+                }
+            }
+
+            @Override
+            public void fileDeleted(File file) {
+                String schemaLocation = getSchemaIndex().remove(file);
+                if (schemaLocation != null) {
+                    schemaRemoved(schemaLocation);
+                }
+            }
+
+            @Override
+            public void rescan() {
+                setSchemaDirectory(getSchemaIndex().getDirectory());
+            }
+        });
+    }
+
+    /**
+     * Stop watching the schema directory, if it is being watched.
+     */
+    public void stopWatchingSchemaDirectory() {
+        watcherLock.lock();
+        try {
+            if (schemaDirectoryWatcher == null) {
+                return;
+            }
+            schemaDirectoryWatcher.close();
+        } catch (IOException e) {
+            LOGGER.warn("Exception closing the schema directory watcher", e);
+        } finally {
+            schemaDirectoryWatcher = null;
+            watcherLock.unlock();
+        }
+    }
+
+    /**
+     * Compile a schema that changed on disk and swap it into the schema cache.
+     *
+     * @param schemaLocation Location of the changed schema
+     */
+    protected void schemaChanged(String schemaLocation) {
+        // The engine may keep every schema it has loaded by location, so it would not see the change
+        validationEngine.reset();
+        schemaCache.refresh(schemaLocation);
+        LOGGER.info("Reloaded json schema:{}", schemaLocation);
+    }
+
+    /**
+     * Keep the previous version of a schema whose new version on disk is not a valid schema. The reason has
+     * already been logged, nothing else is done by default.
+     *
+     * @param schemaLocation Location of the rejected schema
+     */
+    protected void schemaRejected(String schemaLocation) {
+    }
+
+    /**
+     * Drop a schema that was deleted from disk from the schema cache.
+     *
+     * @param schemaLocation Location of the deleted schema
+     */
+    protected void schemaRemoved(String schemaLocation) {
+        schemaCache.invalidate(schemaLocation);
+        LOGGER.info("Removed json schema:{}", schemaLocation);
+    }
+
+    /**
+     * Drop every compiled schema after the schema directory was indexed again, or the validation mode changed.
+     */
+    protected void schemasReloaded() {
+        validationEngine.reset();
+        schemaCache.invalidateAll();
+    }
+
+    private boolean isValidSchema(String schemaLocation) {
+        try {
+            ValidationResult result = validationEngine.checkSchema(SchemaSource.load(schemaLocation));
+            if (result.isSuccess()) {
+                return true;
+            }
+            LOGGER.warn("Keeping the previous version of {}, the new version is not a valid schema: {}", schemaLocation,
+                    result.getErrors());
+        } catch (IOException e) {
+            LOGGER.warn("Keeping the previous version of {}, the new version could not be read", schemaLocation, e);
+        } catch (ValidationEngineException e) {
+            LOGGER.warn("Keeping the previous version of {}, the new version could not be checked", schemaLocation, e);
+        }
+        return false;
+    }
+
+    /**
+     * Validate the body, headers and parameters of a request concurrently. The body, or the first section
+     * with a schema, is validated on the calling thread and the others on the executor. Sections without a
+     * schema are skipped.
+     * The validation methods must then be safe to call at the same time for the same request.
+     *
+     * @param sectionExecutor Executor validating the sections, or <code>null</code> to validate them one after another
+     */
+    public void setSectionExecutor(Executor sectionExecutor) {
+        this.sectionExecutor = sectionExecutor;
+    }
+
+    public Executor getSectionExecutor() {
+        return sectionExecutor;
+    }
+
+    /**
+     * When validating sections concurrently, cancel the sections still running as soon as one fails. The
+     * reports of cancelled sections are left out of the response. A cancelled section that has already started
+     * is interrupted and waited for, so no section reads the request once it has been validated.
+     *
+     * @param cancelOnFailure <code>true</code> to cancel the remaining sections on the first failure
+     */
+    public void setCancelOnFailure(boolean cancelOnFailure) {
+        this.cancelOnFailure = cancelOnFailure;
+    }
+
+    public boolean isCancelOnFailure() {
+        return cancelOnFailure;
+    }
+
+    /**
+     * Stop validating a request at the first error, instead of collecting every error of the body, headers and
+     * parameters. Each section stops at its first error, and the sections after the first failing section are
+     * not validated, so the response holds a single error. Any schemas already compiled are dropped.
+     *
+     * @param failFast <code>true</code> to stop at the first error
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+        schemasReloaded();
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Record the time spent in each phase of validating a section into the {@link RouteMetrics} the filter
+     * stores in the request attribute {@link ValidationConstants#ROUTE_METRICS_ATTRIBUTE}.
+     *
+     * @param recordMetrics <code>true</code> to record section metrics
+     */
+    public void setRecordMetrics(boolean recordMetrics) {
+        this.recordMetrics = recordMetrics;
+    }
+
+    public boolean isRecordMetrics() {
+        return recordMetrics;
+    }
+
+    /**
+     * Start timing the validation of a section of the request.
+     *
+     * @param request  Incoming request to be validated
+     * @param location Section of the request
+     * @return Started timer, which records nothing when metrics are disabled
+     */
+    protected SectionTimer startSectionTimer(HttpServletRequest request, SchemaLocationConstants location) {
+        if (!recordMetrics) {
+            return SectionTimer.NONE;
+        }
+        Object routeMetrics = request.getAttribute(ValidationConstants.ROUTE_METRICS_ATTRIBUTE.getValue());
+        return SectionTimer.start(routeMetrics instanceof RouteMetrics ? (RouteMetrics) routeMetrics : null, location);
+    }
+
+    /**
+     * Get the cache of compiled schemas, which also records hit, miss, eviction and load time statistics.
+     *
+     * @return Cache of compiled schemas
+     */
+    public SchemaCache<EngineSchema> getSchemaCache() {
+        return schemaCache;
+    }
+
+    /**
+     * Compile every schema under the schema root into the schema cache, so the first request to each
+     * endpoint does not pay for compiling its schemas.
+     *
+     * @param failFast Stop compiling schemas as soon as one fails
+     * @return Summary of the schemas compiled and any that failed
+     */
+    public SchemaPreloader.Result preloadSchemas(boolean failFast) {
+        SchemaIndex index = getSchemaIndex();
+        if (!index.isComplete()) {
+            LOGGER.warn("Schema root {} could not be fully scanned, only indexed schemas will be preloaded",
+                    index.getSchemaRoot());
+        }
+        return new SchemaPreloader(schemaCache, validationEngine)
+                .preload(index.getSchemaLocations(), failFast);
     }
 
     /**
@@ -66,6 +395,14 @@ public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSche
         return this.schemaRoot;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean requiresRequestBody(HttpServletRequest request) {
+        return resolveSchemaLocation(request, SchemaLocationConstants.BODY) != null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -73,44 +410,204 @@ public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSche
     public ValidationResponse validateRequest(HttpServletRequest request) throws JsonSchemaValidationException {
 
         ValidationResponse response = new ValidationResponse();
+        if (sectionExecutor != null) {
+            validateSectionsConcurrently(request, response);
+            return response;
+        }
         response.setBodyReport(validateRequestBody(request));
+        if (failFast && !response.isSuccess()) {
+            return response;
+        }
         response.setHeaderReport(validateRequestHeaders(request));
+        if (failFast && !response.isSuccess()) {
+            return response;
+        }
         response.setParamReport(validateRequestParams(request));
 
         return response;
     }
 
+    /**
+     * Validate the sections of the request that have a schema concurrently and merge their reports into the response.
+     *
+     * @param request  Incoming request to be validated
+     * @param response Response the section reports are set on
+     * @throws JsonSchemaValidationException Thrown when a section cannot be validated
+     */
+    private void validateSectionsConcurrently(HttpServletRequest request, ValidationResponse response)
+            throws JsonSchemaValidationException {
+        List<Section> sections = new ArrayList<Section>(3);
+        for (SchemaLocationConstants location : SECTION_ORDER) {
+            String schemaLocation = resolveSchemaLocation(request, location);
+            if (schemaLocation != null) {
+                sections.add(new Section(request, location, schemaLocation));
+            }
+        }
+        if (sections.isEmpty()) {
+            return;
+        }
+
+        CompletionService<Section> completionService = new ExecutorCompletionService<Section>(sectionExecutor);
+        List<Future<Section>> futures = new ArrayList<Future<Section>>(sections.size() - 1);
+        try {
+            for (Section section : sections.subList(1, sections.size())) {
+                futures.add(completionService.submit(section));
+            }
+            boolean cancel = cancelOnFailure || failFast;
+            Section inline = sections.get(0).call();
+            inline.setReport(response);
+            if (cancel && !inline.isSuccess()) {
+                return;
+            }
+
+            for (int x = 0; x < futures.size(); x++) {
+                Section section = completionService.take().get();
+                section.setReport(response);
+                if (cancel && !section.isSuccess()) {
+                    return;
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof JsonSchemaValidationException) {
+                throw (JsonSchemaValidationException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e.getCause());
+
+        } finally {
+            // The request is only valid for the calling thread while it is being filtered, so sections still
+            // running must be done with it before returning
+            for (Future<Section> future : futures) {
+                future.cancel(true);
+            }
+            for (Section section : sections.subList(1, sections.size())) {
+                section.awaitStopped();
+            }
+        }
+    }
+
+    /**
+     * Validation of one section of a request, which holds on to its report once done.
+     */
+    private class Section implements Callable<Section> {
+
+        private final HttpServletRequest request;
+        private final SchemaLocationConstants location;
+        private final String schemaLocation;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private ValidationResult report;
+
+        private Section(HttpServletRequest request, SchemaLocationConstants location, String schemaLocation) {
+            this.request = request;
+            this.location = location;
+            this.schemaLocation = schemaLocation;
+        }
+
+        @Override
+        public Section call() throws JsonSchemaValidationException {
+            if (!started.compareAndSet(false, true)) {
+                return this;
+            }
+            CURRENT_SECTION.set(this);
+            try {
+                switch (location) {
+                    case BODY:
+                        report = validateRequestBody(request);
+                        break;
+                    case HEADER:
+                        report = validateRequestHeaders(request);
+                        break;
+                    default:
+                        report = validateRequestParams(request);
+                }
+                return this;
+            } finally {
+                CURRENT_SECTION.remove();
+                stopped.countDown();
+            }
+        }
+
+        /**
+         * Keep the section from starting, or wait for it to finish if it already has.
+         */
+        private void awaitStopped() {
+            if (started.compareAndSet(false, true)) {
+                return;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    stopped.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private boolean isSuccess() {
+            return report == null || report.isSuccess();
+        }
+
+        private void setReport(ValidationResponse response) {
+            switch (location) {
+                case BODY:
+                    response.setBodyReport(report);
+                    break;
+                case HEADER:
+                    response.setHeaderReport(report);
+                    break;
+                default:
+                    response.setParamReport(report);
+            }
+        }
+    }
+
     /**
      * Validate the request body
      *
      * @param request Incoming request to be validated
-     * @return Processing report that outlines and errors in the request
+     * @return Validation result that outlines any errors in the request
      */
-    protected abstract ProcessingReport validateRequestBody(HttpServletRequest request)
+    protected abstract ValidationResult validateRequestBody(HttpServletRequest request)
             throws JsonSchemaValidationException;
 
     /**
      * Validate the request headers
      *
      * @param request Incoming request to be validated
-     * @return Processing report that outlines and errors in the request
+     * @return Validation result that outlines any errors in the request
      */
-    protected abstract ProcessingReport validateRequestHeaders(HttpServletRequest request)
+    protected abstract ValidationResult validateRequestHeaders(HttpServletRequest request)
             throws JsonSchemaValidationException;
 
     /**
      * Validate the request parameters
      *
      * @param request Incoming request to be validated
-     * @return Processing report that outlines and errors in the request
+     * @return Validation result that outlines any errors in the request
      */
-    protected abstract ProcessingReport validateRequestParams(HttpServletRequest request)
+    protected abstract ValidationResult validateRequestParams(HttpServletRequest request)
             throws JsonSchemaValidationException;
 
     /**
      * Finds the location of the request using the request uri, relative to the classpath. The search begins at the
      * farthest point in the path and moves one folder back until it finds a file that matches the location name with
      * the .json extension.
+     * <p/>
+     * The lookup is answered from a {@link SchemaIndex} of the schema root, which is built when the schema root is
+     * set or on first use. If the classpath could not be fully scanned the class loader is probed instead.
      *
      * @param request  - HttpServletRequest with the request uri used to search for schema location
      * @param location Location in the request, limited by the enum values in the SchemaLocationConstants
@@ -119,6 +616,55 @@ public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSche
      */
     protected String getSchemaLocation(HttpServletRequest request, SchemaLocationConstants location) {
 
+        Section section = CURRENT_SECTION.get();
+        if (section != null && section.request == request && section.location == location) {
+            return section.schemaLocation;
+        }
+        String schemaLocation = resolveSchemaLocation(request, location);
+        if (schemaLocation == null) {
+            LOGGER.info("Skipping validation for: {}", location.getValue());
+            return ValidationConstants.SKIP.getValue();
+        }
+        return schemaLocation;
+    }
+
+    /**
+     * Find the location of the schema for the request, without logging when there is none.
+     *
+     * @param request  - HttpServletRequest with the request uri used to search for schema location
+     * @param location Location in the request, limited by the enum values in the SchemaLocationConstants
+     * @return The location of the json schema, or <code>null</code> if there is none
+     */
+    private String resolveSchemaLocation(HttpServletRequest request, SchemaLocationConstants location) {
+        SchemaIndex index = getSchemaIndex();
+        return index.isComplete()
+                ? index.lookup(request.getMethod(), request.getRequestURI(), location)
+                : probeSchemaLocation(request, location);
+    }
+
+    /**
+     * Get the index of schemas under the schema root, building it if the schema root has not been indexed yet.
+     *
+     * @return Index of the schemas under the schema root
+     */
+    public SchemaIndex getSchemaIndex() {
+        SchemaIndex index = this.schemaIndex;
+        if (index == null) {
+            index = SchemaIndex.build(schemaRoot, this.getClass().getClassLoader());
+            this.schemaIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Search the class loader for the schema location, one folder at a time.
+     *
+     * @param request  - HttpServletRequest with the request uri used to search for schema location
+     * @param location Location in the request, limited by the enum values in the SchemaLocationConstants
+     * @return The location of the json schema, or <code>null</code> if there is none
+     */
+    private String probeSchemaLocation(HttpServletRequest request, SchemaLocationConstants location) {
+
         String method = request.getMethod();
         String uri = request.getRequestURI();
         List<String> pathParts = Lists.newArrayList(Arrays.asList(uri.replaceAll("^/|\\..+$", "").split("/")));
@@ -139,23 +685,23 @@ public abstract class AbstractJsonSchemaValidationProcessor implements IJsonSche
             }
         }
 
-        LOGGER.info("Skipping validation for: {}", location.getValue());
-        return ValidationConstants.SKIP.getValue();
+        return null;
     }
 
     /**
-     * Parse json schema and return it in objectified form.
+     * Parse json schema and return it in objectified form. Compiled schemas are kept in the {@link SchemaCache}.
+     * In fail fast mode the schema stops validating at the first error, and its result holds only that error.
      *
      * @param schemaLocation Location of the request schema
      * @return Objectified form of the json schema
      * @throws com.danleinbach.sample.exception.JsonSchemaValidationException Thrown in the case there is an error processing the json schema
      */
-    protected JsonSchema getJsonSchema(String schemaLocation) throws JsonSchemaValidationException {
+    protected EngineSchema getSchema(String schemaLocation) throws JsonSchemaValidationException {
         try {
 
-            return jsonSchemaFactory.getJsonSchema(schemaLocation);
+            return schemaCache.get(schemaLocation);
 
-        } catch (ProcessingException e) {
+        } catch (ValidationEngineException e) {
             LOGGER.error("Exception parsing json schema", e);
             throw new UnReadableEntity(ErrorCode.MALFORMED_JSON_SCHEMA, e);
 
@@ -0,0 +1,98 @@
+package com.danleinbach.sample.validation;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles the ECMA 262 regular expressions of the <code>pattern</code> keyword into java patterns that
+ * match the same strings, for the validators that check patterns without the tree based validator.
+ * <p/>
+ * The syntax is largely the same, the differences that change what a pattern accepts are translated:
+ * <ul>
+ * <li><code>$</code> only matches at the end of the input, java also matches before a final line
+ * terminator, so <code>^[a-z]+$</code> would accept <code>"abc\n"</code>,</li>
+ * <li><code>.</code> matches everything but the line terminators <code>\n</code>, <code>\r</code>, U+2028 and
+ * U+2029, java does not match U+0085 either,</li>
+ * <li><code>[</code> and <code>&amp;&amp;</code> inside a character class are literal characters, not a
+ * nested class or an intersection,</li>
+ * <li><code>[]</code> matches nothing and <code>[^]</code> matches any character,</li>
+ * <li>a letter escape that is not an ECMA 262 escape, e.g. <code>\z</code> or <code>\Q</code>, is the letter
+ * itself and <code>\v</code> is the vertical tab.</li>
+ * </ul>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public final class EcmaRegex {
+
+	private static final String ANY_BUT_LINE_TERMINATOR = "[^\\n\\r\\u2028\\u2029]";
+	private static final String ECMA_LETTER_ESCAPES = "bBcdDfnrsStuwWx";
+
+	private EcmaRegex() {
+	}
+
+	/**
+	 * @param regex ECMA 262 regular expression
+	 * @return Java pattern matching the same strings, to be applied with {@link java.util.regex.Matcher#find()}
+	 * @throws PatternSyntaxException Thrown when the expression is not valid
+	 */
+	public static Pattern compile(String regex) throws PatternSyntaxException {
+		return Pattern.compile(translate(regex));
+	}
+
+	static String translate(String regex) {
+		StringBuilder translated = new StringBuilder(regex.length() + 8);
+		boolean inClass = false;
+		for(int x = 0; x < regex.length(); x++) {
+			char c = regex.charAt(x);
+			if(c == '\\' && x + 1 < regex.length()) {
+				char escaped = regex.charAt(++ x);
+				if(escaped == 'v') {
+					translated.append("\\x0B");
+				}
+				else if(Character.isLetter(escaped) && ECMA_LETTER_ESCAPES.indexOf(escaped) < 0) {
+					translated.append(escaped);
+				}
+				else {
+					translated.append(c).append(escaped);
+				}
+			}
+			else if(inClass) {
+				if(c == ']') {
+					inClass = false;
+				}
+				else if(c == '[' || c == '&') {
+					translated.append('\\');
+				}
+				translated.append(c);
+			}
+			else if(c == '[') {
+				if(regex.startsWith("[]", x)) {
+					translated.append("(?!)");
+					x++;
+				}
+				else if(regex.startsWith("[^]", x)) {
+					translated.append("[\\s\\S]");
+					x += 2;
+				}
+				else {
+					inClass = true;
+					translated.append(c);
+					if(x + 1 < regex.length() && regex.charAt(x + 1) == '^') {
+						translated.append(regex.charAt(++ x));
+					}
+				}
+			}
+			else if(c == '$') {
+				translated.append("\\z");
+			}
+			else if(c == '.') {
+				translated.append(ANY_BUT_LINE_TERMINATOR);
+			}
+			else {
+				translated.append(c);
+			}
+		}
+		return translated.toString();
+	}
+}
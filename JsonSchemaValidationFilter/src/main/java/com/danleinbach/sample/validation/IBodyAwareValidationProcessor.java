@@ -0,0 +1,24 @@
+package com.danleinbach.sample.validation;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Optional outline for a validation processor that can tell up front whether it reads the request body.
+ * The filter buffers the body of every request for processors that do not implement it.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public interface IBodyAwareValidationProcessor extends IValidationProcessor {
+
+	/**
+	 * Check if validating the request will read the request body. When it does not, the body does
+	 * not need to be buffered before the request is validated.
+	 *
+	 * @param request Incoming request to be validated
+	 * @return <code>true</code> if there is a schema for the request body
+	 */
+	boolean requiresRequestBody(HttpServletRequest request);
+
+}
@@ -0,0 +1,163 @@
+package com.danleinbach.sample.validation;
+
+import com.danleinbach.sample.wrapper.BodyBuffer;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of request body validation results, for clients that send the same body over and over,
+ * e.g. heartbeats, polling and retries. A body that was validated against a schema recently gets the
+ * same report back without being parsed or validated again.
+ * <p/>
+ * Results are keyed by the schema location, the content encoding the body is buffered in and a hash of the
+ * buffered body, so the same bytes compressed and not compressed never share a result. The body itself is kept
+ * with the result and compared byte for byte on every hit, so two bodies with the same hash never share
+ * a result. Bodies larger than the configured maximum are never cached.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidationResultCache {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final long maxBodyBytes;
+	private final Cache<Key, Result> results;
+
+	/**
+	 * @param maximumSize     Maximum number of results to keep
+	 * @param expireAfter     How long a result is kept after it was stored, <code>0</code> keeps it until evicted
+	 * @param expireAfterUnit Unit of expireAfter
+	 * @param maxBodyBytes    Largest body whose result is cached
+	 */
+	public ValidationResultCache(long maximumSize, long expireAfter, TimeUnit expireAfterUnit, long maxBodyBytes) {
+		this.maxBodyBytes = maxBodyBytes;
+		CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+		if(expireAfter > 0) {
+			builder.expireAfterWrite(expireAfter, expireAfterUnit);
+		}
+		this.results = builder.build();
+	}
+
+	/**
+	 * Hash a body to look up or store its result.
+	 *
+	 * @param schemaLocation Location of the schema the body is validated against
+	 * @param body           Buffered request body
+	 * @return Key of the body, or <code>null</code> if the body is too large to be cached
+	 */
+	public Key key(String schemaLocation, BodyBuffer body) {
+		if(body.size() > maxBodyBytes) {
+			return null;
+		}
+		long hash = FNV_OFFSET_BASIS;
+		for(ByteBuffer buffer : body.asReadOnlyBuffers()) {
+			while(buffer.hasRemaining()) {
+				hash = (hash ^ (buffer.get() & 0xff)) * FNV_PRIME;
+			}
+		}
+		return new Key(schemaLocation, body.getContentEncoding(), hash, body.size());
+	}
+
+	/**
+	 * @param key  Key of the body
+	 * @param body Buffered request body the key was created for
+	 * @return Report of an identical body validated against the same schema, or <code>null</code> if there is none
+	 */
+	public ValidationResult get(Key key, BodyBuffer body) {
+		Result result = results.getIfPresent(key);
+		return result != null && result.matches(body) ? result.report : null;
+	}
+
+	/**
+	 * Store the report of a body, replacing the result of any other body with the same key.
+	 *
+	 * @param key    Key of the body
+	 * @param body   Buffered request body the key was created for, which is copied
+	 * @param report Report of validating the body, which must not be changed afterwards
+	 */
+	public void put(Key key, BodyBuffer body, ValidationResult report) {
+		results.put(key, new Result(body.toByteArray(), report));
+	}
+
+	/**
+	 * Forget every result, for when the schemas or the way bodies are validated change.
+	 */
+	public void invalidateAll() {
+		results.invalidateAll();
+	}
+
+	public CacheStats getStats() {
+		return results.stats();
+	}
+
+	/**
+	 * Schema location plus the content encoding, size and hash of a body.
+	 */
+	public static final class Key {
+
+		private final String schemaLocation;
+		private final String contentEncoding;
+		private final long hash;
+		private final long size;
+
+		private Key(String schemaLocation, String contentEncoding, long hash, long size) {
+			this.schemaLocation = schemaLocation;
+			this.contentEncoding = contentEncoding;
+			this.hash = hash;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) {
+				return true;
+			}
+			if(! (o instanceof Key)) {
+				return false;
+			}
+			Key that = (Key) o;
+			return hash == that.hash && size == that.size && schemaLocation.equals(that.schemaLocation)
+					&& Objects.equals(contentEncoding, that.contentEncoding);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * schemaLocation.hashCode() + Objects.hashCode(contentEncoding)) + (int) (hash ^ (hash >>> 32));
+		}
+	}
+
+	private static final class Result {
+
+		private final byte[] body;
+		private final ValidationResult report;
+
+		private Result(byte[] body, ValidationResult report) {
+			this.body = body;
+			this.report = report;
+		}
+
+		private boolean matches(BodyBuffer other) {
+			if(other.size() != body.length) {
+				return false;
+			}
+			int offset = 0;
+			for(ByteBuffer buffer : other.asReadOnlyBuffers()) {
+				while(buffer.hasRemaining()) {
+					if(buffer.get() != body[offset++]) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+}
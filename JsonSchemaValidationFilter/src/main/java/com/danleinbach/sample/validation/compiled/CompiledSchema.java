@@ -0,0 +1,84 @@
+package com.danleinbach.sample.validation.compiled;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ProcessingReport;
+
+/**
+ * Json schema compiled into a generated java class, see {@link SchemaCompiler}. The generated class accepts and
+ * rejects the same documents as the tree based validator, without walking the schema for every document.
+ * <p/>
+ * Schemas that use <code>$ref</code> or are not draft v4 are not compiled, nor are schemas when the jvm has no
+ * java compiler, and have to be validated by the tree based validator.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public final class CompiledSchema {
+
+	private static final String DRAFT_V4 = "http://json-schema.org/draft-04/schema";
+
+	private final String schemaLocation;
+	private final GeneratedValidator validator;
+
+	private CompiledSchema(String schemaLocation, GeneratedValidator validator) {
+		this.schemaLocation = schemaLocation;
+		this.validator = validator;
+	}
+
+	/**
+	 * Compile a json schema into a java class.
+	 *
+	 * @param schemaLocation Location the schema was loaded from, used in validation messages
+	 * @param schema         The schema as a json tree
+	 * @param factory        Factory used to compile sub schemas that are not compiled to java
+	 * @return Compiled schema
+	 * @throws ProcessingException Thrown when a sub schema cannot be compiled
+	 */
+	public static CompiledSchema compile(String schemaLocation, JsonNode schema, JsonSchemaFactory factory)
+			throws ProcessingException {
+		JsonNode version = schema.get("$schema");
+		if(containsRef(schema) || (version != null && ! version.asText().startsWith(DRAFT_V4))) {
+			return new CompiledSchema(schemaLocation, null);
+		}
+		return new CompiledSchema(schemaLocation, SchemaCompiler.compile(schemaLocation, schema, factory));
+	}
+
+	/**
+	 * @return <code>true</code> if the schema was compiled, otherwise it cannot be used to validate
+	 */
+	public boolean isCompiled() {
+		return validator != null;
+	}
+
+	/**
+	 * Validate a json document against the schema.
+	 *
+	 * @param instance Json document
+	 * @param failFast Stop at the first validation error
+	 * @return Report of the validation errors found
+	 * @throws ProcessingException Thrown when a sub schema cannot be applied to the document
+	 */
+	public ProcessingReport validate(JsonNode instance, boolean failFast) throws ProcessingException {
+		if(validator == null) {
+			throw new IllegalStateException("Schema " + schemaLocation + " is not compiled");
+		}
+		GeneratedValidator.Context context = new GeneratedValidator.Context(schemaLocation, failFast);
+		validator.validate(instance, context);
+		return context.getReport();
+	}
+
+	private static boolean containsRef(JsonNode schema) {
+		if(schema.has("$ref")) {
+			return true;
+		}
+		for(JsonNode child : schema) {
+			if(child.isContainerNode() && containsRef(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,89 @@
+package com.danleinbach.sample.validation.compiled;
+
+import com.danleinbach.sample.schema.SchemaSource;
+import com.danleinbach.sample.validation.engine.EngineSchema;
+import com.danleinbach.sample.validation.engine.FgeValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+
+import java.io.IOException;
+
+/**
+ * Validation engine that compiles every schema into a java class, see {@link CompiledSchema}, so documents
+ * are validated by straight line code instead of walking the schema. Schemas and sub schemas that cannot be
+ * compiled are validated by the {@link FgeValidationEngine}, which also checks schema syntax.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class CompiledValidationEngine implements ValidationEngine {
+
+	private final FgeValidationEngine fallbackEngine = new FgeValidationEngine();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public EngineSchema compile(String schemaLocation, boolean failFast) throws ValidationEngineException {
+		final CompiledSchema compiledSchema;
+		try {
+			compiledSchema = CompiledSchema.compile(schemaLocation, SchemaSource.load(schemaLocation),
+					fallbackEngine.getJsonSchemaFactory(failFast));
+		} catch(IOException e) {
+			throw new ValidationEngineException("Could not read schema " + schemaLocation, e);
+		} catch(ProcessingException e) {
+			throw new ValidationEngineException("Could not compile schema " + schemaLocation, e);
+		}
+		if(! compiledSchema.isCompiled()) {
+			return fallbackEngine.compile(schemaLocation, failFast);
+		}
+		return new CompiledEngineSchema(compiledSchema, failFast);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ValidationResult checkSchema(JsonNode schema) throws ValidationEngineException {
+		return fallbackEngine.checkSchema(schema);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset() {
+		fallbackEngine.reset();
+	}
+
+	/**
+	 * @return Engine validating the schemas and sub schemas that are not compiled
+	 */
+	public FgeValidationEngine getFallbackEngine() {
+		return fallbackEngine;
+	}
+
+	private static final class CompiledEngineSchema implements EngineSchema {
+
+		private final CompiledSchema compiledSchema;
+		private final boolean failFast;
+
+		private CompiledEngineSchema(CompiledSchema compiledSchema, boolean failFast) {
+			this.compiledSchema = compiledSchema;
+			this.failFast = failFast;
+		}
+
+		@Override
+		public ValidationResult validate(JsonNode instance) throws ValidationEngineException {
+			try {
+				return FgeValidationEngine.toResult(compiledSchema.validate(instance, failFast));
+			} catch(ProcessingException e) {
+				throw new ValidationEngineException("Could not validate json against schema", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package com.danleinbach.sample.validation.compiled;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.exceptions.InvalidInstanceException;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.report.ListProcessingReport;
+import com.github.fge.jsonschema.report.LogLevel;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Base class of the validators generated by the {@link SchemaCompiler}. A generated validator has one method
+ * per sub schema, made of the checks of that sub schema's keywords, and calls the helpers of this class to
+ * report errors. Generated classes are loaded by their own class loader, so everything they use here is
+ * public or protected.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public abstract class GeneratedValidator {
+
+	private static final String[] TYPE_NAMES = {"object", "array", "string", "integer", "number", "boolean", "null"};
+
+	/**
+	 * Validate a json document, starting with the method of the root schema.
+	 *
+	 * @param instance Json document
+	 * @param context  State of the validation
+	 * @throws ProcessingException Thrown when a sub schema that was not compiled cannot be applied
+	 */
+	protected abstract void validate(JsonNode instance, Context context) throws ProcessingException;
+
+	/**
+	 * Report that a value is not of one of the allowed types.
+	 *
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean typeError(Context context, String schemaPointer, JsonNode value, String allowed)
+			throws ProcessingException {
+		return context.error(schemaPointer, "type", "instance type (" + typeName(value)
+				+ ") does not match any allowed primitive type (allowed: " + allowed + ")");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean requiredError(Context context, String schemaPointer, List<String> missing)
+			throws ProcessingException {
+		return context.error(schemaPointer, "required", "object has missing required properties (" + quote(missing)
+				+ ")");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean additionalPropertiesError(Context context, String schemaPointer, List<String> names)
+			throws ProcessingException {
+		return context.error(schemaPointer, "additionalProperties",
+				"object instance has properties which are not allowed by the schema: " + quote(names));
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean maxItemsError(Context context, String schemaPointer, int maxItems, int size)
+			throws ProcessingException {
+		return context.error(schemaPointer, "maxItems", "array is too long: must have at most " + maxItems
+				+ " elements but instance has " + size + " elements");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean minItemsError(Context context, String schemaPointer, int minItems, int size)
+			throws ProcessingException {
+		return context.error(schemaPointer, "minItems", "array is too short: must have at least " + minItems
+				+ " elements but instance has " + size + " elements");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean maxLengthError(Context context, String schemaPointer, int maxLength, int length)
+			throws ProcessingException {
+		return context.error(schemaPointer, "maxLength", "string is too long (length: " + length
+				+ ", maximum allowed: " + maxLength + ")");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean minLengthError(Context context, String schemaPointer, int minLength, int length)
+			throws ProcessingException {
+		return context.error(schemaPointer, "minLength", "string is too short (length: " + length
+				+ ", required minimum: " + minLength + ")");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean patternError(Context context, String schemaPointer, String pattern, String value)
+			throws ProcessingException {
+		return context.error(schemaPointer, "pattern", "ECMA 262 regex \"" + pattern
+				+ "\" does not match input string \"" + value + "\"");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean minimumError(Context context, String schemaPointer, BigDecimal minimum,
+										  BigDecimal value) throws ProcessingException {
+		return context.error(schemaPointer, "minimum", "numeric instance is lower than the required minimum "
+				+ "(minimum: " + minimum + ", found: " + value + ")");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean maximumError(Context context, String schemaPointer, BigDecimal maximum,
+										  BigDecimal value) throws ProcessingException {
+		return context.error(schemaPointer, "maximum", "numeric instance is greater than the required maximum "
+				+ "(maximum: " + maximum + ", found: " + value + ")");
+	}
+
+	/**
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean enumError(Context context, String schemaPointer, JsonNode value, String enumValues)
+			throws ProcessingException {
+		return context.error(schemaPointer, "enum", "instance value (" + value + ") not found in enum "
+				+ "(possible values: " + enumValues + ")");
+	}
+
+	/**
+	 * @return <code>true</code> if the number equals one of the values
+	 */
+	protected static boolean containsNumber(BigDecimal[] values, BigDecimal value) {
+		for(BigDecimal candidate : values) {
+			if(candidate.compareTo(value) == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The list with the value added, created if it is <code>null</code>
+	 */
+	protected static List<String> add(List<String> values, String value) {
+		List<String> list = values == null ? new ArrayList<String>(4) : values;
+		list.add(value);
+		return list;
+	}
+
+	/**
+	 * Validate a value against a sub schema that was not compiled, with the tree based validator.
+	 *
+	 * @return <code>true</code> if validation has to stop
+	 */
+	protected static boolean validateFallback(Context context, JsonSchema fallback, JsonNode value)
+			throws ProcessingException {
+		ProcessingReport report;
+		try {
+			report = fallback.validate(value);
+		} catch(InvalidInstanceException e) {
+			// Thrown by the fail fast report at the first error, anything else is a problem with the schema
+			if(! context.failFast) {
+				throw e;
+			}
+			report = new ListProcessingReport();
+			report.error(e.getProcessingMessage());
+		}
+
+		String prefix = context.pointer();
+		for(ProcessingMessage message : report) {
+			if(! prefix.isEmpty()) {
+				JsonNode pointer = message.asJson().path("instance").path("pointer");
+				message.put("instance", instanceJson(prefix + pointer.asText()));
+			}
+			LogLevel level = message.getLogLevel();
+			if(level == LogLevel.ERROR || level == LogLevel.FATAL) {
+				context.report(message);
+				if(context.stopped) {
+					return true;
+				}
+			}
+			else if(level == LogLevel.WARNING) {
+				context.report.warn(message);
+			}
+		}
+		return false;
+	}
+
+	private static String typeName(JsonNode value) {
+		if(value.isObject()) {
+			return TYPE_NAMES[0];
+		}
+		if(value.isArray()) {
+			return TYPE_NAMES[1];
+		}
+		if(value.isTextual()) {
+			return TYPE_NAMES[2];
+		}
+		if(value.isIntegralNumber()) {
+			return TYPE_NAMES[3];
+		}
+		if(value.isNumber()) {
+			return TYPE_NAMES[4];
+		}
+		return value.isBoolean() ? TYPE_NAMES[5] : TYPE_NAMES[6];
+	}
+
+	private static String quote(List<String> values) {
+		StringBuilder builder = new StringBuilder("[");
+		for(String value : values) {
+			if(builder.length() > 1) {
+				builder.append(',');
+			}
+			builder.append('"').append(value).append('"');
+		}
+		return builder.append(']').toString();
+	}
+
+	private static String escape(String token) {
+		return token.replace("~", "~0").replace("/", "~1");
+	}
+
+	private static ObjectNode instanceJson(String pointer) {
+		ObjectNode instance = JsonNodeFactory.instance.objectNode();
+		instance.put("pointer", pointer);
+		return instance;
+	}
+
+	/**
+	 * State of a single validation: the errors found and the path to the current value.
+	 */
+	public static final class Context {
+
+		private final String schemaLocation;
+		private final boolean failFast;
+		private final ListProcessingReport report = new ListProcessingReport();
+		private String[] names = new String[16];
+		private int[] indexes = new int[16];
+		private int depth;
+		private int errors;
+		private boolean stopped;
+
+		Context(String schemaLocation, boolean failFast) {
+			this.schemaLocation = schemaLocation;
+			this.failFast = failFast;
+		}
+
+		public void push(String name) {
+			grow();
+			names[depth++] = name;
+		}
+
+		public void push(int index) {
+			grow();
+			names[depth] = null;
+			indexes[depth++] = index;
+		}
+
+		public void pop() {
+			depth--;
+		}
+
+		/**
+		 * @return Number of errors reported so far
+		 */
+		public int errors() {
+			return errors;
+		}
+
+		/**
+		 * @return <code>true</code> once validation has to stop
+		 */
+		public boolean stopped() {
+			return stopped;
+		}
+
+		ProcessingReport getReport() {
+			return report;
+		}
+
+		private void grow() {
+			if(depth == names.length) {
+				names = Arrays.copyOf(names, depth * 2);
+				indexes = Arrays.copyOf(indexes, depth * 2);
+			}
+		}
+
+		private String pointer() {
+			StringBuilder pointer = new StringBuilder();
+			for(int x = 0; x < depth; x++) {
+				pointer.append('/');
+				if(names[x] == null) {
+					pointer.append(indexes[x]);
+				}
+				else {
+					pointer.append(escape(names[x]));
+				}
+			}
+			return pointer.toString();
+		}
+
+		private boolean error(String schemaPointer, String keyword, String message) throws ProcessingException {
+			ObjectNode schema = JsonNodeFactory.instance.objectNode();
+			schema.put("loadingURI", schemaLocation);
+			schema.put("pointer", schemaPointer);
+			report(new ProcessingMessage().message(message).put("domain", "validation").put("keyword", keyword)
+					.put("schema", schema).put("instance", instanceJson(pointer())));
+			return stopped;
+		}
+
+		private void report(ProcessingMessage message) throws ProcessingException {
+			report.error(message);
+			errors++;
+			stopped = failFast;
+		}
+	}
+}
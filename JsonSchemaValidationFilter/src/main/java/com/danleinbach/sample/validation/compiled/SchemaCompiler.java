@@ -0,0 +1,575 @@
+package com.danleinbach.sample.validation.compiled;
+
+import com.danleinbach.sample.validation.EcmaRegex;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import com.google.common.base.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Generates the java source of a {@link GeneratedValidator} for a json schema and compiles it in memory with
+ * the system java compiler. Every sub schema becomes one method that checks its keywords in a straight line,
+ * with patterns, enum values and bounds prepared once and passed to the constructor of the generated class.
+ * <p/>
+ * The keywords compiled are the ones the streaming validator checks. A sub schema that uses any other keyword
+ * is handed to the tree based validator.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+final class SchemaCompiler {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SchemaCompiler.class);
+	private static final Set<String> IGNORED_KEYWORDS = new HashSet<String>(
+			Arrays.asList("$schema", "id", "title", "description", "default", "definitions"));
+	private static final Set<String> COMPILED_KEYWORDS = new HashSet<String>(
+			Arrays.asList("type", "required", "properties", "additionalProperties", "enum", "minimum", "maximum",
+					"exclusiveMinimum", "exclusiveMaximum", "minLength", "maxLength", "pattern", "minItems",
+					"maxItems", "items"));
+	private static final String[] TYPE_NAMES = {"object", "array", "string", "integer", "number", "boolean", "null"};
+	private static final String[] TYPE_CHECKS = {"n.isObject()", "n.isArray()", "n.isTextual()",
+			"n.isIntegralNumber()", "n.isNumber()", "n.isBoolean()", "n.isNull()"};
+	private static final Class<?>[] CLASSPATH_CLASSES = {GeneratedValidator.class, JsonNode.class, JsonParser.class,
+			JsonProperty.class, ProcessingReport.class, JsonSchema.class, Objects.class};
+	private static final String PACKAGE = GeneratedValidator.class.getPackage().getName();
+	private static final AtomicInteger CLASS_COUNT = new AtomicInteger();
+	private static volatile List<String> options;
+
+	private final JsonSchemaFactory factory;
+	private final StringBuilder methods = new StringBuilder();
+	private final StringBuilder fields = new StringBuilder();
+	private final StringBuilder assignments = new StringBuilder();
+	private final List<Object> constants = new ArrayList<Object>();
+	private int methodCount;
+
+	private SchemaCompiler(JsonSchemaFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Generate and load a validator for a json schema.
+	 *
+	 * @param schemaLocation Location the schema was loaded from, used in log messages
+	 * @param schema         The schema as a json tree, draft v4 without <code>$ref</code>
+	 * @param factory        Factory used to compile sub schemas that are not compiled to java
+	 * @return The validator, or <code>null</code> when no java compiler is available or compilation failed
+	 * @throws ProcessingException Thrown when a sub schema cannot be compiled by the factory
+	 */
+	static GeneratedValidator compile(String schemaLocation, JsonNode schema, JsonSchemaFactory factory)
+			throws ProcessingException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if(compiler == null) {
+			LOGGER.warn("No java compiler available, schema {} is not compiled", schemaLocation);
+			return null;
+		}
+
+		SchemaCompiler schemaCompiler = new SchemaCompiler(factory);
+		schemaCompiler.method(schema, "");
+		String className = "GeneratedSchema" + CLASS_COUNT.incrementAndGet();
+		String source = schemaCompiler.source(className);
+		LOGGER.debug("Generated validator for schema {}:\n{}", schemaLocation, source);
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+		MemoryFileManager fileManager = new MemoryFileManager(
+				compiler.getStandardFileManager(diagnostics, null, Charset.forName("UTF-8")));
+		try {
+			boolean compiled = compiler.getTask(null, fileManager, diagnostics, getOptions(), null,
+					Collections.singletonList(new SourceFile(PACKAGE + "." + className, source))).call();
+			if(! compiled) {
+				LOGGER.warn("Could not compile schema {}: {}", schemaLocation, diagnostics.getDiagnostics());
+				return null;
+			}
+		} finally {
+			// The generated classes are kept in memory, only the standard file manager's resources are closed
+			try {
+				fileManager.close();
+			} catch(IOException e) {
+				LOGGER.debug("Could not close the file manager of schema " + schemaLocation, e);
+			}
+		}
+
+		try {
+			Class<?> validatorClass = new GeneratedClassLoader(fileManager.classes)
+					.loadClass(PACKAGE + "." + className);
+			return (GeneratedValidator) validatorClass.getConstructor(Object[].class)
+					.newInstance((Object) schemaCompiler.constants.toArray());
+		} catch(ReflectiveOperationException e) {
+			LOGGER.warn("Could not load compiled schema " + schemaLocation, e);
+			return null;
+		}
+	}
+
+	private String source(String className) {
+		return "package " + PACKAGE + ";\n\n"
+				+ "import com.fasterxml.jackson.databind.JsonNode;\n"
+				+ "import com.github.fge.jsonschema.exceptions.ProcessingException;\n"
+				+ "import com.github.fge.jsonschema.main.JsonSchema;\n\n"
+				+ "import java.math.BigDecimal;\n"
+				+ "import java.util.Iterator;\n"
+				+ "import java.util.List;\n"
+				+ "import java.util.Set;\n"
+				+ "import java.util.regex.Pattern;\n\n"
+				+ "@SuppressWarnings(\"unchecked\")\n"
+				+ "public final class " + className + " extends GeneratedValidator {\n\n"
+				+ fields + "\n"
+				+ "\tpublic " + className + "(Object[] k) {\n" + assignments + "\t}\n\n"
+				+ "\t@Override\n"
+				+ "\tprotected void validate(JsonNode n, Context c) throws ProcessingException {\n"
+				+ "\t\tv0(n, c);\n"
+				+ "\t}\n"
+				+ methods
+				+ "}\n";
+	}
+
+	/**
+	 * Generate the method of a sub schema, and the methods of the sub schemas it contains.
+	 *
+	 * @return Name of the method
+	 */
+	private String method(JsonNode schema, String pointer) throws ProcessingException {
+		String name = "v" + methodCount++;
+		StringBuilder code = new StringBuilder("\n\tprivate void ").append(name)
+				.append("(JsonNode n, Context c) throws ProcessingException {\n");
+		String p = literal(pointer);
+
+		if(! isCompilable(schema)) {
+			code.append("\t\tvalidateFallback(c, ").append(constant(factory.getJsonSchema(schema), "JsonSchema"))
+					.append(", n);\n\t}\n");
+			methods.append(code);
+			return name;
+		}
+
+		// Sub schemas are generated first. Like the tree based validator, values inside this one are only
+		// validated while no error has been found anywhere in the document
+		StringBuilder children = new StringBuilder();
+		Iterator<Map.Entry<String, JsonNode>> properties = schema.path("properties").fields();
+		if(properties.hasNext()) {
+			children.append("\t\tif(n.isObject()) {\n\t\t\tJsonNode v;\n");
+			while(properties.hasNext()) {
+				Map.Entry<String, JsonNode> property = properties.next();
+				String key = literal(property.getKey());
+				String child = method(property.getValue(), pointer + "/properties/" + escape(property.getKey()));
+				children.append("\t\t\tv = n.get(").append(key).append(");\n")
+						.append("\t\t\tif(v != null) {\n")
+						.append("\t\t\t\tc.push(").append(key).append(");\n")
+						.append("\t\t\t\t").append(child).append("(v, c);\n")
+						.append("\t\t\t\tc.pop();\n")
+						.append("\t\t\t\tif(c.stopped()) {\n\t\t\t\t\treturn;\n\t\t\t\t}\n")
+						.append("\t\t\t}\n");
+			}
+			children.append("\t\t}\n");
+		}
+		if(schema.has("items")) {
+			String child = method(schema.get("items"), pointer + "/items");
+			children.append("\t\tif(n.isArray()) {\n")
+					.append("\t\t\tfor(int x = 0, s = n.size(); x < s; x++) {\n")
+					.append("\t\t\t\tc.push(x);\n")
+					.append("\t\t\t\t").append(child).append("(n.get(x), c);\n")
+					.append("\t\t\t\tc.pop();\n")
+					.append("\t\t\t\tif(c.stopped()) {\n\t\t\t\t\treturn;\n\t\t\t\t}\n")
+					.append("\t\t\t}\n\t\t}\n");
+		}
+		JsonNode type = schema.get("type");
+		if(type != null) {
+			List<String> typeNames = new ArrayList<String>();
+			List<String> checks = new ArrayList<String>();
+			for(JsonNode typeName : type.isArray() ? type : Collections.singletonList(type)) {
+				typeNames.add(typeName.textValue());
+				checks.add(TYPE_CHECKS[Arrays.asList(TYPE_NAMES).indexOf(typeName.textValue())]);
+			}
+			code.append("\t\tif(! (").append(join(checks, " || ")).append(")")
+					.append(" && typeError(c, ").append(p).append(", n, ").append(literal(quote(typeNames)))
+					.append(")) {\n\t\t\treturn;\n\t\t}\n");
+		}
+
+		boolean additionalProperties = schema.path("additionalProperties").asBoolean(true);
+		if(schema.has("required") || ! additionalProperties) {
+			code.append("\t\tif(n.isObject()) {\n");
+			if(schema.has("required")) {
+				code.append("\t\t\tList<String> m = null;\n");
+				for(JsonNode required : schema.get("required")) {
+					String key = literal(required.textValue());
+					code.append("\t\t\tif(! n.has(").append(key).append(")) {\n")
+							.append("\t\t\t\tm = add(m, ").append(key).append(");\n\t\t\t}\n");
+				}
+				code.append("\t\t\tif(m != null && requiredError(c, ").append(p)
+						.append(", m)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			if(! additionalProperties) {
+				Set<String> names = new HashSet<String>();
+				Iterator<String> fieldNames = schema.path("properties").fieldNames();
+				while(fieldNames.hasNext()) {
+					names.add(fieldNames.next().intern());
+				}
+				code.append("\t\t\tList<String> a = null;\n")
+						.append("\t\t\tfor(Iterator<String> i = n.fieldNames(); i.hasNext(); ) {\n")
+						.append("\t\t\t\tString k = i.next();\n")
+						.append("\t\t\t\tif(! ").append(constant(names, "Set<String>")).append(".contains(k)) {\n")
+						.append("\t\t\t\t\ta = add(a, k);\n\t\t\t\t}\n\t\t\t}\n")
+						.append("\t\t\tif(a != null && additionalPropertiesError(c, ").append(p)
+						.append(", a)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			code.append("\t\t}\n");
+		}
+
+		if(schema.has("minItems") || schema.has("maxItems")) {
+			code.append("\t\tif(n.isArray()) {\n\t\t\tint s = n.size();\n");
+			if(schema.has("maxItems")) {
+				int maxItems = schema.get("maxItems").intValue();
+				code.append("\t\t\tif(s > ").append(maxItems).append(" && maxItemsError(c, ").append(p)
+						.append(", ").append(maxItems).append(", s)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			if(schema.has("minItems")) {
+				int minItems = schema.get("minItems").intValue();
+				code.append("\t\t\tif(s < ").append(minItems).append(" && minItemsError(c, ").append(p)
+						.append(", ").append(minItems).append(", s)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			code.append("\t\t}\n");
+		}
+
+		if(schema.has("minLength") || schema.has("maxLength") || schema.has("pattern")) {
+			code.append("\t\tif(n.isTextual()) {\n\t\t\tString s = n.textValue();\n");
+			// Lengths are counted in chars, as the tree based validator does
+			if(schema.has("maxLength")) {
+				int maxLength = schema.get("maxLength").intValue();
+				code.append("\t\t\tif(s.length() > ").append(maxLength).append(" && maxLengthError(c, ").append(p)
+						.append(", ").append(maxLength).append(", s.length())) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			if(schema.has("minLength")) {
+				int minLength = schema.get("minLength").intValue();
+				code.append("\t\t\tif(s.length() < ").append(minLength).append(" && minLengthError(c, ").append(p)
+						.append(", ").append(minLength).append(", s.length())) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			if(schema.has("pattern")) {
+				String pattern = schema.get("pattern").textValue();
+				code.append("\t\t\tif(! ").append(constant(EcmaRegex.compile(pattern), "Pattern"))
+						.append(".matcher(s).find() && patternError(c, ").append(p).append(", ")
+						.append(literal(pattern)).append(", s)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			code.append("\t\t}\n");
+		}
+
+		if(schema.has("minimum") || schema.has("maximum")) {
+			code.append("\t\tif(n.isNumber()) {\n\t\t\tBigDecimal d = n.decimalValue();\n");
+			if(schema.has("minimum")) {
+				String minimum = constant(schema.get("minimum").decimalValue(), "BigDecimal");
+				String compare = schema.path("exclusiveMinimum").asBoolean(false) ? " <= 0" : " < 0";
+				code.append("\t\t\tif(d.compareTo(").append(minimum).append(")").append(compare)
+						.append(" && minimumError(c, ").append(p).append(", ").append(minimum)
+						.append(", d)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			if(schema.has("maximum")) {
+				String maximum = constant(schema.get("maximum").decimalValue(), "BigDecimal");
+				String compare = schema.path("exclusiveMaximum").asBoolean(false) ? " >= 0" : " > 0";
+				code.append("\t\t\tif(d.compareTo(").append(maximum).append(")").append(compare)
+						.append(" && maximumError(c, ").append(p).append(", ").append(maximum)
+						.append(", d)) {\n\t\t\t\treturn;\n\t\t\t}\n");
+			}
+			code.append("\t\t}\n");
+		}
+
+		if(schema.has("enum")) {
+			code.append("\t\tif(! (").append(enumCheck(schema.get("enum"))).append(") && enumError(c, ").append(p)
+					.append(", n, ").append(literal(schema.get("enum").toString()))
+					.append(")) {\n\t\t\treturn;\n\t\t}\n");
+		}
+
+		if(children.length() > 0) {
+			code.append("\t\tif(c.errors() > 0) {\n\t\t\treturn;\n\t\t}\n").append(children);
+		}
+		methods.append(code.append("\t}\n"));
+		return name;
+	}
+
+	/**
+	 * @return Condition that is <code>true</code> when the instance equals one of the scalar enum values
+	 */
+	private String enumCheck(JsonNode values) {
+		Set<String> strings = new HashSet<String>();
+		List<BigDecimal> numbers = new ArrayList<BigDecimal>();
+		List<String> checks = new ArrayList<String>();
+		for(JsonNode value : values) {
+			if(value.isTextual()) {
+				strings.add(value.textValue().intern());
+			}
+			else if(value.isNumber()) {
+				numbers.add(value.decimalValue());
+			}
+			else if(value.isBoolean()) {
+				checks.add(value.booleanValue() ? "(n.isBoolean() && n.booleanValue())"
+						: "(n.isBoolean() && ! n.booleanValue())");
+			}
+			else {
+				checks.add("n.isNull()");
+			}
+		}
+		if(! numbers.isEmpty()) {
+			checks.add(0, "(n.isNumber() && containsNumber(" + constant(numbers.toArray(new BigDecimal[numbers.size()]),
+					"BigDecimal[]") + ", n.decimalValue()))");
+		}
+		if(! strings.isEmpty()) {
+			checks.add(0, "(n.isTextual() && " + constant(strings, "Set<String>") + ".contains(n.textValue()))");
+		}
+		return join(checks, " || ");
+	}
+
+	/**
+	 * Register a value that the generated class receives in its constructor.
+	 *
+	 * @return Name of the field that holds the value
+	 */
+	private String constant(Object value, String type) {
+		String name = "k" + constants.size();
+		fields.append("\tprivate final ").append(type).append(' ').append(name).append(";\n");
+		assignments.append("\t\tthis.").append(name).append(" = (").append(type).append(") k[")
+				.append(constants.size()).append("];\n");
+		constants.add(value);
+		return name;
+	}
+
+	/**
+	 * Check that every keyword of a schema, not including its sub schemas, can be compiled.
+	 */
+	static boolean isCompilable(JsonNode schema) {
+		if(! schema.isObject() || (schema.has("exclusiveMinimum") && ! schema.has("minimum"))
+				|| (schema.has("exclusiveMaximum") && ! schema.has("maximum"))) {
+			return false;
+		}
+		Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+		while(fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			String keyword = field.getKey();
+			if(! IGNORED_KEYWORDS.contains(keyword)
+					&& ! (COMPILED_KEYWORDS.contains(keyword) && isCompilable(keyword, field.getValue()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isCompilable(String keyword, JsonNode value) {
+		if("type".equals(keyword)) {
+			if(value.isTextual()) {
+				return isTypeName(value);
+			}
+			return value.isArray() && value.size() > 0 && allMatch(value, "type");
+		}
+		if("required".equals(keyword)) {
+			return value.isArray() && value.size() > 0 && allMatch(value, "required");
+		}
+		if("properties".equals(keyword) || "items".equals(keyword)) {
+			return value.isObject();
+		}
+		if("additionalProperties".equals(keyword)) {
+			return value.isBoolean() || (value.isObject() && value.size() == 0);
+		}
+		if("enum".equals(keyword)) {
+			return value.isArray() && value.size() > 0 && allMatch(value, "enum");
+		}
+		if("minimum".equals(keyword) || "maximum".equals(keyword)) {
+			return value.isNumber();
+		}
+		if("exclusiveMinimum".equals(keyword) || "exclusiveMaximum".equals(keyword)) {
+			return value.isBoolean();
+		}
+		if("pattern".equals(keyword)) {
+			return value.isTextual() && isPattern(value.textValue());
+		}
+		// minLength, maxLength, minItems, maxItems
+		return value.canConvertToInt() && value.isIntegralNumber() && value.intValue() >= 0;
+	}
+
+	private static boolean allMatch(JsonNode values, String keyword) {
+		for(JsonNode value : values) {
+			boolean matches = "type".equals(keyword) ? isTypeName(value)
+					: "required".equals(keyword) ? value.isTextual() : ! value.isContainerNode();
+			if(! matches) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isTypeName(JsonNode value) {
+		return value.isTextual() && Arrays.asList(TYPE_NAMES).contains(value.textValue());
+	}
+
+	private static boolean isPattern(String pattern) {
+		try {
+			EcmaRegex.compile(pattern);
+			return true;
+		} catch(PatternSyntaxException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return The string as a java string literal
+	 */
+	private static String literal(String value) {
+		StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+		for(int x = 0; x < value.length(); x++) {
+			char c = value.charAt(x);
+			if(c == '"' || c == '\\') {
+				literal.append('\\').append(c);
+			}
+			else if(c < 0x20) {
+				// Octal escapes, a unicode escape of a line break would end the literal
+				literal.append(String.format("\\%03o", (int) c));
+			}
+			else if(c > 0x7e) {
+				literal.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				literal.append(c);
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+	private static String join(List<String> values, String separator) {
+		StringBuilder builder = new StringBuilder();
+		for(String value : values) {
+			if(builder.length() > 0) {
+				builder.append(separator);
+			}
+			builder.append(value);
+		}
+		return builder.toString();
+	}
+
+	private static String quote(List<String> values) {
+		StringBuilder builder = new StringBuilder("[");
+		for(String value : values) {
+			if(builder.length() > 1) {
+				builder.append(',');
+			}
+			builder.append('"').append(value).append('"');
+		}
+		return builder.append(']').toString();
+	}
+
+	private static String escape(String token) {
+		return token.replace("~", "~0").replace("/", "~1");
+	}
+
+	/**
+	 * The class path of the generated classes: the class path of the jvm, and the locations of the classes
+	 * they use, which are not on it when running in a servlet container.
+	 */
+	private static List<String> getOptions() {
+		if(options == null) {
+			Set<String> classPath = new LinkedHashSet<String>(
+					Arrays.asList(System.getProperty("java.class.path", "").split(File.pathSeparator)));
+			for(Class<?> type : CLASSPATH_CLASSES) {
+				CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+				if(codeSource != null && codeSource.getLocation() != null) {
+					try {
+						classPath.add(new File(codeSource.getLocation().toURI()).getPath());
+					} catch(URISyntaxException e) {
+						LOGGER.debug("Class path location not usable:{}", codeSource.getLocation());
+					}
+				}
+			}
+			classPath.remove("");
+			options = Arrays.asList("-classpath", join(new ArrayList<String>(classPath), File.pathSeparator),
+					"-proc:none", "-g:none", "-nowarn");
+		}
+		return options;
+	}
+
+	/**
+	 * Generated source held in memory.
+	 */
+	private static final class SourceFile extends SimpleJavaFileObject {
+
+		private final String source;
+
+		private SourceFile(String className, String source) {
+			super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+			this.source = source;
+		}
+
+		@Override
+		public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+			return source;
+		}
+	}
+
+	/**
+	 * File manager that keeps the compiled classes in memory.
+	 */
+	private static final class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+		private final Map<String, ByteArrayOutputStream> classes = new HashMap<String, ByteArrayOutputStream>();
+
+		private MemoryFileManager(StandardJavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, final String className, JavaFileObject.Kind kind,
+												   FileObject sibling) {
+			return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension),
+					kind) {
+				@Override
+				public OutputStream openOutputStream() {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					classes.put(className, bytes);
+					return bytes;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Class loader of the classes generated for one schema, so they are unloaded with the schema.
+	 */
+	private static final class GeneratedClassLoader extends ClassLoader {
+
+		private final Map<String, ByteArrayOutputStream> classes;
+
+		private GeneratedClassLoader(Map<String, ByteArrayOutputStream> classes) {
+			super(GeneratedValidator.class.getClassLoader());
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			ByteArrayOutputStream bytes = classes.get(name);
+			if(bytes == null) {
+				throw new ClassNotFoundException(name);
+			}
+			byte[] bytecode = bytes.toByteArray();
+			return defineClass(name, bytecode, 0, bytecode.length);
+		}
+	}
+}
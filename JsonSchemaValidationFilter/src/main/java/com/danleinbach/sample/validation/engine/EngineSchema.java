@@ -0,0 +1,22 @@
+package com.danleinbach.sample.validation.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A json schema compiled by a {@link ValidationEngine}.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public interface EngineSchema {
+
+	/**
+	 * Validate a json document against the schema.
+	 *
+	 * @param instance Json document
+	 * @return Result listing the validation errors found
+	 * @throws ValidationEngineException Thrown when the schema cannot be applied to the document
+	 */
+	ValidationResult validate(JsonNode instance) throws ValidationEngineException;
+}
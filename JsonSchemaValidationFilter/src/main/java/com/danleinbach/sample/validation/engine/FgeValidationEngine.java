@@ -0,0 +1,131 @@
+package com.danleinbach.sample.validation.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonschema.exceptions.InvalidInstanceException;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ListReportProvider;
+import com.github.fge.jsonschema.report.LogLevel;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation engine backed by the <code>json-schema-validator</code> library, which walks the schema for
+ * every document. This is the default engine, and supports every keyword of draft v3 and v4.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class FgeValidationEngine implements ValidationEngine {
+
+	private volatile JsonSchemaFactory jsonSchemaFactory;
+	private volatile JsonSchemaFactory failFastJsonSchemaFactory;
+
+	public FgeValidationEngine() {
+		reset();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public EngineSchema compile(String schemaLocation, boolean failFast) throws ValidationEngineException {
+		return new FgeSchema(getJsonSchema(schemaLocation, failFast), failFast);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public ValidationResult checkSchema(JsonNode schema) {
+		return toResult(jsonSchemaFactory.getSyntaxValidator().validateSchema(schema));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void reset() {
+		// The factories keep every schema they have loaded by uri, so they would not see changes
+		this.jsonSchemaFactory = JsonSchemaFactory.byDefault();
+		this.failFastJsonSchemaFactory = JsonSchemaFactory.newBuilder()
+				.setReportProvider(new ListReportProvider(LogLevel.INFO, LogLevel.ERROR)).freeze();
+	}
+
+	/**
+	 * Get the factory schemas are compiled with. In fail fast mode the reports of the compiled schemas
+	 * throw as soon as an error is logged, which stops the validation where it is.
+	 *
+	 * @param failFast <code>true</code> for the fail fast factory
+	 * @return Json schema factory
+	 */
+	public JsonSchemaFactory getJsonSchemaFactory(boolean failFast) {
+		return failFast ? failFastJsonSchemaFactory : jsonSchemaFactory;
+	}
+
+	/**
+	 * Load and compile the schema at a location with the library itself.
+	 *
+	 * @param schemaLocation Location of the schema
+	 * @param failFast       <code>true</code> to compile with the fail fast factory
+	 * @return Json schema
+	 * @throws ValidationEngineException Thrown when the schema cannot be loaded or compiled
+	 */
+	public JsonSchema getJsonSchema(String schemaLocation, boolean failFast) throws ValidationEngineException {
+		try {
+			return getJsonSchemaFactory(failFast).getJsonSchema(schemaLocation);
+		} catch(ProcessingException e) {
+			throw new ValidationEngineException("Could not compile schema " + schemaLocation, e);
+		}
+	}
+
+	/**
+	 * Convert a report of the library into a validation result.
+	 *
+	 * @param report Processing report
+	 * @return Result holding the messages of the report
+	 */
+	public static ValidationResult toResult(ProcessingReport report) {
+		List<ValidationError> errors = new ArrayList<ValidationError>();
+		for(ProcessingMessage message : report) {
+			errors.add(new ValidationError(message.asJson()));
+		}
+		if(report.isSuccess() && errors.isEmpty()) {
+			return ValidationResult.SUCCESS;
+		}
+		return new ValidationResult(report.isSuccess(), errors);
+	}
+
+	private static final class FgeSchema implements EngineSchema {
+
+		private final JsonSchema jsonSchema;
+		private final boolean failFast;
+
+		private FgeSchema(JsonSchema jsonSchema, boolean failFast) {
+			this.jsonSchema = jsonSchema;
+			this.failFast = failFast;
+		}
+
+		@Override
+		public ValidationResult validate(JsonNode instance) throws ValidationEngineException {
+			try {
+				return toResult(jsonSchema.validate(instance));
+			} catch(InvalidInstanceException e) {
+				// Thrown by the fail fast report at the first error, anything else is a problem with the schema
+				if(! failFast) {
+					throw new ValidationEngineException("Could not validate json against schema", e);
+				}
+				List<ValidationError> errors = new ArrayList<ValidationError>(1);
+				errors.add(new ValidationError(e.getProcessingMessage().asJson()));
+				return new ValidationResult(false, errors);
+			} catch(ProcessingException e) {
+				throw new ValidationEngineException("Could not validate json against schema", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package com.danleinbach.sample.validation.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Compiles json schemas and validates json documents against them. The validation processors only use
+ * schemas through this interface, so the library doing the work can be replaced without changing them.
+ * <p/>
+ * Implementations have to be safe to use from several threads at once, and need a public no argument
+ * constructor to be configured by class name.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public interface ValidationEngine {
+
+	/**
+	 * Load and compile the schema at a location.
+	 *
+	 * @param schemaLocation Location of the schema, a <code>resource:</code> or <code>file:</code> url
+	 * @param failFast       Stop validating a document at its first error
+	 * @return Compiled schema
+	 * @throws ValidationEngineException Thrown when the schema cannot be loaded or compiled
+	 */
+	EngineSchema compile(String schemaLocation, boolean failFast) throws ValidationEngineException;
+
+	/**
+	 * Check that a json tree is a valid json schema.
+	 *
+	 * @param schema The schema as a json tree
+	 * @return Result listing the problems with the schema
+	 * @throws ValidationEngineException Thrown when the schema cannot be checked
+	 */
+	ValidationResult checkSchema(JsonNode schema) throws ValidationEngineException;
+
+	/**
+	 * Forget every schema the engine keeps by location, so the next compile reads them again. Called when
+	 * schemas change on disk.
+	 */
+	void reset();
+}
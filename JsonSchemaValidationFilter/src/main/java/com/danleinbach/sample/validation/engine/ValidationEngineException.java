@@ -0,0 +1,19 @@
+package com.danleinbach.sample.validation.engine;
+
+/**
+ * Thrown by a {@link ValidationEngine} when a schema cannot be loaded, compiled or applied to a document.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidationEngineException extends Exception {
+
+	public ValidationEngineException(String message) {
+		super(message);
+	}
+
+	public ValidationEngineException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,86 @@
+package com.danleinbach.sample.validation.engine;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * A problem found by a {@link ValidationEngine}. The error is kept as the json object written in error
+ * responses, which holds at least the <code>level</code>, <code>keyword</code> and <code>message</code>,
+ * the <code>schema</code> location and pointer and the <code>instance</code> pointer, and any details
+ * the engine adds.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public final class ValidationError {
+
+	private final JsonNode json;
+
+	/**
+	 * @param json The error as a json object
+	 */
+	public ValidationError(JsonNode json) {
+		this.json = json;
+	}
+
+	/**
+	 * Create an error in the format every engine reports.
+	 *
+	 * @param schemaLocation  Location of the schema
+	 * @param schemaPointer   Json pointer to the sub schema in the schema
+	 * @param instancePointer Json pointer to the value in the document
+	 * @param keyword         Keyword of the schema the value does not match
+	 * @param message         Description of the error
+	 * @return The error
+	 */
+	public static ValidationError error(String schemaLocation, String schemaPointer, String instancePointer,
+										String keyword, String message) {
+		ObjectNode json = JsonNodeFactory.instance.objectNode();
+		json.put("level", "error");
+		ObjectNode schema = json.putObject("schema");
+		schema.put("loadingURI", schemaLocation);
+		schema.put("pointer", schemaPointer);
+		json.putObject("instance").put("pointer", instancePointer);
+		json.put("domain", "validation");
+		json.put("keyword", keyword);
+		json.put("message", message);
+		return new ValidationError(json);
+	}
+
+	/**
+	 * @return <code>error</code>, <code>fatal</code>, or <code>warning</code> when the engine reports warnings
+	 */
+	public String getLevel() {
+		return json.path("level").asText();
+	}
+
+	public String getKeyword() {
+		return json.path("keyword").asText();
+	}
+
+	public String getMessage() {
+		return json.path("message").asText();
+	}
+
+	public String getSchemaPointer() {
+		return json.path("schema").path("pointer").asText();
+	}
+
+	public String getInstancePointer() {
+		return json.path("instance").path("pointer").asText();
+	}
+
+	/**
+	 * @return The error as a json object, which must not be modified
+	 */
+	public JsonNode asJson() {
+		return json;
+	}
+
+	@Override
+	public String toString() {
+		return json.toString();
+	}
+}
@@ -0,0 +1,62 @@
+package com.danleinbach.sample.validation.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Outcome of validating a document, or checking a schema, with a {@link ValidationEngine}: whether it
+ * succeeded and the errors found. Warnings are listed too when the engine reports them, so a successful
+ * result is not always empty.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public final class ValidationResult implements Iterable<ValidationError> {
+
+	/**
+	 * Result without any errors.
+	 */
+	public static final ValidationResult SUCCESS = new ValidationResult(true,
+			Collections.<ValidationError>emptyList());
+
+	private final boolean success;
+	private final List<ValidationError> errors;
+
+	/**
+	 * @param success <code>true</code> if no error, as opposed to a warning, was found
+	 * @param errors  Errors found, in the order they were found
+	 */
+	public ValidationResult(boolean success, List<ValidationError> errors) {
+		this.success = success;
+		this.errors = Collections.unmodifiableList(new ArrayList<ValidationError>(errors));
+	}
+
+	/**
+	 * @param errors Errors found, in the order they were found
+	 * @return Result that succeeded if the list is empty
+	 */
+	public static ValidationResult of(List<ValidationError> errors) {
+		return errors.isEmpty() ? SUCCESS : new ValidationResult(false, errors);
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	public List<ValidationError> getErrors() {
+		return errors;
+	}
+
+	@Override
+	public Iterator<ValidationError> iterator() {
+		return errors.iterator();
+	}
+
+	@Override
+	public String toString() {
+		return "ValidationResult{success=" + success + ", errors=" + errors + "}";
+	}
+}
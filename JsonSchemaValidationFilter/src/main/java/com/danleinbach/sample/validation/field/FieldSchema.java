@@ -0,0 +1,764 @@
+package com.danleinbach.sample.validation.field;
+
+import com.danleinbach.sample.constants.SchemaLocationConstants;
+import com.danleinbach.sample.validation.EcmaRegex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.report.ListProcessingReport;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import com.google.common.collect.Lists;
+
+import javax.servlet.http.HttpServletRequest;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Json schema for the headers or parameters of a request, compiled into a list of fields that are
+ * read straight from the request with <code>getHeader</code> or <code>getParameter</code>. Only the
+ * fields the schema declares are read, and no map or json tree of the request is built.
+ * <p/>
+ * Headers and parameters are always strings, so a field that allows <code>integer</code>,
+ * <code>number</code> or <code>boolean</code> is checked against the value converted to that type
+ * when it can be. A field that allows <code>array</code>, or uses the array keywords without a type,
+ * reads every value of a repeated header or parameter, and each value is checked against
+ * <code>items</code>. Other fields only read the first value.
+ * <p/>
+ * The top level schema may use <code>type</code> (object), <code>properties</code>,
+ * <code>required</code> and <code>additionalProperties</code> (boolean), and each property
+ * <code>type</code>, <code>enum</code>, <code>pattern</code>, <code>minLength</code>,
+ * <code>maxLength</code>, <code>minimum</code>, <code>maximum</code>, <code>exclusiveMinimum</code>,
+ * <code>exclusiveMaximum</code>, <code>items</code> (single schema without arrays),
+ * <code>minItems</code>, <code>maxItems</code> and <code>uniqueItems</code>. Any other schema is not
+ * compiled, see {@link #isCompiled()}, and must be validated by the tree based validator against
+ * {@link #readTree}, which reads the request by the same rules.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class FieldSchema {
+
+	private static final Set<String> IGNORED_KEYWORDS = new HashSet<String>(
+			Arrays.asList("$schema", "id", "title", "description", "default", "definitions"));
+	private static final Set<String> OBJECT_KEYWORDS = new HashSet<String>(
+			Arrays.asList("type", "properties", "required", "additionalProperties"));
+	private static final Set<String> FIELD_KEYWORDS = new HashSet<String>(
+			Arrays.asList("type", "enum", "pattern", "minLength", "maxLength", "minimum", "maximum",
+					"exclusiveMinimum", "exclusiveMaximum", "items", "minItems", "maxItems", "uniqueItems"));
+	private static final String DRAFT_V4 = "http://json-schema.org/draft-04/schema";
+	// A header or parameter that is present is never null, but null may still be allowed
+	private static final String[] TYPE_NAMES = {"string", "integer", "number", "boolean", "null", "array"};
+	private static final int STRING = 1;
+	private static final int INTEGER = 1 << 1;
+	private static final int NUMBER = 1 << 2;
+	private static final int BOOLEAN = 1 << 3;
+	private static final int ARRAY = 1 << 5;
+
+	private final String schemaLocation;
+	private final JsonNode schema;
+	private final Field[] fields;
+	private final boolean additionalProperties;
+
+	private FieldSchema(String schemaLocation, JsonNode schema, Field[] fields, boolean additionalProperties) {
+		this.schemaLocation = schemaLocation;
+		this.schema = schema;
+		this.fields = fields;
+		this.additionalProperties = additionalProperties;
+	}
+
+	/**
+	 * Compile a header or parameter schema into the fields it declares.
+	 *
+	 * @param schemaLocation Location the schema was loaded from, used in validation messages
+	 * @param schema         The schema as a json tree
+	 * @return Compiled schema, which is not compiled if the schema uses a keyword that is not supported
+	 */
+	public static FieldSchema compile(String schemaLocation, JsonNode schema) {
+		JsonNode version = schema.get("$schema");
+		if(! isCompilable(schema, OBJECT_KEYWORDS) || (version != null && ! version.asText().startsWith(DRAFT_V4))
+				|| (schema.has("type") && ! "object".equals(schema.get("type").textValue()))) {
+			return new FieldSchema(schemaLocation, schema, null, true);
+		}
+
+		JsonNode properties = schema.path("properties");
+		JsonNode required = schema.path("required");
+		JsonNode additionalProperties = schema.path("additionalProperties");
+		if((schema.has("properties") && ! properties.isObject())
+				|| (schema.has("required") && (! required.isArray() || required.size() == 0))
+				|| (schema.has("additionalProperties") && ! additionalProperties.isBoolean()
+				&& ! (additionalProperties.isObject() && additionalProperties.size() == 0))) {
+			return new FieldSchema(schemaLocation, schema, null, true);
+		}
+
+		Map<String, Field> fields = new LinkedHashMap<String, Field>();
+		Iterator<Map.Entry<String, JsonNode>> iterator = properties.fields();
+		while(iterator.hasNext()) {
+			Map.Entry<String, JsonNode> property = iterator.next();
+			Field field = compileField(property.getKey(), property.getValue(),
+					"/properties/" + escape(property.getKey()), false);
+			if(field == null) {
+				return new FieldSchema(schemaLocation, schema, null, true);
+			}
+			fields.put(field.name, field);
+		}
+		for(JsonNode name : required) {
+			if(! name.isTextual()) {
+				return new FieldSchema(schemaLocation, schema, null, true);
+			}
+			Field field = fields.get(name.textValue());
+			if(field == null) {
+				field = new Field(name.textValue());
+				fields.put(field.name, field);
+			}
+			field.required = true;
+		}
+		return new FieldSchema(schemaLocation, schema, fields.values().toArray(new Field[fields.size()]),
+				additionalProperties.asBoolean(true) || additionalProperties.isObject());
+	}
+
+	/**
+	 * @return <code>false</code> if the schema uses a keyword that is not supported, and must be validated by
+	 * the tree based validator
+	 */
+	public boolean isCompiled() {
+		return fields != null;
+	}
+
+	/**
+	 * Validate the headers or parameters of a request against the schema.
+	 *
+	 * @param request  Request to read the fields from
+	 * @param location {@link SchemaLocationConstants#HEADER} to read headers, otherwise parameters are read
+	 * @param failFast Stop at the first validation error
+	 * @return Report of the validation errors found
+	 * @throws ProcessingException   Thrown when an error cannot be reported
+	 * @throws IllegalStateException Thrown when the schema is not compiled
+	 */
+	public ProcessingReport validate(HttpServletRequest request, SchemaLocationConstants location, boolean failFast)
+			throws ProcessingException {
+		if(fields == null) {
+			throw new IllegalStateException("Schema is not compiled: " + schemaLocation);
+		}
+		boolean headers = location == SchemaLocationConstants.HEADER;
+		ListProcessingReport report = new ListProcessingReport();
+
+		if(! additionalProperties) {
+			List<String> additional = headers ? findAdditional(request.getHeaderNames(), true)
+					: findAdditional(request.getParameterNames(), false);
+			if(additional != null) {
+				error(report, "", "", "additionalProperties",
+						"object instance has properties which are not allowed by the schema: " + quote(additional));
+				if(failFast) {
+					return report;
+				}
+			}
+		}
+
+		// Every field is read before any is checked, as the fields are only checked once the object is valid
+		Object[] read = new Object[fields.length];
+		List<String> missing = null;
+		for(int x = 0; x < fields.length; x++) {
+			Field field = fields[x];
+			if(field.multiValued) {
+				String[] values = headers ? getHeaders(request, field.name) : request.getParameterValues(field.name);
+				read[x] = values == null || values.length == 0 ? null
+						: values.length == 1 && allowsScalar(field.types) ? values[0] : values;
+			}
+			else {
+				read[x] = headers ? request.getHeader(field.name) : request.getParameter(field.name);
+			}
+			if(read[x] == null && field.required) {
+				if(missing == null) {
+					missing = new ArrayList<String>(2);
+				}
+				missing.add(field.name);
+			}
+		}
+		if(missing != null) {
+			error(report, "", "", "required", "object has missing required properties (" + quote(missing) + ")");
+		}
+		if(! report.isSuccess()) {
+			return report;
+		}
+
+		for(int x = 0; x < fields.length; x++) {
+			if(read[x] == null) {
+				continue;
+			}
+			boolean valid = read[x] instanceof String
+					? validateField(fields[x], (String) read[x], - 1, report, failFast)
+					: validateArray(fields[x], (String[]) read[x], report, failFast);
+			if(! valid && failFast) {
+				return report;
+			}
+		}
+		return report;
+	}
+
+	/**
+	 * Read the headers or parameters of a request into a json tree for the tree based validator, by the rules
+	 * {@link #validate} reads them: a repeated value is an array only if its property allows arrays, otherwise
+	 * the first value is used, and values are converted to the <code>integer</code>, <code>number</code> or
+	 * <code>boolean</code> type their property allows. Types are read from the property's own schema, and from
+	 * its <code>items</code> for the values of an array, references are not followed. Header names are matched
+	 * to the properties without regard to case.
+	 *
+	 * @param request  Request to read the fields from
+	 * @param location {@link SchemaLocationConstants#HEADER} to read headers, otherwise parameters are read
+	 * @return Object with a field for every header or parameter of the request
+	 */
+	public JsonNode readTree(HttpServletRequest request, SchemaLocationConstants location) {
+		boolean headers = location == SchemaLocationConstants.HEADER;
+		JsonNode properties = schema.path("properties");
+		ObjectNode tree = JsonNodeFactory.instance.objectNode();
+		Enumeration<String> names = headers ? request.getHeaderNames() : request.getParameterNames();
+		while(names != null && names.hasMoreElements()) {
+			String name = names.nextElement();
+			String[] values = headers ? getHeaders(request, name) : request.getParameterValues(name);
+			if(values == null || values.length == 0) {
+				continue;
+			}
+			String property = headers ? findProperty(properties, name) : name;
+			JsonNode propertySchema = properties.path(property);
+			int types = declaredTypes(propertySchema);
+			boolean multiValued = (types & ARRAY) != 0 || (types == 0 && hasArrayKeywords(propertySchema));
+			if(! multiValued || (values.length == 1 && allowsScalar(types))) {
+				tree.put(property, toNode(values[0], types));
+			}
+			else {
+				ArrayNode array = tree.putArray(property);
+				int itemTypes = declaredTypes(propertySchema.path("items"));
+				for(String value : values) {
+					array.add(toNode(value, itemTypes));
+				}
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Check one value against the keywords of its field. A value that cannot be converted to an allowed type
+	 * is still checked against the string keywords, as the tree based validator does.
+	 *
+	 * @return <code>false</code> if the value is not valid
+	 */
+	private boolean validateField(Field field, String value, int index, ProcessingReport report, boolean failFast)
+			throws ProcessingException {
+		int type = coerce(value, field.types);
+		boolean valid = true;
+		if(type == 0) {
+			error(report, field, index, "type", "instance type (string) does not match any allowed primitive type "
+					+ "(allowed: " + field.typeNames + ")");
+			if(failFast) {
+				return false;
+			}
+			valid = false;
+			type = STRING;
+		}
+		if(type == STRING) {
+			return validateString(field, value, index, report, failFast) && valid;
+		}
+		if(type == BOOLEAN || ! field.checksNumbers) {
+			return validateEnum(field, value, type, null, index, report);
+		}
+		// The value was already checked to be a number, so it is only parsed when a keyword needs it
+		return validateNumber(field, value, new BigDecimal(value), index, report, failFast);
+	}
+
+	/**
+	 * Check the values of a repeated header or parameter against the array keywords of its field, and each
+	 * value against the items of the field once the array keywords hold.
+	 *
+	 * @return <code>false</code> if the values are not valid
+	 */
+	private boolean validateArray(Field field, String[] values, ProcessingReport report, boolean failFast)
+			throws ProcessingException {
+		boolean valid = true;
+		if(field.maxItems >= 0 && values.length > field.maxItems) {
+			error(report, field, - 1, "maxItems", "array is too long: must have at most " + field.maxItems
+					+ " elements but instance has " + values.length + " elements");
+			valid = false;
+		}
+		else if(values.length < field.minItems) {
+			error(report, field, - 1, "minItems", "array is too short: must have at least " + field.minItems
+					+ " elements but instance has " + values.length + " elements");
+			valid = false;
+		}
+		if(! valid && failFast) {
+			return false;
+		}
+		if(field.uniqueItems && new HashSet<String>(Arrays.asList(values)).size() < values.length) {
+			error(report, field, - 1, "uniqueItems", "array must not contain duplicate elements");
+			valid = false;
+		}
+		if(! valid || field.items == null) {
+			return valid;
+		}
+		for(int x = 0; x < values.length; x++) {
+			if(! validateField(field.items, values[x], x, report, failFast)) {
+				if(failFast) {
+					return false;
+				}
+				valid = false;
+			}
+		}
+		return valid;
+	}
+
+	/**
+	 * Check a string against the string keywords of its field. Its length is counted in chars, not code points,
+	 * as the tree based validator counts it.
+	 */
+	private boolean validateString(Field field, String value, int index, ProcessingReport report, boolean failFast)
+			throws ProcessingException {
+		boolean valid = true;
+		int length = value.length();
+		if(field.maxLength >= 0 && length > field.maxLength) {
+			error(report, field, index, "maxLength", "string is too long (length: " + length + ", maximum allowed: "
+					+ field.maxLength + ")");
+			valid = false;
+		}
+		else if(length < field.minLength) {
+			error(report, field, index, "minLength", "string is too short (length: " + length + ", required minimum: "
+					+ field.minLength + ")");
+			valid = false;
+		}
+		if(! valid && failFast) {
+			return false;
+		}
+		if(field.pattern != null && ! field.pattern.matcher(value).find()) {
+			error(report, field, index, "pattern", "ECMA 262 regex \"" + field.patternText
+					+ "\" does not match input string \"" + value + "\"");
+			if(failFast) {
+				return false;
+			}
+			valid = false;
+		}
+		return validateEnum(field, value, STRING, null, index, report) && valid;
+	}
+
+	private boolean validateNumber(Field field, String value, BigDecimal number, int index, ProcessingReport report,
+								   boolean failFast) throws ProcessingException {
+		boolean valid = true;
+		if(field.minimum != null) {
+			int compare = number.compareTo(field.minimum);
+			if(compare < 0 || (compare == 0 && field.exclusiveMinimum)) {
+				error(report, field, index, "minimum", "numeric instance is lower than the required minimum (minimum: "
+						+ field.minimum + ", found: " + value + ")");
+				if(failFast) {
+					return false;
+				}
+				valid = false;
+			}
+		}
+		if(field.maximum != null) {
+			int compare = number.compareTo(field.maximum);
+			if(compare > 0 || (compare == 0 && field.exclusiveMaximum)) {
+				error(report, field, index, "maximum", "numeric instance is greater than the required maximum (maximum: "
+						+ field.maximum + ", found: " + value + ")");
+				valid = false;
+			}
+		}
+		if(! valid && failFast) {
+			return false;
+		}
+		return validateEnum(field, value, NUMBER, number, index, report) && valid;
+	}
+
+	/**
+	 * Check a value against the enum of its field, as the type it was converted to. A string only matches
+	 * string values, so <code>"true"</code> does not match <code>true</code> unless the field allows booleans.
+	 */
+	private boolean validateEnum(Field field, String value, int type, BigDecimal number, int index,
+								 ProcessingReport report) throws ProcessingException {
+		if(field.enumValues == null) {
+			return true;
+		}
+		for(JsonNode enumValue : field.enumValues) {
+			if(type == STRING ? enumValue.isTextual() && enumValue.textValue().equals(value)
+					: type == BOOLEAN ? enumValue.isBoolean() && enumValue.asText().equals(value)
+					: enumValue.isNumber() && enumValue.decimalValue().compareTo(number) == 0) {
+				return true;
+			}
+		}
+		error(report, field, index, "enum", "instance value (" + (type == STRING ? "\"" + value + "\"" : value)
+				+ ") not found in enum (possible values: " + field.enumValues + ")");
+		return false;
+	}
+
+	/**
+	 * @param ignoreCase <code>true</code> for header names, which are not case sensitive
+	 * @return Names that are not declared by the schema, or <code>null</code> if there are none
+	 */
+	private List<String> findAdditional(Enumeration<String> names, boolean ignoreCase) {
+		List<String> additional = null;
+		while(names.hasMoreElements()) {
+			String name = names.nextElement();
+			if(! isDeclared(name, ignoreCase)) {
+				if(additional == null) {
+					additional = new ArrayList<String>(2);
+				}
+				additional.add(name);
+			}
+		}
+		return additional;
+	}
+
+	private boolean isDeclared(String name, boolean ignoreCase) {
+		for(Field field : fields) {
+			if(field.declared && (ignoreCase ? field.name.equalsIgnoreCase(name) : field.name.equals(name))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void error(ProcessingReport report, Field field, int index, String keyword, String message)
+			throws ProcessingException {
+		error(report, field.schemaPointer, "/" + escape(field.name) + (index >= 0 ? "/" + index : ""), keyword,
+				message);
+	}
+
+	private void error(ProcessingReport report, String schemaPointer, String instancePointer, String keyword,
+					   String message) throws ProcessingException {
+		ObjectNode schema = JsonNodeFactory.instance.objectNode();
+		schema.put("loadingURI", schemaLocation);
+		schema.put("pointer", schemaPointer);
+		ObjectNode instance = JsonNodeFactory.instance.objectNode();
+		instance.put("pointer", instancePointer);
+		report.error(new ProcessingMessage().message(message).put("domain", "validation").put("keyword", keyword)
+				.put("schema", schema).put("instance", instance));
+	}
+
+	/**
+	 * @return Every value of a repeated header, or <code>null</code> if the header is not present
+	 */
+	private static String[] getHeaders(HttpServletRequest request, String name) {
+		Enumeration<String> headers = request.getHeaders(name);
+		if(headers == null || ! headers.hasMoreElements()) {
+			return null;
+		}
+		String first = headers.nextElement();
+		if(! headers.hasMoreElements()) {
+			return new String[]{first};
+		}
+		List<String> values = new ArrayList<String>(4);
+		values.add(first);
+		while(headers.hasMoreElements()) {
+			values.add(headers.nextElement());
+		}
+		return values.toArray(new String[values.size()]);
+	}
+
+	/**
+	 * Compile the schema of one property, or of the items of a property.
+	 *
+	 * @param name          Name of the header or parameter
+	 * @param schema        Schema of the property
+	 * @param schemaPointer Pointer to the schema, used in validation messages
+	 * @param item          <code>true</code> if the schema is the items of a property, which cannot be an array
+	 * @return The field, or <code>null</code> if the schema uses a keyword that is not supported
+	 */
+	private static Field compileField(String name, JsonNode schema, String schemaPointer, boolean item) {
+		if(! isCompilable(schema, FIELD_KEYWORDS) || (schema.has("exclusiveMinimum") && ! schema.has("minimum"))
+				|| (schema.has("exclusiveMaximum") && ! schema.has("maximum"))) {
+			return null;
+		}
+		Field field = new Field(name);
+		field.declared = true;
+		field.schemaPointer = schemaPointer;
+
+		JsonNode type = schema.get("type");
+		if(type != null) {
+			List<JsonNode> typeNames = type.isArray() ? Lists.newArrayList(type) : Collections.singletonList(type);
+			for(JsonNode typeName : typeNames) {
+				int bit = typeBit(typeName.textValue());
+				if(bit == 0) {
+					return null;
+				}
+				field.types |= bit;
+			}
+			if(field.types == 0) {
+				return null;
+			}
+			field.typeNames = type.isArray() ? type.toString() : "[" + type + "]";
+		}
+		if(schema.has("enum")) {
+			JsonNode values = schema.get("enum");
+			if(! values.isArray() || values.size() == 0) {
+				return null;
+			}
+			field.enumValues = new ArrayList<JsonNode>(values.size());
+			for(JsonNode value : values) {
+				if(value.isContainerNode()) {
+					return null;
+				}
+				field.enumValues.add(value);
+			}
+		}
+		if(schema.has("pattern")) {
+			try {
+				field.patternText = schema.get("pattern").asText();
+				field.pattern = EcmaRegex.compile(field.patternText);
+			} catch(PatternSyntaxException e) {
+				return null;
+			}
+		}
+		field.minLength = schema.path("minLength").asInt(0);
+		field.maxLength = schema.path("maxLength").asInt(- 1);
+		if(field.minLength < 0 || (schema.has("maxLength") && field.maxLength < 0)) {
+			return null;
+		}
+		if(schema.has("minimum")) {
+			if(! schema.get("minimum").isNumber()) {
+				return null;
+			}
+			field.minimum = schema.get("minimum").decimalValue();
+			field.exclusiveMinimum = schema.path("exclusiveMinimum").asBoolean(false);
+		}
+		if(schema.has("maximum")) {
+			if(! schema.get("maximum").isNumber()) {
+				return null;
+			}
+			field.maximum = schema.get("maximum").decimalValue();
+			field.exclusiveMaximum = schema.path("exclusiveMaximum").asBoolean(false);
+		}
+		field.checksNumbers = field.minimum != null || field.maximum != null || field.enumValues != null;
+
+		boolean arrayKeywords = hasArrayKeywords(schema);
+		if(item && (arrayKeywords || (field.types & ARRAY) != 0)) {
+			return null;
+		}
+		if(schema.has("items")) {
+			field.items = compileField(name, schema.get("items"), schemaPointer + "/items", true);
+			if(field.items == null) {
+				return null;
+			}
+		}
+		field.minItems = schema.path("minItems").asInt(0);
+		field.maxItems = schema.path("maxItems").asInt(- 1);
+		if(field.minItems < 0 || (schema.has("maxItems") && field.maxItems < 0)
+				|| (schema.has("uniqueItems") && ! schema.get("uniqueItems").isBoolean())) {
+			return null;
+		}
+		field.uniqueItems = schema.path("uniqueItems").asBoolean(false);
+		field.multiValued = (field.types & ARRAY) != 0 || (field.types == 0 && arrayKeywords);
+		return field;
+	}
+
+	private static boolean hasArrayKeywords(JsonNode schema) {
+		return schema.has("items") || schema.has("minItems") || schema.has("maxItems") || schema.has("uniqueItems");
+	}
+
+	/**
+	 * @return The types a property schema allows that a header or parameter can be read as, or <code>0</code> if
+	 * it does not declare any
+	 */
+	private static int declaredTypes(JsonNode schema) {
+		JsonNode type = schema.path("type");
+		if(type.isTextual()) {
+			return typeBit(type.textValue());
+		}
+		int types = 0;
+		for(JsonNode typeName : type) {
+			types |= typeBit(typeName.asText());
+		}
+		return types;
+	}
+
+	/**
+	 * @return Name of the property a header is declared as, or the header name if it is not declared
+	 */
+	private static String findProperty(JsonNode properties, String name) {
+		if(properties.has(name)) {
+			return name;
+		}
+		Iterator<String> names = properties.fieldNames();
+		while(names.hasNext()) {
+			String property = names.next();
+			if(property.equalsIgnoreCase(name)) {
+				return property;
+			}
+		}
+		return name;
+	}
+
+	/**
+	 * @return The value as the type it is checked as, a value that cannot be converted to an allowed type is
+	 * left a string for the validator to reject
+	 */
+	private static JsonNode toNode(String value, int types) {
+		switch(coerce(value, types)) {
+			case INTEGER:
+				// The smallest node that holds the value, as a parsed json document has, since the tree based
+				// validator does not find an int and a big integer of the same value equal
+				BigInteger integer = new BigInteger(value);
+				return integer.bitLength() < 32 ? JsonNodeFactory.instance.numberNode(integer.intValue())
+						: integer.bitLength() < 64 ? JsonNodeFactory.instance.numberNode(integer.longValue())
+						: JsonNodeFactory.instance.numberNode(integer);
+			case NUMBER:
+				return JsonNodeFactory.instance.numberNode(new BigDecimal(value));
+			case BOOLEAN:
+				return JsonNodeFactory.instance.booleanNode(Boolean.parseBoolean(value));
+			default:
+				return JsonNodeFactory.instance.textNode(value);
+		}
+	}
+
+	/**
+	 * Find the type a value is checked as, trying the allowed types from the most to the least specific.
+	 *
+	 * @return The type of the value, or <code>0</code> if it cannot be converted to any allowed type
+	 */
+	private static int coerce(String value, int types) {
+		if(types == 0) {
+			return STRING;
+		}
+		if((types & (INTEGER | NUMBER)) != 0) {
+			int numberType = numberType(value);
+			if(numberType == INTEGER && (types & INTEGER) != 0) {
+				return INTEGER;
+			}
+			if(numberType != 0 && (types & NUMBER) != 0) {
+				return NUMBER;
+			}
+		}
+		if((types & BOOLEAN) != 0 && ("true".equals(value) || "false".equals(value))) {
+			return BOOLEAN;
+		}
+		return (types & STRING) != 0 ? STRING : 0;
+	}
+
+	/**
+	 * @return <code>true</code> if a single value is checked on its own rather than as an array of one
+	 */
+	private static boolean allowsScalar(int types) {
+		return types == 0 || (types & ~ ARRAY) != 0;
+	}
+
+	/**
+	 * Check that the schema is an object using only the given keywords, and no references.
+	 */
+	private static boolean isCompilable(JsonNode schema, Set<String> keywords) {
+		if(! schema.isObject()) {
+			return false;
+		}
+		Iterator<String> names = schema.fieldNames();
+		while(names.hasNext()) {
+			String keyword = names.next();
+			if(! keywords.contains(keyword) && ! IGNORED_KEYWORDS.contains(keyword)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int typeBit(String name) {
+		for(int x = 0; x < TYPE_NAMES.length; x++) {
+			if(TYPE_NAMES[x].equals(name)) {
+				return 1 << x;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Find whether a string is a json number in a single pass over its characters.
+	 *
+	 * @return {@link #INTEGER} for a number without a fraction or exponent, {@link #NUMBER} for any other
+	 * number, or <code>0</code> if the string is not a number
+	 */
+	private static int numberType(String value) {
+		int length = value.length();
+		int x = (length > 0 && value.charAt(0) == '-') ? 1 : 0;
+		int start = x;
+		x = skipDigits(value, x);
+		if(x == start) {
+			return 0;
+		}
+		int type = INTEGER;
+		if(x < length && value.charAt(x) == '.') {
+			start = ++ x;
+			x = skipDigits(value, x);
+			if(x == start) {
+				return 0;
+			}
+			type = NUMBER;
+		}
+		if(x < length && (value.charAt(x) == 'e' || value.charAt(x) == 'E')) {
+			x++;
+			if(x < length && (value.charAt(x) == '+' || value.charAt(x) == '-')) {
+				x++;
+			}
+			start = x;
+			x = skipDigits(value, x);
+			if(x == start) {
+				return 0;
+			}
+			type = NUMBER;
+		}
+		return x == length ? type : 0;
+	}
+
+	private static int skipDigits(String value, int x) {
+		while(x < value.length() && value.charAt(x) >= '0' && value.charAt(x) <= '9') {
+			x++;
+		}
+		return x;
+	}
+
+	private static String quote(List<String> values) {
+		StringBuilder builder = new StringBuilder("[");
+		for(String value : values) {
+			if(builder.length() > 1) {
+				builder.append(',');
+			}
+			builder.append('"').append(value).append('"');
+		}
+		return builder.append(']').toString();
+	}
+
+	private static String escape(String token) {
+		return token.replace("~", "~0").replace("/", "~1");
+	}
+
+	/**
+	 * Compiled schema of a single header or parameter.
+	 */
+	private static final class Field {
+
+		private final String name;
+		private boolean declared;
+		private boolean required;
+		private String schemaPointer = "";
+		private int types;
+		private String typeNames;
+		private List<JsonNode> enumValues;
+		private Pattern pattern;
+		private String patternText;
+		private int minLength;
+		private int maxLength = - 1;
+		private BigDecimal minimum;
+		private BigDecimal maximum;
+		private boolean exclusiveMinimum;
+		private boolean exclusiveMaximum;
+		private boolean checksNumbers;
+		private boolean multiValued;
+		private Field items;
+		private int minItems;
+		private int maxItems = - 1;
+		private boolean uniqueItems;
+
+		private Field(String name) {
+			this.name = name;
+		}
+
+	}
+}
@@ -5,25 +5,58 @@ import com.danleinbach.sample.constants.SchemaLocationConstants;
 import com.danleinbach.sample.constants.ValidationConstants;
 import com.danleinbach.sample.exception.JsonSchemaValidationException;
 import com.danleinbach.sample.exception.UnReadableEntity;
+import com.danleinbach.sample.json.JsonMappers;
+import com.danleinbach.sample.metrics.RouteMetrics;
+import com.danleinbach.sample.metrics.SectionTimer;
+import com.danleinbach.sample.schema.SchemaSource;
 import com.danleinbach.sample.validation.AbstractJsonSchemaValidationProcessor;
+import com.danleinbach.sample.validation.ValidationResultCache;
+import com.danleinbach.sample.validation.compiled.CompiledSchema;
+import com.danleinbach.sample.validation.compiled.CompiledValidationEngine;
+import com.danleinbach.sample.validation.engine.EngineSchema;
+import com.danleinbach.sample.validation.engine.FgeValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+import com.danleinbach.sample.validation.field.FieldSchema;
+import com.danleinbach.sample.validation.stream.StreamingSchema;
+import com.danleinbach.sample.wrapper.BodyBuffer;
+import com.danleinbach.sample.wrapper.ContentDecoder;
+import com.danleinbach.sample.wrapper.ReloadableHttpServletRequest;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonschema.exceptions.ProcessingException;
-import com.github.fge.jsonschema.main.JsonSchema;
-import com.github.fge.jsonschema.report.ProcessingReport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InputStream;
 
 /**
  * Default implementation of the json schema validation processor. This will convert request body,
  * headers, and query parameters into a json structure which can be validated against a json schema.
  * <p/>
+ * The parsed request body is stored in the request attribute
+ * {@link ValidationConstants#VALIDATED_BODY_ATTRIBUTE}, so handlers further down the chain can use it
+ * instead of parsing the body again.
+ * <p/>
+ * With streaming body validation enabled the request body is validated while it is parsed, see
+ * {@link StreamingSchema}, instead of being parsed into a json tree first, and no tree is stored.
+ * <p/>
+ * With compiled body validation enabled every body schema is compiled into a java class when it is
+ * loaded, see {@link CompiledSchema}, and the parsed tree is validated by that class. Schemas that cannot
+ * be compiled are validated by the tree based validator.
+ * <p/>
+ * Streaming, compiled body and field validation produce the same messages as the
+ * {@link FgeValidationEngine}, and use the validation engine for the sub schemas they cannot check themselves.
+ * They are only used with the {@link FgeValidationEngine} or the {@link CompiledValidationEngine}, with any
+ * other validation engine the body, headers and parameters are all validated by that engine. The forms a
+ * schema is compiled into are kept together in its single entry of the schema cache.
+ * <p/>
+ * With a {@link ValidationResultCache} set, a buffered body identical to one validated recently against the
+ * same schema gets the earlier report without being parsed or validated, and no tree is stored for it.
+ * <p/>
  * Created: 12/15/13
  *
  * @author Daniel
@@ -31,7 +64,10 @@ import java.util.Map;
 public class DefaultJsonSchemaValidationProcessor extends AbstractJsonSchemaValidationProcessor {
 
 	private final Logger LOGGER = LoggerFactory.getLogger(DefaultJsonSchemaValidationProcessor.class);
-	private ObjectMapper objectMapper;
+	private volatile JsonMappers jsonMappers;
+	private boolean streamingBodyValidation;
+	private boolean compiledBodyValidation;
+	private volatile ValidationResultCache resultCache;
 
 	/**
 	 * {@inheritDoc}
@@ -45,33 +81,280 @@ public class DefaultJsonSchemaValidationProcessor extends AbstractJsonSchemaVali
 	 */
 	public DefaultJsonSchemaValidationProcessor(String schemaRoot) {
 		super(schemaRoot);
-		this.objectMapper = new ObjectMapper();
+		this.jsonMappers = JsonMappers.getDefault();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void schemaChanged(String schemaLocation) {
+		super.schemaChanged(schemaLocation);
+		invalidateResults();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void schemaRemoved(String schemaLocation) {
+		super.schemaRemoved(schemaLocation);
+		invalidateResults();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void schemasReloaded() {
+		super.schemasReloaded();
+		invalidateResults();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected EngineSchema compileSchema(String schemaLocation, boolean failFast) throws ValidationEngineException {
+		ValidationEngine validationEngine = getValidationEngine();
+		return new RequestSchema(schemaLocation, validationEngine, validationEngine.compile(schemaLocation, failFast),
+				failFast);
+	}
+
+	/**
+	 * Validate the request body while it is parsed, instead of parsing it into a json tree first.
+	 *
+	 * @param streamingBodyValidation <code>true</code> to validate the body while it is parsed
+	 */
+	public void setStreamingBodyValidation(boolean streamingBodyValidation) {
+		this.streamingBodyValidation = streamingBodyValidation;
+		invalidateResults();
+	}
+
+	public boolean isStreamingBodyValidation() {
+		return streamingBodyValidation;
+	}
+
+	/**
+	 * Validate the parsed request body with a java class compiled from the schema. Streaming body validation
+	 * takes precedence when both are enabled. When the validation engine is a {@link CompiledValidationEngine}
+	 * every schema is already compiled by the engine, and the body is validated with the engine's schema
+	 * instead of compiling it a second time.
+	 *
+	 * @param compiledBodyValidation <code>true</code> to validate the body with compiled schemas
+	 */
+	public void setCompiledBodyValidation(boolean compiledBodyValidation) {
+		this.compiledBodyValidation = compiledBodyValidation;
+		invalidateResults();
+	}
+
+	public boolean isCompiledBodyValidation() {
+		return compiledBodyValidation;
+	}
+
+	/**
+	 * Parse requests with the given mappers instead of {@link JsonMappers#getDefault()}.
+	 *
+	 * @param jsonMappers Mappers shared with the filter
+	 */
+	public void setJsonMappers(JsonMappers jsonMappers) {
+		this.jsonMappers = jsonMappers;
+	}
+
+	public JsonMappers getJsonMappers() {
+		return jsonMappers;
+	}
+
+	/**
+	 * Reuse the report of a body identical to one validated recently against the same schema. Only bodies
+	 * buffered by a {@link ReloadableHttpServletRequest} are cached.
+	 *
+	 * @param resultCache Cache of validation results, or <code>null</code> to validate every body
+	 */
+	public void setResultCache(ValidationResultCache resultCache) {
+		this.resultCache = resultCache;
+	}
+
+	public ValidationResultCache getResultCache() {
+		return resultCache;
+	}
+
+	private void invalidateResults() {
+		ValidationResultCache resultCache = this.resultCache;
+		if(resultCache != null) {
+			resultCache.invalidateAll();
+		}
+	}
+
+	/**
+	 * Get every compiled form of a schema from the schema cache.
+	 *
+	 * @param schemaLocation Location of the schema
+	 * @return Compiled schema
+	 * @throws JsonSchemaValidationException Thrown when the schema cannot be read or compiled
+	 */
+	private RequestSchema getRequestSchema(String schemaLocation) throws JsonSchemaValidationException {
+		EngineSchema schema = getSchema(schemaLocation);
+		if(schema instanceof RequestSchema) {
+			return (RequestSchema) schema;
+		}
+		// Compiled by a subclass, the other forms are not kept
+		return new RequestSchema(schemaLocation, getValidationEngine(), schema, isFailFast());
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected ProcessingReport validateRequestBody(HttpServletRequest request) throws JsonSchemaValidationException {
+	protected ValidationResult validateRequestBody(HttpServletRequest request) throws JsonSchemaValidationException {
+		SectionTimer timer = startSectionTimer(request, SchemaLocationConstants.BODY);
 		String schemaLocation = getSchemaLocation(request, SchemaLocationConstants.BODY);
+		timer.lap(RouteMetrics.Phase.RESOLVE);
 		if(ValidationConstants.SKIP.getValue().equals(schemaLocation)) {
 			return null;
 		}
 		LOGGER.debug("Schema location:{}", schemaLocation);
-		JsonSchema jsonSchema = getJsonSchema(schemaLocation);
+
+		ValidationResultCache resultCache = this.resultCache;
+		BodyBuffer body = resultCache != null && request instanceof ReloadableHttpServletRequest
+				? ((ReloadableHttpServletRequest) request).getBody() : null;
+		ValidationResultCache.Key key = body == null ? null : resultCache.key(schemaLocation, body);
+		if(key != null) {
+			ValidationResult report = resultCache.get(key, body);
+			if(report != null) {
+				timer.lap(RouteMetrics.Phase.VALIDATE);
+				LOGGER.debug("Validation result reused");
+				return report;
+			}
+		}
+
+		RequestSchema schema = getRequestSchema(schemaLocation);
+		ValidationResult report = streamingBodyValidation && schema.fgeEngine != null
+				? validateRequestBodyStreaming(request, schema, timer)
+				: validateRequestBodyTree(request, schema, timer);
+		if(key != null) {
+			resultCache.put(key, body, report);
+		}
+		return report;
+	}
+
+	/**
+	 * Parse the request body into a json tree and validate the tree against the schema, with the compiled
+	 * schema when compiled body validation is enabled and the schema could be compiled.
+	 *
+	 * @param request Servlet request with json payload to analyzed
+	 * @param schema  Body schema
+	 * @param timer   Timer of the body section
+	 * @return Validation result that outlines any errors in the request
+	 * @throws JsonSchemaValidationException Thrown when the schema or request body cannot be read
+	 */
+	private ValidationResult validateRequestBodyTree(HttpServletRequest request, RequestSchema schema,
+			SectionTimer timer) throws JsonSchemaValidationException {
+		CompiledSchema compiledSchema = compiledBodyValidation ? getCompiledSchema(schema) : null;
+		timer.lap(RouteMetrics.Phase.SCHEMA);
 		LOGGER.debug("Json Schema Parsed");
 		JsonNode requestBody = parseRequestBody(request);
+		timer.lap(RouteMetrics.Phase.PARSE);
 		LOGGER.debug("Request Body Parsed");
+		request.setAttribute(ValidationConstants.VALIDATED_BODY_ATTRIBUTE.getValue(), requestBody);
 
 		try {
-			return jsonSchema.validate(requestBody);
+			ValidationResult report = compiledSchema != null && compiledSchema.isCompiled()
+					? FgeValidationEngine.toResult(compiledSchema.validate(requestBody, schema.failFast))
+					: schema.validate(requestBody);
+			timer.lap(RouteMetrics.Phase.VALIDATE);
+			return report;
 		} catch(ProcessingException e) {
 
 			LOGGER.error("Exception validating json against schema", e);
 			throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
+		} catch(ValidationEngineException e) {
+
+			LOGGER.error("Exception validating json against schema", e);
+			throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
+		}
+	}
+
+	private CompiledSchema getCompiledSchema(RequestSchema schema) throws JsonSchemaValidationException {
+		try {
+			return schema.getCompiledSchema();
+		} catch(ValidationEngineException e) {
+			LOGGER.error("Exception parsing json schema", e);
+			throw new UnReadableEntity(ErrorCode.MALFORMED_JSON_SCHEMA, e);
 		}
 	}
 
+	/**
+	 * Validate the request body against the schema while it is parsed.
+	 *
+	 * @param request Servlet request with json payload to analyzed
+	 * @param schema  Body schema
+	 * @param timer   Timer of the body section, parsing is timed as part of validating
+	 * @return Validation result that outlines any errors in the request
+	 * @throws JsonSchemaValidationException Thrown when the schema or request body cannot be read
+	 */
+	private ValidationResult validateRequestBodyStreaming(HttpServletRequest request, RequestSchema schema,
+			SectionTimer timer) throws JsonSchemaValidationException {
+		StreamingSchema streamingSchema;
+		try {
+			streamingSchema = schema.getStreamingSchema();
+		} catch(ValidationEngineException e) {
+			LOGGER.error("Exception parsing json schema", e);
+			throw new UnReadableEntity(ErrorCode.MALFORMED_JSON_SCHEMA, e);
+		}
+
+		timer.lap(RouteMetrics.Phase.SCHEMA);
+
+		JsonParser parser = null;
+		try {
+			parser = jsonMappers.getJsonFactory().createParser(openRequestBody(request));
+			ValidationResult report = FgeValidationEngine.toResult(streamingSchema.validate(parser, schema.failFast));
+			timer.lap(RouteMetrics.Phase.VALIDATE);
+			return report;
+
+		} catch(ContentDecoder.LimitExceeded e) {
+
+			throw e.getRejection();
+
+		} catch(IOException e) {
+
+			LOGGER.error("Exception parsing request body into json", e);
+			throw new UnReadableEntity(ErrorCode.UNREADABLE_REQUEST_BODY, e);
+
+		} catch(ProcessingException e) {
+
+			LOGGER.error("Exception validating json against schema", e);
+			throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
+
+		} finally {
+			closeQuietly(parser);
+		}
+	}
+
+	private void closeQuietly(JsonParser parser) {
+		if(parser != null) {
+			try {
+				parser.close();
+			} catch(IOException e) {
+				LOGGER.debug("Exception closing request body parser", e);
+			}
+		}
+	}
+
+	/**
+	 * Open the request body to validate, decompressed when it was buffered compressed.
+	 *
+	 * @param request Servlet request with json payload
+	 * @return Stream of the json payload
+	 * @throws IOException Thrown when the body cannot be read
+	 */
+	private InputStream openRequestBody(HttpServletRequest request) throws IOException {
+		if(request instanceof ReloadableHttpServletRequest) {
+			return ((ReloadableHttpServletRequest) request).getDecodedInputStream();
+		}
+		return request.getInputStream();
+	}
+
 	/**
 	 * Parse request body into a json node for analysis.
 	 *
@@ -82,7 +365,11 @@ public class DefaultJsonSchemaValidationProcessor extends AbstractJsonSchemaVali
 	 */
 	private JsonNode parseRequestBody(HttpServletRequest request) throws JsonSchemaValidationException {
 		try {
-			return objectMapper.readTree(request.getInputStream());
+			return jsonMappers.getJsonNodeReader().readTree(openRequestBody(request));
+
+		} catch(ContentDecoder.LimitExceeded e) {
+
+			throw e.getRejection();
 
 		} catch(IOException e) {
 
@@ -96,20 +383,30 @@ public class DefaultJsonSchemaValidationProcessor extends AbstractJsonSchemaVali
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected ProcessingReport validateRequestHeaders(HttpServletRequest request) throws JsonSchemaValidationException {
+	protected ValidationResult validateRequestHeaders(HttpServletRequest request) throws JsonSchemaValidationException {
+		SectionTimer timer = startSectionTimer(request, SchemaLocationConstants.HEADER);
 		String schemaLocation = getSchemaLocation(request, SchemaLocationConstants.HEADER);
+		timer.lap(RouteMetrics.Phase.RESOLVE);
 		if(ValidationConstants.SKIP.getValue().equals(schemaLocation)) {
 			return null;
 		}
 		LOGGER.debug("Schema location:{}", schemaLocation);
-		JsonSchema jsonSchema = getJsonSchema(schemaLocation);
+		RequestSchema schema = getRequestSchema(schemaLocation);
+		FieldSchema fieldSchema = getFieldSchema(schema);
+		if(fieldSchema.isCompiled() && schema.fgeEngine != null) {
+			return validateFields(request, SchemaLocationConstants.HEADER, schema, fieldSchema, timer);
+		}
+		timer.lap(RouteMetrics.Phase.SCHEMA);
 		LOGGER.debug("Json Schema Parsed");
-		JsonNode requestBody = parseHeaders(request);
+		JsonNode requestBody = fieldSchema.readTree(request, SchemaLocationConstants.HEADER);
+		timer.lap(RouteMetrics.Phase.PARSE);
 		LOGGER.debug("Request Body Parsed");
 
 		try {
-			return jsonSchema.validate(requestBody);
-		} catch(ProcessingException e) {
+			ValidationResult report = schema.validate(requestBody);
+			timer.lap(RouteMetrics.Phase.VALIDATE);
+			return report;
+		} catch(ValidationEngineException e) {
 
 			LOGGER.error("Exception validating json against schema", e);
 			throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
@@ -117,42 +414,74 @@ public class DefaultJsonSchemaValidationProcessor extends AbstractJsonSchemaVali
 	}
 
 	/**
-	 * Iterate through all headers to create a map that is converted into a JsonNode for analysis.
+	 * Get the header or parameter schema compiled into the fields it declares.
 	 *
-	 * @param request Servlet request with headers to analyzed
-	 * @return JsonNode that represents request headers
+	 * @param schema Header or parameter schema
+	 * @return Compiled schema, which may not be compiled if it uses keywords the fields cannot check
+	 * @throws JsonSchemaValidationException Thrown when the schema cannot be read
 	 */
-	private JsonNode parseHeaders(HttpServletRequest request) {
+	private FieldSchema getFieldSchema(RequestSchema schema) throws JsonSchemaValidationException {
+		try {
+			return schema.getFieldSchema();
+		} catch(ValidationEngineException e) {
+			LOGGER.error("Exception parsing json schema", e);
+			throw new UnReadableEntity(ErrorCode.MALFORMED_JSON_SCHEMA, e);
+		}
+	}
 
-		Enumeration<String> headers = request.getHeaderNames();
-		Map<String, Object> headerMap = new HashMap<String, Object>();
+	/**
+	 * Validate the headers or parameters a schema declares, reading each one straight from the request.
+	 *
+	 * @param request     Servlet request with the headers or parameters to validate
+	 * @param location    Section of the request
+	 * @param schema      Schema of the section
+	 * @param fieldSchema Fields of the schema
+	 * @param timer       Timer of the section, reading the fields is timed as part of validating
+	 * @return Validation result that outlines any errors in the request
+	 * @throws JsonSchemaValidationException Thrown when the fields cannot be validated
+	 */
+	private ValidationResult validateFields(HttpServletRequest request, SchemaLocationConstants location,
+			RequestSchema schema, FieldSchema fieldSchema, SectionTimer timer) throws JsonSchemaValidationException {
+		timer.lap(RouteMetrics.Phase.SCHEMA);
+		try {
+			ValidationResult report = FgeValidationEngine.toResult(fieldSchema.validate(request, location, schema.failFast));
+			timer.lap(RouteMetrics.Phase.VALIDATE);
+			return report;
+		} catch(ProcessingException e) {
 
-		while(headers.hasMoreElements()) {
-			String header = headers.nextElement();
-			headerMap.put(header, request.getHeader(header));
+			LOGGER.error("Exception validating json against schema", e);
+			throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
 		}
-
-		return objectMapper.convertValue(headerMap, JsonNode.class);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	protected ProcessingReport validateRequestParams(HttpServletRequest request) throws JsonSchemaValidationException {
+	protected ValidationResult validateRequestParams(HttpServletRequest request) throws JsonSchemaValidationException {
+		SectionTimer timer = startSectionTimer(request, SchemaLocationConstants.PARAM);
 		String schemaLocation = getSchemaLocation(request, SchemaLocationConstants.PARAM);
+		timer.lap(RouteMetrics.Phase.RESOLVE);
 		if(ValidationConstants.SKIP.getValue().equals(schemaLocation)) {
 			return null;
 		}
 		LOGGER.debug("Schema location:{}", schemaLocation);
-		JsonSchema jsonSchema = getJsonSchema(schemaLocation);
+		RequestSchema schema = getRequestSchema(schemaLocation);
+		FieldSchema fieldSchema = getFieldSchema(schema);
+		if(fieldSchema.isCompiled() && schema.fgeEngine != null) {
+			return validateFields(request, SchemaLocationConstants.PARAM, schema, fieldSchema, timer);
+		}
+		timer.lap(RouteMetrics.Phase.SCHEMA);
 		LOGGER.debug("Json Schema Parsed");
-		JsonNode requestBody = parseParams(request);
+		JsonNode requestBody = fieldSchema.readTree(request, SchemaLocationConstants.PARAM);
+		timer.lap(RouteMetrics.Phase.PARSE);
 		LOGGER.debug("Request Body Parsed");
 
 		try {
-			return jsonSchema.validate(requestBody);
-		} catch(ProcessingException e) {
+			ValidationResult report = schema.validate(requestBody);
+			timer.lap(RouteMetrics.Phase.VALIDATE);
+			return report;
+		} catch(ValidationEngineException e) {
 
 			LOGGER.error("Exception validating json against schema", e);
 			throw new UnReadableEntity(ErrorCode.ERROR_VALIDATING_JSON, e);
@@ -160,22 +489,92 @@ public class DefaultJsonSchemaValidationProcessor extends AbstractJsonSchemaVali
 	}
 
 	/**
-	 * Iterate through all query params to create a map that is converted into a JsonNode for analysis.
-	 *
-	 * @param request Servlet request with query params to analyzed
-	 * @return JsonNode that represents request query params
+	 * Every form one schema is compiled into, kept by its single entry of the schema cache. The validation
+	 * engine's form is compiled when the schema is loaded, the others the first time they are used. Two requests
+	 * may both compile a form the first time it is used, and either one is kept.
 	 */
-	private JsonNode parseParams(HttpServletRequest request) {
+	private static final class RequestSchema implements EngineSchema {
 
-		Enumeration<String> parameters = request.getParameterNames();
-		Map<String, Object> paramMap = new HashMap<String, Object>();
+		private final String schemaLocation;
+		private final EngineSchema engineSchema;
+		private final boolean failFast;
+		// Engine the other forms fall back to, null when the validation engine is not fge based
+		private final FgeValidationEngine fgeEngine;
+		// The compiled engine has already compiled the schema to java
+		private final boolean compiledByEngine;
+		private volatile StreamingSchema streamingSchema;
+		private volatile FieldSchema fieldSchema;
+		private volatile CompiledSchema compiledSchema;
 
-		while(parameters.hasMoreElements()) {
-			String param = parameters.nextElement();
-			paramMap.put(param, request.getParameter(param));
+		private RequestSchema(String schemaLocation, ValidationEngine validationEngine, EngineSchema engineSchema,
+				boolean failFast) {
+			this.schemaLocation = schemaLocation;
+			this.engineSchema = engineSchema;
+			this.failFast = failFast;
+			this.compiledByEngine = validationEngine instanceof CompiledValidationEngine;
+			this.fgeEngine = validationEngine instanceof FgeValidationEngine ? (FgeValidationEngine) validationEngine
+					: compiledByEngine ? ((CompiledValidationEngine) validationEngine).getFallbackEngine() : null;
 		}
 
-		return objectMapper.convertValue(paramMap, JsonNode.class);
-	}
+		@Override
+		public ValidationResult validate(JsonNode instance) throws ValidationEngineException {
+			return engineSchema.validate(instance);
+		}
+
+		/**
+		 * @return Schema the body is validated with while it is parsed, or <code>null</code> when the validation
+		 * engine is not fge based
+		 */
+		private StreamingSchema getStreamingSchema() throws ValidationEngineException {
+			StreamingSchema streamingSchema = this.streamingSchema;
+			if(streamingSchema == null && fgeEngine != null) {
+				try {
+					streamingSchema = StreamingSchema.compile(schemaLocation, SchemaSource.load(schemaLocation),
+							fgeEngine.getJsonSchema(schemaLocation, failFast), fgeEngine.getJsonSchemaFactory(failFast));
+				} catch(IOException e) {
+					throw new ValidationEngineException("Could not read schema " + schemaLocation, e);
+				} catch(ProcessingException e) {
+					throw new ValidationEngineException("Could not compile schema " + schemaLocation, e);
+				}
+				this.streamingSchema = streamingSchema;
+			}
+			return streamingSchema;
+		}
 
-}
\ No newline at end of file
+		/**
+		 * @return Schema the parsed body is validated with by a java class, or <code>null</code> when the
+		 * validation engine compiles the schema itself or is not fge based
+		 */
+		private CompiledSchema getCompiledSchema() throws ValidationEngineException {
+			CompiledSchema compiledSchema = this.compiledSchema;
+			if(compiledSchema == null && fgeEngine != null && ! compiledByEngine) {
+				try {
+					compiledSchema = CompiledSchema.compile(schemaLocation, SchemaSource.load(schemaLocation),
+							fgeEngine.getJsonSchemaFactory(failFast));
+				} catch(IOException e) {
+					throw new ValidationEngineException("Could not read schema " + schemaLocation, e);
+				} catch(ProcessingException e) {
+					throw new ValidationEngineException("Could not compile schema " + schemaLocation, e);
+				}
+				this.compiledSchema = compiledSchema;
+			}
+			return compiledSchema;
+		}
+
+		/**
+		 * @return Fields the schema declares, which are also used to read the request into a tree for the engine
+		 */
+		private FieldSchema getFieldSchema() throws ValidationEngineException {
+			FieldSchema fieldSchema = this.fieldSchema;
+			if(fieldSchema == null) {
+				try {
+					fieldSchema = FieldSchema.compile(schemaLocation, SchemaSource.load(schemaLocation));
+				} catch(IOException e) {
+					throw new ValidationEngineException("Could not read schema " + schemaLocation, e);
+				}
+				this.fieldSchema = fieldSchema;
+			}
+			return fieldSchema;
+		}
+	}
+}
@@ -0,0 +1,674 @@
+package com.danleinbach.sample.validation.stream;
+
+import com.danleinbach.sample.validation.EcmaRegex;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ListProcessingReport;
+import com.github.fge.jsonschema.report.LogLevel;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Json schema that validates a document while it is being parsed, instead of parsing the whole
+ * document into a tree first. The common keywords are checked against the token stream as it is
+ * read: <code>type</code>, <code>required</code>, <code>properties</code>,
+ * <code>additionalProperties</code> (boolean), <code>enum</code> (scalar values),
+ * <code>minimum</code>, <code>maximum</code>, <code>exclusiveMinimum</code>,
+ * <code>exclusiveMaximum</code>, <code>minLength</code>, <code>maxLength</code>,
+ * <code>pattern</code>, <code>minItems</code>, <code>maxItems</code> and <code>items</code> (single
+ * schema).
+ * <p/>
+ * A sub schema that uses any other keyword is handed to the tree based validator, and only the part
+ * of the document it applies to is read into a tree. An object or array checked against an <code>enum</code>
+ * never matches the scalar values, it is read into a tree as well so every error is reported as the tree
+ * based validator reports it. Schemas that use <code>$ref</code> or are not draft v4 are validated entirely
+ * by the tree based validator.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class StreamingSchema {
+
+	private static final Set<String> IGNORED_KEYWORDS = new HashSet<String>(
+			Arrays.asList("$schema", "id", "title", "description", "default", "definitions"));
+	private static final Set<String> STREAMED_KEYWORDS = new HashSet<String>(
+			Arrays.asList("type", "required", "properties", "additionalProperties", "enum", "minimum", "maximum",
+					"exclusiveMinimum", "exclusiveMaximum", "minLength", "maxLength", "pattern", "minItems",
+					"maxItems", "items"));
+	private static final String DRAFT_V4 = "http://json-schema.org/draft-04/schema";
+	private static final String[] TYPE_NAMES = {"object", "array", "string", "integer", "number", "boolean", "null"};
+	private static final int OBJECT = 1;
+	private static final int ARRAY = 1 << 1;
+	private static final int STRING = 1 << 2;
+	private static final int INTEGER = 1 << 3;
+	private static final int NUMBER = 1 << 4;
+	private static final int BOOLEAN = 1 << 5;
+	private static final int NULL = 1 << 6;
+
+	private final String schemaLocation;
+	private final Node root;
+
+	private StreamingSchema(String schemaLocation, Node root) {
+		this.schemaLocation = schemaLocation;
+		this.root = root;
+	}
+
+	/**
+	 * Compile a json schema for streaming validation.
+	 *
+	 * @param schemaLocation Location the schema was loaded from, used in validation messages
+	 * @param schema         The schema as a json tree
+	 * @param jsonSchema     The same schema compiled by the tree based validator
+	 * @param factory        Factory used to compile sub schemas that cannot be streamed
+	 * @return Compiled streaming schema
+	 * @throws ProcessingException Thrown when a sub schema cannot be compiled
+	 */
+	public static StreamingSchema compile(String schemaLocation, JsonNode schema, JsonSchema jsonSchema,
+										  JsonSchemaFactory factory) throws ProcessingException {
+		JsonNode version = schema.get("$schema");
+		if(containsRef(schema) || (version != null && ! version.asText().startsWith(DRAFT_V4))) {
+			return new StreamingSchema(schemaLocation, new Node("", jsonSchema));
+		}
+		return new StreamingSchema(schemaLocation, compileNode(schema, "", factory));
+	}
+
+	/**
+	 * @return <code>true</code> if at least the top level of the schema is validated while streaming
+	 */
+	public boolean isStreamable() {
+		return root.fallback == null;
+	}
+
+	/**
+	 * Read a json document from the parser and validate it against the schema.
+	 *
+	 * @param parser   Parser positioned before the document
+	 * @param failFast Stop reading the document at the first validation error
+	 * @return Report of the validation errors found
+	 * @throws IOException         Thrown when the document cannot be read or is not valid json
+	 * @throws ProcessingException Thrown when a sub schema cannot be applied to the document
+	 */
+	public ProcessingReport validate(JsonParser parser, boolean failFast) throws IOException, ProcessingException {
+		if(parser.nextToken() == null) {
+			throw new JsonMappingException("No content to map due to end-of-input", parser.getCurrentLocation());
+		}
+		Context context = new Context(parser, failFast);
+		validateValue(root, context);
+		return context.report;
+	}
+
+	private void validateValue(Node node, Context context) throws IOException, ProcessingException {
+		JsonParser parser = context.parser;
+		if(node == null) {
+			parser.skipChildren();
+			return;
+		}
+		if(node.fallback != null) {
+			validateFallback(node.fallback, context);
+			return;
+		}
+
+		JsonToken token = parser.getCurrentToken();
+		if(node.enumFallback != null && (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY)) {
+			validateFallback(node.enumFallback, context);
+			return;
+		}
+		int type = typeOf(token);
+		if(node.types != 0 && (node.types & type) == 0 && ! (type == INTEGER && (node.types & NUMBER) != 0)) {
+			context.error(node, "type", "instance type (" + typeName(type)
+					+ ") does not match any allowed primitive type (allowed: " + node.typeNames + ")");
+			if(context.stopped) {
+				return;
+			}
+		}
+
+		switch(token) {
+			case START_OBJECT:
+				validateObject(node, context);
+				break;
+			case START_ARRAY:
+				validateArray(node, context);
+				break;
+			case VALUE_STRING:
+				validateString(node, context);
+				break;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				validateNumber(node, context);
+				break;
+			default:
+				validateLiteral(node, context, token);
+		}
+	}
+
+	private void validateObject(Node node, Context context) throws IOException, ProcessingException {
+		JsonParser parser = context.parser;
+		boolean[] seen = node.required.length == 0 ? null : new boolean[node.required.length];
+		List<String> additional = null;
+
+		JsonToken token;
+		while((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			if(seen != null) {
+				for(int x = 0; x < seen.length; x++) {
+					if(node.required[x].equals(name)) {
+						seen[x] = true;
+					}
+				}
+			}
+
+			Node child = node.properties.get(name);
+			if(child == null && ! node.additionalProperties) {
+				parser.skipChildren();
+				if(additional == null) {
+					additional = new ArrayList<String>();
+				}
+				additional.add(name);
+				if(context.failFast) {
+					break;
+				}
+				continue;
+			}
+
+			context.push(name);
+			validateValue(child, context);
+			context.pop();
+			if(context.stopped) {
+				return;
+			}
+		}
+		if(token != JsonToken.END_OBJECT && ! (context.failFast && additional != null)) {
+			throw new JsonParseException("Unexpected token " + token + " in object", parser.getCurrentLocation());
+		}
+
+		if(additional != null) {
+			context.error(node, "additionalProperties",
+					"object instance has properties which are not allowed by the schema: " + quote(additional));
+			if(context.stopped) {
+				return;
+			}
+		}
+		if(seen != null) {
+			List<String> missing = new ArrayList<String>();
+			for(int x = 0; x < seen.length; x++) {
+				if(! seen[x]) {
+					missing.add(node.required[x]);
+				}
+			}
+			if(! missing.isEmpty()) {
+				context.error(node, "required", "object has missing required properties (" + quote(missing) + ")");
+			}
+		}
+	}
+
+	private void validateArray(Node node, Context context) throws IOException, ProcessingException {
+		JsonParser parser = context.parser;
+		int count = 0;
+
+		JsonToken token;
+		while((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+			if(token == null) {
+				throw new JsonParseException("Unexpected end-of-input in array", parser.getCurrentLocation());
+			}
+			if(context.failFast && node.maxItems >= 0 && count == node.maxItems) {
+				context.error(node, "maxItems", "array is too long: must have at most " + node.maxItems
+						+ " elements but instance has more");
+				return;
+			}
+			context.push(count);
+			validateValue(node.items, context);
+			context.pop();
+			if(context.stopped) {
+				return;
+			}
+			count++;
+		}
+
+		if(node.maxItems >= 0 && count > node.maxItems) {
+			context.error(node, "maxItems", "array is too long: must have at most " + node.maxItems
+					+ " elements but instance has " + count + " elements");
+		}
+		else if(count < node.minItems) {
+			context.error(node, "minItems", "array is too short: must have at least " + node.minItems
+					+ " elements but instance has " + count + " elements");
+		}
+	}
+
+	private void validateString(Node node, Context context) throws IOException, ProcessingException {
+		if(! node.checksStrings) {
+			return;
+		}
+		String text = context.parser.getText();
+		if(node.minLength > 0 || node.maxLength >= 0) {
+			// Counted in chars, not code points, as the tree based validator counts it
+			int length = text.length();
+			if(node.maxLength >= 0 && length > node.maxLength) {
+				context.error(node, "maxLength", "string is too long (length: " + length + ", maximum allowed: "
+						+ node.maxLength + ")");
+				if(context.stopped) {
+					return;
+				}
+			}
+			if(length < node.minLength) {
+				context.error(node, "minLength", "string is too short (length: " + length + ", required minimum: "
+						+ node.minLength + ")");
+				if(context.stopped) {
+					return;
+				}
+			}
+		}
+		if(node.pattern != null && ! node.pattern.matcher(text).find()) {
+			context.error(node, "pattern", "ECMA 262 regex \"" + node.patternText
+					+ "\" does not match input string \"" + text + "\"");
+			if(context.stopped) {
+				return;
+			}
+		}
+		if(node.enumValues != null) {
+			for(JsonNode value : node.enumValues) {
+				if(value.isTextual() && value.textValue().equals(text)) {
+					return;
+				}
+			}
+			enumError(node, context, "\"" + text + "\"");
+		}
+	}
+
+	private void validateNumber(Node node, Context context) throws IOException, ProcessingException {
+		if(node.minimum == null && node.maximum == null && node.enumValues == null) {
+			return;
+		}
+		BigDecimal value = context.parser.getDecimalValue();
+		if(node.minimum != null) {
+			int compare = value.compareTo(node.minimum);
+			if(compare < 0 || (compare == 0 && node.exclusiveMinimum)) {
+				context.error(node, "minimum", "numeric instance is lower than the required minimum (minimum: "
+						+ node.minimum + ", found: " + value + ")");
+				if(context.stopped) {
+					return;
+				}
+			}
+		}
+		if(node.maximum != null) {
+			int compare = value.compareTo(node.maximum);
+			if(compare > 0 || (compare == 0 && node.exclusiveMaximum)) {
+				context.error(node, "maximum", "numeric instance is greater than the required maximum (maximum: "
+						+ node.maximum + ", found: " + value + ")");
+				if(context.stopped) {
+					return;
+				}
+			}
+		}
+		if(node.enumValues != null) {
+			for(JsonNode enumValue : node.enumValues) {
+				if(enumValue.isNumber() && enumValue.decimalValue().compareTo(value) == 0) {
+					return;
+				}
+			}
+			enumError(node, context, value.toString());
+		}
+	}
+
+	private void validateLiteral(Node node, Context context, JsonToken token) throws ProcessingException {
+		if(node.enumValues == null) {
+			return;
+		}
+		for(JsonNode value : node.enumValues) {
+			if(value.asToken() == token) {
+				return;
+			}
+		}
+		enumError(node, context, token.asString());
+	}
+
+	private void enumError(Node node, Context context, String value) throws ProcessingException {
+		context.error(node, "enum", "instance value (" + value + ") not found in enum (possible values: "
+				+ node.enumValues + ")");
+	}
+
+	/**
+	 * Read the current value into a tree and validate it with the tree based validator.
+	 */
+	private void validateFallback(JsonSchema fallback, Context context) throws IOException, ProcessingException {
+		JsonNode instance = context.parser.readValueAsTree();
+		ProcessingReport report = fallback.validate(instance);
+		String prefix = context.pointer();
+
+		for(ProcessingMessage message : report) {
+			if(! prefix.isEmpty()) {
+				JsonNode pointer = message.asJson().path("instance").path("pointer");
+				message.put("instance", instanceJson(prefix + pointer.asText()));
+			}
+			LogLevel level = message.getLogLevel();
+			if(level == LogLevel.ERROR || level == LogLevel.FATAL) {
+				context.report(message);
+				if(context.stopped) {
+					return;
+				}
+			}
+			else if(level == LogLevel.WARNING) {
+				context.report.warn(message);
+			}
+		}
+	}
+
+	private static Node compileNode(JsonNode schema, String pointer, JsonSchemaFactory factory)
+			throws ProcessingException {
+		if(! isStreamable(schema)) {
+			return new Node(pointer, factory.getJsonSchema(schema));
+		}
+
+		Node node = new Node(pointer, null);
+		JsonNode type = schema.get("type");
+		if(type != null) {
+			List<String> typeNames = new ArrayList<String>();
+			for(JsonNode name : type.isArray() ? type : Collections.singletonList(type)) {
+				node.types |= typeBit(name.textValue());
+				typeNames.add(name.textValue());
+			}
+			node.typeNames = quote(typeNames);
+		}
+
+		JsonNode required = schema.path("required");
+		node.required = new String[required.size()];
+		for(int x = 0; x < node.required.length; x++) {
+			node.required[x] = required.get(x).textValue();
+		}
+
+		Iterator<Map.Entry<String, JsonNode>> properties = schema.path("properties").fields();
+		while(properties.hasNext()) {
+			Map.Entry<String, JsonNode> property = properties.next();
+			node.properties.put(property.getKey(), compileNode(property.getValue(),
+					pointer + "/properties/" + escape(property.getKey()), factory));
+		}
+		node.additionalProperties = schema.path("additionalProperties").asBoolean(true);
+
+		if(schema.has("items")) {
+			node.items = compileNode(schema.get("items"), pointer + "/items", factory);
+		}
+		if(schema.has("enum")) {
+			node.enumValues = new ArrayList<JsonNode>();
+			for(JsonNode value : schema.get("enum")) {
+				node.enumValues.add(value);
+			}
+			node.enumFallback = factory.getJsonSchema(schema);
+		}
+		if(schema.has("minimum")) {
+			node.minimum = schema.get("minimum").decimalValue();
+			node.exclusiveMinimum = schema.path("exclusiveMinimum").asBoolean(false);
+		}
+		if(schema.has("maximum")) {
+			node.maximum = schema.get("maximum").decimalValue();
+			node.exclusiveMaximum = schema.path("exclusiveMaximum").asBoolean(false);
+		}
+		node.minLength = schema.path("minLength").asInt(0);
+		node.maxLength = schema.path("maxLength").asInt(- 1);
+		node.minItems = schema.path("minItems").asInt(0);
+		node.maxItems = schema.path("maxItems").asInt(- 1);
+		if(schema.has("pattern")) {
+			node.patternText = schema.get("pattern").textValue();
+			node.pattern = EcmaRegex.compile(node.patternText);
+		}
+		node.checksStrings = node.minLength > 0 || node.maxLength >= 0 || node.pattern != null
+				|| node.enumValues != null;
+		return node;
+	}
+
+	/**
+	 * Check that every keyword of a schema, not including its sub schemas, can be checked while streaming.
+	 */
+	private static boolean isStreamable(JsonNode schema) {
+		if(! schema.isObject() || (schema.has("exclusiveMinimum") && ! schema.has("minimum"))
+				|| (schema.has("exclusiveMaximum") && ! schema.has("maximum"))) {
+			return false;
+		}
+		Iterator<Map.Entry<String, JsonNode>> fields = schema.fields();
+		while(fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			String keyword = field.getKey();
+			if(! IGNORED_KEYWORDS.contains(keyword)
+					&& ! (STREAMED_KEYWORDS.contains(keyword) && isStreamable(keyword, field.getValue()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isStreamable(String keyword, JsonNode value) {
+		if("type".equals(keyword)) {
+			if(value.isTextual()) {
+				return typeBit(value.textValue()) != 0;
+			}
+			return value.isArray() && value.size() > 0 && allMatch(value, "type");
+		}
+		if("required".equals(keyword)) {
+			return value.isArray() && value.size() > 0 && allMatch(value, "required");
+		}
+		if("properties".equals(keyword)) {
+			return value.isObject();
+		}
+		if("additionalProperties".equals(keyword)) {
+			return value.isBoolean() || (value.isObject() && value.size() == 0);
+		}
+		if("enum".equals(keyword)) {
+			return value.isArray() && value.size() > 0 && allMatch(value, "enum");
+		}
+		if("minimum".equals(keyword) || "maximum".equals(keyword)) {
+			return value.isNumber();
+		}
+		if("exclusiveMinimum".equals(keyword) || "exclusiveMaximum".equals(keyword)) {
+			return value.isBoolean();
+		}
+		if("pattern".equals(keyword)) {
+			return value.isTextual() && isPattern(value.textValue());
+		}
+		if("items".equals(keyword)) {
+			return value.isObject();
+		}
+		// minLength, maxLength, minItems, maxItems
+		return value.canConvertToInt() && value.isIntegralNumber() && value.intValue() >= 0;
+	}
+
+	private static boolean allMatch(JsonNode values, String keyword) {
+		for(JsonNode value : values) {
+			boolean matches = "type".equals(keyword) ? value.isTextual() && typeBit(value.textValue()) != 0
+					: "required".equals(keyword) ? value.isTextual() : ! value.isContainerNode();
+			if(! matches) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPattern(String pattern) {
+		try {
+			EcmaRegex.compile(pattern);
+			return true;
+		} catch(PatternSyntaxException e) {
+			return false;
+		}
+	}
+
+	private static boolean containsRef(JsonNode schema) {
+		if(schema.has("$ref")) {
+			return true;
+		}
+		for(JsonNode child : schema) {
+			if(child.isContainerNode() && containsRef(child)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int typeBit(String name) {
+		for(int x = 0; x < TYPE_NAMES.length; x++) {
+			if(TYPE_NAMES[x].equals(name)) {
+				return 1 << x;
+			}
+		}
+		return 0;
+	}
+
+	private static String typeName(int type) {
+		return TYPE_NAMES[Integer.numberOfTrailingZeros(type)];
+	}
+
+	private static int typeOf(JsonToken token) {
+		switch(token) {
+			case START_OBJECT:
+				return OBJECT;
+			case START_ARRAY:
+				return ARRAY;
+			case VALUE_STRING:
+				return STRING;
+			case VALUE_NUMBER_INT:
+				return INTEGER;
+			case VALUE_NUMBER_FLOAT:
+				return NUMBER;
+			case VALUE_TRUE:
+			case VALUE_FALSE:
+				return BOOLEAN;
+			default:
+				return NULL;
+		}
+	}
+
+	private static String quote(List<String> values) {
+		StringBuilder builder = new StringBuilder("[");
+		for(String value : values) {
+			if(builder.length() > 1) {
+				builder.append(',');
+			}
+			builder.append('"').append(value).append('"');
+		}
+		return builder.append(']').toString();
+	}
+
+	private static String escape(String token) {
+		return token.replace("~", "~0").replace("/", "~1");
+	}
+
+	private static ObjectNode instanceJson(String pointer) {
+		ObjectNode instance = JsonNodeFactory.instance.objectNode();
+		instance.put("pointer", pointer);
+		return instance;
+	}
+
+	/**
+	 * Compiled sub schema. Either the keywords are checked while streaming, or the fallback schema is used.
+	 */
+	private static final class Node {
+
+		private final String pointer;
+		private final JsonSchema fallback;
+		private int types;
+		private String typeNames;
+		private String[] required = new String[0];
+		private final Map<String, Node> properties = new HashMap<String, Node>();
+		private boolean additionalProperties = true;
+		private Node items;
+		private List<JsonNode> enumValues;
+		private JsonSchema enumFallback;
+		private BigDecimal minimum;
+		private BigDecimal maximum;
+		private boolean exclusiveMinimum;
+		private boolean exclusiveMaximum;
+		private int minLength;
+		private int maxLength = - 1;
+		private int minItems;
+		private int maxItems = - 1;
+		private Pattern pattern;
+		private String patternText;
+		private boolean checksStrings;
+
+		private Node(String pointer, JsonSchema fallback) {
+			this.pointer = pointer;
+			this.fallback = fallback;
+		}
+	}
+
+	/**
+	 * State of a single validation: the parser, the errors found and the path to the current value.
+	 */
+	private final class Context {
+
+		private final JsonParser parser;
+		private final boolean failFast;
+		private final ListProcessingReport report = new ListProcessingReport();
+		private String[] names = new String[16];
+		private int[] indexes = new int[16];
+		private int depth;
+		private boolean stopped;
+
+		private Context(JsonParser parser, boolean failFast) {
+			this.parser = parser;
+			this.failFast = failFast;
+		}
+
+		private void push(String name) {
+			grow();
+			names[depth++] = name;
+		}
+
+		private void push(int index) {
+			grow();
+			names[depth] = null;
+			indexes[depth++] = index;
+		}
+
+		private void pop() {
+			depth--;
+		}
+
+		private void grow() {
+			if(depth == names.length) {
+				names = Arrays.copyOf(names, depth * 2);
+				indexes = Arrays.copyOf(indexes, depth * 2);
+			}
+		}
+
+		private String pointer() {
+			StringBuilder pointer = new StringBuilder();
+			for(int x = 0; x < depth; x++) {
+				pointer.append('/');
+				if(names[x] == null) {
+					pointer.append(indexes[x]);
+				}
+				else {
+					pointer.append(escape(names[x]));
+				}
+			}
+			return pointer.toString();
+		}
+
+		private void error(Node node, String keyword, String message) throws ProcessingException {
+			ObjectNode schema = JsonNodeFactory.instance.objectNode();
+			schema.put("loadingURI", schemaLocation);
+			schema.put("pointer", node.pointer);
+			report(new ProcessingMessage().message(message).put("domain", "validation").put("keyword", keyword)
+					.put("schema", schema).put("instance", instanceJson(pointer())));
+		}
+
+		private void report(ProcessingMessage message) throws ProcessingException {
+			report.error(message);
+			stopped = failFast;
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package com.danleinbach.sample.wrapper;
+
+import com.danleinbach.sample.exception.JsonSchemaValidationException;
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request body held in memory as a list of fixed size chunks borrowed from a {@link BufferPool}.
+ * The body is read straight into the chunks, so it is never copied into a larger array as it grows,
+ * and reading stops as soon as the body goes over its size limit. The chunks go back to the pool
+ * when the buffer is released, after which the body can no longer be read.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class BodyBuffer {
+
+	private final BufferPool bufferPool;
+	private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	private ByteBuffer writeChunk;
+	private ReadableByteChannel channel;
+	private InputStream channelStream;
+	private long size;
+	private String contentEncoding;
+	private boolean released;
+
+	private BodyBuffer(BufferPool bufferPool) {
+		this.bufferPool = bufferPool;
+	}
+
+	/**
+	 * Read an input stream to the end into a new body buffer with freshly allocated chunks.
+	 *
+	 * @param inputStream  Stream to read the body from
+	 * @param maxBodyBytes Maximum number of bytes allowed in the body, or a negative number for no limit
+	 * @return Buffer holding the body
+	 * @throws IOException         Thrown when the body cannot be read
+	 * @throws RequestBodyTooLarge Thrown as soon as the body is larger than the maximum
+	 */
+	public static BodyBuffer read(InputStream inputStream, long maxBodyBytes) throws IOException, RequestBodyTooLarge {
+		return read(inputStream, maxBodyBytes, BufferPool.UNPOOLED);
+	}
+
+	/**
+	 * Read an input stream to the end into a new body buffer with chunks borrowed from a pool. The
+	 * chunks are returned to the pool if reading fails.
+	 *
+	 * @param inputStream  Stream to read the body from
+	 * @param maxBodyBytes Maximum number of bytes allowed in the body, or a negative number for no limit
+	 * @param bufferPool   Pool the chunks are borrowed from
+	 * @return Buffer holding the body
+	 * @throws IOException         Thrown when the body cannot be read
+	 * @throws RequestBodyTooLarge Thrown as soon as the body is larger than the maximum
+	 */
+	public static BodyBuffer read(InputStream inputStream, long maxBodyBytes, BufferPool bufferPool)
+			throws IOException, RequestBodyTooLarge {
+		BodyBuffer buffer = new BodyBuffer(bufferPool);
+		boolean complete = false;
+		try {
+			while(buffer.readFrom(inputStream, maxBodyBytes) >= 0) {
+				// keep reading until the end of the stream
+			}
+			complete = true;
+			return buffer;
+		} finally {
+			if(! complete) {
+				buffer.release();
+			}
+		}
+	}
+
+	/**
+	 * Create an empty body buffer that is filled a piece at a time with {@link #readFrom}, e.g. from
+	 * a non-blocking stream. The caller must release it if filling it fails.
+	 *
+	 * @param bufferPool Pool the chunks are borrowed from
+	 * @return Empty buffer
+	 */
+	public static BodyBuffer allocate(BufferPool bufferPool) {
+		return new BodyBuffer(bufferPool);
+	}
+
+	/**
+	 * Read the next piece of the body with a single read from the stream.
+	 *
+	 * @param inputStream  Stream to read the body from
+	 * @param maxBodyBytes Maximum number of bytes allowed in the body, or a negative number for no limit
+	 * @return Number of bytes read, or -1 at the end of the stream
+	 * @throws IOException         Thrown when the body cannot be read
+	 * @throws RequestBodyTooLarge Thrown as soon as the body is larger than the maximum
+	 */
+	public int readFrom(InputStream inputStream, long maxBodyBytes) throws IOException, RequestBodyTooLarge {
+		if(writeChunk == null || ! writeChunk.hasRemaining()) {
+			writeChunk = bufferPool.acquire();
+			chunks.add(writeChunk);
+		}
+		int read;
+		// Heap chunks are read into directly, direct chunks have to go through a channel
+		if(writeChunk.hasArray()) {
+			read = inputStream.read(writeChunk.array(), writeChunk.arrayOffset() + writeChunk.position(),
+					writeChunk.remaining());
+			if(read > 0) {
+				writeChunk.position(writeChunk.position() + read);
+			}
+		}
+		else {
+			if(channel == null || channelStream != inputStream) {
+				channel = Channels.newChannel(inputStream);
+				channelStream = inputStream;
+			}
+			read = channel.read(writeChunk);
+		}
+		if(read > 0) {
+			size += read;
+			if(maxBodyBytes >= 0 && size > maxBodyBytes) {
+				throw new RequestBodyTooLarge(maxBodyBytes);
+			}
+		}
+		return read;
+	}
+
+	/**
+	 * Replace the encoded body with the body it decodes to, read into new chunks from the same pool. The
+	 * encoded chunks go back to the pool as soon as the body has been decoded. Nothing happens when the
+	 * body is not encoded.
+	 *
+	 * @param decoder         Decoder of the body's content encoding
+	 * @param maxDecodedBytes Maximum size of the decoded body, or a negative number for no limit
+	 * @throws IOException                   Thrown when the body is not encoded as declared
+	 * @throws JsonSchemaValidationException Thrown when the decoded body goes over a limit of the decoder
+	 */
+	public void decode(ContentDecoder decoder, long maxDecodedBytes) throws IOException, JsonSchemaValidationException {
+		if(contentEncoding == null) {
+			return;
+		}
+		InputStream decoded = decoder.decode(newInputStream(), contentEncoding, maxDecodedBytes);
+		BodyBuffer buffer;
+		try {
+			buffer = read(decoded, maxDecodedBytes, bufferPool);
+		} catch(ContentDecoder.LimitExceeded e) {
+			throw e.getRejection();
+		} finally {
+			decoded.close();
+		}
+		for(ByteBuffer chunk : chunks) {
+			bufferPool.release(chunk);
+		}
+		chunks.clear();
+		chunks.addAll(buffer.chunks);
+		writeChunk = buffer.writeChunk;
+		size = buffer.size;
+		contentEncoding = null;
+	}
+
+	/**
+	 * @return Content encoding of the bytes held, <code>gzip</code> or <code>deflate</code>, or null when they
+	 * are not encoded
+	 */
+	public String getContentEncoding() {
+		return contentEncoding;
+	}
+
+	/**
+	 * @param contentEncoding Content encoding of the bytes held, as returned by
+	 *                        {@link ContentDecoder#getContentEncoding}
+	 */
+	public void setContentEncoding(String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+	}
+
+	/**
+	 * @return Number of bytes in the body
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * @return New stream that reads the body from the start
+	 * @throws IllegalStateException Thrown when the buffer has already been released
+	 */
+	public InputStream newInputStream() {
+		if(released) {
+			throw new IllegalStateException("Request body has already been released");
+		}
+		return new ChunkInputStream();
+	}
+
+	/**
+	 * Return the chunks to the pool they were borrowed from. Streams opened before the release
+	 * must not be read afterwards. Calling this more than once has no effect.
+	 */
+	public void release() {
+		if(released) {
+			return;
+		}
+		released = true;
+		writeChunk = null;
+		channel = null;
+		channelStream = null;
+		for(ByteBuffer chunk : chunks) {
+			bufferPool.release(chunk);
+		}
+		chunks.clear();
+	}
+
+	/**
+	 * Get read only views of the chunks holding the body, in order. Nothing is copied, so the views
+	 * must not be used after the buffer is released.
+	 *
+	 * @return One buffer per chunk, positioned at the start of the chunk's data
+	 * @throws IllegalStateException Thrown when the buffer has already been released
+	 */
+	public ByteBuffer[] asReadOnlyBuffers() {
+		if(released) {
+			throw new IllegalStateException("Request body has already been released");
+		}
+		ByteBuffer[] buffers = new ByteBuffer[chunks.size()];
+		for(int i = 0; i < buffers.length; i++) {
+			buffers[i] = chunks.get(i).asReadOnlyBuffer();
+			buffers[i].flip();
+		}
+		return buffers;
+	}
+
+	/**
+	 * @return Copy of the whole body in a single array of exactly the body's size
+	 * @throws IllegalStateException Thrown when the buffer has already been released
+	 */
+	public byte[] toByteArray() {
+		return ((ChunkInputStream) newInputStream()).readRemaining();
+	}
+
+	public boolean isReleased() {
+		return released;
+	}
+
+	/**
+	 * Reads the body directly out of the chunks, through a view of the current chunk.
+	 */
+	class ChunkInputStream extends InputStream {
+
+		private int chunkIndex = - 1;
+		private ByteBuffer current;
+		private long remaining = size;
+
+		/**
+		 * @return View of the chunk holding the next byte, or null at the end of the body
+		 */
+		private ByteBuffer current() {
+			while(current == null || ! current.hasRemaining()) {
+				if(chunkIndex + 1 >= chunks.size()) {
+					return null;
+				}
+				chunkIndex++;
+				current = chunks.get(chunkIndex).duplicate();
+				current.flip();
+			}
+			return current;
+		}
+
+		@Override
+		public int read() {
+			ByteBuffer chunk = current();
+			if(chunk == null) {
+				return - 1;
+			}
+			remaining--;
+			return chunk.get() & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if(length == 0) {
+				return 0;
+			}
+			ByteBuffer chunk = current();
+			if(chunk == null) {
+				return - 1;
+			}
+			int count = Math.min(length, chunk.remaining());
+			chunk.get(bytes, offset, count);
+			remaining -= count;
+			return count;
+		}
+
+		@Override
+		public long skip(long count) {
+			long skipped = 0;
+			while(skipped < count) {
+				ByteBuffer chunk = current();
+				if(chunk == null) {
+					break;
+				}
+				int step = (int) Math.min(count - skipped, chunk.remaining());
+				chunk.position(chunk.position() + step);
+				skipped += step;
+			}
+			remaining -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, remaining);
+		}
+
+		/**
+		 * Read the rest of the body into an array sized to fit it exactly, one copy per chunk.
+		 *
+		 * @return Remaining bytes of the body
+		 * @throws IllegalStateException Thrown when the rest of the body does not fit in an array
+		 */
+		byte[] readRemaining() {
+			if(remaining > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Request body is too large for an array: " + size);
+			}
+			byte[] bytes = new byte[(int) remaining];
+			int offset = 0;
+			while(offset < bytes.length) {
+				offset += read(bytes, offset, bytes.length - offset);
+			}
+			return bytes;
+		}
+	}
+}
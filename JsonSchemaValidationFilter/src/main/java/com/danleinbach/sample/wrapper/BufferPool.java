@@ -0,0 +1,105 @@
+package com.danleinbach.sample.wrapper;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of fixed size chunks used to buffer request bodies. Chunks are borrowed while a
+ * body is read and returned once the request completes. When the pool is empty a new chunk is
+ * allocated, and chunks returned to a full pool are left for the garbage collector, so borrowing
+ * never blocks and at most <code>maxPooledChunks</code> idle chunks are kept.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class BufferPool {
+
+	/**
+	 * Size of each chunk in bytes.
+	 */
+	public static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * Default number of idle chunks kept by a pool.
+	 */
+	public static final int DEFAULT_MAX_POOLED_CHUNKS = 256;
+
+	/**
+	 * Pool that keeps no chunks, every chunk is freshly allocated on the heap.
+	 */
+	public static final BufferPool UNPOOLED = new BufferPool(0, false);
+
+	private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger pooledChunks = new AtomicInteger();
+	private final int maxPooledChunks;
+	private final boolean direct;
+
+	/**
+	 * Create a pool of heap chunks.
+	 *
+	 * @param maxPooledChunks Maximum number of idle chunks kept for reuse
+	 */
+	public BufferPool(int maxPooledChunks) {
+		this(maxPooledChunks, false);
+	}
+
+	/**
+	 * Create a pool of chunks.
+	 *
+	 * @param maxPooledChunks Maximum number of idle chunks kept for reuse
+	 * @param direct          Whether chunks are allocated outside of the heap
+	 */
+	public BufferPool(int maxPooledChunks, boolean direct) {
+		if(maxPooledChunks < 0) {
+			throw new IllegalArgumentException("Maximum pooled chunks must not be negative: " + maxPooledChunks);
+		}
+		this.maxPooledChunks = maxPooledChunks;
+		this.direct = direct;
+	}
+
+	/**
+	 * Borrow an empty chunk from the pool, allocating a new one if none are idle.
+	 *
+	 * @return Cleared chunk of {@link #CHUNK_SIZE} bytes
+	 */
+	public ByteBuffer acquire() {
+		ByteBuffer chunk = chunks.poll();
+		if(chunk == null) {
+			return direct ? ByteBuffer.allocateDirect(CHUNK_SIZE) : ByteBuffer.allocate(CHUNK_SIZE);
+		}
+		pooledChunks.decrementAndGet();
+		chunk.clear();
+		return chunk;
+	}
+
+	/**
+	 * Return a chunk to the pool. The chunk must not be used by the caller afterwards.
+	 *
+	 * @param chunk Chunk previously borrowed from this pool
+	 */
+	public void release(ByteBuffer chunk) {
+		if(pooledChunks.incrementAndGet() > maxPooledChunks) {
+			pooledChunks.decrementAndGet();
+			return;
+		}
+		chunks.offer(chunk);
+	}
+
+	/**
+	 * @return Number of idle chunks currently held by the pool
+	 */
+	public int getPooledChunks() {
+		return pooledChunks.get();
+	}
+
+	public int getMaxPooledChunks() {
+		return maxPooledChunks;
+	}
+
+	public boolean isDirect() {
+		return direct;
+	}
+}
@@ -0,0 +1,292 @@
+package com.danleinbach.sample.wrapper;
+
+import com.danleinbach.sample.exception.JsonSchemaValidationException;
+import com.danleinbach.sample.exception.RequestBodyTooCompressed;
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import com.danleinbach.sample.exception.UnsupportedContentEncoding;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Decompresses <code>gzip</code> and <code>deflate</code> request bodies while they are read, so a body is
+ * validated as the json it holds. Decompression stops as soon as the body is larger than its decoded size
+ * limit, or decompresses to more than the maximum ratio of the compressed bytes read so far, which guards
+ * against zip bombs.
+ * <p/>
+ * Downstream code either gets the decoded body, with the <code>Content-Encoding</code> header removed, or the
+ * body exactly as it was sent, which is then decoded again each time it is validated.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ContentDecoder {
+
+	/**
+	 * Maximum ratio of decoded to compressed bytes when no ratio is configured.
+	 */
+	public static final int DEFAULT_MAX_RATIO = 100;
+
+	/**
+	 * Decoded size below which the ratio is not checked, small bodies of repeated characters legitimately
+	 * compress very well.
+	 */
+	static final long RATIO_CHECK_MIN_BYTES = 64 * 1024;
+
+	private static final String GZIP = "gzip";
+	private static final String X_GZIP = "x-gzip";
+	private static final String DEFLATE = "deflate";
+	private static final String IDENTITY = "identity";
+
+	private final long maxDecodedBytes;
+	private final int maxRatio;
+	private final boolean forwardDecoded;
+
+	/**
+	 * @param maxDecodedBytes Maximum size of a decoded body, or a negative number to use the maximum size of
+	 *                        the body as sent
+	 * @param maxRatio        Maximum ratio of decoded to compressed bytes, or 0 for no limit
+	 * @param forwardDecoded  <code>true</code> to hand the decoded body downstream, <code>false</code> to hand on
+	 *                        the body as it was sent
+	 */
+	public ContentDecoder(long maxDecodedBytes, int maxRatio, boolean forwardDecoded) {
+		this.maxDecodedBytes = maxDecodedBytes;
+		this.maxRatio = maxRatio;
+		this.forwardDecoded = forwardDecoded;
+	}
+
+	/**
+	 * Get the encoding of a request's body from its <code>Content-Encoding</code> header.
+	 *
+	 * @param request Incoming request
+	 * @return <code>gzip</code>, <code>deflate</code>, or null when the body is not encoded
+	 * @throws UnsupportedContentEncoding Thrown when the body is encoded some other way
+	 */
+	public static String getContentEncoding(HttpServletRequest request) throws UnsupportedContentEncoding {
+		String header = request.getHeader("Content-Encoding");
+		if(header == null) {
+			return null;
+		}
+		String encoding = header.trim().toLowerCase(Locale.ENGLISH);
+		if(encoding.isEmpty() || IDENTITY.equals(encoding)) {
+			return null;
+		}
+		if(GZIP.equals(encoding) || X_GZIP.equals(encoding)) {
+			return GZIP;
+		}
+		if(DEFLATE.equals(encoding)) {
+			return DEFLATE;
+		}
+		throw new UnsupportedContentEncoding(header);
+	}
+
+	/**
+	 * @param maxBodyBytes Maximum size of the body as sent, or a negative number for no limit
+	 * @return Maximum size of the decoded body, or a negative number for no limit
+	 */
+	public long getMaxDecodedBytes(long maxBodyBytes) {
+		return maxDecodedBytes >= 0 ? maxDecodedBytes : maxBodyBytes;
+	}
+
+	public int getMaxRatio() {
+		return maxRatio;
+	}
+
+	public boolean isForwardDecoded() {
+		return forwardDecoded;
+	}
+
+	/**
+	 * Open a stream that decodes a body as it is read.
+	 *
+	 * @param encoded         Stream of the encoded body
+	 * @param encoding        Encoding returned by {@link #getContentEncoding}
+	 * @param maxDecodedBytes Maximum size of the decoded body, or a negative number for no limit
+	 * @return Stream of the decoded body, which throws {@link LimitExceeded} once the body goes over a limit
+	 * @throws IOException Thrown when the body is not encoded as declared
+	 */
+	public InputStream decode(InputStream encoded, String encoding, long maxDecodedBytes) throws IOException {
+		return decode(encoded, encoding, - 1, maxDecodedBytes);
+	}
+
+	/**
+	 * Open a stream that decodes a body as it is read from the client. The body as sent is limited as well,
+	 * a body that decodes to little or nothing, e.g. deflate data made of empty blocks, cannot be streamed
+	 * forever when no content length was declared.
+	 *
+	 * @param encoded         Stream of the encoded body
+	 * @param encoding        Encoding returned by {@link #getContentEncoding}
+	 * @param maxEncodedBytes Maximum size of the body as sent, or a negative number for no limit
+	 * @param maxDecodedBytes Maximum size of the decoded body, or a negative number for no limit
+	 * @return Stream of the decoded body, which throws {@link LimitExceeded} once the body goes over a limit
+	 * @throws IOException Thrown when the body is not encoded as declared
+	 */
+	public InputStream decode(InputStream encoded, String encoding, long maxEncodedBytes, long maxDecodedBytes)
+			throws IOException {
+		CountingInputStream counted = new CountingInputStream(encoded, maxEncodedBytes);
+		if(GZIP.equals(encoding)) {
+			return new LimitedInputStream(new GZIPInputStream(counted, BufferPool.CHUNK_SIZE), null, counted,
+					maxDecodedBytes);
+		}
+		// Deflate is meant to be zlib wrapped, but some clients send raw deflate data
+		PushbackInputStream pushback = new PushbackInputStream(counted, 2);
+		Inflater inflater = new Inflater(! isZlibHeader(pushback));
+		return new LimitedInputStream(new InflaterInputStream(pushback, inflater, BufferPool.CHUNK_SIZE), inflater,
+				counted, maxDecodedBytes);
+	}
+
+	private static boolean isZlibHeader(PushbackInputStream inputStream) throws IOException {
+		int first = inputStream.read();
+		if(first < 0) {
+			return true;
+		}
+		int second = inputStream.read();
+		if(second < 0) {
+			inputStream.unread(first);
+			return true;
+		}
+		inputStream.unread(second);
+		inputStream.unread(first);
+		return (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+	}
+
+	/**
+	 * Thrown by a decoding stream when the body goes over a limit. It is an {@link IOException} so it can
+	 * pass through parsers reading the stream, the reason to answer the request with is
+	 * {@link #getRejection()}.
+	 */
+	public static class LimitExceeded extends IOException {
+
+		private final JsonSchemaValidationException rejection;
+
+		LimitExceeded(JsonSchemaValidationException rejection) {
+			super(rejection.getCause().getMessage(), rejection);
+			this.rejection = rejection;
+		}
+
+		public JsonSchemaValidationException getRejection() {
+			return rejection;
+		}
+	}
+
+	/**
+	 * Counts the compressed bytes read by the decompressor, and stops them at their maximum.
+	 */
+	private static class CountingInputStream extends InputStream {
+
+		private final InputStream inputStream;
+		private final long maxCount;
+		private long count;
+
+		CountingInputStream(InputStream inputStream, long maxCount) {
+			this.inputStream = inputStream;
+			this.maxCount = maxCount;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = inputStream.read();
+			if(read >= 0) {
+				count(1);
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int read = inputStream.read(bytes, offset, length);
+			if(read > 0) {
+				count(read);
+			}
+			return read;
+		}
+
+		private void count(int read) throws LimitExceeded {
+			count += read;
+			if(maxCount >= 0 && count > maxCount) {
+				throw new LimitExceeded(new RequestBodyTooLarge(maxCount));
+			}
+		}
+
+		@Override
+		public int available() throws IOException {
+			return inputStream.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			inputStream.close();
+		}
+	}
+
+	/**
+	 * Checks the decoded size and ratio after every read.
+	 */
+	private class LimitedInputStream extends InputStream {
+
+		private final InputStream decoded;
+		private final Inflater inflater;
+		private final CountingInputStream encoded;
+		private final long maxDecodedBytes;
+		private long count;
+
+		LimitedInputStream(InputStream decoded, Inflater inflater, CountingInputStream encoded, long maxDecodedBytes) {
+			this.decoded = decoded;
+			this.inflater = inflater;
+			this.encoded = encoded;
+			this.maxDecodedBytes = maxDecodedBytes;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int read = decoded.read();
+			if(read >= 0) {
+				count(1);
+			}
+			return read;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int read = decoded.read(bytes, offset, length);
+			if(read > 0) {
+				count(read);
+			}
+			return read;
+		}
+
+		private void count(int read) throws LimitExceeded {
+			count += read;
+			if(maxDecodedBytes >= 0 && count > maxDecodedBytes) {
+				throw new LimitExceeded(new RequestBodyTooLarge(maxDecodedBytes));
+			}
+			if(maxRatio > 0 && count > RATIO_CHECK_MIN_BYTES && count > encoded.count * maxRatio) {
+				throw new LimitExceeded(new RequestBodyTooCompressed(maxRatio));
+			}
+		}
+
+		@Override
+		public int available() throws IOException {
+			return decoded.available();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				decoded.close();
+			} finally {
+				// Only the inflater of a deflate stream is ours, gzip streams end their own
+				if(inflater != null) {
+					inflater.end();
+				}
+			}
+		}
+	}
+}
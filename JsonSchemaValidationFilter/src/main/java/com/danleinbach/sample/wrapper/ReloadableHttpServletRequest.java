@@ -1,11 +1,19 @@
 package com.danleinbach.sample.wrapper;
 
-import org.apache.commons.io.IOUtils;
+import com.danleinbach.sample.constants.ErrorCode;
+import com.danleinbach.sample.exception.JsonSchemaValidationException;
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import com.danleinbach.sample.exception.UnReadableEntity;
 
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipException;
 
 /**
  * Extention of HttpServletRequestWrapper, that will allow the request body to be read
@@ -14,7 +22,12 @@ import java.io.*;
  */
 public class ReloadableHttpServletRequest extends HttpServletRequestWrapper {
 
-	private byte[] body;
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+
+	private BodyBuffer body;
+	private ContentDecoder contentDecoder;
+	private long maxDecodedBytes = - 1;
+	private boolean contentDecoded;
 
 	/**
 	 * Construct a new ReloadableHttpServletRequest from an existing HttpServletRequest
@@ -24,9 +37,143 @@ public class ReloadableHttpServletRequest extends HttpServletRequestWrapper {
 	 */
 	public ReloadableHttpServletRequest(HttpServletRequest request) throws IOException {
 		super(request);
-		// Read the request body and save it as a byte array
-		InputStream is = super.getInputStream();
-		body = IOUtils.toByteArray(is);
+		try {
+			body = BodyBuffer.read(super.getInputStream(), - 1);
+		} catch(RequestBodyTooLarge e) {
+			throw new IllegalStateException("Unlimited request body reported as too large", e);
+		}
+	}
+
+	/**
+	 * Construct a new ReloadableHttpServletRequest from an existing HttpServletRequest, refusing
+	 * bodies larger than the given maximum. The declared content length is checked before anything
+	 * is read, and reading stops as soon as the body goes over the maximum.
+	 *
+	 * @param request      - Incoming HttpServletRequest, that the body needs to be read more than once.
+	 * @param maxBodyBytes - Maximum number of bytes allowed in the body, or a negative number for no limit
+	 * @throws java.io.IOException - In the case the request's body cannot be read.
+	 * @throws RequestBodyTooLarge - In the case the request's body is larger than the maximum.
+	 */
+	public ReloadableHttpServletRequest(HttpServletRequest request, long maxBodyBytes)
+			throws IOException, RequestBodyTooLarge {
+		this(request, maxBodyBytes, BufferPool.UNPOOLED);
+	}
+
+	/**
+	 * Construct a new ReloadableHttpServletRequest from an existing HttpServletRequest, reading the
+	 * body into chunks borrowed from a pool. The chunks are given back by {@link #release()}.
+	 *
+	 * @param request      - Incoming HttpServletRequest, that the body needs to be read more than once.
+	 * @param maxBodyBytes - Maximum number of bytes allowed in the body, or a negative number for no limit
+	 * @param bufferPool   - Pool the body's chunks are borrowed from
+	 * @throws java.io.IOException - In the case the request's body cannot be read.
+	 * @throws RequestBodyTooLarge - In the case the request's body is larger than the maximum.
+	 */
+	public ReloadableHttpServletRequest(HttpServletRequest request, long maxBodyBytes, BufferPool bufferPool)
+			throws IOException, RequestBodyTooLarge {
+		super(request);
+		if(maxBodyBytes >= 0 && request.getContentLengthLong() > maxBodyBytes) {
+			throw new RequestBodyTooLarge(maxBodyBytes);
+		}
+		body = BodyBuffer.read(super.getInputStream(), maxBodyBytes, bufferPool);
+	}
+
+	/**
+	 * Construct a new ReloadableHttpServletRequest from an existing HttpServletRequest whose body may be
+	 * compressed. A compressed body is decompressed while it is read when the decoder forwards decoded
+	 * bodies, otherwise it is kept as sent and decompressed by {@link #getDecodedInputStream()}.
+	 *
+	 * @param request        - Incoming HttpServletRequest, that the body needs to be read more than once.
+	 * @param maxBodyBytes   - Maximum number of bytes allowed in the body as sent, or a negative number for no limit
+	 * @param bufferPool     - Pool the body's chunks are borrowed from
+	 * @param contentDecoder - Decoder of compressed bodies
+	 * @throws java.io.IOException - In the case the request's body cannot be read or decompressed.
+	 * @throws JsonSchemaValidationException - In the case the request's body is too large, decompresses to too
+	 *                                       much, or is encoded in a way that cannot be decoded.
+	 */
+	public ReloadableHttpServletRequest(HttpServletRequest request, long maxBodyBytes, BufferPool bufferPool,
+										ContentDecoder contentDecoder) throws IOException, JsonSchemaValidationException {
+		super(request);
+		if(maxBodyBytes >= 0 && request.getContentLengthLong() > maxBodyBytes) {
+			throw new RequestBodyTooLarge(maxBodyBytes);
+		}
+		String contentEncoding = ContentDecoder.getContentEncoding(request);
+		this.contentDecoder = contentDecoder;
+		this.maxDecodedBytes = contentDecoder.getMaxDecodedBytes(maxBodyBytes);
+		if(contentEncoding == null || ! contentDecoder.isForwardDecoded()) {
+			body = BodyBuffer.read(super.getInputStream(), maxBodyBytes, bufferPool);
+			body.setContentEncoding(contentEncoding);
+			return;
+		}
+		InputStream decoded;
+		try {
+			decoded = contentDecoder.decode(super.getInputStream(), contentEncoding, maxBodyBytes, maxDecodedBytes);
+		} catch(ContentDecoder.LimitExceeded e) {
+			throw e.getRejection();
+		} catch(ZipException e) {
+			throw new UnReadableEntity(ErrorCode.UNREADABLE_REQUEST_BODY, e);
+		}
+		try {
+			body = BodyBuffer.read(decoded, maxDecodedBytes, bufferPool);
+			contentDecoded = true;
+		} catch(ContentDecoder.LimitExceeded e) {
+			throw e.getRejection();
+		} catch(ZipException e) {
+			throw new UnReadableEntity(ErrorCode.UNREADABLE_REQUEST_BODY, e);
+		} finally {
+			decoded.close();
+		}
+	}
+
+	/**
+	 * Construct a new ReloadableHttpServletRequest around a body that has already been read, e.g.
+	 * asynchronously. The body is given back by {@link #release()}.
+	 *
+	 * @param request - Incoming HttpServletRequest whose body has been read.
+	 * @param body    - Buffered request body
+	 */
+	public ReloadableHttpServletRequest(HttpServletRequest request, BodyBuffer body) {
+		super(request);
+		this.body = body;
+	}
+
+	/**
+	 * Construct a new ReloadableHttpServletRequest around a body that has already been read, and possibly
+	 * decoded with {@link BodyBuffer#decode}. A body that is still encoded is decompressed by
+	 * {@link #getDecodedInputStream()}.
+	 *
+	 * @param request         - Incoming HttpServletRequest whose body has been read.
+	 * @param body            - Buffered request body
+	 * @param contentDecoder  - Decoder of compressed bodies
+	 * @param maxDecodedBytes - Maximum size of the decoded body, or a negative number for no limit
+	 */
+	public ReloadableHttpServletRequest(HttpServletRequest request, BodyBuffer body, ContentDecoder contentDecoder,
+										long maxDecodedBytes) {
+		super(request);
+		this.body = body;
+		this.contentDecoder = contentDecoder;
+		this.maxDecodedBytes = maxDecodedBytes;
+		String header = request.getHeader(CONTENT_ENCODING);
+		this.contentDecoded = body.getContentEncoding() == null && header != null && ! header.trim().isEmpty()
+				&& ! "identity".equalsIgnoreCase(header.trim());
+	}
+
+	/**
+	 * Get the buffered body without copying it, e.g. to hand the chunks to a channel or to
+	 * {@link BodyBuffer#toByteArray()}. The body must not be used after {@link #release()}.
+	 *
+	 * @return Buffered request body
+	 */
+	public BodyBuffer getBody() {
+		return body;
+	}
+
+	/**
+	 * Give the body's chunks back to the pool they were borrowed from once the request has
+	 * completed. The body cannot be read after this.
+	 */
+	public void release() {
+		body.release();
 	}
 
 	/**
@@ -37,7 +184,64 @@ public class ReloadableHttpServletRequest extends HttpServletRequestWrapper {
 	 */
 	@Override
 	public ServletInputStream getInputStream() {
-		return new ServletInputStreamImpl(new ByteArrayInputStream(body));
+		return new ServletInputStreamImpl(body.newInputStream());
+	}
+
+	/**
+	 * Create a new stream of the body decompressed, for validating it. The stream reads the same bytes as
+	 * {@link #getInputStream()} unless the body was kept compressed as it was sent.
+	 *
+	 * @return Stream of the decoded body
+	 * @throws IOException - In the case the body is not compressed as declared, a stream that goes over a
+	 *                     decoding limit throws {@link ContentDecoder.LimitExceeded}.
+	 */
+	public InputStream getDecodedInputStream() throws IOException {
+		if(body.getContentEncoding() == null) {
+			return body.newInputStream();
+		}
+		return contentDecoder.decode(body.newInputStream(), body.getContentEncoding(), maxDecodedBytes);
+	}
+
+	/**
+	 * The content encoding header is hidden once the body has been decompressed.
+	 */
+	@Override
+	public String getHeader(String name) {
+		return contentDecoded && CONTENT_ENCODING.equalsIgnoreCase(name) ? null : super.getHeader(name);
+	}
+
+	@Override
+	public Enumeration<String> getHeaders(String name) {
+		if(contentDecoded && CONTENT_ENCODING.equalsIgnoreCase(name)) {
+			return Collections.enumeration(Collections.<String>emptyList());
+		}
+		return super.getHeaders(name);
+	}
+
+	@Override
+	public Enumeration<String> getHeaderNames() {
+		Enumeration<String> headerNames = super.getHeaderNames();
+		if(! contentDecoded || headerNames == null) {
+			return headerNames;
+		}
+		List<String> names = new ArrayList<String>();
+		while(headerNames.hasMoreElements()) {
+			String name = headerNames.nextElement();
+			if(! CONTENT_ENCODING.equalsIgnoreCase(name)) {
+				names.add(name);
+			}
+		}
+		return Collections.enumeration(names);
+	}
+
+	@Override
+	public int getContentLength() {
+		return contentDecoded ? (int) Math.min(Integer.MAX_VALUE, body.size()) : super.getContentLength();
+	}
+
+	@Override
+	public long getContentLengthLong() {
+		return contentDecoded ? body.size() : super.getContentLengthLong();
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package com.danleinbach.sample.wrapper;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,18 +41,52 @@ public class ServletInputStreamImpl extends ServletInputStream {
 		return currentByte;
 	}
 
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		int count = is.read(bytes, offset, length);
+		if(count == EOL) {
+			finished = true;
+		}
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return is.available();
+	}
+
+	@Override
+	public long skip(long count) throws IOException {
+		return is.skip(count);
+	}
+
+	/**
+	 * Read the rest of the stream into a single array. A buffered request body is copied straight
+	 * out of its chunks into an array of exactly the right size.
+	 *
+	 * @return Remaining bytes of the stream
+	 * @throws IOException
+	 */
+	public byte[] readAllBytes() throws IOException {
+		byte[] bytes = is instanceof BodyBuffer.ChunkInputStream ? ((BodyBuffer.ChunkInputStream) is).readRemaining()
+				: IOUtils.toByteArray(is);
+		finished = true;
+		return bytes;
+	}
+
 	@Override
 	public boolean markSupported() {
 		return false;
 	}
 
+	// Not synchronized like InputStream's, there is no mark to guard and a monitor would pin virtual threads
 	@Override
-	public synchronized void mark(int i) {
+	public void mark(int i) {
 		throw new RuntimeException(new IOException("mark/reset not supported"));
 	}
 
 	@Override
-	public synchronized void reset() throws IOException {
+	public void reset() throws IOException {
 		throw new IOException("mark/reset not supported");
 	}
 
@@ -70,7 +105,11 @@ public class ServletInputStreamImpl extends ServletInputStream {
 		this.readListener = readListener;
 		if(isReady()) {
 			try {
+				// The whole body is already in memory, so it can all be read right away
 				this.readListener.onDataAvailable();
+				if(isFinished()) {
+					this.readListener.onAllDataRead();
+				}
 			} catch(IOException e) {
 				LOGGER.debug("Exception occured notifing read listener of available data.", e);
 				this.readListener.onError(e);
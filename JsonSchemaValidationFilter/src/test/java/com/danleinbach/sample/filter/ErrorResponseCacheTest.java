@@ -0,0 +1,79 @@
+package com.danleinbach.sample.filter;
+
+import com.danleinbach.sample.domain.ValidationResponse;
+import com.danleinbach.sample.json.JsonMappers;
+import com.danleinbach.sample.validation.engine.FgeValidationEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.fge.jsonschema.report.ListProcessingReport;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ErrorResponseCacheTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ObjectWriter writer = new JsonMappers(objectMapper).getValidationResponseWriter();
+
+	@Test
+	public void testSerializeResponse() throws Exception {
+		ValidationResponse response = response("/userName", "string is too long");
+
+		assertEquals("{\"headerReport\":[],\"bodyReport\":[{\"level\":\"error\",\"message\":\"string is too long\","
+				+ "\"keyword\":\"maxLength\",\"instance\":\"/userName\"}],\"paramReport\":[]}",
+				objectMapper.writeValueAsString(response));
+	}
+
+	@Test
+	public void testReuseResponseForSameFailures() throws Exception {
+		ErrorResponseCache cache = new ErrorResponseCache(10, ErrorResponseCache.DEFAULT_MAX_RESPONSE_BYTES);
+
+		byte[] first = cache.getResponse(response("/userName", "string is too long"), writer);
+		byte[] second = cache.getResponse(response("/userName", "string is too long"), writer);
+		byte[] other = cache.getResponse(response("/password", "string is too long"), writer);
+
+		assertSame(first, second);
+		assertNotSame(first, other);
+		assertEquals(objectMapper.writeValueAsString(response("/password", "string is too long")), new String(other));
+		assertEquals(1, cache.getStats().hitCount());
+	}
+
+	@Test
+	public void testLargeResponsesAreNotCached() throws Exception {
+		ErrorResponseCache cache = new ErrorResponseCache(10, 200);
+		char[] value = new char[150];
+		Arrays.fill(value, 'x');
+
+		// Messages alone over the maximum are never looked up
+		String longMessage = "instance value (\"" + new String(value) + new String(value) + "\") not found in enum";
+		byte[] first = cache.getResponse(response("/role", longMessage), writer);
+		assertNotSame(first, cache.getResponse(response("/role", longMessage), writer));
+		assertEquals(0, cache.getStats().requestCount());
+
+		// Serialized over the maximum, looked up but not kept
+		String message = "instance value (\"" + new String(value) + "\") not found in enum";
+		first = cache.getResponse(response("/role", message), writer);
+		assertNotSame(first, cache.getResponse(response("/role", message), writer));
+		assertEquals(objectMapper.writeValueAsString(response("/role", message)), new String(first));
+		assertEquals(0, cache.getStats().hitCount());
+	}
+
+	private ValidationResponse response(String pointer, String message) throws Exception {
+		ProcessingReport report = new ListProcessingReport();
+		report.error(new ProcessingMessage().message(message).put("keyword", "maxLength").put("instance", pointer));
+		ValidationResponse response = new ValidationResponse();
+		response.setBodyReport(FgeValidationEngine.toResult(report));
+		return response;
+	}
+}
@@ -1,23 +1,46 @@
 package com.danleinbach.sample.filter;
 
 import com.danleinbach.sample.domain.ValidationResponse;
+import com.danleinbach.sample.json.JsonMappers;
+import com.danleinbach.sample.validation.AbstractJsonSchemaValidationProcessor;
+import com.danleinbach.sample.validation.IBodyAwareValidationProcessor;
 import com.danleinbach.sample.validation.IJsonSchemaValidationProcessor;
+import com.danleinbach.sample.validation.compiled.CompiledValidationEngine;
 import com.danleinbach.sample.validation.impl.DefaultJsonSchemaValidationProcessor;
 import com.danleinbach.sample.validation.mock.MockValidationProcessor;
+import com.danleinbach.sample.wrapper.BodyBuffer;
+import com.danleinbach.sample.wrapper.ReloadableHttpServletRequest;
 import com.danleinbach.sample.wrapper.ServletInputStreamImpl;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -100,6 +123,53 @@ public class JsonSchemaValidationFilterTest extends JsonSchemaValidationFilter {
 		assertTrue(super.getValidationProcessor() instanceof DefaultJsonSchemaValidationProcessor);
 	}
 
+	@Test
+	public void testInitPreloadSchemas() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("preload-schemas")).thenReturn("fail-fast");
+		super.init(config);
+
+		AbstractJsonSchemaValidationProcessor processor = (AbstractJsonSchemaValidationProcessor) super
+				.getValidationProcessor();
+		assertTrue(processor.getSchemaCache().size() >= 4);
+		assertEquals(processor.getSchemaIndex().getSchemaLocations().size(), processor.getSchemaCache().size());
+	}
+
+	@Test(expected = ServletException.class)
+	public void testInitNegativeSchemaCacheSize() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("schema-cache-size")).thenReturn("-1");
+		super.init(config);
+	}
+
+	@Test
+	public void testInitSharesJsonMappers() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		super.init(config);
+
+		assertSame(JsonMappers.getDefault(), super.getJsonMappers());
+		assertSame(JsonMappers.getDefault(),
+				((DefaultJsonSchemaValidationProcessor) super.getValidationProcessor()).getJsonMappers());
+	}
+
+	@Test
+	public void testInitValidationEngine() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("validation-engine")).thenReturn("compiled");
+		super.init(config);
+
+		assertTrue(((AbstractJsonSchemaValidationProcessor) super.getValidationProcessor())
+				.getValidationEngine() instanceof CompiledValidationEngine);
+	}
+
+	@Test(expected = ServletException.class)
+	public void testInitValidationEngineNotAnEngine() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("validation-engine"))
+				.thenReturn("com.danleinbach.sample.validation.mock.MockValidationProcessor");
+		super.init(config);
+	}
+
 	@Test
 	public void testDoFilterSuccess() throws Exception {
 
@@ -123,4 +193,262 @@ public class JsonSchemaValidationFilterTest extends JsonSchemaValidationFilter {
 
 		verify(chain, times(1)).doFilter(any(HttpServletRequest.class), eq(response));
 	}
+
+	@Test
+	public void testDoFilterNoBodySchemaSkipsBuffering() throws Exception {
+
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+
+		ValidationResponse validationResponse = mock(ValidationResponse.class);
+		when(validationResponse.isSuccess()).thenReturn(true);
+
+		BodyAwareProcessor processor = mock(BodyAwareProcessor.class);
+		when(processor.requiresRequestBody(request)).thenReturn(false);
+		when(processor.validateRequest(request)).thenReturn(validationResponse);
+
+		FilterChain chain = mock(FilterChain.class);
+
+		super.setValidationProcessor(processor);
+		super.doFilter(request, response, chain);
+
+		verify(request, never()).getInputStream();
+		verify(chain, times(1)).doFilter(request, response);
+	}
+
+	@Test
+	public void testDoFilterBodyTooLarge() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("max-body-bytes")).thenReturn("3");
+		super.init(config);
+
+		ByteArrayInputStream stream = new ByteArrayInputStream("hello".getBytes());
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		when(request.getContentLengthLong()).thenReturn(- 1L);
+		when(request.getInputStream()).thenReturn(new ServletInputStreamImpl(stream));
+
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		when(response.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+
+		IJsonSchemaValidationProcessor processor = mock(IJsonSchemaValidationProcessor.class);
+
+		FilterChain chain = mock(FilterChain.class);
+
+		super.setValidationProcessor(processor);
+		super.doFilter(request, response, chain);
+
+		verify(response).setStatus(413);
+		verify(processor, never()).validateRequest(any(HttpServletRequest.class));
+		verify(chain, never()).doFilter(any(HttpServletRequest.class), eq(response));
+	}
+
+	@Test
+	public void testDoFilterValidationOffload() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("validation-offload")).thenReturn("always");
+		when(config.getInitParameter("validation-offload-threads")).thenReturn("1");
+		super.init(config);
+
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		final ValidationResponse validationResponse = mock(ValidationResponse.class);
+		when(validationResponse.isSuccess()).thenReturn(true);
+		final Thread filterThread = Thread.currentThread();
+		BodyAwareProcessor processor = mock(BodyAwareProcessor.class);
+		when(processor.validateRequest(request)).thenAnswer(new Answer<ValidationResponse>() {
+			@Override
+			public ValidationResponse answer(InvocationOnMock invocation) {
+				assertTrue(Thread.currentThread().getName().startsWith("validation-offload-"));
+				assertFalse(Thread.currentThread() == filterThread);
+				return validationResponse;
+			}
+		});
+		FilterChain chain = mock(FilterChain.class);
+
+		super.setValidationProcessor(processor);
+		super.doFilter(request, response, chain);
+
+		verify(processor).validateRequest(request);
+		verify(chain).doFilter(request, response);
+		super.destroy();
+	}
+
+	@Test
+	public void testDoFilterAsyncValidation() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("async-validation")).thenReturn("true");
+		super.init(config);
+
+		ByteArrayInputStream stream = new ByteArrayInputStream("{\"hello\":\"world\"}".getBytes());
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		when(request.getContentLengthLong()).thenReturn(- 1L);
+		when(request.getInputStream()).thenReturn(new ServletInputStreamImpl(stream));
+		when(request.isAsyncSupported()).thenReturn(true);
+		when(request.startAsync(request, response)).thenReturn(asyncContext);
+		when(asyncContext.getRequest()).thenReturn(request);
+
+		ValidationResponse validationResponse = mock(ValidationResponse.class);
+		when(validationResponse.isSuccess()).thenReturn(true);
+		IJsonSchemaValidationProcessor processor = mock(IJsonSchemaValidationProcessor.class);
+		when(processor.validateRequest(any(HttpServletRequest.class))).thenReturn(validationResponse);
+
+		FilterChain chain = mock(FilterChain.class);
+
+		super.setValidationProcessor(processor);
+		super.doFilter(request, response, chain);
+
+		verify(asyncContext, timeout(5000)).dispatch();
+		verify(chain, never()).doFilter(any(HttpServletRequest.class), eq(response));
+		ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+		verify(request).setAttribute(eq("com.danleinbach.sample.asyncBody"), body.capture());
+
+		// Dispatched back to the filter, the buffered body is handed down the chain
+		when(request.getAttribute("com.danleinbach.sample.asyncBody")).thenReturn(body.getValue());
+		when(request.getDispatcherType()).thenReturn(DispatcherType.ASYNC);
+		super.doFilter(request, response, chain);
+
+		ArgumentCaptor<HttpServletRequest> dispatched = ArgumentCaptor.forClass(HttpServletRequest.class);
+		verify(chain).doFilter(dispatched.capture(), eq(response));
+		assertTrue(dispatched.getValue() instanceof ReloadableHttpServletRequest);
+		assertEquals("{\"hello\":\"world\"}", IOUtils.toString(dispatched.getValue().getInputStream()));
+		assertTrue(body.getValue() instanceof BodyBuffer);
+
+		// Later dispatches of an application that goes asynchronous itself are not validated again
+		super.doFilter(request, response, chain);
+		verify(chain, times(2)).doFilter(dispatched.capture(), eq(response));
+		assertEquals("{\"hello\":\"world\"}", IOUtils.toString(dispatched.getValue().getInputStream()));
+		verify(processor, times(1)).validateRequest(any(HttpServletRequest.class));
+		verify(request, never()).removeAttribute("com.danleinbach.sample.asyncBody");
+		super.destroy();
+	}
+
+	@Test
+	public void testDoFilterAsyncValidationTimeout() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("async-validation")).thenReturn("true");
+		when(config.getInitParameter("async-validation-threads")).thenReturn("1");
+		super.init(config);
+
+		ByteArrayInputStream stream = new ByteArrayInputStream("{\"hello\":\"world\"}".getBytes());
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		when(request.getContentLengthLong()).thenReturn(- 1L);
+		when(request.getInputStream()).thenReturn(new ServletInputStreamImpl(stream));
+		when(request.isAsyncSupported()).thenReturn(true);
+		when(request.startAsync(request, response)).thenReturn(asyncContext);
+		when(asyncContext.getRequest()).thenReturn(request);
+
+		final CountDownLatch validating = new CountDownLatch(1);
+		final CountDownLatch timedOut = new CountDownLatch(1);
+		final ValidationResponse validationResponse = mock(ValidationResponse.class);
+		when(validationResponse.isSuccess()).thenReturn(true);
+		IJsonSchemaValidationProcessor processor = mock(IJsonSchemaValidationProcessor.class);
+		when(processor.validateRequest(any(HttpServletRequest.class))).thenAnswer(new Answer<ValidationResponse>() {
+			@Override
+			public ValidationResponse answer(InvocationOnMock invocation) throws Throwable {
+				validating.countDown();
+				timedOut.await(5, TimeUnit.SECONDS);
+				return validationResponse;
+			}
+		});
+
+		super.setValidationProcessor(processor);
+		super.doFilter(request, response, mock(FilterChain.class));
+
+		// The request times out while it is being validated, the finished validation leaves it alone
+		assertTrue(validating.await(5, TimeUnit.SECONDS));
+		ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+		verify(asyncContext).addListener(listener.capture());
+		listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+		timedOut.countDown();
+
+		// A request validated after it on the single validation thread shows the first one has finished
+		HttpServletRequest nextRequest = mock(HttpServletRequest.class);
+		AsyncContext nextAsyncContext = mock(AsyncContext.class);
+		when(nextAsyncContext.getRequest()).thenReturn(nextRequest);
+		super.validateAsync(nextAsyncContext, new AtomicBoolean(), new AtomicInteger(1), BodyBuffer.allocate(null));
+		verify(nextAsyncContext, timeout(5000)).dispatch();
+
+		super.destroy();
+		verify(asyncContext, never()).dispatch();
+		verify(asyncContext, never()).complete();
+		verify(request, never()).setAttribute(eq("com.danleinbach.sample.asyncBody"), any());
+	}
+
+	@Test
+	public void testDoFilterAsyncValidationCompletedWhileValidating() throws Exception {
+		FilterConfig config = mock(FilterConfig.class);
+		when(config.getInitParameter("async-validation")).thenReturn("true");
+		when(config.getInitParameter("async-validation-threads")).thenReturn("1");
+		super.init(config);
+
+		ByteArrayInputStream stream = new ByteArrayInputStream("{\"hello\":\"world\"}".getBytes());
+		HttpServletRequest request = mock(HttpServletRequest.class);
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		when(request.getContentLengthLong()).thenReturn(- 1L);
+		when(request.getInputStream()).thenReturn(new ServletInputStreamImpl(stream));
+		when(request.isAsyncSupported()).thenReturn(true);
+		when(request.startAsync(request, response)).thenReturn(asyncContext);
+		when(asyncContext.getRequest()).thenReturn(request);
+
+		final CountDownLatch validating = new CountDownLatch(1);
+		final CountDownLatch completed = new CountDownLatch(1);
+		final AtomicReference<BodyBuffer> body = new AtomicReference<BodyBuffer>();
+		final AtomicReference<Object> read = new AtomicReference<Object>();
+		final ValidationResponse validationResponse = mock(ValidationResponse.class);
+		when(validationResponse.isSuccess()).thenReturn(true);
+		IJsonSchemaValidationProcessor processor = mock(IJsonSchemaValidationProcessor.class);
+		when(processor.validateRequest(any(HttpServletRequest.class))).thenAnswer(new Answer<ValidationResponse>() {
+			@Override
+			public ValidationResponse answer(InvocationOnMock invocation) throws Throwable {
+				ReloadableHttpServletRequest validated = (ReloadableHttpServletRequest) invocation.getArguments()[0];
+				if(! body.compareAndSet(null, validated.getBody())) {
+					return validationResponse;
+				}
+				validating.countDown();
+				completed.await(5, TimeUnit.SECONDS);
+				try {
+					read.set(IOUtils.toString(validated.getInputStream()));
+				} catch(IllegalStateException e) {
+					read.set(e);
+				}
+				return validationResponse;
+			}
+		});
+
+		super.setValidationProcessor(processor);
+		super.doFilter(request, response, mock(FilterChain.class));
+
+		// The container times the request out and completes it while the body is still being validated
+		assertTrue(validating.await(5, TimeUnit.SECONDS));
+		ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+		verify(asyncContext).addListener(listener.capture());
+		listener.getValue().onTimeout(new AsyncEvent(asyncContext));
+		listener.getValue().onComplete(new AsyncEvent(asyncContext));
+		assertFalse(body.get().isReleased());
+		completed.countDown();
+
+		// A request validated after it on the single validation thread shows the first one has finished
+		HttpServletRequest nextRequest = mock(HttpServletRequest.class);
+		AsyncContext nextAsyncContext = mock(AsyncContext.class);
+		when(nextAsyncContext.getRequest()).thenReturn(nextRequest);
+		super.validateAsync(nextAsyncContext, new AtomicBoolean(), new AtomicInteger(1), BodyBuffer.allocate(null));
+		verify(nextAsyncContext, timeout(5000)).dispatch();
+
+		super.destroy();
+		assertEquals("{\"hello\":\"world\"}", read.get());
+		assertTrue(body.get().isReleased());
+		verify(asyncContext, never()).dispatch();
+		verify(asyncContext, never()).complete();
+	}
+
+	/**
+	 * A processor that can tell whether it reads the request body.
+	 */
+	private interface BodyAwareProcessor extends IJsonSchemaValidationProcessor, IBodyAwareValidationProcessor {
+	}
 }
@@ -0,0 +1,95 @@
+package com.danleinbach.sample.filter;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class RequestMatcherTest {
+
+	private static final List<String> NONE = Collections.emptyList();
+
+	@Test
+	public void testMatchesAllByDefault() throws Exception {
+		RequestMatcher matcher = new RequestMatcher(NONE, NONE, NONE, NONE, NONE, NONE);
+
+		assertTrue(matcher.matchesAll());
+		assertTrue(matcher.matches(request("OPTIONS", "/static/app.js", "text/plain")));
+	}
+
+	@Test
+	public void testMatchesPaths() throws Exception {
+		RequestMatcher matcher = new RequestMatcher(list("/app/index, /app/index/users/admin"),
+				list("/app/index/users, /static"), NONE, NONE, NONE, NONE);
+
+		assertFalse(matcher.matchesAll());
+		assertTrue(matcher.matches(request("POST", "/app/index/items", null)));
+		assertFalse(matcher.matches(request("POST", "/app/index/users/1", null)));
+		assertTrue(matcher.matches(request("POST", "/app/index/users/admin", null)));
+		assertFalse(matcher.matches(request("GET", "/static/app.js", null)));
+		assertFalse(matcher.matches(request("GET", "/other", null)));
+
+		matcher = new RequestMatcher(NONE, list("/static"), NONE, NONE, NONE, NONE);
+		assertTrue(matcher.matches(request("GET", "/other", null)));
+		assertFalse(matcher.matches(request("GET", "/static", null)));
+	}
+
+	@Test
+	public void testMatchesPathsWithinContext() throws Exception {
+		RequestMatcher matcher = new RequestMatcher(NONE, list("/static"), NONE, NONE, NONE, NONE);
+
+		assertFalse(matcher.matches(request("GET", "/app", "/app/static/app.js", null)));
+		assertTrue(matcher.matches(request("GET", "/app", "/app/index/users", null)));
+		assertTrue(matcher.matches(request("GET", "/static", "/static/index", null)));
+		assertFalse(matcher.matches(request("GET", "/static", "/static/static/app.js", null)));
+	}
+
+	@Test
+	public void testMatchesMethods() throws Exception {
+		RequestMatcher matcher = new RequestMatcher(NONE, NONE, NONE, list("OPTIONS,HEAD"), NONE, NONE);
+		assertTrue(matcher.matches(request("POST", "/app", null)));
+		assertFalse(matcher.matches(request("HEAD", "/app", null)));
+
+		matcher = new RequestMatcher(NONE, NONE, list("POST,PUT"), NONE, NONE, NONE);
+		assertTrue(matcher.matches(request("PUT", "/app", null)));
+		assertFalse(matcher.matches(request("GET", "/app", null)));
+	}
+
+	@Test
+	public void testMatchesContentTypes() throws Exception {
+		RequestMatcher matcher = new RequestMatcher(NONE, NONE, NONE, NONE, list("application/json, text/*"),
+				list("text/html"));
+
+		assertTrue(matcher.matches(request("POST", "/app", null)));
+		assertTrue(matcher.matches(request("POST", "/app", "application/json")));
+		assertTrue(matcher.matches(request("POST", "/app", "Application/JSON ; charset=UTF-8")));
+		assertTrue(matcher.matches(request("POST", "/app", "text/plain")));
+		assertFalse(matcher.matches(request("POST", "/app", "text/html;charset=UTF-8")));
+		assertFalse(matcher.matches(request("POST", "/app", "application/jsonp")));
+		assertFalse(matcher.matches(request("POST", "/app", "multipart/form-data; boundary=x")));
+	}
+
+	private List<String> list(String value) {
+		return RequestMatcher.parseList(value);
+	}
+
+	private MockHttpServletRequest request(String method, String uri, String contentType) {
+		return request(method, "", uri, contentType);
+	}
+
+	private MockHttpServletRequest request(String method, String contextPath, String uri, String contentType) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setContextPath(contextPath);
+		request.setContentType(contentType);
+		return request;
+	}
+}
@@ -0,0 +1,52 @@
+package com.danleinbach.sample.metrics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class HistogramTest {
+
+	@Test
+	public void testBucketsBoundValues() throws Exception {
+		Random random = new Random(42);
+		for(int x = 0; x < 10000; x++) {
+			long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+			long upperBound = Histogram.upperBound(Histogram.index(value));
+			assertTrue(value + " <= " + upperBound, value <= upperBound);
+			assertTrue(value + " ~ " + upperBound, upperBound - value <= value / 16 + 1);
+		}
+		assertEquals(Long.MAX_VALUE, Histogram.upperBound(Histogram.index(Long.MAX_VALUE)));
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		Histogram histogram = new Histogram();
+		for(int x = 1; x <= 1000; x++) {
+			histogram.record(x);
+		}
+
+		HistogramSnapshot snapshot = histogram.snapshot();
+
+		assertEquals(1000, snapshot.getCount());
+		assertEquals(500.5, snapshot.getMean(), 0.001);
+		assertEquals(1000, snapshot.getMax());
+		assertTrue(snapshot.getP50() >= 500 && snapshot.getP50() <= 532);
+		assertTrue(snapshot.getP99() >= 990 && snapshot.getP99() <= 1023);
+	}
+
+	@Test
+	public void testEmptySnapshot() throws Exception {
+		HistogramSnapshot snapshot = new Histogram().snapshot();
+
+		assertEquals(0, snapshot.getCount());
+		assertEquals(0, snapshot.getP99());
+	}
+}
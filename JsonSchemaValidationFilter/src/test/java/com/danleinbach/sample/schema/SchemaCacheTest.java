@@ -0,0 +1,55 @@
+package com.danleinbach.sample.schema;
+
+import com.danleinbach.sample.validation.engine.EngineSchema;
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.danleinbach.sample.validation.impl.DefaultJsonSchemaValidationProcessor;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SchemaCacheTest {
+
+	private static final String USERS_BODY = "resource:/index/users/POST/body.json";
+	private static final String INDEX_BODY = "resource:/index/POST/body.json";
+
+	@Test
+	public void testGetCachesCompiledSchema() throws Exception {
+		SchemaCache<EngineSchema> cache = cache(10);
+
+		assertSame(cache.get(USERS_BODY), cache.get(USERS_BODY));
+		assertEquals(1, cache.getStats().missCount());
+		assertEquals(1, cache.getStats().hitCount());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testGetEvictsOverMaximumSize() throws Exception {
+		SchemaCache<EngineSchema> cache = cache(1);
+
+		cache.get(USERS_BODY);
+		cache.get(INDEX_BODY);
+
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getStats().evictionCount());
+	}
+
+	@Test(expected = ValidationEngineException.class)
+	public void testGetMissingSchema() throws Exception {
+		cache(10).get("resource:/index/missing/POST/body.json");
+	}
+
+	/**
+	 * @return Schema cache of a validation processor, which compiles schemas with its validation engine
+	 */
+	private SchemaCache<EngineSchema> cache(long maximumSize) {
+		DefaultJsonSchemaValidationProcessor processor = new DefaultJsonSchemaValidationProcessor();
+		processor.setSchemaCacheSize(maximumSize);
+		return processor.getSchemaCache();
+	}
+}
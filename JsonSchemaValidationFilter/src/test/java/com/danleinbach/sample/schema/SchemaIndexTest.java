@@ -0,0 +1,135 @@
+package com.danleinbach.sample.schema;
+
+import com.danleinbach.sample.constants.SchemaLocationConstants;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class SchemaIndexTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	private SchemaIndex schemaIndex;
+
+	@Before
+	public void setUp() throws Exception {
+		schemaIndex = SchemaIndex.build("/", getClass().getClassLoader());
+	}
+
+	@Test
+	public void testBuildFindsSchemas() throws Exception {
+		assertTrue(schemaIndex.isComplete());
+		assertTrue(schemaIndex.getSchemaLocations().contains("resource:/index/users/POST/body.json"));
+		assertTrue(schemaIndex.getSchemaLocations().contains("resource:/index/users/admin/POST/header.json"));
+	}
+
+	@Test
+	public void testBuildIncompleteForUnlistedJars() throws Exception {
+		// Jars of a class loader that is not a URLClassLoader cannot be listed for the classpath root
+		ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+		};
+		assertFalse(SchemaIndex.build("/", classLoader).isComplete());
+
+		SchemaIndex index = SchemaIndex.build("/index/", classLoader);
+		assertTrue(index.isComplete());
+		assertEquals(schemaIndex.getSchemaLocations().size(), index.getSchemaLocations().size());
+	}
+
+	@Test
+	public void testLookupExactFolder() throws Exception {
+		assertEquals("resource:/index/users/POST/body.json",
+				schemaIndex.lookup("POST", "/app/index/users", SchemaLocationConstants.BODY));
+		assertEquals("resource:/index/users/admin/POST/header.json",
+				schemaIndex.lookup("POST", "/app/index/users/admin", SchemaLocationConstants.HEADER));
+	}
+
+	@Test
+	public void testLookupNearestAncestor() throws Exception {
+		assertEquals("resource:/index/users/POST/body.json",
+				schemaIndex.lookup("POST", "/app/index/users/42", SchemaLocationConstants.BODY));
+		assertEquals("resource:/index/POST/body.json",
+				schemaIndex.lookup("POST", "/app/index/other/42", SchemaLocationConstants.BODY));
+		assertEquals("resource:/index/users/POST/body.json",
+				schemaIndex.lookup("POST", "/app/index/users/admin/", SchemaLocationConstants.BODY));
+	}
+
+	@Test
+	public void testLookupIgnoresExtension() throws Exception {
+		assertEquals("resource:/index/users/GET/param.json",
+				schemaIndex.lookup("GET", "/app/index/users/42.json", SchemaLocationConstants.PARAM));
+		assertEquals("resource:/index/POST/body.json",
+				schemaIndex.lookup("POST", "/app/index.users/42", SchemaLocationConstants.BODY));
+	}
+
+	@Test
+	public void testLookupNoSchema() throws Exception {
+		assertNull(schemaIndex.lookup("POST", "/app/index/users", SchemaLocationConstants.HEADER));
+		assertNull(schemaIndex.lookup("DELETE", "/app/index/users", SchemaLocationConstants.BODY));
+		assertNull(schemaIndex.lookup("POST", "/app//index/users", SchemaLocationConstants.BODY));
+		assertNull(schemaIndex.lookup("POST", "/app", SchemaLocationConstants.BODY));
+		assertNull(schemaIndex.lookup("POST", "", SchemaLocationConstants.BODY));
+	}
+
+	@Test
+	public void testLookupMaxBodyBytes() throws Exception {
+		assertEquals(64, schemaIndex.lookupMaxBodyBytes("POST", "/app/index/users/42"));
+		assertEquals(- 1, schemaIndex.lookupMaxBodyBytes("POST", "/app/index"));
+		assertEquals(- 1, schemaIndex.lookupMaxBodyBytes("GET", "/app/index/users"));
+	}
+
+	@Test
+	public void testLookupRoute() throws Exception {
+		assertEquals("POST /index/users", schemaIndex.lookupRoute("POST", "/app/index/users/42"));
+		assertEquals("POST /index/users/admin", schemaIndex.lookupRoute("POST", "/app/index/users/admin"));
+		assertEquals("GET /index/users", schemaIndex.lookupRoute("GET", "/app/index/users"));
+		assertNull(schemaIndex.lookupRoute("DELETE", "/app/index/users"));
+	}
+
+	@Test
+	public void testDirectoryUpdates() throws Exception {
+		File root = temporaryFolder.getRoot();
+		File rootBody = write(root, "POST/body.json", "{}");
+		SchemaIndex index = SchemaIndex.build(root);
+		List<String> before = index.getSchemaLocations();
+		String rootLocation = rootBody.toURI().toString();
+		assertEquals(rootLocation, index.lookup("POST", "/app/users/42", SchemaLocationConstants.BODY));
+
+		File usersBody = write(root, "users/POST/body.json", "{}");
+		String usersLocation = index.update(usersBody);
+		assertEquals(usersBody.toURI().toString(), usersLocation);
+		assertNull(index.update(write(root, "users/POST/limits.json", "{\"maxBodyBytes\": 10}")));
+		assertEquals(usersLocation, index.lookup("POST", "/app/users/42", SchemaLocationConstants.BODY));
+		assertEquals("POST /users", index.lookupRoute("POST", "/app/users/42"));
+		assertEquals(10, index.lookupMaxBodyBytes("POST", "/app/users"));
+		assertEquals(1, before.size());
+		assertEquals(2, index.getSchemaLocations().size());
+
+		assertEquals(usersLocation, index.remove(usersBody));
+		assertEquals(rootLocation, index.lookup("POST", "/app/users/42", SchemaLocationConstants.BODY));
+		assertEquals("POST /", index.lookupRoute("POST", "/app/users/42"));
+		assertEquals(10, index.lookupMaxBodyBytes("POST", "/app/users"));
+		assertFalse(index.getSchemaLocations().contains(usersLocation));
+		assertNull(index.update(write(root, "users/notes.json", "{}")));
+	}
+
+	private File write(File root, String path, String content) throws Exception {
+		File file = new File(root, path);
+		FileUtils.writeStringToFile(file, content);
+		return file;
+	}
+}
@@ -0,0 +1,55 @@
+package com.danleinbach.sample.spring;
+
+import com.danleinbach.sample.constants.ValidationConstants;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ValidatedJsonHttpMessageConverterTest {
+
+	private final ValidatedJsonHttpMessageConverter converter = new ValidatedJsonHttpMessageConverter();
+
+	@Test
+	public void testReadUsesValidatedBody() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users");
+		request.setContent("not json".getBytes());
+		request.setAttribute(ValidationConstants.VALIDATED_BODY_ATTRIBUTE.getValue(),
+				new ObjectMapper().readTree("{\"userName\":\"dan\"}"));
+
+		Map<?, ?> body = (Map<?, ?>) converter.read(Map.class, new ServletServerHttpRequest(request));
+
+		assertEquals("dan", body.get("userName"));
+	}
+
+	@Test
+	public void testReadFallsBackToBody() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/users");
+		request.setContent("{\"userName\":\"dan\"}".getBytes());
+
+		Map<?, ?> body = (Map<?, ?>) converter.read(Map.class, null, new ServletServerHttpRequest(request));
+
+		assertEquals("dan", body.get("userName"));
+	}
+
+	@Test
+	public void testWriteFlushesBody() throws Exception {
+		MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+		converter.write(Collections.singletonMap("userName", "dan"), MediaType.APPLICATION_JSON, outputMessage);
+
+		assertEquals("{\"userName\":\"dan\"}", outputMessage.getBodyAsString());
+	}
+}
@@ -0,0 +1,31 @@
+package com.danleinbach.sample.validation;
+
+import com.github.fge.jsonschema.util.RhinoHelper;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Differential test against the ECMA 262 engine the tree based validator matches patterns with.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class EcmaRegexTest {
+
+	private static final String[] PATTERNS = {"^[a-z]+$", "\\d+\"$", "a$|^b", "^a.c$", "[$]", "\\$$", "^[^\\n]*$",
+			"[[a]", "^[a&&b]+$", "[]", "^[^]$", "x\\z", "^$", "^\\Qa\\E$", "\\v"};
+	private static final String[] INPUTS = {"", "abc", "abc\n", "abc\r\n", "abc\u2028", "42\"", "42\"\n", "b", "a\n",
+			"abc\u0085", "a\nc", "a\u0085c", "$", "[", "a", "&", "]", "\n", "x\\z", "xz", "Qa", "\u000b"};
+
+	@Test
+	public void testMatchesLikeEcma() throws Exception {
+		for(String pattern : PATTERNS) {
+			for(String input : INPUTS) {
+				assertEquals(pattern + " " + input, RhinoHelper.regMatch(pattern, input),
+						EcmaRegex.compile(pattern).matcher(input).find());
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package com.danleinbach.sample.validation.compiled;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import com.github.fge.jsonschema.util.JsonLoader;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Differential tests: the compiled schema has to accept and reject the same documents as the tree based
+ * validator.
+ * <p/>
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class CompiledSchemaTest {
+
+	private static final String[] SCHEMAS = {
+			"{\"type\":\"object\",\"required\":[\"name\",\"age\"],\"additionalProperties\":false,\"properties\":{"
+					+ "\"name\":{\"type\":\"string\",\"minLength\":2,\"maxLength\":8,\"pattern\":\"^[a-z]+$\"},"
+					+ "\"age\":{\"type\":\"integer\",\"minimum\":0,\"maximum\":150,\"exclusiveMaximum\":true},"
+					+ "\"role\":{\"enum\":[\"admin\",\"user\",1,null]},"
+					+ "\"tags\":{\"type\":\"array\",\"maxItems\":2,\"items\":{\"type\":\"string\"}},"
+					+ "\"emails\":{\"type\":\"array\",\"uniqueItems\":true},"
+					+ "\"score\":{\"type\":[\"number\",\"null\"]}}}",
+			"{\"type\":\"array\",\"minItems\":1,\"items\":{\"type\":\"object\",\"required\":[\"id\"],\"properties\":{"
+					+ "\"id\":{\"type\":\"integer\",\"minimum\":1.5,\"exclusiveMinimum\":true},"
+					+ "\"tags\":{\"type\":\"array\",\"items\":{\"enum\":[\"a\",\"b\",true,2]}}}}}",
+			"{\"additionalProperties\":false,\"properties\":{"
+					+ "\"a/b~c\\\"\\\\\\n\\u00e9\":{\"type\":\"string\",\"pattern\":\"\\\\d+\\\"$\"},"
+					+ "\"x\":{\"oneOf\":[{\"type\":\"string\"},{\"type\":\"integer\"}]}}}",
+			"{\"type\":[\"string\",\"number\",\"boolean\"],\"maximum\":10,\"maxLength\":3,\"enum\":[\"ab\",5,2.5,false]}",
+			"{\"$schema\":\"http://json-schema.org/draft-04/schema#\",\"properties\":{"
+					+ "\"name\":{\"type\":\"string\",\"minLength\":1},\"age\":{\"minimum\":18}}}"
+	};
+
+	private static final String[] KEYS = {"name", "age", "role", "tags", "emails", "score", "id", "x",
+			"a/b~c\"\\\n\u00e9"};
+	private static final String[] STRINGS = {"", "a", "ab", "dan", "Dan", "admin", "user", "daniellong", "12\"",
+			"\u00e9\u00e9", "dan\n", "12\"\n"};
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+
+	@Test
+	public void testValidateMatchesTreeValidation() throws Exception {
+		String[] instances = {
+				"{\"name\":\"dan\",\"age\":30}",
+				"{\"name\":\"dan\",\"age\":30,\"role\":\"admin\",\"tags\":[\"a\",\"b\"],\"score\":1.5}",
+				"{\"name\":\"dan\",\"age\":30,\"role\":1.0,\"score\":null,\"emails\":[\"a\",\"b\"]}",
+				"{\"name\":\"d\",\"age\":150,\"role\":\"guest\",\"tags\":[\"a\",2,3],\"emails\":[1,1],\"other\":1}",
+				"[{\"id\":2,\"tags\":[\"a\",true,2.0]},{\"id\":1}]",
+				"[{\"id\":2,\"tags\":[\"c\",false]},{}]",
+				"[]",
+				"{\"a/b~c\\\"\\\\\\n\\u00e9\":\"42\\\"\",\"x\":1}",
+				"{\"a/b~c\\\"\\\\\\n\\u00e9\":\"42\",\"x\":1.5}",
+				"\"ab\"", "\"abcd\"", "5", "5.0", "2.5", "12", "false", "true", "null",
+				"{\"name\":\"\",\"age\":17.5}",
+				"{\"name\":\"dan\\n\",\"age\":30}",
+				"{\"a/b~c\\\"\\\\\\n\\u00e9\":\"42\\\"\\n\"}"
+		};
+		for(String schema : SCHEMAS) {
+			CompiledSchema compiledSchema = compile(schema);
+			assertTrue(schema, compiledSchema.isCompiled());
+			for(String instance : instances) {
+				assertSameResult(schema, compiledSchema, objectMapper.readTree(instance));
+			}
+		}
+	}
+
+	@Test
+	public void testValidateRandomDocumentsMatchesTreeValidation() throws Exception {
+		Random random = new Random(1018);
+		for(String schema : SCHEMAS) {
+			CompiledSchema compiledSchema = compile(schema);
+			for(int x = 0; x < 500; x++) {
+				JsonNode instance = random.nextInt(3) == 0 ? randomArray(random, 0) : randomObject(random, 0);
+				assertSameResult(schema, compiledSchema, instance);
+			}
+		}
+	}
+
+	@Test
+	public void testValidateFailFastStopsAtFirstError() throws Exception {
+		CompiledSchema compiledSchema = compile(SCHEMAS[0]);
+		JsonNode instance = objectMapper.readTree("{\"name\":\"D\",\"age\":-1,\"emails\":[1,1]}");
+
+		assertEquals(4, count(compiledSchema.validate(instance, false)));
+		ProcessingReport report = compiledSchema.validate(instance, true);
+		assertFalse(report.isSuccess());
+		assertEquals(1, count(report));
+		assertEquals("/name", report.iterator().next().asJson().path("instance").path("pointer").asText());
+	}
+
+	@Test
+	public void testValidateFallbackPointers() throws Exception {
+		CompiledSchema compiledSchema = compile(SCHEMAS[0]);
+
+		ProcessingReport report = compiledSchema.validate(
+				objectMapper.readTree("{\"name\":\"dan\",\"age\":1,\"emails\":[1,1]}"), false);
+
+		ProcessingMessage message = report.iterator().next();
+		assertEquals("uniqueItems", message.asJson().path("keyword").asText());
+		assertEquals("/emails", message.asJson().path("instance").path("pointer").asText());
+	}
+
+	@Test
+	public void testUnsupportedSchemasAreNotCompiled() throws Exception {
+		assertFalse(compile("{\"properties\":{\"a\":{\"$ref\":\"#/definitions/a\"}},\"definitions\":{\"a\":{}}}")
+				.isCompiled());
+		assertFalse(compile("{\"$schema\":\"http://json-schema.org/draft-03/schema#\"}").isCompiled());
+		assertTrue(compile("{\"minProperties\":1}").isCompiled());
+	}
+
+	private void assertSameResult(String schema, CompiledSchema compiledSchema, JsonNode instance)
+			throws Exception {
+		ProcessingReport expected = factory.getJsonSchema(JsonLoader.fromString(schema)).validate(instance);
+		ProcessingReport actual = compiledSchema.validate(instance, false);
+		String message = schema + " " + instance;
+		assertEquals(message, expected.isSuccess(), actual.isSuccess());
+		assertEquals(message, count(expected), count(actual));
+		assertEquals(message, expected.isSuccess(), compiledSchema.validate(instance, true).isSuccess());
+	}
+
+	private CompiledSchema compile(String schema) throws Exception {
+		return CompiledSchema.compile("resource:/test", JsonLoader.fromString(schema), factory);
+	}
+
+	private JsonNode randomValue(Random random, int depth) {
+		switch(random.nextInt(depth < 3 ? 8 : 6)) {
+			case 0:
+				return JsonNodeFactory.instance.textNode(STRINGS[random.nextInt(STRINGS.length)]);
+			case 1:
+				return JsonNodeFactory.instance.numberNode(random.nextInt(200) - 20);
+			case 2:
+				return JsonNodeFactory.instance.numberNode(random.nextInt(40) / 4.0);
+			case 3:
+				return JsonNodeFactory.instance.booleanNode(random.nextBoolean());
+			case 4:
+				return JsonNodeFactory.instance.nullNode();
+			case 5:
+				return JsonNodeFactory.instance.textNode(STRINGS[random.nextInt(4)]);
+			case 6:
+				return randomArray(random, depth + 1);
+			default:
+				return randomObject(random, depth + 1);
+		}
+	}
+
+	private ObjectNode randomObject(Random random, int depth) {
+		ObjectNode object = JsonNodeFactory.instance.objectNode();
+		for(int x = random.nextInt(5); x > 0; x--) {
+			object.put(KEYS[random.nextInt(KEYS.length)], randomValue(random, depth));
+		}
+		return object;
+	}
+
+	private ArrayNode randomArray(Random random, int depth) {
+		ArrayNode array = JsonNodeFactory.instance.arrayNode();
+		for(int x = random.nextInt(4); x > 0; x--) {
+			array.add(random.nextInt(3) == 0 ? randomObject(random, depth + 1) : randomValue(random, depth));
+		}
+		return array;
+	}
+
+	private int count(ProcessingReport report) {
+		int count = 0;
+		for(ProcessingMessage ignored : report) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,270 @@
+package com.danleinbach.sample.validation.field;
+
+import com.danleinbach.sample.constants.SchemaLocationConstants;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import com.github.fge.jsonschema.util.JsonLoader;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class FieldSchemaTest {
+
+	private static final String SCHEMA = "{\"type\":\"object\",\"required\":[\"token\",\"page\"],"
+			+ "\"additionalProperties\":false,\"properties\":{"
+			+ "\"token\":{\"type\":\"string\",\"minLength\":2,\"pattern\":\"^[a-z]+$\"},"
+			+ "\"page\":{\"type\":\"integer\",\"minimum\":1,\"maximum\":100},"
+			+ "\"ratio\":{\"type\":[\"number\",\"null\"]},"
+			+ "\"debug\":{\"type\":\"boolean\"},"
+			+ "\"sort\":{\"enum\":[\"asc\",\"desc\"]}}}";
+
+	@Test
+	public void testValidateParams() throws Exception {
+		FieldSchema schema = FieldSchema.compile("resource:/test", JsonLoader.fromString(SCHEMA));
+		assertTrue(schema.isCompiled());
+
+		assertTrue(validate(schema, "token", "abc", "page", "1").isSuccess());
+		assertTrue(validate(schema, "token", "abc", "page", "100", "ratio", "0.5", "debug", "true", "sort", "asc")
+				.isSuccess());
+
+		assertEquals("[required]", keywords(validate(schema, "token", "abc")));
+		assertEquals("[minLength]", keywords(validate(schema, "token", "a", "page", "1")));
+		assertEquals("[pattern]", keywords(validate(schema, "token", "ABC", "page", "1")));
+		assertEquals("[pattern]", keywords(validate(schema, "token", "abc\n", "page", "1")));
+		assertEquals("[pattern]", keywords(validate(schema, "token", "abc\r\n", "page", "1")));
+		assertEquals("[type]", keywords(validate(schema, "token", "abc", "page", "1.5")));
+		assertEquals("[maximum]", keywords(validate(schema, "token", "abc", "page", "101")));
+		assertEquals("[type]", keywords(validate(schema, "token", "abc", "page", "1", "ratio", "high")));
+		assertEquals("[type]", keywords(validate(schema, "token", "abc", "page", "1", "debug", "yes")));
+		assertEquals("[enum]", keywords(validate(schema, "token", "abc", "page", "1", "sort", "up")));
+		assertEquals("[additionalProperties]", keywords(validate(schema, "token", "abc", "page", "1", "other", "x")));
+		assertEquals("[additionalProperties, required]",
+				keywords(validate(schema, "page", "0", "other", "x")));
+	}
+
+	@Test
+	public void testValidateFailFast() throws Exception {
+		FieldSchema schema = FieldSchema.compile("resource:/test", JsonLoader.fromString(SCHEMA));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter("token", "A");
+		request.addParameter("page", "0");
+
+		assertEquals(3, count(schema.validate(request, SchemaLocationConstants.PARAM, false)));
+		assertEquals(1, count(schema.validate(request, SchemaLocationConstants.PARAM, true)));
+	}
+
+	@Test
+	public void testValidateHeaders() throws Exception {
+		FieldSchema schema = FieldSchema.compile("resource:/test",
+				JsonLoader.fromString("{\"required\":[\"token\"],\"properties\":{\"token\":{\"type\":\"string\"}}}"));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addParameter("token", "abc");
+		assertFalse(schema.validate(request, SchemaLocationConstants.HEADER, false).isSuccess());
+
+		request.addHeader("Token", "abc");
+		assertTrue(schema.validate(request, SchemaLocationConstants.HEADER, false).isSuccess());
+
+		schema = compile("{\"required\":[\"token\"],\"additionalProperties\":false,"
+				+ "\"properties\":{\"token\":{\"type\":\"string\"}}}");
+		assertTrue(schema.validate(request, SchemaLocationConstants.HEADER, false).isSuccess());
+		request.addHeader("Other", "x");
+		assertEquals("[additionalProperties]", keywords(schema.validate(request, SchemaLocationConstants.HEADER,
+				false)));
+	}
+
+	@Test
+	public void testValidateEnumTypes() throws Exception {
+		FieldSchema schema = compile("{\"properties\":{\"a\":{\"enum\":[true,null,1]},"
+				+ "\"b\":{\"type\":[\"boolean\",\"integer\"],\"enum\":[true,1]}}}");
+
+		assertEquals("[enum]", keywords(validate(schema, "a", "true")));
+		assertEquals("[enum]", keywords(validate(schema, "a", "null")));
+		assertEquals("[enum]", keywords(validate(schema, "a", "1")));
+		assertTrue(validate(schema, "b", "true").isSuccess());
+		assertEquals("[type, enum]", keywords(validate(schema, "b", "1.0e0")));
+		assertTrue(validate(schema, "b", "1").isSuccess());
+		assertEquals("[enum]", keywords(validate(schema, "b", "false")));
+	}
+
+	@Test
+	public void testValidateRepeatedParams() throws Exception {
+		FieldSchema schema = compile("{\"properties\":{"
+				+ "\"id\":{\"type\":[\"array\",\"integer\"],\"items\":{\"type\":\"integer\",\"minimum\":1},"
+				+ "\"maxItems\":3,\"uniqueItems\":true},"
+				+ "\"tag\":{\"type\":\"array\",\"minItems\":2},"
+				+ "\"page\":{\"type\":\"integer\"}}}");
+		assertTrue(schema.isCompiled());
+
+		assertTrue(validate(schema, "id", "1").isSuccess());
+		assertTrue(validate(schema, "id", "1", "id", "2", "id", "3", "tag", "a", "tag", "b").isSuccess());
+		// A field that is not an array only reads the first value
+		assertTrue(validate(schema, "page", "1", "page", "x").isSuccess());
+
+		assertEquals("[type]", keywords(validate(schema, "id", "a")));
+		assertEquals("[minimum]", keywords(validate(schema, "id", "1", "id", "0")));
+		assertEquals("[maxItems]", keywords(validate(schema, "id", "1", "id", "2", "id", "3", "id", "4")));
+		assertEquals("[uniqueItems]", keywords(validate(schema, "id", "1", "id", "1")));
+		assertEquals("[minItems]", keywords(validate(schema, "tag", "a")));
+
+		ProcessingReport report = validate(schema, "id", "1", "id", "x");
+		assertEquals("/id/1", report.iterator().next().asJson().path("instance").path("pointer").asText());
+		assertEquals("/properties/id/items",
+				report.iterator().next().asJson().path("schema").path("pointer").asText());
+	}
+
+	@Test
+	public void testValidateRepeatedHeaders() throws Exception {
+		FieldSchema schema = compile("{\"properties\":{\"accept\":{\"maxItems\":1}}}");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Accept", "text/plain");
+		assertTrue(schema.validate(request, SchemaLocationConstants.HEADER, false).isSuccess());
+
+		request.addHeader("Accept", "application/json");
+		assertEquals("[maxItems]", keywords(schema.validate(request, SchemaLocationConstants.HEADER, false)));
+	}
+
+	@Test
+	public void testCoerceNumbers() throws Exception {
+		FieldSchema schema = compile("{\"properties\":{\"i\":{\"type\":\"integer\"},\"n\":{\"type\":\"number\"},"
+				+ "\"s\":{\"type\":[\"integer\",\"string\"],\"maxLength\":2}}}");
+
+		assertTrue(validate(schema, "i", "-12", "n", "1.5e-3", "s", "12345").isSuccess());
+		assertTrue(validate(schema, "n", "-7").isSuccess());
+		assertEquals("[type]", keywords(validate(schema, "i", "1e2")));
+		assertEquals("[type]", keywords(validate(schema, "i", "-")));
+		assertEquals("[type]", keywords(validate(schema, "n", "1.")));
+		assertEquals("[type]", keywords(validate(schema, "n", ".5")));
+		assertEquals("[type]", keywords(validate(schema, "n", "1e")));
+		assertEquals("[type]", keywords(validate(schema, "n", "0x10")));
+		assertEquals("[maxLength]", keywords(validate(schema, "s", "1.5x")));
+	}
+
+	@Test
+	public void testReadTreeMatchesCompiledValidation() throws Exception {
+		String[] schemas = {SCHEMA, "{\"properties\":{"
+				+ "\"id\":{\"type\":[\"array\",\"integer\"],\"items\":{\"type\":\"integer\",\"minimum\":1},"
+				+ "\"maxItems\":3,\"uniqueItems\":true},"
+				+ "\"tag\":{\"type\":\"array\",\"minItems\":2},"
+				+ "\"page\":{\"type\":\"integer\"},\"n\":{\"type\":\"number\",\"enum\":[1.5,2]},"
+				+ "\"a\":{\"enum\":[true,null,1]},\"b\":{\"type\":[\"boolean\",\"integer\"],\"enum\":[true,1]}}}",
+				"{\"required\":[\"s\"],\"additionalProperties\":false,\"properties\":{"
+						+ "\"s\":{\"maxLength\":1,\"pattern\":\"^a\",\"enum\":[\"a\"]},"
+						+ "\"i\":{\"type\":\"integer\",\"minimum\":5,\"maximum\":1,\"enum\":[2],\"pattern\":\"^1\"}}}"};
+		String[][] requests = {{"token", "abc", "page", "1"}, {"token", "abc", "page", "1", "page", "x"},
+				{"token", "abc", "page", "1.5"}, {"token", "abc", "page", "1", "debug", "true", "ratio", "0.5"},
+				{"token", "abc", "page", "1", "debug", "yes"}, {"token", "abc", "page", "1", "sort", "asc", "sort", "up"},
+				{"id", "1"}, {"id", "a"}, {"id", "1", "id", "2"}, {"id", "1", "id", "1"}, {"id", "1", "id", "0"},
+				{"id", "1", "id", "2", "id", "3", "id", "4"}, {"tag", "a"}, {"tag", "a", "tag", "b"}, {"n", "2"},
+				{"n", "1.5"}, {"n", "1.50"}, {"n", "3"}, {"a", "true"}, {"a", "1"}, {"b", "true"}, {"b", "1"},
+				{"b", "false"}, {"b", "1.0e0"}, {"s", "bcd"}, {"s", "a"}, {"s", "\ud83d\ude00"}, {"s", "a", "i", "3"},
+				{"s", "a", "i", "x"}, {"s", "a", "i", "1.5"}, {"i", "3"}, {"s", "bcd", "i", "3", "other", "x"},
+				{"s", "a", "other", "x"}};
+		for(String schemaText : schemas) {
+			FieldSchema schema = compile(schemaText);
+			JsonSchema treeSchema = JsonSchemaFactory.byDefault().getJsonSchema(JsonLoader.fromString(schemaText));
+			for(String[] params : requests) {
+				MockHttpServletRequest request = request(params);
+				String message = schemaText + " " + Arrays.toString(params);
+				List<String> errors = errors(schema.validate(request, SchemaLocationConstants.PARAM, false));
+				assertEquals(message, errors(treeSchema.validate(schema.readTree(request, SchemaLocationConstants.PARAM))),
+						errors);
+				assertEquals(message, Math.min(errors.size(), 1),
+						count(schema.validate(request, SchemaLocationConstants.PARAM, true)));
+			}
+		}
+	}
+
+	@Test
+	public void testLengthCountsChars() throws Exception {
+		// The tree based validator counts a character outside the basic plane as two
+		FieldSchema schema = compile("{\"properties\":{\"s\":{\"maxLength\":1}}}");
+		assertEquals("[maxLength]", keywords(validate(schema, "s", "\ud83d\ude00")));
+		assertTrue(validate(schema, "s", "\u00e9").isSuccess());
+	}
+
+	@Test
+	public void testReadTreeHeaders() throws Exception {
+		FieldSchema schema = compile("{\"minProperties\":1,\"properties\":{\"token\":{\"type\":\"integer\"},"
+				+ "\"accept\":{\"type\":\"array\"}}}");
+		assertFalse(schema.isCompiled());
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Token", "12");
+		request.addHeader("Token", "x");
+		request.addHeader("Accept", "text/plain");
+		request.addHeader("Other", "x");
+		assertEquals("{\"token\":12,\"accept\":[\"text/plain\"],\"Other\":\"x\"}",
+				schema.readTree(request, SchemaLocationConstants.HEADER).toString());
+	}
+
+	@Test
+	public void testUnsupportedSchemasAreNotCompiled() throws Exception {
+		assertFalse(compile("{\"properties\":{\"token\":{\"$ref\":\"#/definitions/token\"}}}").isCompiled());
+		assertFalse(compile("{\"minProperties\":1}").isCompiled());
+		assertFalse(compile("{\"type\":\"array\"}").isCompiled());
+		assertFalse(compile("{\"properties\":{\"ids\":{\"items\":[{\"type\":\"string\"}]}}}").isCompiled());
+		assertFalse(compile("{\"properties\":{\"ids\":{\"items\":{\"type\":\"array\"}}}}").isCompiled());
+		assertFalse(compile("{\"properties\":{\"token\":{\"format\":\"uri\"}}}").isCompiled());
+		assertFalse(compile("{\"$schema\":\"http://json-schema.org/draft-03/schema#\"}").isCompiled());
+		assertTrue(compile("{\"$schema\":\"http://json-schema.org/draft-04/schema#\",\"title\":\"x\"}").isCompiled());
+	}
+
+	private FieldSchema compile(String schema) throws Exception {
+		return FieldSchema.compile("resource:/test", JsonLoader.fromString(schema));
+	}
+
+	private ProcessingReport validate(FieldSchema schema, String... params) throws Exception {
+		return schema.validate(request(params), SchemaLocationConstants.PARAM, false);
+	}
+
+	private MockHttpServletRequest request(String... params) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		for(int x = 0; x < params.length; x += 2) {
+			request.addParameter(params[x], params[x + 1]);
+		}
+		return request;
+	}
+
+	/**
+	 * @return Keyword and instance pointer of every error, sorted
+	 */
+	private List<String> errors(ProcessingReport report) {
+		List<String> errors = new ArrayList<String>();
+		for(ProcessingMessage message : report) {
+			errors.add(message.asJson().path("keyword").asText() + " "
+					+ message.asJson().path("instance").path("pointer").asText());
+		}
+		Collections.sort(errors);
+		return errors;
+	}
+
+	private String keywords(ProcessingReport report) {
+		List<String> keywords = new ArrayList<String>();
+		for(ProcessingMessage message : report) {
+			keywords.add(message.asJson().path("keyword").asText());
+		}
+		return keywords.toString();
+	}
+
+	private int count(ProcessingReport report) {
+		int count = 0;
+		for(ProcessingMessage ignored : report) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,403 @@
+package com.danleinbach.sample.validation.impl;
+
+import com.danleinbach.sample.domain.ValidationResponse;
+import com.danleinbach.sample.exception.JsonSchemaValidationException;
+import com.danleinbach.sample.metrics.RouteMetrics;
+import com.danleinbach.sample.validation.ValidationResultCache;
+import com.danleinbach.sample.validation.compiled.CompiledValidationEngine;
+import com.danleinbach.sample.validation.engine.EngineSchema;
+import com.danleinbach.sample.validation.engine.FgeValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngine;
+import com.danleinbach.sample.validation.engine.ValidationEngineException;
+import com.danleinbach.sample.validation.engine.ValidationResult;
+import com.danleinbach.sample.wrapper.BodyBuffer;
+import com.danleinbach.sample.wrapper.BufferPool;
+import com.danleinbach.sample.wrapper.ContentDecoder;
+import com.danleinbach.sample.wrapper.ReloadableHttpServletRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Iterables;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class DefaultJsonSchemaValidationProcessorTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+	private DefaultJsonSchemaValidationProcessor processor;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws Exception {
+		processor = new DefaultJsonSchemaValidationProcessor();
+		processor.setSchemaRoot("/");
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+		processor.stopWatchingSchemaDirectory();
+	}
+
+	@Test
+	public void testValidateSectionsConcurrently() throws Exception {
+		processor.setSectionExecutor(executor);
+
+		ValidationResponse valid = processor.validateRequest(
+				request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc"));
+		ValidationResponse invalid = processor.validateRequest(request("{\"userName\":\"dan\"}", null));
+
+		assertTrue(valid.isSuccess());
+		assertNotNull(valid.getHeaderReport());
+		assertNull(valid.getParamReport());
+		assertFalse(invalid.isSuccess());
+		assertFalse(invalid.getBodyReport().isSuccess());
+		assertFalse(invalid.getHeaderReport().isSuccess());
+	}
+
+	@Test
+	public void testValidateSectionsConcurrentlyCancelOnFailure() throws Exception {
+		processor.setSectionExecutor(executor);
+		processor.setCancelOnFailure(true);
+
+		ValidationResponse response = processor.validateRequest(request("{\"userName\":\"dan\"}", null));
+
+		assertFalse(response.isSuccess());
+		assertEquals(1, (response.getBodyReport() == null ? 0 : 1) + (response.getHeaderReport() == null ? 0 : 1));
+	}
+
+	@Test
+	public void testCancelledSectionsFinishBeforeReturning() throws Exception {
+		final CountDownLatch headerStarted = new CountDownLatch(1);
+		final AtomicBoolean headerFinished = new AtomicBoolean();
+		processor = new DefaultJsonSchemaValidationProcessor() {
+			@Override
+			protected ValidationResult validateRequestBody(HttpServletRequest request)
+					throws JsonSchemaValidationException {
+				try {
+					headerStarted.await(5, TimeUnit.SECONDS);
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.validateRequestBody(request);
+			}
+
+			@Override
+			protected ValidationResult validateRequestHeaders(HttpServletRequest request)
+					throws JsonSchemaValidationException {
+				headerStarted.countDown();
+				// Keeps reading the request after it is cancelled, like a validator that ignores interrupts
+				long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+				while(System.nanoTime() < end) {
+					request.getHeader("token");
+				}
+				headerFinished.set(true);
+				return super.validateRequestHeaders(request);
+			}
+		};
+		processor.setSchemaRoot("/");
+		processor.setSectionExecutor(executor);
+		processor.setCancelOnFailure(true);
+
+		ValidationResponse response = processor.validateRequest(request("{\"userName\":\"dan\"}", null));
+
+		assertFalse(response.isSuccess());
+		assertNull(response.getHeaderReport());
+		assertTrue(headerFinished.get());
+	}
+
+	@Test
+	public void testRecordMetrics() throws Exception {
+		processor.setRecordMetrics(true);
+		RouteMetrics routeMetrics = new RouteMetrics("POST /index/users/admin");
+		MockHttpServletRequest request = request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc");
+		request.setAttribute("com.danleinbach.sample.routeMetrics", routeMetrics);
+
+		processor.validateRequest(request);
+
+		assertEquals(1, routeMetrics.getHistograms().get("body.parse.nanos").getCount());
+		assertEquals(1, routeMetrics.getHistograms().get("header.validate.nanos").getCount());
+		assertEquals(1, routeMetrics.getHistograms().get("param.resolve.nanos").getCount());
+		assertNull(routeMetrics.getHistograms().get("param.parse.nanos"));
+	}
+
+	@Test
+	public void testFailFast() throws Exception {
+		String body = "{\"userName\":\"a name that is too long\",\"extra\":1}";
+		ValidationResponse exhaustive = processor.validateRequest(request(body, null));
+		processor.setFailFast(true);
+		ValidationResponse failFast = processor.validateRequest(request(body, null));
+
+		assertEquals(2, Iterables.size(exhaustive.getBodyReport()));
+		assertNotNull(exhaustive.getHeaderReport());
+		assertFalse(failFast.isSuccess());
+		assertEquals(1, Iterables.size(failFast.getBodyReport()));
+		assertNull(failFast.getHeaderReport());
+		assertTrue(processor.validateRequest(request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc"))
+				.isSuccess());
+	}
+
+	@Test
+	public void testResultCache() throws Exception {
+		ValidationResultCache resultCache = new ValidationResultCache(10, 0, TimeUnit.SECONDS, 32);
+		processor.setResultCache(resultCache);
+		String body = "{\"userName\":\"dan\"}";
+
+		ValidationResponse first = processor.validateRequest(new ReloadableHttpServletRequest(request(body, "abc")));
+		ValidationResponse second = processor.validateRequest(new ReloadableHttpServletRequest(request(body, "abc")));
+		ValidationResponse other = processor.validateRequest(
+				new ReloadableHttpServletRequest(request("{\"userName\":\"bob\"}", "abc")));
+		ValidationResponse large = processor.validateRequest(
+				new ReloadableHttpServletRequest(request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc")));
+
+		assertFalse(first.isSuccess());
+		assertSame(first.getBodyReport(), second.getBodyReport());
+		assertNotSame(first.getBodyReport(), other.getBodyReport());
+		assertTrue(large.isSuccess());
+		assertEquals(1, resultCache.getStats().hitCount());
+		assertEquals(2, resultCache.getStats().missCount());
+
+		processor.setFailFast(true);
+		assertNotSame(first.getBodyReport(),
+				processor.validateRequest(new ReloadableHttpServletRequest(request(body, "abc"))).getBodyReport());
+
+		// The same bytes buffered compressed are a different body
+		BodyBuffer plain = BodyBuffer.read(new ByteArrayInputStream(body.getBytes()), - 1);
+		BodyBuffer encoded = BodyBuffer.read(new ByteArrayInputStream(body.getBytes()), - 1);
+		encoded.setContentEncoding("gzip");
+		assertEquals(resultCache.key("resource:/body.json", plain), resultCache.key("resource:/body.json", plain));
+		assertFalse(resultCache.key("resource:/body.json", plain).equals(resultCache.key("resource:/body.json", encoded)));
+	}
+
+	@Test
+	public void testCompiledBodyValidation() throws Exception {
+		processor.setCompiledBodyValidation(true);
+		MockHttpServletRequest valid = request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc");
+		String body = "{\"userName\":\"a name that is too long\",\"extra\":1}";
+
+		assertTrue(processor.validateRequest(valid).isSuccess());
+		assertNotNull(valid.getAttribute("com.danleinbach.sample.validatedBody"));
+		assertEquals(2, Iterables.size(processor.validateRequest(request(body, "abc")).getBodyReport()));
+		processor.setFailFast(true);
+		assertEquals(1, Iterables.size(processor.validateRequest(request(body, "abc")).getBodyReport()));
+	}
+
+	@Test
+	public void testCompiledValidationEngine() throws Exception {
+		processor.setValidationEngine(new CompiledValidationEngine());
+		String body = "{\"userName\":\"a name that is too long\",\"extra\":1}";
+
+		assertTrue(processor.validateRequest(request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc"))
+				.isSuccess());
+		ValidationResponse response = processor.validateRequest(request(body, null));
+		assertEquals(2, Iterables.size(response.getBodyReport()));
+		assertEquals("required", response.getBodyReport().getErrors().get(0).getKeyword());
+		assertFalse(response.getHeaderReport().isSuccess());
+		processor.setFailFast(true);
+		assertEquals(1, Iterables.size(processor.validateRequest(request(body, "abc")).getBodyReport()));
+	}
+
+	@Test
+	public void testCompiledBodyValidationWithCompiledEngine() throws Exception {
+		processor.setValidationEngine(new CompiledValidationEngine());
+		processor.setCompiledBodyValidation(true);
+
+		assertTrue(processor.validateRequest(request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc"))
+				.isSuccess());
+		assertFalse(processor.validateRequest(request("{\"userName\":\"dan\"}", "abc")).isSuccess());
+		// The body and header schemas are compiled once each, by the engine
+		assertEquals(2, processor.getSchemaCache().size());
+	}
+
+	@Test
+	public void testCustomValidationEngine() throws Exception {
+		final AtomicInteger validations = new AtomicInteger();
+		processor.setValidationEngine(new ValidationEngine() {
+			private final FgeValidationEngine engine = new FgeValidationEngine();
+
+			@Override
+			public EngineSchema compile(String schemaLocation, boolean failFast) throws ValidationEngineException {
+				final EngineSchema schema = engine.compile(schemaLocation, failFast);
+				return new EngineSchema() {
+					@Override
+					public ValidationResult validate(JsonNode instance) throws ValidationEngineException {
+						validations.incrementAndGet();
+						return schema.validate(instance);
+					}
+				};
+			}
+
+			@Override
+			public ValidationResult checkSchema(JsonNode schema) {
+				return engine.checkSchema(schema);
+			}
+
+			@Override
+			public void reset() {
+				engine.reset();
+			}
+		});
+
+		// Every section is validated by the engine, whichever way the body is set to be validated
+		assertTrue(processor.validateRequest(request("{\"userName\":\"dan\",\"password\":\"secret\"}", "abc"))
+				.isSuccess());
+		processor.setStreamingBodyValidation(true);
+		assertFalse(processor.validateRequest(request("{\"userName\":\"dan\"}", "abc")).isSuccess());
+		processor.setStreamingBodyValidation(false);
+		processor.setCompiledBodyValidation(true);
+		assertFalse(processor.validateRequest(request("{\"userName\":\"dan\"}", null)).isSuccess());
+		assertEquals(6, validations.get());
+	}
+
+	@Test
+	public void testValidateCompressedBody() throws Exception {
+		ContentDecoder decoder = new ContentDecoder(- 1, ContentDecoder.DEFAULT_MAX_RATIO, false);
+		MockHttpServletRequest valid = gzipRequest("{\"userName\":\"dan\",\"password\":\"secret\"}");
+		MockHttpServletRequest invalid = gzipRequest("{\"userName\":\"dan\"}");
+
+		assertTrue(processor.validateRequest(new ReloadableHttpServletRequest(valid, - 1, BufferPool.UNPOOLED, decoder))
+				.isSuccess());
+		assertFalse(processor.validateRequest(new ReloadableHttpServletRequest(invalid, - 1, BufferPool.UNPOOLED,
+				decoder)).isSuccess());
+		processor.setStreamingBodyValidation(true);
+		assertTrue(processor.validateRequest(new ReloadableHttpServletRequest(valid, - 1, BufferPool.UNPOOLED, decoder))
+				.isSuccess());
+	}
+
+	@Test
+	public void testValidateParamsWithTreeValidator() throws Exception {
+		// minProperties is not compiled into fields, the params are read into a tree by the same rules
+		File param = new File(temporaryFolder.getRoot(), "index/users/GET/param.json");
+		FileUtils.writeStringToFile(param, "{\"minProperties\":1,\"properties\":{"
+				+ "\"page\":{\"type\":\"integer\",\"maximum\":10},"
+				+ "\"id\":{\"type\":\"array\",\"items\":{\"type\":\"integer\"}}}}");
+		processor.setSchemaDirectory(temporaryFolder.getRoot());
+
+		assertTrue(processor.validateRequest(getRequest("page", "1", "page", "x")).isSuccess());
+		assertFalse(processor.validateRequest(getRequest("page", "x", "page", "1")).isSuccess());
+		assertFalse(processor.validateRequest(getRequest("page", "11")).isSuccess());
+		assertTrue(processor.validateRequest(getRequest("id", "1", "id", "2")).isSuccess());
+		assertTrue(processor.validateRequest(getRequest("id", "1")).isSuccess());
+		assertFalse(processor.validateRequest(getRequest("id", "1", "id", "a")).isSuccess());
+		assertFalse(processor.validateRequest(getRequest()).isSuccess());
+	}
+
+	@Test
+	public void testWatchSchemaDirectory() throws Exception {
+		// Every change the watcher has applied, as the location of the schema and whether it was kept
+		final BlockingQueue<String> changes = new LinkedBlockingQueue<String>();
+		processor = new DefaultJsonSchemaValidationProcessor() {
+			@Override
+			protected void schemaChanged(String schemaLocation) {
+				super.schemaChanged(schemaLocation);
+				changes.add("changed " + schemaLocation);
+			}
+
+			@Override
+			protected void schemaRejected(String schemaLocation) {
+				super.schemaRejected(schemaLocation);
+				changes.add("rejected " + schemaLocation);
+			}
+
+			@Override
+			protected void schemaRemoved(String schemaLocation) {
+				super.schemaRemoved(schemaLocation);
+				changes.add("removed " + schemaLocation);
+			}
+		};
+		File body = new File(temporaryFolder.getRoot(), "index/users/POST/body.json");
+		FileUtils.writeStringToFile(body, "{\"type\":\"object\"}");
+		processor.setSchemaDirectory(temporaryFolder.getRoot());
+		processor.watchSchemaDirectory();
+		assertFalse(processor.validateRequest(request("[]", null)).isSuccess());
+		assertTrue(processor.validateRequest(request("{}", null)).isSuccess());
+
+		FileUtils.writeStringToFile(body, "{\"type\":\"object\",\"required\":[\"userName\"]}");
+		awaitChange(changes, "changed");
+		assertFalse(processor.validateRequest(request("{}", null)).isSuccess());
+		assertTrue(processor.validateRequest(request("{\"userName\":\"dan\"}", null)).isSuccess());
+
+		// A schema that is not valid keeps the previous version in use
+		FileUtils.writeStringToFile(body, "{\"type\":7}");
+		awaitChange(changes, "rejected");
+		assertFalse(processor.validateRequest(request("{}", null)).isSuccess());
+		assertTrue(processor.validateRequest(request("{\"userName\":\"dan\"}", null)).isSuccess());
+
+		FileUtils.forceDelete(body);
+		awaitChange(changes, "removed");
+		assertNull(processor.getSchemaIndex().lookupRoute("POST", "/app/index/users"));
+		assertTrue(processor.validateRequest(request("[]", null)).isSuccess());
+	}
+
+	/**
+	 * Wait for the watcher to apply a change to the body schema, skipping the changes it applied before it.
+	 */
+	private void awaitChange(BlockingQueue<String> changes, String kind) throws InterruptedException {
+		String change;
+		do {
+			change = changes.poll(10, TimeUnit.SECONDS);
+		}
+		while(change != null && ! (change.startsWith(kind + " ") && change.endsWith("/index/users/POST/body.json")));
+		assertNotNull("No schema " + kind, change);
+	}
+
+	private MockHttpServletRequest gzipRequest(String body) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		GZIPOutputStream outputStream = new GZIPOutputStream(bytes);
+		outputStream.write(body.getBytes());
+		outputStream.close();
+		MockHttpServletRequest request = request("", "abc");
+		request.addHeader("Content-Encoding", "gzip");
+		request.setContent(bytes.toByteArray());
+		return request;
+	}
+
+	private MockHttpServletRequest getRequest(String... params) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/index/users");
+		for(int x = 0; x < params.length; x += 2) {
+			request.addParameter(params[x], params[x + 1]);
+		}
+		return request;
+	}
+
+	private MockHttpServletRequest request(String body, String token) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/index/users/admin");
+		request.setContent(body.getBytes());
+		if(token != null) {
+			request.addHeader("token", token);
+		}
+		return request;
+	}
+}
@@ -0,0 +1,198 @@
+package com.danleinbach.sample.validation.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.github.fge.jsonschema.report.ProcessingMessage;
+import com.github.fge.jsonschema.report.ProcessingReport;
+import com.github.fge.jsonschema.util.JsonLoader;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class StreamingSchemaTest {
+
+	private static final String SCHEMA = "{\"type\":\"object\",\"required\":[\"name\",\"age\"],"
+			+ "\"additionalProperties\":false,\"properties\":{"
+			+ "\"name\":{\"type\":\"string\",\"minLength\":2,\"maxLength\":8,\"pattern\":\"^[a-z]+$\"},"
+			+ "\"age\":{\"type\":\"integer\",\"minimum\":0,\"maximum\":150,\"exclusiveMaximum\":true},"
+			+ "\"role\":{\"enum\":[\"admin\",\"user\",1,null]},"
+			+ "\"tags\":{\"type\":\"array\",\"maxItems\":2,\"items\":{\"type\":\"string\"}},"
+			+ "\"emails\":{\"type\":\"array\",\"uniqueItems\":true},"
+			+ "\"score\":{\"type\":[\"number\",\"null\"]}}}";
+
+	private static final String[] INSTANCES = {
+			"{\"name\":\"dan\",\"age\":30}",
+			"{\"name\":\"dan\",\"age\":30,\"role\":\"admin\",\"tags\":[\"a\",\"b\"],\"score\":1.5}",
+			"{\"name\":\"dan\",\"age\":30,\"role\":1.0,\"score\":null,\"emails\":[\"a\",\"b\"]}",
+			"{\"name\":\"dan\"}",
+			"{\"name\":\"d\",\"age\":30}",
+			"{\"name\":\"daniellong\",\"age\":30}",
+			"{\"name\":\"Dan\",\"age\":30}",
+			"{\"name\":\"dan\\n\",\"age\":30}",
+			"{\"name\":\"dan\\r\\n\",\"age\":30}",
+			"{\"name\":\"dan\",\"age\":150}",
+			"{\"name\":\"dan\",\"age\":-1}",
+			"{\"name\":\"dan\",\"age\":30.5}",
+			"{\"name\":\"dan\",\"age\":30,\"role\":\"guest\"}",
+			"{\"name\":\"dan\",\"age\":30,\"role\":{}}",
+			"{\"name\":\"dan\",\"age\":30,\"role\":[1]}",
+			"{\"name\":\"dan\",\"age\":30,\"role\":{\"name\":[\"admin\"]},\"score\":[]}",
+			"{\"name\":\"dan\",\"age\":30,\"tags\":[\"a\",\"b\",\"c\"]}",
+			"{\"name\":\"dan\",\"age\":30,\"tags\":[\"a\",2]}",
+			"{\"name\":\"dan\",\"age\":30,\"emails\":[\"a\",\"a\"]}",
+			"{\"name\":\"dan\",\"age\":30,\"score\":\"high\"}",
+			"{\"name\":\"dan\",\"age\":30,\"other\":{\"a\":[1,2]}}",
+			"[\"name\",\"age\"]",
+			"\"name\""
+	};
+
+	private static final String[] KEYS = {"name", "age", "role", "tags", "emails", "score", "other"};
+	private static final String[] STRINGS = {"", "d", "dan", "Dan", "admin", "user", "daniellong", "dan\n", "\nda"};
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+
+	@Test
+	public void testValidateMatchesTreeValidation() throws Exception {
+		JsonNode schema = JsonLoader.fromString(SCHEMA);
+		StreamingSchema streamingSchema = compile(schema);
+		assertTrue(streamingSchema.isStreamable());
+
+		for(String instance : INSTANCES) {
+			ProcessingReport expected = factory.getJsonSchema(schema).validate(JsonLoader.fromString(instance));
+			ProcessingReport actual = validate(streamingSchema, instance, false);
+			assertEquals(instance, expected.isSuccess(), actual.isSuccess());
+			assertEquals(instance, count(expected), count(actual));
+		}
+	}
+
+	@Test
+	public void testValidateRandomDocumentsMatchesTreeValidation() throws Exception {
+		JsonNode schema = JsonLoader.fromString(SCHEMA);
+		StreamingSchema streamingSchema = compile(schema);
+		Random random = new Random(1018);
+
+		for(int x = 0; x < 500; x++) {
+			JsonNode instance = randomObject(random, 0);
+			ProcessingReport expected = factory.getJsonSchema(schema).validate(instance);
+			ProcessingReport actual = validate(streamingSchema, instance.toString(), false);
+			assertEquals(instance.toString(), expected.isSuccess(), actual.isSuccess());
+			assertEquals(instance.toString(), expected.isSuccess(),
+					validate(streamingSchema, instance.toString(), true).isSuccess());
+		}
+	}
+
+	@Test
+	public void testValidateFailFastStopsAtFirstError() throws Exception {
+		StreamingSchema streamingSchema = compile(JsonLoader.fromString(SCHEMA));
+
+		ProcessingReport report = validate(streamingSchema, "{\"name\":\"D\",\"age\":-1,\"other\":true}", true);
+
+		assertFalse(report.isSuccess());
+		assertEquals(1, count(report));
+	}
+
+	@Test
+	public void testValidateFallbackPointsIntoDocument() throws Exception {
+		StreamingSchema streamingSchema = compile(JsonLoader.fromString(SCHEMA));
+
+		ProcessingReport report = validate(streamingSchema, "{\"name\":\"dan\",\"age\":30,\"emails\":[\"a\",\"a\"]}",
+				false);
+
+		assertEquals("/emails", report.iterator().next().asJson().path("instance").path("pointer").asText());
+	}
+
+	@Test
+	public void testCompileRefUsesTreeValidation() throws Exception {
+		JsonNode schema = JsonLoader.fromString("{\"definitions\":{\"name\":{\"type\":\"string\"}},"
+				+ "\"properties\":{\"name\":{\"$ref\":\"#/definitions/name\"}}}");
+		StreamingSchema streamingSchema = compile(schema);
+
+		assertFalse(streamingSchema.isStreamable());
+		assertTrue(validate(streamingSchema, "{\"name\":\"dan\"}", false).isSuccess());
+		assertFalse(validate(streamingSchema, "{\"name\":1}", false).isSuccess());
+	}
+
+	@Test
+	public void testValidateLengthCountsChars() throws Exception {
+		JsonNode schema = JsonLoader.fromString("{\"properties\":{\"s\":{\"maxLength\":1}}}");
+		StreamingSchema streamingSchema = compile(schema);
+		String instance = "{\"s\":\"\ud83d\ude00\"}";
+
+		assertTrue(streamingSchema.isStreamable());
+		assertFalse(validate(streamingSchema, instance, false).isSuccess());
+		assertFalse(factory.getJsonSchema(schema).validate(JsonLoader.fromString(instance)).isSuccess());
+		assertTrue(validate(streamingSchema, "{\"s\":\"\u00e9\"}", false).isSuccess());
+	}
+
+	@Test(expected = IOException.class)
+	public void testValidateEmptyBody() throws Exception {
+		validate(compile(JsonLoader.fromString(SCHEMA)), "", false);
+	}
+
+	private StreamingSchema compile(JsonNode schema) throws Exception {
+		return StreamingSchema.compile("test", schema, factory.getJsonSchema(schema), factory);
+	}
+
+	private ProcessingReport validate(StreamingSchema schema, String instance, boolean failFast) throws Exception {
+		return schema.validate(objectMapper.getFactory().createParser(instance), failFast);
+	}
+
+	private JsonNode randomValue(Random random, int depth) {
+		switch(random.nextInt(depth < 2 ? 7 : 5)) {
+			case 0:
+				return JsonNodeFactory.instance.textNode(STRINGS[random.nextInt(STRINGS.length)]);
+			case 1:
+				return JsonNodeFactory.instance.numberNode(random.nextInt(200) - 20);
+			case 2:
+				return JsonNodeFactory.instance.numberNode(random.nextInt(8) / 4.0);
+			case 3:
+				return random.nextBoolean() ? JsonNodeFactory.instance.nullNode()
+						: JsonNodeFactory.instance.booleanNode(random.nextBoolean());
+			case 4:
+				return JsonNodeFactory.instance.textNode(STRINGS[random.nextInt(3)]);
+			case 5:
+				return randomArray(random, depth + 1);
+			default:
+				return randomObject(random, depth + 1);
+		}
+	}
+
+	private ObjectNode randomObject(Random random, int depth) {
+		ObjectNode object = JsonNodeFactory.instance.objectNode();
+		for(int x = random.nextInt(5); x > 0; x--) {
+			object.put(KEYS[random.nextInt(KEYS.length)], randomValue(random, depth));
+		}
+		return object;
+	}
+
+	private ArrayNode randomArray(Random random, int depth) {
+		ArrayNode array = JsonNodeFactory.instance.arrayNode();
+		for(int x = random.nextInt(4); x > 0; x--) {
+			array.add(randomValue(random, depth));
+		}
+		return array;
+	}
+
+	private int count(ProcessingReport report) {
+		int count = 0;
+		for(ProcessingMessage ignored : report) {
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,98 @@
+package com.danleinbach.sample.wrapper;
+
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class BodyBufferTest {
+
+	@Test
+	public void testReadAcrossChunks() throws Exception {
+		byte[] body = randomBody(BufferPool.CHUNK_SIZE * 2 + 17);
+
+		BodyBuffer heap = BodyBuffer.read(new ByteArrayInputStream(body), - 1, new BufferPool(4));
+		BodyBuffer direct = BodyBuffer.read(new ByteArrayInputStream(body), - 1, new BufferPool(4, true));
+
+		assertEquals(body.length, heap.size());
+		assertArrayEquals(body, IOUtils.toByteArray(heap.newInputStream()));
+		assertArrayEquals(body, IOUtils.toByteArray(heap.newInputStream()));
+		assertArrayEquals(body, IOUtils.toByteArray(direct.newInputStream()));
+		assertEquals(body[0] & 0xff, direct.newInputStream().read());
+	}
+
+	@Test
+	public void testReleaseReturnsChunksToPool() throws Exception {
+		BufferPool pool = new BufferPool(2);
+		BodyBuffer buffer = BodyBuffer.read(new ByteArrayInputStream(randomBody(BufferPool.CHUNK_SIZE * 3)), - 1, pool);
+		assertEquals(0, pool.getPooledChunks());
+
+		buffer.release();
+		buffer.release();
+
+		assertTrue(buffer.isReleased());
+		assertEquals(2, pool.getPooledChunks());
+		BodyBuffer.read(new ByteArrayInputStream(randomBody(10)), - 1, pool);
+		assertEquals(1, pool.getPooledChunks());
+	}
+
+	@Test
+	public void testTooLargeReleasesChunks() throws Exception {
+		BufferPool pool = new BufferPool(4);
+		try {
+			BodyBuffer.read(new ByteArrayInputStream(randomBody(BufferPool.CHUNK_SIZE + 1)), BufferPool.CHUNK_SIZE, pool);
+			fail("Expected the body to be rejected");
+		} catch(RequestBodyTooLarge e) {
+			assertEquals(BufferPool.CHUNK_SIZE, e.getMaxBodyBytes());
+		}
+		assertEquals(2, pool.getPooledChunks());
+	}
+
+	@Test
+	public void testBulkAccess() throws Exception {
+		byte[] body = randomBody(BufferPool.CHUNK_SIZE + 100);
+		BodyBuffer buffer = BodyBuffer.read(new ByteArrayInputStream(body), - 1, new BufferPool(4, true));
+
+		ServletInputStreamImpl stream = new ServletInputStreamImpl(buffer.newInputStream());
+		assertEquals(body.length, stream.available());
+		assertEquals(BufferPool.CHUNK_SIZE + 50, stream.skip(BufferPool.CHUNK_SIZE + 50));
+		assertEquals(50, stream.available());
+		assertArrayEquals(Arrays.copyOfRange(body, BufferPool.CHUNK_SIZE + 50, body.length), stream.readAllBytes());
+		assertTrue(stream.isFinished());
+		assertEquals(- 1, stream.read(new byte[10], 0, 10));
+
+		assertArrayEquals(body, buffer.toByteArray());
+		ByteBuffer[] buffers = buffer.asReadOnlyBuffers();
+		assertEquals(2, buffers.length);
+		assertEquals(BufferPool.CHUNK_SIZE, buffers[0].remaining());
+		assertEquals(100, buffers[1].remaining());
+		assertEquals(body[BufferPool.CHUNK_SIZE], buffers[1].get(0));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReadAfterRelease() throws Exception {
+		BodyBuffer buffer = BodyBuffer.read(new ByteArrayInputStream(randomBody(10)), - 1);
+		buffer.release();
+		buffer.newInputStream();
+	}
+
+	private byte[] randomBody(int length) {
+		byte[] body = new byte[length];
+		new Random(length).nextBytes(body);
+		return body;
+	}
+}
@@ -0,0 +1,174 @@
+package com.danleinbach.sample.wrapper;
+
+import com.danleinbach.sample.exception.RequestBodyTooCompressed;
+import com.danleinbach.sample.exception.RequestBodyTooLarge;
+import com.danleinbach.sample.exception.UnsupportedContentEncoding;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.fail;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created: 10/18/26
+ *
+ * @author Daniel
+ */
+public class ContentDecoderTest {
+
+	private static final String BODY = "{\"userName\":\"dan\",\"password\":\"secret\"}";
+
+	private final ContentDecoder decoder = new ContentDecoder(- 1, ContentDecoder.DEFAULT_MAX_RATIO, true);
+
+	@Test
+	public void testGetContentEncoding() throws Exception {
+		assertNull(ContentDecoder.getContentEncoding(request(null, BODY.getBytes())));
+		assertNull(ContentDecoder.getContentEncoding(request("identity", BODY.getBytes())));
+		assertEquals("gzip", ContentDecoder.getContentEncoding(request(" GZIP", BODY.getBytes())));
+		assertEquals("gzip", ContentDecoder.getContentEncoding(request("x-gzip", BODY.getBytes())));
+		assertEquals("deflate", ContentDecoder.getContentEncoding(request("deflate", BODY.getBytes())));
+	}
+
+	@Test(expected = UnsupportedContentEncoding.class)
+	public void testGetContentEncodingUnsupported() throws Exception {
+		ContentDecoder.getContentEncoding(request("br", BODY.getBytes()));
+	}
+
+	@Test
+	public void testDecode() throws Exception {
+		assertEquals(BODY, decode("gzip", gzip(BODY.getBytes()), - 1));
+		assertEquals(BODY, decode("deflate", deflate(BODY.getBytes(), false), - 1));
+		assertEquals(BODY, decode("deflate", deflate(BODY.getBytes(), true), - 1));
+	}
+
+	@Test
+	public void testDecodeLimits() throws Exception {
+		byte[] spaces = new byte[1024 * 1024];
+		Arrays.fill(spaces, (byte) ' ');
+
+		try {
+			decode("gzip", gzip(spaces), 1000);
+			fail();
+		} catch(ContentDecoder.LimitExceeded e) {
+			assertTrue(e.getRejection() instanceof RequestBodyTooLarge);
+		}
+		try {
+			decode("gzip", gzip(spaces), - 1);
+			fail();
+		} catch(ContentDecoder.LimitExceeded e) {
+			assertTrue(e.getRejection() instanceof RequestBodyTooCompressed);
+		}
+		assertEquals(spaces.length, IOUtils.toByteArray(new ContentDecoder(- 1, 0, true)
+				.decode(new ByteArrayInputStream(gzip(spaces)), "gzip", - 1)).length);
+	}
+
+	@Test
+	public void testForwardDecodedBody() throws Exception {
+		MockHttpServletRequest request = request("gzip", gzip(BODY.getBytes()));
+		request.addHeader("token", "abc");
+		ReloadableHttpServletRequest reloadable = new ReloadableHttpServletRequest(request, - 1, BufferPool.UNPOOLED,
+				decoder);
+
+		assertEquals(BODY, IOUtils.toString(reloadable.getInputStream()));
+		assertEquals(BODY, IOUtils.toString(reloadable.getDecodedInputStream()));
+		assertNull(reloadable.getHeader("Content-Encoding"));
+		assertFalse(reloadable.getHeaders("content-encoding").hasMoreElements());
+		assertFalse(Collections.list(reloadable.getHeaderNames()).contains("Content-Encoding"));
+		assertEquals(BODY.length(), reloadable.getContentLength());
+	}
+
+	@Test
+	public void testForwardDecodedBodyLimitsEncodedBytes() throws Exception {
+		// Empty stored deflate blocks decode to nothing, so only the size of the body as sent can stop them
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(new byte[]{0x78, 0x01});
+		for(int x = 0; x < 1000; x++) {
+			bytes.write(new byte[]{0x00, 0x00, 0x00, (byte) 0xff, (byte) 0xff});
+		}
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/index/users/admin") {
+			@Override
+			public long getContentLengthLong() {
+				// Chunked, no content length is declared
+				return - 1;
+			}
+		};
+		request.addHeader("Content-Encoding", "deflate");
+		request.setContent(bytes.toByteArray());
+
+		try {
+			new ReloadableHttpServletRequest(request, 1000, BufferPool.UNPOOLED, decoder);
+			fail();
+		} catch(RequestBodyTooLarge e) {
+			assertEquals(1000, e.getMaxBodyBytes());
+		}
+	}
+
+	@Test
+	public void testForwardEncodedBody() throws Exception {
+		byte[] encoded = gzip(BODY.getBytes());
+		ReloadableHttpServletRequest reloadable = new ReloadableHttpServletRequest(request("gzip", encoded), - 1,
+				BufferPool.UNPOOLED, new ContentDecoder(- 1, ContentDecoder.DEFAULT_MAX_RATIO, false));
+
+		assertTrue(Arrays.equals(encoded, IOUtils.toByteArray(reloadable.getInputStream())));
+		assertEquals(BODY, IOUtils.toString(reloadable.getDecodedInputStream()));
+		assertEquals("gzip", reloadable.getHeader("Content-Encoding"));
+	}
+
+	@Test
+	public void testDecodeBodyBuffer() throws Exception {
+		BodyBuffer body = BodyBuffer.read(new ByteArrayInputStream(gzip(BODY.getBytes())), - 1);
+		body.setContentEncoding("gzip");
+		body.decode(decoder, - 1);
+
+		assertNull(body.getContentEncoding());
+		assertEquals(BODY, new String(body.toByteArray()));
+
+		ReloadableHttpServletRequest reloadable = new ReloadableHttpServletRequest(request("gzip", new byte[0]), body,
+				decoder, - 1);
+		assertNull(reloadable.getHeader("Content-Encoding"));
+		assertEquals(BODY, IOUtils.toString(reloadable.getDecodedInputStream()));
+	}
+
+	private String decode(String encoding, byte[] encoded, long maxDecodedBytes) throws Exception {
+		return new String(IOUtils.toByteArray(decoder.decode(new ByteArrayInputStream(encoded), encoding,
+				maxDecodedBytes)));
+	}
+
+	private MockHttpServletRequest request(String contentEncoding, byte[] body) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/app/index/users/admin");
+		if(contentEncoding != null) {
+			request.addHeader("Content-Encoding", contentEncoding);
+		}
+		request.setContent(body);
+		return request;
+	}
+
+	private static byte[] gzip(byte[] body) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OutputStream outputStream = new GZIPOutputStream(bytes);
+		outputStream.write(body);
+		outputStream.close();
+		return bytes.toByteArray();
+	}
+
+	private static byte[] deflate(byte[] body, boolean raw) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		OutputStream outputStream = new DeflaterOutputStream(bytes, new Deflater(Deflater.DEFAULT_COMPRESSION, raw));
+		outputStream.write(body);
+		outputStream.close();
+		return bytes.toByteArray();
+	}
+}